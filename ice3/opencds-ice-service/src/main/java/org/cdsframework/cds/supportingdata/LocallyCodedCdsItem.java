@@ -1,5 +1,6 @@
 package org.cdsframework.cds.supportingdata;
 
+import java.io.Serializable;
 import java.util.Collection;
 
 
@@ -9,7 +10,7 @@ import org.cdsframework.cds.CdsConcept;
 import org.cdsframework.cds.ConceptUtils;
 import org.opencds.common.exceptions.ImproperUsageException;
 
-public abstract class LocallyCodedCdsItem {
+public abstract class LocallyCodedCdsItem implements Serializable {
 
 	private String cdsItemName;
 	private CdsConcept cdsConcept;
@@ -26,6 +26,7 @@
  
 package org.cdsframework.cds.supportingdata;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -40,7 +41,7 @@ import org.opencds.common.exceptions.ImproperUsageException;
 import org.opencds.vmr.v1_0.internal.datatypes.CD;
 
 
-public class LocallyCodedCdsListItem {
+public class LocallyCodedCdsListItem implements Serializable {
 
 	/**
 	 * Local codes mapped to concepts 
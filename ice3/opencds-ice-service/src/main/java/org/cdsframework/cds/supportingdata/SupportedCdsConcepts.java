@@ -1,5 +1,6 @@
 package org.cdsframework.cds.supportingdata;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EnumMap;
@@ -22,7 +23,7 @@ import org.cdsframework.ice.supportingdata.ICEConceptType;
  * per ICEConceptType. This latter requirement is so that, on output for a request, the ICE response may be output using the locally coded values required by the client. 
  * FUTURE enhancement: OpenCDS concepts may continue to be associated with multiple cdsListItems.
  */
-public class SupportedCdsConcepts {
+public class SupportedCdsConcepts implements Serializable {
 
 	private Map<ICEConceptType, Map<CdsConcept, LocallyCodedCdsListItem>> iceConceptTypeToConceptCdsListItemMap;	// ICEConceptType -> (map of cds concepts -> cdsListItem)  
 	private Map<LocallyCodedCdsListItem, Set<CdsConcept>> cdsListItemToConceptList;									// cdsListItem -> map of all OpenCDS and non-OpenCDS concepts
@@ -1,7 +1,9 @@
 package org.cdsframework.cds.supportingdata;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -24,7 +26,7 @@ import org.opencds.vmr.v1_0.internal.datatypes.CD;
 /**
  * Creates and manages CdsLists, CdsListItems, and SupportedCdsConcepts.
  */
-public class SupportedCdsLists implements SupportingData {
+public class SupportedCdsLists implements SupportingData, Serializable {
 	
 	/**
 	 * Representative of a concept and one associated local code, that can be represented by an enumeration as follows (for example):
@@ -389,6 +391,16 @@ public class SupportedCdsLists implements SupportingData {
 			return lSLCI;
 		}
 	}
+
+	
+	/**
+	 * Obtain all of the CdsListItems tracked by this class.
+	 * @return unmodifiable Collection of the CdsListItems; empty if there are none
+	 */
+	public Collection<LocallyCodedCdsListItem> getAllCdsListItems() {
+		
+		return Collections.unmodifiableCollection(cdsListItemNameToCdsListItem.values());
+	}
 	
 	
 	@Override
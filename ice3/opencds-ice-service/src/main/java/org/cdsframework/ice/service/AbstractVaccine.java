@@ -26,13 +26,15 @@
 
 package org.cdsframework.ice.service;
 
+import java.io.Serializable;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.cdsframework.cds.CdsConcept;
 import org.cdsframework.ice.util.TimePeriod;
 
 
-public abstract class AbstractVaccine {
+public abstract class AbstractVaccine implements Serializable {
 
 	private CdsConcept cdsConcept;
 	/////// private String cdsListItemName;
@@ -26,6 +26,7 @@
 
 package org.cdsframework.ice.service;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -44,7 +45,7 @@ import org.kie.api.definition.type.ClassReactive;
  * capability is needed.
  */
 @ClassReactive
-public class DoseRule {
+public class DoseRule implements Serializable {
 
 	private String uniqueId;
 	private int doseNumber;
@@ -32,7 +32,6 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.List;
-import java.util.UUID;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.opencds.common.exceptions.InvalidDataException;
@@ -42,6 +41,8 @@ public class ICELogicHelper {
 
 	private static final Logger logger = LogManager.getLogger();
 
+	private static volatile UniqueIdStrategy uniqueIdStrategy = new SequentialUniqueIdStrategy();
+
 
 	public static void logDRLDebugMessage(String pDRLRule, String pMessageToLog) {
 
@@ -51,8 +52,52 @@ public class ICELogicHelper {
 	}
 
 
+	/**
+	 * Identifier of an object created during an evaluation, generated by the configured UniqueIdStrategy (sequential unless set
+	 * otherwise)
+	 */
 	public static String generateUniqueString() {
-		return UUID.randomUUID().toString();
+		return uniqueIdStrategy.generateUniqueId();
+	}
+
+
+	public static UniqueIdStrategy getUniqueIdStrategy() {
+		return uniqueIdStrategy;
+	}
+
+
+	public static void setUniqueIdStrategy(UniqueIdStrategy pUniqueIdStrategy) {
+
+		if (pUniqueIdStrategy == null) {
+			throw new IllegalArgumentException("UniqueIdStrategy cannot be null");
+		}
+		uniqueIdStrategy = pUniqueIdStrategy;
+	}
+
+
+	/**
+	 * Creates the UniqueIdStrategy by name: "sequential" (or null/empty), "uuid", or the name of a class implementing
+	 * UniqueIdStrategy with a no-argument constructor.
+	 * @throws IllegalArgumentException if the strategy cannot be created
+	 */
+	public static UniqueIdStrategy createUniqueIdStrategy(String pStrategyName) {
+
+		String _METHODNAME = "createUniqueIdStrategy(): ";
+		if (pStrategyName == null || pStrategyName.trim().isEmpty() || pStrategyName.trim().equalsIgnoreCase("sequential")) {
+			return new SequentialUniqueIdStrategy();
+		}
+		String lStrategyName = pStrategyName.trim();
+		if (lStrategyName.equalsIgnoreCase("uuid")) {
+			return new UUIDUniqueIdStrategy();
+		}
+		try {
+			return Class.forName(lStrategyName).asSubclass(UniqueIdStrategy.class).getDeclaredConstructor().newInstance();
+		}
+		catch (ReflectiveOperationException | ClassCastException e) {
+			String lErrStr = "Unable to create UniqueIdStrategy " + lStrategyName;
+			logger.error(_METHODNAME + lErrStr, e);
+			throw new IllegalArgumentException(lErrStr, e);
+		}
 	}
 	
 
@@ -568,7 +568,14 @@ public class PayloadHelper {
 						CD localCDInterp = getLocalCodeForRecommendationReason(recommendationReasonCode, this.backingSchedule);
 						if (localCDInterp != null && (rec.getRecommendationStatus() == RecommendationStatus.FORECASTING_COMPLETE || rec.getRecommendationStatus() == rs) && ! interpretations.contains(localCDInterp)) {
 							if (lSupplementalTextFound && outputSupplementalText) {
-								localCDInterp.setOriginalText(rec.getRecommendationSupplementalText());
+								// The CD is shared by all evaluations (see Schedule); output a copy with the supplemental text
+								CD lSupplInterp = new CD();
+								lSupplInterp.setCode(localCDInterp.getCode());
+								lSupplInterp.setCodeSystem(localCDInterp.getCodeSystem());
+								lSupplInterp.setCodeSystemName(localCDInterp.getCodeSystemName());
+								lSupplInterp.setDisplayName(localCDInterp.getDisplayName());
+								lSupplInterp.setOriginalText(rec.getRecommendationSupplementalText());
+								localCDInterp = lSupplInterp;
 							}
 							if (! interpretations.contains(localCDInterp)) {
 								interpretations.add(localCDInterp);
@@ -704,14 +711,14 @@ public class PayloadHelper {
 			return null;
 		}
 
-		LocallyCodedCdsListItem lccli = this.backingSchedule.getICESupportingDataConfiguration().getSupportedVaccineGroups().getCdsListItem(pVG);
-		if (lccli == null) {
+		CD lVaccineGroupCD = this.backingSchedule.getVaccineGroupCD(pVG);
+		if (lVaccineGroupCD == null) {
 			String lErrStr = "No associated LocallyCodedCdsListItem for the supplied LocallyCodedVaccineGroupItem: " + pVG;
 			logger.warn(_METHODNAME + lErrStr);
 			throw new ICECoreError(lErrStr);
 		}
 
-		return lccli.getCdsListItemCD();
+		return lVaccineGroupCD;
 	}
 
 
@@ -749,14 +756,14 @@ public class PayloadHelper {
 			return null;
 		}
 
-		LocallyCodedCdsListItem lcvgi = this.backingSchedule.getICESupportingDataConfiguration().getSupportedVaccineGroups().getCdsListItem(lcvg);
-		if (lcvgi == null) {
+		CD lVaccineGroupCD = this.backingSchedule.getVaccineGroupCD(lcvg);
+		if (lVaccineGroupCD == null) {
 			String lErrStr = "LocallyCodedVaccineGroupItem not found for specified vaccine group in TargetSeries (this should not happen); vaccine group: " + lcvg;
 			logger.error(_METHODNAME + lErrStr);
 			throw new ICECoreError(lErrStr);
 		}
 
-		return lcvgi.getCdsListItemCD();
+		return lVaccineGroupCD;
 	}
 
 
@@ -774,14 +781,14 @@ public class PayloadHelper {
 			return null;
 		}
 
-		LocallyCodedCdsListItem sv = s.getICESupportingDataConfiguration().getSupportedCdsLists().getCdsListItem(pReasonCode);
-		if (sv == null) {
+		CD lReasonCD = s.getCdsListItemCD(pReasonCode);
+		if (lReasonCD == null) {
 			String lErrStr = "reason code supplied is not one that is defined in the supporting data; returning null";
 			logger.warn(_METHODNAME + lErrStr);
 			return null;
 		}
 
-		return sv.getCdsListItemCD();
+		return lReasonCD;
 	}
 
 
@@ -798,18 +805,18 @@ public class PayloadHelper {
 			return null;
 		}
 
-		LocallyCodedCdsListItem sv = s.getICESupportingDataConfiguration().getSupportedCdsLists().getCdsListItem(pReasonCode);
-		if (sv == null) {
+		CD lReasonCD = s.getCdsListItemCD(pReasonCode);
+		if (lReasonCD == null) {
 			String lErrStr = "reason code supplied is not one that is defined in the supporting data; returning null";
 			logger.warn(_METHODNAME + lErrStr);
 			return null;
 		}
-		else if ("EVALUATION_REASON_CONCEPT.UNSPECIFIED_REASON".equals(sv.getCdsListItemName())) {
+		else if ("EVALUATION_REASON_CONCEPT.UNSPECIFIED_REASON".equals(pReasonCode)) {
 			logger.info(_METHODNAME + "Unspecified reason for this this shot; no reason for this evaluated shot will be returned");
 			return null;
 		}
 		else {
-			return sv.getCdsListItemCD();
+			return lReasonCD;
 		}
 	}
 
@@ -826,22 +833,14 @@ public class PayloadHelper {
 			return null;
 		}
 
-		DoseStatus lDoseStatusToReturn = null;
-		if (pDS == DoseStatus.VALID || pDS == DoseStatus.ACCEPTED || pDS == DoseStatus.INVALID || pDS == DoseStatus.NOT_EVALUATED) {
-			lDoseStatusToReturn = pDS;
-		}
-		else {
-			lDoseStatusToReturn = DoseStatus.ACCEPTED;
-		}
-
-		String lCdsListItemName = lDoseStatusToReturn.getCdsListItemName();
-		LocallyCodedCdsListItem sv = s.getICESupportingDataConfiguration().getSupportedCdsLists().getCdsListItem(lCdsListItemName);
-		if (sv == null) {
+		// Statuses other than VALID, ACCEPTED, INVALID and NOT_EVALUATED are output as ACCEPTED (see Schedule)
+		CD lStatusCD = s.getEvaluationStatusCD(pDS);
+		if (lStatusCD == null) {
 			String lErrStr = "status code supplied is not one that is defined in the supporting data; returning null";
 			logger.warn(_METHODNAME + lErrStr);
 			return null;
 		}
-		return sv.getCdsListItemCD();
+		return lStatusCD;
 	}
 
 
@@ -859,24 +858,15 @@ public class PayloadHelper {
 			return null;
 		}
 
-		RecommendationStatus lRecStatusToReturn = null;
-		if (recStatus == RecommendationStatus.RECOMMENDED || recStatus == RecommendationStatus.CONDITIONALLY_RECOMMENDED || recStatus == RecommendationStatus.RECOMMENDED_IN_FUTURE ||
-			recStatus == RecommendationStatus.NOT_RECOMMENDED || recStatus == RecommendationStatus.RECOMMENDATION_NOT_AVAILABLE) {
-			lRecStatusToReturn = recStatus;
-		}
-		else {
-			lRecStatusToReturn = RecommendationStatus.RECOMMENDED;
-		}
-
-		String lCdsListItemName = lRecStatusToReturn.getCdsListItemName();
-		LocallyCodedCdsListItem sv = s.getICESupportingDataConfiguration().getSupportedCdsLists().getCdsListItem(lCdsListItemName);
-		if (sv == null) {
+		// Statuses other than RECOMMENDED, CONDITIONALLY_RECOMMENDED, RECOMMENDED_IN_FUTURE, NOT_RECOMMENDED and RECOMMENDATION_NOT_AVAILABLE are output as RECOMMENDED (see Schedule)
+		CD lStatusCD = s.getRecommendationStatusCD(recStatus);
+		if (lStatusCD == null) {
 			String lErrStr = "status code supplied is not one that is defined in the supporting data; returning null";
 			logger.warn(_METHODNAME + lErrStr);
 			return null;
 		}
 
-		return sv.getCdsListItemCD();
+		return lStatusCD;
 	}
 
 }
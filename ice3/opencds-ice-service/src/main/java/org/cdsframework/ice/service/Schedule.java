@@ -27,9 +27,14 @@
 package org.cdsframework.ice.service;
 
 import java.io.File;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -44,13 +49,19 @@ import org.cdsframework.ice.supportingdata.LocallyCodedVaccineItem;
 import org.cdsframework.ice.supportingdata.SupportedVaccineGroups;
 import org.cdsframework.ice.supportingdata.SupportedVaccines;
 import org.opencds.common.exceptions.ImproperUsageException;
+import org.opencds.vmr.v1_0.internal.datatypes.CD;
 
 
-public class Schedule {
+public class Schedule implements Serializable {
 
 	private String scheduleId;
 	private ICESupportingDataConfiguration iceSupportingDataConfiguration;
 	private boolean scheduleHasBeenInitialized;
+	// Output codes, precomputed from the supporting data when the Schedule is initialized (see initializeOutputCodes())
+	private Map<String, CD> cdsListItemCDs;												// CdsListItem name -> CD
+	private Map<String, CD> vaccineGroupCDs;											// Vaccine group CdsListItem name -> CD
+	private Map<DoseStatus, CD> evaluationStatusCDs;									// DoseStatus -> CD of the evaluation status output for it
+	private Map<RecommendationStatus, CD> recommendationStatusCDs;						// RecommendationStatus -> CD of the recommendation status output for it
 
 	private static final Logger logger = LogManager.getLogger();
 
@@ -80,6 +91,7 @@ public class Schedule {
 		// Initialize the supporting data for the common logic and knowledge modules specified and available
 		/////// this.iceSupportingDataConfiguration = new ICESupportingDataConfiguration(lCommonLogicModuleSubdirectory, pCommonLogicModuleLocation, lKnowledgeModulesSubDirectoryList, pKnowledgeRepositoryLocation);
 		this.iceSupportingDataConfiguration = new ICESupportingDataConfiguration(pCommonLogicModule, pCommonLogicModuleLocation, pKnowledgeModules, pKnowledgeRepositoryLocation);
+		initializeOutputCodes();
 
 		// Log initialization of Schedule
 		StringBuilder lSbScheduleInfo = new StringBuilder(80);
@@ -89,6 +101,107 @@ public class Schedule {
 	}
 
 
+	/**
+	 * Precompute the CDs output for the evaluation and recommendation statuses, reasons and vaccine groups, so that output of results only has to do map lookups.
+	 * The CDs are those of the supporting data's LocallyCodedCdsListItems, and are shared by all of the evaluations of this Schedule; they must not be modified.
+	 */
+	private void initializeOutputCodes() {
+
+		String _METHODNAME = "initializeOutputCodes(): ";
+
+		Map<String, CD> lCdsListItemCDs = new HashMap<String, CD>();
+		for (LocallyCodedCdsListItem lItem : this.iceSupportingDataConfiguration.getSupportedCdsLists().getAllCdsListItems()) {
+			lCdsListItemCDs.put(lItem.getCdsListItemName(), lItem.getCdsListItemCD());
+		}
+		this.cdsListItemCDs = Collections.unmodifiableMap(lCdsListItemCDs);
+
+		Map<String, CD> lVaccineGroupCDs = new HashMap<String, CD>();
+		for (LocallyCodedVaccineGroupItem lVaccineGroupItem : this.iceSupportingDataConfiguration.getSupportedVaccineGroups().getAllVaccineGroupItems()) {
+			CD lCD = lCdsListItemCDs.get(lVaccineGroupItem.getCdsItemName());
+			if (lCD != null) {
+				lVaccineGroupCDs.put(lVaccineGroupItem.getCdsItemName(), lCD);
+			}
+		}
+		this.vaccineGroupCDs = Collections.unmodifiableMap(lVaccineGroupCDs);
+
+		// Statuses that are not output as such are output as ACCEPTED (evaluation) or RECOMMENDED (recommendation)
+		Map<DoseStatus, CD> lEvaluationStatusCDs = new EnumMap<DoseStatus, CD>(DoseStatus.class);
+		for (DoseStatus lDS : DoseStatus.values()) {
+			DoseStatus lDoseStatusToOutput = (lDS == DoseStatus.VALID || lDS == DoseStatus.ACCEPTED || lDS == DoseStatus.INVALID || lDS == DoseStatus.NOT_EVALUATED) ? lDS : DoseStatus.ACCEPTED;
+			CD lCD = lCdsListItemCDs.get(lDoseStatusToOutput.getCdsListItemName());
+			if (lCD != null) {
+				lEvaluationStatusCDs.put(lDS, lCD);
+			}
+		}
+		this.evaluationStatusCDs = Collections.unmodifiableMap(lEvaluationStatusCDs);
+
+		Map<RecommendationStatus, CD> lRecommendationStatusCDs = new EnumMap<RecommendationStatus, CD>(RecommendationStatus.class);
+		for (RecommendationStatus lRS : RecommendationStatus.values()) {
+			RecommendationStatus lRecStatusToOutput = (lRS == RecommendationStatus.RECOMMENDED || lRS == RecommendationStatus.CONDITIONALLY_RECOMMENDED || lRS == RecommendationStatus.RECOMMENDED_IN_FUTURE ||
+				lRS == RecommendationStatus.NOT_RECOMMENDED || lRS == RecommendationStatus.RECOMMENDATION_NOT_AVAILABLE) ? lRS : RecommendationStatus.RECOMMENDED;
+			CD lCD = lCdsListItemCDs.get(lRecStatusToOutput.getCdsListItemName());
+			if (lCD != null) {
+				lRecommendationStatusCDs.put(lRS, lCD);
+			}
+		}
+		this.recommendationStatusCDs = Collections.unmodifiableMap(lRecommendationStatusCDs);
+
+		if (logger.isDebugEnabled()) {
+			logger.debug(_METHODNAME + "Precomputed output codes: " + this.cdsListItemCDs.size() + " CdsListItems; " + this.vaccineGroupCDs.size() + " vaccine groups; " +
+				this.evaluationStatusCDs.size() + " evaluation statuses; " + this.recommendationStatusCDs.size() + " recommendation statuses");
+		}
+	}
+
+
+	/**
+	 * Get the (precomputed, shared) CD of the CdsListItem by name (<CdsListCode>.<CdsListItemName>), or null if there is no such CdsListItem. The CD returned must not be modified.
+	 */
+	public CD getCdsListItemCD(String pCdsListItemName) {
+
+		if (pCdsListItemName == null) {
+			return null;
+		}
+		return this.cdsListItemCDs.get(pCdsListItemName);
+	}
+
+
+	/**
+	 * Get the (precomputed, shared) CD of the vaccine group, or null if there is no such vaccine group. The CD returned must not be modified.
+	 */
+	public CD getVaccineGroupCD(String pVaccineGroupCdsListItemName) {
+
+		if (pVaccineGroupCdsListItemName == null) {
+			return null;
+		}
+		return this.vaccineGroupCDs.get(pVaccineGroupCdsListItemName);
+	}
+
+
+	/**
+	 * Get the (precomputed, shared) CD output as the evaluation status for the DoseStatus, or null if it is not defined in the supporting data. The CD returned must not be modified.
+	 */
+	public CD getEvaluationStatusCD(DoseStatus pDS) {
+
+		if (pDS == null) {
+			return null;
+		}
+		return this.evaluationStatusCDs.get(pDS);
+	}
+
+
+	/**
+	 * Get the (precomputed, shared) CD output as the recommendation status for the RecommendationStatus, or null if it is not defined in the supporting data. The CD returned 
+	 * must not be modified.
+	 */
+	public CD getRecommendationStatusCD(RecommendationStatus pRS) {
+
+		if (pRS == null) {
+			return null;
+		}
+		return this.recommendationStatusCDs.get(pRS);
+	}
+
+
 	/**
 	 * Get SupportedCdsConcepts associated with this schedule
 	 */
@@ -0,0 +1,294 @@
+/**
+ * Copyright (C) 2023 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ *
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see http://www.hln.com/ice or send
+ * correspondence to ice@hln.com.
+ */
+
+package org.cdsframework.ice.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.cdsframework.ice.supportingdata.ICESupportingDataConfiguration;
+import org.cdsframework.ice.util.FileUtils;
+import org.cdsframework.ice.util.ICEVersionUtil;
+
+
+/**
+ * Binary snapshots of fully initialized Schedules, so that later startups need not parse and validate the supporting data XML again. A
+ * snapshot is keyed by a SHA-256 hash of the content of all of the supporting data directories of the Schedule and is used only if the
+ * content, the snapshot format and the ICE version are all unchanged; otherwise (or if the snapshot cannot be read for any reason) the
+ * caller rebuilds the Schedule from the supporting data and stores a new snapshot.
+ *
+ * The hash can be computed from the supporting data, so it does not authenticate a snapshot: the snapshot directory is created
+ * accessible to its owner only, and no snapshot is loaded or stored if it is writable by its group or by others; see
+ * FileUtils.createOwnerOnlyDirectory().
+ */
+public class ScheduleSnapshotCache {
+
+	private static final int SNAPSHOT_FORMAT_VERSION = 1;
+	private static final String SNAPSHOT_FILE_SUFFIX = ".snapshot";
+
+	// Only classes from these packages (and arrays/primitives) may be deserialized from a snapshot
+	private static final List<String> ALLOWED_CLASS_PREFIXES = Collections.unmodifiableList(Arrays.asList("java.", "org.cdsframework.", "org.opencds.", "org.joda.time."));
+
+	private static final Logger logger = LogManager.getLogger();
+
+	private final File snapshotDirectory;
+	private final boolean snapshotDirectoryUsable;
+
+
+	public ScheduleSnapshotCache(File pSnapshotDirectory) {
+
+		String _METHODNAME = "ScheduleSnapshotCache(): ";
+
+		if (pSnapshotDirectory == null) {
+			throw new IllegalArgumentException("Snapshot directory not specified");
+		}
+		this.snapshotDirectory = pSnapshotDirectory;
+
+		boolean lSnapshotDirectoryUsable = true;
+		try {
+			FileUtils.createOwnerOnlyDirectory(pSnapshotDirectory);
+		}
+		catch (IOException e) {
+			logger.warn(_METHODNAME + "Not using supporting data snapshots; unusable snapshot directory: " + e.getMessage());
+			lSnapshotDirectoryUsable = false;
+		}
+		this.snapshotDirectoryUsable = lSnapshotDirectoryUsable;
+	}
+
+
+	/**
+	 * Return the content hash of the supporting data for the specified Schedule parameters (as passed to the Schedule constructor), or
+	 * null if it cannot be determined, in which case no snapshot should be used.
+	 */
+	public String computeSupportingDataHash(String pCommonLogicModule, File pCommonLogicModuleLocation, List<String> pKnowledgeModules, File pKnowledgeRepositoryLocation) {
+
+		String _METHODNAME = "computeSupportingDataHash(): ";
+
+		if (pCommonLogicModule == null || pCommonLogicModuleLocation == null || pKnowledgeModules == null || pKnowledgeRepositoryLocation == null) {
+			return null;
+		}
+		List<File> lDirectories = ICESupportingDataConfiguration.getSupportingDataDirectoryLocations(pCommonLogicModule, pCommonLogicModuleLocation, pKnowledgeModules, pKnowledgeRepositoryLocation);
+		if (lDirectories == null) {
+			return null;
+		}
+
+		try {
+			MessageDigest lDigest = MessageDigest.getInstance("SHA-256");
+			updateDigest(lDigest, pCommonLogicModule);
+			for (String lKnowledgeModule : pKnowledgeModules) {
+				updateDigest(lDigest, lKnowledgeModule);
+			}
+			byte[] lBuffer = new byte[8192];
+			for (int i = 0; i < lDirectories.size(); i++) {
+				File lDirectory = lDirectories.get(i);
+				if (lDirectory.isDirectory() == false) {
+					if (logger.isDebugEnabled()) {
+						logger.debug(_METHODNAME + "Supporting data directory \"" + lDirectory + "\" does not exist; not using a snapshot");
+					}
+					return null;
+				}
+				updateDigest(lDigest, "directory " + i);
+				List<String> lRelativePaths = new ArrayList<String>();
+				collectFiles(lDirectory, "", lRelativePaths);
+				Collections.sort(lRelativePaths);
+				for (String lRelativePath : lRelativePaths) {
+					File lFile = new File(lDirectory, lRelativePath);
+					updateDigest(lDigest, lRelativePath);
+					updateDigest(lDigest, String.valueOf(lFile.length()));
+					try (InputStream lIn = Files.newInputStream(lFile.toPath())) {
+						int lRead;
+						while ((lRead = lIn.read(lBuffer)) != -1) {
+							lDigest.update(lBuffer, 0, lRead);
+						}
+					}
+				}
+			}
+			StringBuilder lHash = new StringBuilder(64);
+			for (byte lByte : lDigest.digest()) {
+				lHash.append(String.format("%02x", lByte));
+			}
+			return lHash.toString();
+		}
+		catch (IOException | NoSuchAlgorithmException e) {
+			logger.warn(_METHODNAME + "Unable to compute supporting data hash; not using a snapshot: " + e.getMessage());
+			return null;
+		}
+	}
+
+
+	/**
+	 * Return the Schedule stored for the specified key and supporting data hash, or null if there is no usable snapshot
+	 */
+	public Schedule load(String pKey, String pSupportingDataHash) {
+
+		String _METHODNAME = "load(): ";
+
+		if (pKey == null || pSupportingDataHash == null || this.snapshotDirectoryUsable == false) {
+			return null;
+		}
+		File lSnapshotFile = returnSnapshotFile(pKey);
+		if (lSnapshotFile.isFile() == false) {
+			return null;
+		}
+
+		try (ObjectInputStream lIn = new SnapshotObjectInputStream(new BufferedInputStream(Files.newInputStream(lSnapshotFile.toPath())))) {
+			if (lIn.readInt() != SNAPSHOT_FORMAT_VERSION || ! ICEVersionUtil.getIceVersion().equals(lIn.readUTF()) || ! pSupportingDataHash.equals(lIn.readUTF())) {
+				logger.info(_METHODNAME + "Supporting data snapshot " + lSnapshotFile + " is out of date; rebuilding");
+				return null;
+			}
+			Object lSchedule = lIn.readObject();
+			if (lSchedule instanceof Schedule == false) {
+				logger.warn(_METHODNAME + "Supporting data snapshot " + lSnapshotFile + " does not hold a Schedule; rebuilding");
+				return null;
+			}
+			return (Schedule) lSchedule;
+		}
+		catch (Exception e) {
+			logger.warn(_METHODNAME + "Unable to read supporting data snapshot " + lSnapshotFile + "; rebuilding: " + e.getMessage());
+			return null;
+		}
+	}
+
+
+	/**
+	 * Store the Schedule for the specified key and supporting data hash. Failures are logged and otherwise ignored.
+	 */
+	public void store(String pKey, String pSupportingDataHash, Schedule pSchedule) {
+
+		String _METHODNAME = "store(): ";
+
+		if (pKey == null || pSupportingDataHash == null || pSchedule == null || this.snapshotDirectoryUsable == false) {
+			return;
+		}
+		File lSnapshotFile = returnSnapshotFile(pKey);
+		File lTempFile = null;
+		try {
+			lTempFile = File.createTempFile(lSnapshotFile.getName(), ".tmp", this.snapshotDirectory);
+			try (OutputStream lOut = new BufferedOutputStream(Files.newOutputStream(lTempFile.toPath())); ObjectOutputStream lObjOut = new ObjectOutputStream(lOut)) {
+				lObjOut.writeInt(SNAPSHOT_FORMAT_VERSION);
+				lObjOut.writeUTF(ICEVersionUtil.getIceVersion());
+				lObjOut.writeUTF(pSupportingDataHash);
+				lObjOut.writeObject(pSchedule);
+			}
+			try {
+				Files.move(lTempFile.toPath(), lSnapshotFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch (AtomicMoveNotSupportedException e) {
+				Files.move(lTempFile.toPath(), lSnapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			logger.info(_METHODNAME + "Stored supporting data snapshot " + lSnapshotFile);
+		}
+		catch (Exception e) {
+			logger.warn(_METHODNAME + "Unable to store supporting data snapshot " + lSnapshotFile + ": " + e.getMessage());
+			if (lTempFile != null) {
+				lTempFile.delete();
+			}
+		}
+	}
+
+
+	private File returnSnapshotFile(String pKey) {
+
+		return new File(this.snapshotDirectory, pKey.replaceAll("[^A-Za-z0-9._-]", "_") + SNAPSHOT_FILE_SUFFIX);
+	}
+
+
+	private static void collectFiles(File pDirectory, String pRelativePath, List<String> pRelativePaths) {
+
+		File[] lFiles = pDirectory.listFiles();
+		if (lFiles == null) {
+			return;
+		}
+		for (File lFile : lFiles) {
+			String lRelativePath = pRelativePath + lFile.getName();
+			if (lFile.isDirectory()) {
+				collectFiles(lFile, lRelativePath + "/", pRelativePaths);
+			}
+			else if (lFile.isFile()) {
+				pRelativePaths.add(lRelativePath);
+			}
+		}
+	}
+
+
+	private static void updateDigest(MessageDigest pDigest, String pValue) {
+
+		pDigest.update(pValue.getBytes(StandardCharsets.UTF_8));
+		pDigest.update((byte) 0);
+	}
+
+
+	/**
+	 * Refuses to deserialize classes outside of the packages that make up a Schedule
+	 */
+	private static class SnapshotObjectInputStream extends ObjectInputStream {
+
+		SnapshotObjectInputStream(InputStream pIn) throws IOException {
+			super(pIn);
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass pDesc) throws IOException, ClassNotFoundException {
+
+			String lName = pDesc.getName();
+			while (lName.startsWith("[")) {
+				lName = lName.substring(1);
+			}
+			if (lName.startsWith("L") && lName.endsWith(";")) {
+				lName = lName.substring(1, lName.length() - 1);
+			}
+			boolean lAllowed = lName.length() == 1;
+			for (String lPrefix : ALLOWED_CLASS_PREFIXES) {
+				lAllowed = lAllowed || lName.startsWith(lPrefix);
+			}
+			if (lAllowed == false) {
+				throw new InvalidClassException(pDesc.getName(), "class not permitted in a supporting data snapshot");
+			}
+			return super.resolveClass(pDesc);
+		}
+	}
+
+}
@@ -26,6 +26,7 @@
 
 package org.cdsframework.ice.service;
 
+import java.io.Serializable;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
@@ -34,7 +35,7 @@ import org.apache.logging.log4j.Logger;
 import org.joda.time.LocalDate;
 import org.joda.time.MonthDay;
 
-public class Season {
+public class Season implements Serializable {
 
 	private String seasonName;
 	private LocalDate seasonStartDate;
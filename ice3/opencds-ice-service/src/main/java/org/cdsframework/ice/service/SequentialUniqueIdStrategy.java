@@ -0,0 +1,107 @@
+/**
+ * Copyright (C) 2023 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ *
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see http://www.hln.com/ice or send
+ * correspondence to ice@hln.com.
+ */
+
+package org.cdsframework.ice.service;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Sequential identifiers of the form &lt;node&gt;-&lt;evaluation&gt;-&lt;sequence&gt; (base 36), where node is drawn at random
+ * once per strategy (per process), evaluation is taken from a shared counter when an evaluation begins, and sequence is a plain
+ * counter of the evaluation's thread. An identifier thus costs one thread-local lookup and an increment, with no contention
+ * between concurrent evaluations.
+ * 
+ * Identifiers generated outside any evaluation (e.g., when the schedule is loaded) take evaluation 0 and their sequence from a
+ * shared counter. The random node keeps the identifiers of this process apart from those of another, e.g., restored from a
+ * supporting data snapshot.
+ */
+public class SequentialUniqueIdStrategy implements UniqueIdStrategy {
+
+	private static final int _NODE_BITS = 48;
+
+	private final String nodePrefix;
+	private final AtomicLong evaluations = new AtomicLong();
+	private final AtomicLong unscopedSequence = new AtomicLong();
+	private final ThreadLocal<EvaluationScope> evaluationScope = new ThreadLocal<>();
+
+
+	private static final class EvaluationScope {
+
+		private final String prefix;
+		private final EvaluationScope outer;
+		private long sequence;
+
+		private EvaluationScope(String pPrefix, EvaluationScope pOuter) {
+			this.prefix = pPrefix;
+			this.outer = pOuter;
+		}
+	}
+
+
+	public SequentialUniqueIdStrategy() {
+
+		long lNode = new SecureRandom().nextLong() & ((1L << _NODE_BITS) - 1);
+		this.nodePrefix = Long.toString(lNode, Character.MAX_RADIX) + "-";
+	}
+
+
+	@Override
+	public void beginEvaluation() {
+
+		String lPrefix = nodePrefix + Long.toString(evaluations.incrementAndGet(), Character.MAX_RADIX) + "-";
+		evaluationScope.set(new EvaluationScope(lPrefix, evaluationScope.get()));
+	}
+
+
+	@Override
+	public void endEvaluation() {
+
+		EvaluationScope lScope = evaluationScope.get();
+		if (lScope == null) {
+			return;
+		}
+		if (lScope.outer == null) {
+			evaluationScope.remove();
+		}
+		else {
+			evaluationScope.set(lScope.outer);
+		}
+	}
+
+
+	@Override
+	public String generateUniqueId() {
+
+		EvaluationScope lScope = evaluationScope.get();
+		if (lScope == null) {
+			return nodePrefix + "0-" + Long.toString(unscopedSequence.incrementAndGet(), Character.MAX_RADIX);
+		}
+		return lScope.prefix + Long.toString(++lScope.sequence, Character.MAX_RADIX);
+	}
+
+}
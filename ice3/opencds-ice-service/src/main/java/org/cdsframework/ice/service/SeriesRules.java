@@ -26,14 +26,16 @@
 
 package org.cdsframework.ice.service;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.cdsframework.cds.CdsConcept;
 
-public class SeriesRules {
+public class SeriesRules implements Serializable {
 
 	private String seriesId;
 	private String seriesName;
@@ -42,6 +44,7 @@ public class SeriesRules {
 	private boolean recurringDosesAfterSeriesComplete;
 	private boolean doseNumberCalculatedBasedOnDiseasesTargetedByEachVaccineAdministered;
 	private List<DoseRule> seriesDoseRules;
+	private boolean seriesDoseRulesShared;
 	private List<Season> applicableSeasons;
 
 	private static final Logger logger = LogManager.getLogger();
@@ -130,6 +133,35 @@ public class SeriesRules {
 	}
 
 
+	/**
+	 * Construct a copy-on-write copy of the supplied SeriesRules. The DoseRules (and the Vaccines, VaccineComponents and TimePeriods they reference) are
+	 * shared with the supplied SeriesRules and must not be modified in place; the copy's List of DoseRules is read-only and is only copied if
+	 * addSeriesDoseRule(), modifySeriesDoseRule() or setSeriesDoseRules() is called on the copy. Seasons are copied, as their off-season end dates are
+	 * populated during evaluation.
+	 */
+	public static SeriesRules constructCopyOnWriteSeriesRulesObject(SeriesRules pSR) {
+
+		if (pSR == null) {
+			return null;
+		}
+
+		SeriesRules lSR = new SeriesRules(pSR.getSeriesName(), pSR.getVaccineGroupConcept());
+		lSR.numberOfDosesInSeries = pSR.numberOfDosesInSeries;
+		lSR.recurringDosesAfterSeriesComplete = pSR.recurringDosesAfterSeriesComplete;
+		lSR.doseNumberCalculatedBasedOnDiseasesTargetedByEachVaccineAdministered = pSR.doseNumberCalculatedBasedOnDiseasesTargetedByEachVaccineAdministered;
+		lSR.seriesDoseRules = pSR.seriesDoseRulesShared ? pSR.seriesDoseRules : Collections.unmodifiableList(pSR.seriesDoseRules);
+		lSR.seriesDoseRulesShared = true;
+
+		List<Season> lSeasons = new ArrayList<Season>(pSR.applicableSeasons.size());
+		for (Season pS : pSR.applicableSeasons) {
+			lSeasons.add(Season.constructDeepCopyOfSeasonObject(pS));
+		}
+		lSR.applicableSeasons = lSeasons;
+
+		return lSR;
+	}
+
+
 	public String getSeriesId() {
 		return seriesId;
 	}
@@ -184,7 +216,7 @@ public class SeriesRules {
 
 
 	/**
-	 * Return Dose Rules for Series, or empty set if there are none
+	 * Return Dose Rules for Series, or empty set if there are none. The List is read-only if this SeriesRules is a copy-on-write copy.
 	 * @return
 	 */
 	public List<DoseRule> getSeriesDoseRules() {
@@ -321,6 +353,10 @@ public class SeriesRules {
 			throw new IllegalArgumentException(errStr);
 		}
 
+		if (this.seriesDoseRulesShared) {
+			this.seriesDoseRules = new ArrayList<DoseRule>(this.seriesDoseRules);
+			this.seriesDoseRulesShared = false;
+		}
 		this.seriesDoseRules.add(pDoseRule);
 		setNumberOfDosesInSeries(lDoseRuleDoseNumber);
 	}
@@ -354,6 +390,7 @@ public class SeriesRules {
 			}
 		}
 		this.seriesDoseRules = lSeriesDoseRules;
+		this.seriesDoseRulesShared = false;
 	}
 
 
@@ -367,6 +404,7 @@ public class SeriesRules {
 		String _METHODNAME = "setSeriesDoseRules(List<DoseRule>): ";
 		if (pDoseRules == null) {
 			this.seriesDoseRules = new ArrayList<DoseRule>();
+			this.seriesDoseRulesShared = false;
 			setNumberOfDosesInSeries(0);
 		}
 		else {
@@ -387,6 +425,7 @@ public class SeriesRules {
 			}
 
 			this.seriesDoseRules = pDoseRules;
+			this.seriesDoseRulesShared = false;
 			setNumberOfDosesInSeries(lNumberOfDoses);
 		}
 	}
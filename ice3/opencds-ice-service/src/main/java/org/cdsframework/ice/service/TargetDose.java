@@ -46,6 +46,7 @@ public class TargetDose {
 	private Vaccine administeredVaccine;
 	private VaccineComponent vaccineComponent;
 	private int administeredShotNumberInSeries;
+	private long sequenceNumberInSeries;
 	private Date administrationDate;
 	private int doseNumberInSeries;
 	private int doseNumberCount;
@@ -279,6 +280,21 @@ public class TargetDose {
 		this.administeredShotNumberInSeries = administeredShotNumber;
 	}
 
+	/**
+	 * Order in which the dose was added to its TargetSeries; orders the doses of the series administered at the same time
+	 */
+	long getSequenceNumberInSeries() {
+		return sequenceNumberInSeries;
+	}
+
+	/**
+	 * Only to be called by the TargetSeries that contains this administered dose
+	 * @param pSequenceNumber
+	 */
+	void setSequenceNumberInSeries(long pSequenceNumber) {
+		this.sequenceNumberInSeries = pSequenceNumber;
+	}
+
 	/**
 	 * Returns the valid shot number in the series (relative to all other valid shots).
 	 * @return valid dose number in series
@@ -292,7 +308,12 @@ public class TargetDose {
 	 * @param pDoseNumber
 	 */
 	public void setDoseNumberInSeries(int pDoseNumber) {
+
+		int lPreviousDoseNumber = this.doseNumberInSeries;
 		this.doseNumberInSeries = pDoseNumber;
+		if (lPreviousDoseNumber != pDoseNumber) {
+			associatedTargetSeries.targetDoseNumberChanged(this, lPreviousDoseNumber);
+		}
 	}
 
 	/**
@@ -403,7 +424,12 @@ public class TargetDose {
 	}
 
 	public void setVaccineComponent(VaccineComponent vaccine) {
+
+		VaccineComponent lPreviousVaccineComponent = this.vaccineComponent;
 		this.vaccineComponent = vaccine;
+		if (lPreviousVaccineComponent != vaccine) {
+			associatedTargetSeries.targetDoseVaccineComponentChanged(this, lPreviousVaccineComponent);
+		}
 	}
 
 	public DoseStatus getStatus() {
@@ -412,7 +438,11 @@ public class TargetDose {
 
 	public void setStatus(DoseStatus status) {
 
+		DoseStatus lPreviousStatus = this.status;
 		this.status = status;
+		if (lPreviousStatus != status) {
+			associatedTargetSeries.targetDoseStatusChanged(this, lPreviousStatus);
+		}
 		setHasBeenEvaluated(false);
 
 		if (status != null) {
@@ -451,7 +481,11 @@ public class TargetDose {
 			logger.warn(_METHODNAME + errStr);
 			throw new IllegalArgumentException(errStr);
 		}
+		Date lPreviousAdministrationDate = this.administrationDate;
 		this.administrationDate = administrationDate;
+		if (lPreviousAdministrationDate.getTime() != administrationDate.getTime()) {
+			associatedTargetSeries.targetDoseAdministrationDateChanged(this, lPreviousAdministrationDate);
+		}
 	}
 
 	public Collection<String> getValidReasons() {
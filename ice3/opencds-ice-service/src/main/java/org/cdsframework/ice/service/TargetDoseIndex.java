@@ -0,0 +1,329 @@
+/**
+ * Copyright (C) 2023 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ *
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see http://www.hln.com/ice or send
+ * correspondence to ice@hln.com.
+ */
+
+package org.cdsframework.ice.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * The TargetDoses of a TargetSeries, in ORDER (by administration date, then in the order in which they were added to the series), in
+ * an array-backed list, along with indexes kept up to date as doses are added and removed and as their status, dose number and
+ * vaccine component change, so that the lookups the rules make repeatedly (dose by administered shot number, valid dose by dose
+ * number, number of doses by status, live virus vaccines administered) do not scan all the doses. Changes to a TargetDose that is
+ * not (or no longer) in the series are ignored.
+ */
+final class TargetDoseIndex {
+
+	/**
+	 * Total ordering of the TargetDoses of a series, consistent with TargetDose.equals(): administration date, then sequence number in
+	 * the series
+	 */
+	static final Comparator<TargetDose> ORDER = new Comparator<TargetDose>() {
+
+		@Override
+		public int compare(TargetDose a, TargetDose b) {
+			return TargetDoseIndex.compare(a.getAdministrationDate().getTime(), a.getSequenceNumberInSeries(), b);
+		}
+	};
+
+	private final Set<TargetDose> members = new HashSet<TargetDose>();
+	private final List<TargetDose> targetDoses = new ArrayList<TargetDose>();
+	private final List<TargetDose> targetDosesView = Collections.unmodifiableList(targetDoses);
+	private long lastSequenceNumber;
+	private final int[] numberOfDosesByStatus = new int[DoseStatus.values().length];
+	private final Map<Integer, List<TargetDose>> validDosesByDoseNumber = new HashMap<Integer, List<TargetDose>>();
+	private final Map<VaccineComponent, Integer> numberOfDosesByVaccineComponent = new HashMap<VaccineComponent, Integer>();
+
+
+	/**
+	 * Adds the dose after those of the series administered on or before its administration date
+	 * @return true if the dose was added, false if it was already in the series
+	 */
+	boolean add(TargetDose pTD) {
+
+		if (pTD == null || ! members.add(pTD)) {
+			return false;
+		}
+		pTD.setSequenceNumberInSeries(++lastSequenceNumber);
+		targetDoses.add(-Collections.binarySearch(targetDoses, pTD, ORDER) - 1, pTD);
+		updateStatus(pTD.getStatus(), 1);
+		if (pTD.getStatus() == DoseStatus.VALID) {
+			addValidDose(pTD.getDoseNumberInSeries(), pTD);
+		}
+		updateVaccineComponent(pTD.getVaccineComponent(), 1);
+		return true;
+	}
+
+
+	/**
+	 * @return the (0-based) position of the dose in the series before its removal, or -1 if it was not in the series
+	 */
+	int remove(TargetDose pTD) {
+
+		int lPosition = indexOf(pTD);
+		if (lPosition < 0) {
+			return -1;
+		}
+		members.remove(pTD);
+		targetDoses.remove(lPosition);
+		updateStatus(pTD.getStatus(), -1);
+		if (pTD.getStatus() == DoseStatus.VALID) {
+			removeValidDose(pTD.getDoseNumberInSeries(), pTD);
+		}
+		updateVaccineComponent(pTD.getVaccineComponent(), -1);
+		return lPosition;
+	}
+
+
+	/**
+	 * Moves the dose to its position for its new administration date
+	 */
+	void administrationDateChanged(TargetDose pTD, Date pPreviousAdministrationDate) {
+
+		if (! members.contains(pTD)) {
+			return;
+		}
+		targetDoses.remove(binarySearch(pTD, pPreviousAdministrationDate.getTime()));
+		targetDoses.add(-Collections.binarySearch(targetDoses, pTD, ORDER) - 1, pTD);
+	}
+
+
+	void statusChanged(TargetDose pTD, DoseStatus pPreviousStatus) {
+
+		if (! members.contains(pTD)) {
+			return;
+		}
+		updateStatus(pPreviousStatus, -1);
+		updateStatus(pTD.getStatus(), 1);
+		if (pPreviousStatus == DoseStatus.VALID) {
+			removeValidDose(pTD.getDoseNumberInSeries(), pTD);
+		}
+		if (pTD.getStatus() == DoseStatus.VALID) {
+			addValidDose(pTD.getDoseNumberInSeries(), pTD);
+		}
+	}
+
+
+	void doseNumberChanged(TargetDose pTD, int pPreviousDoseNumber) {
+
+		if (pTD.getStatus() != DoseStatus.VALID || ! members.contains(pTD)) {
+			return;
+		}
+		removeValidDose(pPreviousDoseNumber, pTD);
+		addValidDose(pTD.getDoseNumberInSeries(), pTD);
+	}
+
+
+	void vaccineComponentChanged(TargetDose pTD, VaccineComponent pPreviousVaccineComponent) {
+
+		if (! members.contains(pTD)) {
+			return;
+		}
+		updateVaccineComponent(pPreviousVaccineComponent, -1);
+		updateVaccineComponent(pTD.getVaccineComponent(), 1);
+	}
+
+
+	boolean contains(TargetDose pTD) {
+		return pTD != null && members.contains(pTD);
+	}
+
+
+	/**
+	 * @return the (0-based) position of the dose in the series, or -1 if it is not in the series
+	 */
+	int indexOf(TargetDose pTD) {
+
+		if (! contains(pTD)) {
+			return -1;
+		}
+		return Collections.binarySearch(targetDoses, pTD, ORDER);
+	}
+
+
+	/**
+	 * @return read-only view of the doses of the series, in ORDER
+	 */
+	List<TargetDose> getTargetDoses() {
+		return targetDosesView;
+	}
+
+
+	/**
+	 * @return the dose at the specified (1-based) position in the series, or null if there is none
+	 */
+	TargetDose getTargetDoseByAdministeredShotNumber(int pShotNumber) {
+
+		if (pShotNumber < 1 || pShotNumber > targetDoses.size()) {
+			return null;
+		}
+		return targetDoses.get(pShotNumber - 1);
+	}
+
+
+	/**
+	 * @return the last dose of the series, or null if there is none
+	 */
+	TargetDose last() {
+		return targetDoses.isEmpty() ? null : targetDoses.get(targetDoses.size() - 1);
+	}
+
+
+	/**
+	 * @return the dose preceding the specified dose of the series, or null if there is none (or the dose is not in the series)
+	 */
+	TargetDose lower(TargetDose pTD) {
+
+		int lPosition = indexOf(pTD);
+		return lPosition > 0 ? targetDoses.get(lPosition - 1) : null;
+	}
+
+
+	int getNumberOfDosesWithStatus(DoseStatus pStatus) {
+		return pStatus == null ? 0 : numberOfDosesByStatus[pStatus.ordinal()];
+	}
+
+
+	/**
+	 * @return the first VALID dose in the series (in ORDER) with the specified dose number, or null if there is none. The administered shot
+	 * numbers of the doses are not used, as they are only brought up to date when doses are added to or removed from the series.
+	 */
+	TargetDose getValidDoseByDoseNumber(int pDoseNumber) {
+
+		List<TargetDose> lValidDoses = validDosesByDoseNumber.get(pDoseNumber);
+		if (lValidDoses == null) {
+			return null;
+		}
+		TargetDose lEarliest = null;
+		for (TargetDose lTD : lValidDoses) {
+			if (lEarliest == null || ORDER.compare(lTD, lEarliest) < 0) {
+				lEarliest = lTD;
+			}
+		}
+		return lEarliest;
+	}
+
+
+	boolean containsLiveVirusVaccine() {
+
+		for (VaccineComponent lVaccineComponent : numberOfDosesByVaccineComponent.keySet()) {
+			if (lVaccineComponent.isLiveVirusVaccine()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	private static int compare(long pAdministrationTime, long pSequenceNumber, TargetDose b) {
+
+		int lComparison = Long.compare(pAdministrationTime, b.getAdministrationDate().getTime());
+		return lComparison != 0 ? lComparison : Long.compare(pSequenceNumber, b.getSequenceNumberInSeries());
+	}
+
+
+	/**
+	 * @return the position of the dose, found by the administration time it had when it was put at its position (its administration date
+	 * has changed since; the search can reach the dose itself, whose new administration date must not be compared)
+	 */
+	private int binarySearch(TargetDose pTD, long pAdministrationTime) {
+
+		int lLow = 0;
+		int lHigh = targetDoses.size() - 1;
+		while (lLow <= lHigh) {
+			int lMid = (lLow + lHigh) >>> 1;
+			TargetDose lMidTD = targetDoses.get(lMid);
+			if (lMidTD == pTD) {
+				return lMid;
+			}
+			int lComparison = compare(pAdministrationTime, pTD.getSequenceNumberInSeries(), lMidTD);
+			if (lComparison > 0) {
+				lLow = lMid + 1;
+			}
+			else if (lComparison < 0) {
+				lHigh = lMid - 1;
+			}
+			else {
+				return lMid;
+			}
+		}
+		throw new InconsistentConfigurationException("TargetDose not found at its position in the series");
+	}
+
+
+	private void updateStatus(DoseStatus pStatus, int pDelta) {
+
+		if (pStatus != null) {
+			numberOfDosesByStatus[pStatus.ordinal()] += pDelta;
+		}
+	}
+
+
+	private void addValidDose(int pDoseNumber, TargetDose pTD) {
+
+		List<TargetDose> lValidDoses = validDosesByDoseNumber.get(pDoseNumber);
+		if (lValidDoses == null) {
+			lValidDoses = new ArrayList<TargetDose>(1);
+			validDosesByDoseNumber.put(pDoseNumber, lValidDoses);
+		}
+		lValidDoses.add(pTD);
+	}
+
+
+	private void removeValidDose(int pDoseNumber, TargetDose pTD) {
+
+		List<TargetDose> lValidDoses = validDosesByDoseNumber.get(pDoseNumber);
+		if (lValidDoses != null && lValidDoses.remove(pTD) && lValidDoses.isEmpty()) {
+			validDosesByDoseNumber.remove(pDoseNumber);
+		}
+	}
+
+
+	private void updateVaccineComponent(VaccineComponent pVaccineComponent, int pDelta) {
+
+		if (pVaccineComponent == null) {
+			return;
+		}
+		Integer lCount = numberOfDosesByVaccineComponent.get(pVaccineComponent);
+		int lNewCount = (lCount == null ? 0 : lCount.intValue()) + pDelta;
+		if (lNewCount <= 0) {
+			numberOfDosesByVaccineComponent.remove(pVaccineComponent);
+		}
+		else {
+			numberOfDosesByVaccineComponent.put(pVaccineComponent, lNewCount);
+		}
+	}
+
+}
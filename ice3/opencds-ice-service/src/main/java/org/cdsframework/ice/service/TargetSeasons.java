@@ -26,18 +26,23 @@
 
 package org.cdsframework.ice.service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NavigableSet;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.TimeZone;
 import java.util.TreeSet;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.joda.time.Days;
 import org.joda.time.LocalDate;
 import org.kie.api.definition.type.ClassReactive;
 
@@ -54,8 +59,13 @@ public class TargetSeasons {
 	private Map<String, NavigableSet<Season>> allSeasons;								// Vaccine Group -> Season
 	// The default season for this invocation
 	private Map<String, Season> defaultSeason;					 						// Vaccine Group -> Season
+	// Interval index of the fully-specified seasons (through their off-season end dates), built on demand from allSeasons
+	private Map<String, SeasonIntervalIndex> seasonIndexes;							// Vaccine Group -> SeasonIntervalIndex
+	private final TimeZone timeZone = TimeZone.getDefault();
 	
 	private static final Logger logger = LogManager.getLogger();
+	private static final LocalDate EPOCH = new LocalDate(1970, 1, 1);
+	private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
 	
 	
 	public TargetSeasons(Date pEvalTime) {
@@ -65,6 +75,7 @@ public class TargetSeasons {
 		currentSeason = new HashMap<String, Season>();
 		allSeasons = new HashMap<String, NavigableSet<Season>>();
 		defaultSeason = new HashMap<String, Season>();
+		seasonIndexes = new HashMap<String, SeasonIntervalIndex>();
 	}
 	
 	
@@ -100,20 +111,36 @@ public class TargetSeasons {
 			return null;
 		}
 		
-		Set<Season> lAllSeasons = allSeasons.get(pSVGC);
-		if (lAllSeasons == null) {
-			return null;
-		}
-		
-		for (Season lS : lAllSeasons) {
-			if (lS == null || lS.isDefaultSeason()) 
-				continue;
-			if (lS.dateIsApplicableToSeason(pDate, true)) {
-				return lS;
+		SeasonIntervalIndex lIndex = seasonIndexes.get(pSVGC);
+		if (lIndex == null) {
+			NavigableSet<Season> lAllSeasons = allSeasons.get(pSVGC);
+			if (lAllSeasons == null) {
+				return null;
 			}
+			lIndex = new SeasonIntervalIndex(lAllSeasons);
+			seasonIndexes.put(pSVGC, lIndex);
 		}
 
-		return null;
+		return lIndex.getSeasonApplicableToEpochDay(toEpochDay(pDate));
+	}
+	
+	
+	/**
+	 * Returns the day of the supplied date (in the default time zone, as LocalDate.fromDateFields() does) as the number of days since 1970-01-01
+	 */
+	private long toEpochDay(Date pDate) {
+		
+		long lMillis = pDate.getTime();
+		return Math.floorDiv(lMillis + timeZone.getOffset(lMillis), MILLIS_PER_DAY);
+	}
+	
+	
+	/**
+	 * Returns the supplied LocalDate as the number of days since 1970-01-01
+	 */
+	private static long toEpochDay(LocalDate pDate) {
+		
+		return Days.daysBetween(EPOCH, pDate).getDays();
 	}
 	
 	
@@ -268,6 +295,8 @@ public class TargetSeasons {
 		vgSeasons.add(pS);
 		allSeasons.put(svgc, vgSeasons);
 		populateOffSeasonEndDatesForTargetSeasonsInVaccineGroup(svgc);
+		// Seasons and/or off-season end dates in this vaccine group may have changed; the interval index is rebuilt on the next lookup
+		seasonIndexes.remove(svgc);
 				
 		Season lCurrentSeason = getFullySpecifiedTargetSeasonInVaccineGroupApplicableToDate(evalTime, svgc);
 		
@@ -536,6 +565,89 @@ public class TargetSeasons {
 	}
 
 
+	/**
+	 * Sorted, non-overlapping day intervals over the fully-specified seasons of a vaccine group, each interval mapped to the season that applies to its days. 
+	 * A season covers the days from its start date through its off-season end date (or its end date if there is no off-season end date), as in 
+	 * Season.dateIsApplicableToSeason(Date, true). Where seasons overlap, the days go to the season that comes first in the TargetSeasons ordering (i.e. - 
+	 * the most recent one), which is the season a scan of the seasons in that order would find. Default seasons are not indexed.
+	 */
+	private static final class SeasonIntervalIndex {
+		
+		private final long[] intervalStarts;
+		private final long[] intervalEnds;
+		private final Season[] intervalSeasons;
+		
+		private SeasonIntervalIndex(NavigableSet<Season> pSeasons) {
+			
+			List<long[]> lIntervals = new ArrayList<long[]>();
+			List<Season> lSeasonsOfIntervals = new ArrayList<Season>();
+			for (Season lS : pSeasons) {
+				if (lS == null || lS.isDefaultSeason() || lS.getFullySpecifiedSeasonStartDate() == null) {
+					continue;
+				}
+				LocalDate lEndDate = lS.getFullySpecifiedSeasonOffSeasonEndDate() != null ? lS.getFullySpecifiedSeasonOffSeasonEndDate() : lS.getFullySpecifiedSeasonEndDate();
+				if (lEndDate == null) {
+					continue;
+				}
+				long lStart = toEpochDay(lS.getFullySpecifiedSeasonStartDate());
+				long lEnd = toEpochDay(lEndDate);
+				// Only the days of this season not already taken by a season that comes earlier in the ordering
+				List<long[]> lUncovered = new ArrayList<long[]>();
+				long lCursor = lStart;
+				for (long[] lInterval : lIntervals) {
+					if (lCursor > lEnd) {
+						break;
+					}
+					if (lInterval[1] < lCursor || lInterval[0] > lEnd) {
+						continue;
+					}
+					if (lInterval[0] > lCursor) {
+						lUncovered.add(new long[] { lCursor, lInterval[0] - 1 });
+					}
+					lCursor = Math.max(lCursor, lInterval[1] + 1);
+				}
+				if (lCursor <= lEnd) {
+					lUncovered.add(new long[] { lCursor, lEnd });
+				}
+				for (long[] lInterval : lUncovered) {
+					int lPosition = 0;
+					while (lPosition < lIntervals.size() && lIntervals.get(lPosition)[0] < lInterval[0]) {
+						lPosition++;
+					}
+					lIntervals.add(lPosition, lInterval);
+					lSeasonsOfIntervals.add(lPosition, lS);
+				}
+			}
+			
+			int lSize = lIntervals.size();
+			intervalStarts = new long[lSize];
+			intervalEnds = new long[lSize];
+			intervalSeasons = lSeasonsOfIntervals.toArray(new Season[lSize]);
+			for (int i = 0; i < lSize; i++) {
+				intervalStarts[i] = lIntervals.get(i)[0];
+				intervalEnds[i] = lIntervals.get(i)[1];
+			}
+		}
+		
+		
+		/**
+		 * Returns the season applicable to the specified day, or null if there is none
+		 */
+		private Season getSeasonApplicableToEpochDay(long pEpochDay) {
+			
+			int lPosition = Arrays.binarySearch(intervalStarts, pEpochDay);
+			if (lPosition < 0) {
+				// The interval starting before the day, if any
+				lPosition = -lPosition - 2;
+			}
+			if (lPosition < 0 || pEpochDay > intervalEnds[lPosition]) {
+				return null;
+			}
+			return intervalSeasons[lPosition];
+		}
+	}
+	
+	
 	/**
 	 * TargetSeasonComparator. As this comparator is primarily concerned with ordering, it does not check if the seasons overlap with one another or not. If this functionality is required,
 	 * perform a separate Season.seasonOverlapsWith() check first. This method simply compares on the starting date to determine ordering. Seasons are sorted by reverse order... most
@@ -31,16 +31,12 @@ import org.apache.logging.log4j.Logger;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
-import java.util.NavigableSet;
-import java.util.SortedSet;
-import java.util.TreeSet;
 import org.cdsframework.cds.CdsConcept;
 import org.cdsframework.ice.service.Recommendation.RecommendationDateType;
 import org.cdsframework.ice.supportingdata.BaseDataEvaluationReason;
@@ -59,7 +55,8 @@ public class TargetSeries {
 	private String targetSeriesIdentifier;
 	private Schedule scheduleBackingSeries;
 	private SeriesRules seriesRules;
-	private NavigableSet<TargetDose> targetDoses;
+	private TargetDoseIndex targetDoseIndex;
+	private List<TargetDose> targetDoses;
 	private Season targetSeason;
 	private boolean seriesComplete;
 	private boolean seriesCompleteFlagManuallySet;
@@ -118,10 +115,32 @@ public class TargetSeries {
 			throw new IllegalArgumentException(errStr);
 		}
 
+		initialize(pSeriesRules, pScheduleBackingSeries, pScheduleBackingSeries.getDiseasesTargetedByVaccineGroup(pSeriesRules.getVaccineGroup()));
+	}
+
+
+	/**
+	 * Constructs a TargetSeries that is not backed by a Schedule, for exercising the TargetSeries on its own (e.g. - in unit tests)
+	 * @param pSeriesRules SeriesRules parameter, must be provided
+	 * @param pTargetedDiseases the diseases targeted by the vaccine group of the series
+	 * @throws IllegalArgumentException If SeriesRules parameter not populated
+	 */
+	TargetSeries(SeriesRules pSeriesRules, Collection<String> pTargetedDiseases) {
+
+		if (pSeriesRules == null) {
+			throw new IllegalArgumentException("TargetSeries(SeriesRules, Collection): SeriesRules parameter was not supplied");
+		}
+		initialize(pSeriesRules, null, pTargetedDiseases);
+	}
+
+
+	private void initialize(SeriesRules pSeriesRules, Schedule pScheduleBackingSeries, Collection<String> pTargetedDiseases) {
+
 		targetSeriesIdentifier = ICELogicHelper.generateUniqueString();
 		scheduleBackingSeries = pScheduleBackingSeries;
 		seriesRules = pSeriesRules;
-		targetDoses = new TreeSet<TargetDose>(new TargetSeriesComparator()); // Ordered by administration date
+		targetDoseIndex = new TargetDoseIndex();
+		targetDoses = targetDoseIndex.getTargetDoses(); // Ordered by administration date; read-only view
 		targetSeason = null;
 		seriesComplete = false;
 		selectedSeries = false;
@@ -159,9 +178,8 @@ public class TargetSeries {
 
 		interimEvaluationValidityCountByDisease = new HashMap<String, Integer>();
 		interimDosesToSkipByDisease = new HashMap<String, Map<Integer, Integer>>();
-		Collection<String> targetedDiseases = pScheduleBackingSeries.getDiseasesTargetedByVaccineGroup(pSeriesRules.getVaccineGroup());
-		if (targetedDiseases != null) {
-			for (String disease : targetedDiseases) {
+		if (pTargetedDiseases != null) {
+			for (String disease : pTargetedDiseases) {
 				interimEvaluationValidityCountByDisease.put(disease, new Integer(0));
 				interimDosesToSkipByDisease.put(disease, new HashMap<Integer, Integer>());
 			}
@@ -304,12 +322,13 @@ public class TargetSeries {
 		}
 
 		// SeriesRules srOfThisSeries = this.seriesRules;
-		List<DoseRule> thisSeriesDoseRules = this.seriesRules.getSeriesDoseRules();
-		if (thisSeriesDoseRules == null) {
+		if (this.seriesRules.getSeriesDoseRules() == null) {
 			String str = _METHODNAME + "specified series does not have any dose rules";
 			logger.error(str);
 			throw new InconsistentConfigurationException(str);
 		}
+		// DoseRules are shared with the Schedule; work on a copy of the List and copy any DoseRule before modifying it
+		List<DoseRule> thisSeriesDoseRules = new ArrayList<DoseRule>(this.seriesRules.getSeriesDoseRules());
 
 		// Remove existing DoseRules starting with the existing dose number.
 		int size = thisSeriesDoseRules.size();
@@ -319,7 +338,7 @@ public class TargetSeries {
 					doseNumberOfSwitchToSeriesToWhichToSwitch + "; useDoseIntervalOfPriorDoseFromSwitchToSeries: " + useDoseIntervalOfPriorDoseFromSwitchToSeries;
 			logger.debug(debugStr);
 			debugStr = _METHODNAME + "After removing doseNumber-forward existing DoseRules from this Series, the following DoseRules remain: ";
-			for (DoseRule dr : this.seriesRules.getSeriesDoseRules()) {
+			for (DoseRule dr : thisSeriesDoseRules) {
 				debugStr += "(dose #: " + dr.getDoseNumber() + ") absoluteMinimumAge: " + dr.getAbsoluteMinimumAge() + " minAge: " +
 						dr.getMinimumAge() + " absoluteMinimumInterval: " + dr.getAbsoluteMinimumInterval() + " minInterval: " +
 						dr.getMinimumInterval() + " recommendedAge: " + dr.getEarliestRecommendedAge() + " recommendedInterval " +
@@ -330,7 +349,8 @@ public class TargetSeries {
 
 		// If the specified dose number is > 1, then modify the interval values from the series to switch to and change only those interval values leaving the remaining
 		if (useDoseIntervalOfPriorDoseFromSwitchToSeries && doseNumberOfSwitchFromSeriesFromWhichToBeginSwitch > 1) {
-			DoseRule thisSeriesLastDoseRuleFromPriorSeries = thisSeriesDoseRules.get(doseNumberOfSwitchFromSeriesFromWhichToBeginSwitch-2);
+			DoseRule thisSeriesLastDoseRuleFromPriorSeries = DoseRule.constructDeepCopyOfDoseRuleObject(thisSeriesDoseRules.get(doseNumberOfSwitchFromSeriesFromWhichToBeginSwitch-2));
+			thisSeriesDoseRules.set(doseNumberOfSwitchFromSeriesFromWhichToBeginSwitch-2, thisSeriesLastDoseRuleFromPriorSeries);
 			DoseRule newSeriesPriorDoseRuleForIntervalOnly = srOfSwitchSeries.getSeriesDoseRuleByDoseNumber((doseNumberOfSwitchToSeriesToWhichToSwitch <= 1) ? 1 : doseNumberOfSwitchToSeriesToWhichToSwitch-1);
 			thisSeriesLastDoseRuleFromPriorSeries.setAbsoluteMinimumInterval(newSeriesPriorDoseRuleForIntervalOnly.getAbsoluteMinimumInterval());
 			thisSeriesLastDoseRuleFromPriorSeries.setMinimumInterval(newSeriesPriorDoseRuleForIntervalOnly.getMinimumInterval());
@@ -339,7 +359,10 @@ public class TargetSeries {
 		}
 
 		// Add new DoseRules starting with the existing dose number - properly set the dose number to ensure they are sequential
-		List<DoseRule> ssDoseRulesToAdd = srOfSwitchSeries.getSeriesDoseRules().subList(doseNumberOfSwitchToSeriesToWhichToSwitch-1, sizeSwitchToSeries);
+		List<DoseRule> ssDoseRulesToAdd = new ArrayList<DoseRule>();
+		for (DoseRule dr : srOfSwitchSeries.getSeriesDoseRules().subList(doseNumberOfSwitchToSeriesToWhichToSwitch-1, sizeSwitchToSeries)) {
+			ssDoseRulesToAdd.add(DoseRule.constructDeepCopyOfDoseRuleObject(dr));
+		}
 		if (logger.isDebugEnabled()) {
 			String debugStr = _METHODNAME + "Switch series doses to add: ";
 			for (DoseRule dr : ssDoseRulesToAdd) {
@@ -358,7 +381,7 @@ public class TargetSeries {
 		thisSeriesDoseRules.addAll(ssDoseRulesToAdd);
 		if (logger.isDebugEnabled()) {
 			String debugStr = _METHODNAME + "Final set of DoseRules with switch series doses added: ";
-			for (DoseRule dr : this.seriesRules.getSeriesDoseRules()) {
+			for (DoseRule dr : thisSeriesDoseRules) {
 				debugStr += "(dose #: " + dr.getDoseNumber() + ") absoluteMinimumAge: " + dr.getAbsoluteMinimumAge() + " minAge: " + dr.getMinimumAge() + " absoluteMinimumInterval: " +
 						dr.getAbsoluteMinimumInterval() + " minInterval: " + dr.getMinimumInterval() + " recommendedAge: " + dr.getEarliestRecommendedAge() +
 						" recommendedInterval " +	dr.getEarliestRecommendedAge() + "; ";
@@ -387,15 +410,7 @@ public class TargetSeries {
 	 */
 	public boolean oneOrMoreShotsAdministeredIsALiveVirusVaccine() {
 
-		if (targetDoses == null) {
-			return false;
-		}
-		for (TargetDose d : targetDoses) {
-			if (d.getVaccineComponent().isLiveVirusVaccine() == true) {
-				return true;
-			}
-		}
-		return false;
+		return targetDoseIndex.containsLiveVirusVaccine();
 	}
 
 
@@ -467,16 +482,7 @@ public class TargetSeries {
 
 	public TargetDose getTargetDoseByAdministeredShotNumber(int shotNumber) {
 
-		if (targetDoses == null)
-			return null;
-
-		int i = 1;
-		for (TargetDose d : targetDoses) {
-			if (i == shotNumber)
-				return d;
-			i++;
-		}
-		return null;
+		return targetDoseIndex.getTargetDoseByAdministeredShotNumber(shotNumber);
 	}
 
 	public Date getAdministrationDateOfTargetDoseByShotNumberNumber(int shotNumber) {
@@ -988,12 +994,7 @@ public class TargetSeries {
 	 */
 	public TargetDose getLastShotAdministeredInSeries() {
 
-		if (!targetDoses.isEmpty()) {
-			return targetDoses.last();
-		}
-		else {
-			return null;
-		}
+		return targetDoseIndex.last();
 	}
 
 	/**
@@ -1004,20 +1005,7 @@ public class TargetSeries {
 	 */
 	public TargetDose getValidShotByDoseNumber(int doseNumber) {
 
-		if (targetDoses.isEmpty()) {
-			return null;
-		}
-
-		for (TargetDose td : targetDoses) {
-			if (td.getDoseNumberInSeries() == doseNumber) {
-				DoseStatus ds = td.getStatus();
-				if (ds == DoseStatus.VALID) {
-					return td;
-				}
-			}
-		}
-
-		return null;
+		return targetDoseIndex.getValidDoseByDoseNumber(doseNumber);
 	}
 
 	/**
@@ -1043,12 +1031,12 @@ public class TargetSeries {
 		int numberOfEffectiveDoses = determineEffectiveNumberOfDosesInSeries();
 
 		if (excludeIgnoredShots == false && !targetDoses.isEmpty()) {
-			lastDoseAdministered = targetDoses.last();
+			lastDoseAdministered = targetDoseIndex.last();
 		}
 		else if (excludeIgnoredShots == true && !targetDoses.isEmpty()) {
-			Iterator<TargetDose> tdIter = targetDoses.descendingIterator();
-			while (tdIter.hasNext()) {
-				TargetDose td = tdIter.next();
+			ListIterator<TargetDose> tdIter = targetDoses.listIterator(targetDoses.size());
+			while (tdIter.hasPrevious()) {
+				TargetDose td = tdIter.previous();
 				if (! td.isShotIgnored()) {
 					lastDoseAdministered = td;
 					break;
@@ -1091,18 +1079,7 @@ public class TargetSeries {
 	 */
 	public int determineNumberOfDosesAdministeredInSeries() {
 
-		if (targetDoses == null) {
-			return 0;
-		}
-
-		int i = 0;
-		for (TargetDose td : targetDoses) {
-			if (td.getIsValid() == true) {
-				i++;
-			}
-		}
-
-		return i;
+		return targetDoseIndex.getNumberOfDosesWithStatus(DoseStatus.VALID);
 	}
 
 	/**
@@ -1226,7 +1203,7 @@ public class TargetSeries {
 			}
 		}
 		else {
-			TargetDose lastDose = this.targetDoses.last();
+			TargetDose lastDose = this.targetDoseIndex.last();
 			if (lastDose != null) {
 				// Since this method is public and could be accessed as a Drools accessor method, the below call does NOT and MAY NOT update the state of this
 				// object (third parameter), and the antigen set is appropriately constant as well.
@@ -2987,14 +2964,7 @@ public class TargetSeries {
 	 */
 	public boolean containsTargetDose(TargetDose pTD) {
 
-		if (pTD == null)
-			return false;
-
-		for (TargetDose td : targetDoses) {
-			if (td.equals(pTD))
-				return true;
-		}
-		return false;
+		return targetDoseIndex.contains(pTD);
 	}
 
 	/**
@@ -3115,11 +3085,11 @@ public class TargetSeries {
 			return null;
 		}
 
-		if (this.targetDoses.contains(pTD)) {
+		if (this.targetDoseIndex.contains(pTD)) {
 			TargetDose lTDOfInterest = pTD;
 			boolean priorTargetDoseIdentified = false;
 			while (lTDOfInterest != null) {
-				TargetDose lTDPrior = this.targetDoses.lower(lTDOfInterest);
+				TargetDose lTDPrior = this.targetDoseIndex.lower(lTDOfInterest);
 				if (lTDPrior == null) {
 					break;
 				}
@@ -3196,7 +3166,7 @@ public class TargetSeries {
 		}
 
 		// Make a copy of the SeriesRules object first... do not want to change default rules used by others
-		SeriesRules lSR = SeriesRules.constructDeepCopyOfSeriesRulesObject(this.seriesRules);
+		SeriesRules lSR = SeriesRules.constructCopyOnWriteSeriesRulesObject(this.seriesRules);
 		lSR.addSeriesDoseRule(pDR);
 		this.seriesRules = lSR;
 		isSeriesComplete();		// reset series complete flag
@@ -3223,7 +3193,7 @@ public class TargetSeries {
 		}
 
 		// Make a copy of the SeriesRules object first... do not want to change default rules used by others
-		SeriesRules lSR = SeriesRules.constructDeepCopyOfSeriesRulesObject(this.seriesRules);
+		SeriesRules lSR = SeriesRules.constructCopyOnWriteSeriesRulesObject(this.seriesRules);
 		lSR.modifySeriesDoseRule(pDR);
 		this.seriesRules = lSR;
 		isSeriesComplete();		// reset series complete flag
@@ -3293,17 +3263,14 @@ public class TargetSeries {
 				throw new IllegalArgumentException(str);
 			}
 			if (this.targetSeason == null || overrideSeasonDateRestriction || (this.targetSeason != null && this.targetSeason.dateIsApplicableToSeason(targetDoseDate))) { // Off-Season incl if needed
-				this.targetDoses.add(targetDose);
+				this.targetDoseIndex.add(targetDose);
 				targetDoseAdded = true;
 			}
 		}
 
-		int i = 1;
-		Iterator<TargetDose> iter = this.targetDoses.iterator();
-		while (iter.hasNext()) {
-			TargetDose td = iter.next();
-			td.setAdministeredShotNumberInSeries(i);
-			i++;
+		for (int i = 0; i < this.targetDoses.size(); i++) {
+			TargetDose td = this.targetDoses.get(i);
+			td.setAdministeredShotNumberInSeries(i + 1);
 			td.setDoseNumberInSeries(determineDoseNumberInSeries(td));
 		}
 
@@ -3324,32 +3291,58 @@ public class TargetSeries {
 			return;
 		}
 
-		// Iterate through doses in the TargetSeries, so that doseNumber can be renumbered properly
-		int i = 1;
-		boolean foundShotToRemove = false;
-		int prevDoseNumber = 1;
-		Iterator<TargetDose> iter = this.targetDoses.iterator();
-		while (iter.hasNext()) {
-			TargetDose td = iter.next();
-			if (foundShotToRemove == false && td.equals(targetDose)) {
-				foundShotToRemove = true;
-				prevDoseNumber = td.getDoseNumberInSeries();
-				this.targetDoses.remove(td);
-			}
-			else if (foundShotToRemove == false) {
-				i++;
-				continue;
-			}
-			else {		// found shot to remove is true
-				int nextDoseNumber = td.getDoseNumberInSeries();
-				td.setAdministeredShotNumberInSeries(i);
-				td.setDoseNumberInSeries(prevDoseNumber);
-				prevDoseNumber = nextDoseNumber;
-				i++;
-			}
+		int lPosition = this.targetDoseIndex.remove(targetDose);
+		if (lPosition < 0) {
+			return;
+		}
+
+		// Renumber the doses that followed the removed dose: each takes the administered shot number and the dose number of the one before it
+		int prevDoseNumber = targetDose.getDoseNumberInSeries();
+		for (int i = lPosition; i < this.targetDoses.size(); i++) {
+			TargetDose td = this.targetDoses.get(i);
+			int nextDoseNumber = td.getDoseNumberInSeries();
+			td.setAdministeredShotNumberInSeries(i + 1);
+			td.setDoseNumberInSeries(prevDoseNumber);
+			prevDoseNumber = nextDoseNumber;
 		}
 	}
 
+
+	/**
+	 * Called by a TargetDose of this series when its status changes, to keep the dose indexes up to date
+	 */
+	void targetDoseStatusChanged(TargetDose pTD, DoseStatus pPreviousStatus) {
+
+		targetDoseIndex.statusChanged(pTD, pPreviousStatus);
+	}
+
+
+	/**
+	 * Called by a TargetDose of this series when its dose number changes, to keep the dose indexes up to date
+	 */
+	void targetDoseNumberChanged(TargetDose pTD, int pPreviousDoseNumber) {
+
+		targetDoseIndex.doseNumberChanged(pTD, pPreviousDoseNumber);
+	}
+
+
+	/**
+	 * Called by a TargetDose of this series when its vaccine component changes, to keep the dose indexes up to date
+	 */
+	void targetDoseVaccineComponentChanged(TargetDose pTD, VaccineComponent pPreviousVaccineComponent) {
+
+		targetDoseIndex.vaccineComponentChanged(pTD, pPreviousVaccineComponent);
+	}
+
+
+	/**
+	 * Called by a TargetDose of this series when its administration date changes, to keep the doses in order
+	 */
+	void targetDoseAdministrationDateChanged(TargetDose pTD, Date pPreviousAdministrationDate) {
+
+		targetDoseIndex.administrationDateChanged(pTD, pPreviousAdministrationDate);
+	}
+
 	public boolean targetSeasonExists() {
 
 		if (targetSeason == null) {
@@ -3442,7 +3435,11 @@ public class TargetSeries {
 	/*
 	 * Returns the Set of shots tracked by this class, in ascending order by date, or empty if there are none
 	 */
-	public SortedSet<TargetDose> getTargetDoses() {
+	/**
+	 * @return read-only view of the doses of this series, ordered by administration date and then in the order in which they were added;
+	 * doses are added and removed through addTargetDoseToSeries() and removeTargetDoseFromSeries(), which keep the dose indexes up to date
+	 */
+	public List<TargetDose> getTargetDoses() {
 		return targetDoses;
 	}
 
@@ -3851,49 +3848,6 @@ public class TargetSeries {
 	}
 
 
-	/*
-	 * TargetSeriesComparator Note: this comparator imposes orderings that are inconsistent with equals.
-	 */
-	private class TargetSeriesComparator implements Comparator<TargetDose> {
-
-		public int compare(TargetDose a, TargetDose b) {
-
-			if (a == null && b == null) {
-				return 0;
-			}
-			if (a == null && b != null) {
-				return 1;
-			}
-			if (a != null && b == null) {
-				return -1;
-			}
-
-			String uniqueIdA = a.getUniqueId();
-			String uniqueIdB = b.getUniqueId();
-
-			if (uniqueIdA != null && uniqueIdB != null && uniqueIdA.equals(uniqueIdB)) {
-				return 0;
-			}
-			Date aDate = a.getAdministrationDate();
-			Date bDate = b.getAdministrationDate();
-
-			if (aDate == null && bDate == null) {
-				return 0;
-			}
-			if (aDate == null && bDate != null) {
-				return 1;
-			}
-
-			int comparison = aDate.compareTo(bDate);
-			if (comparison == 0) {
-				return 1;
-			} else {
-				return comparison;
-			}
-		}
-	}
-
-
 	@Override
 	public String toString() {
 		String s = "TargetSeries [ getSeriesName()=" + getSeriesName()
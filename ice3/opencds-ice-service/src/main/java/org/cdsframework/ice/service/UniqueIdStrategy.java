@@ -0,0 +1,55 @@
+/**
+ * Copyright (C) 2023 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ *
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see http://www.hln.com/ice or send
+ * correspondence to ice@hln.com.
+ */
+
+package org.cdsframework.ice.service;
+
+
+/**
+ * Generates the identifiers of the objects created during an evaluation (TargetSeries, TargetDose, Recommendation, output
+ * clinical statements, ...); see ICELogicHelper.generateUniqueString(). Identifiers need only be unique within the response of
+ * an evaluation, and for as long as the process runs for the objects created outside any evaluation (e.g., when the schedule is
+ * loaded).
+ */
+public interface UniqueIdStrategy {
+
+	/**
+	 * Marks the start of an evaluation on the current thread; every identifier generated on this thread until endEvaluation() is
+	 * part of its response. Evaluations may be nested.
+	 */
+	default void beginEvaluation() {
+	}
+
+
+	/**
+	 * Marks the end of the evaluation begun last on the current thread.
+	 */
+	default void endEvaluation() {
+	}
+
+
+	String generateUniqueId();
+
+}
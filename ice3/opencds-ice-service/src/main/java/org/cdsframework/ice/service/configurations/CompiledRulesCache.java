@@ -0,0 +1,474 @@
+/**
+ * Copyright (C) 2023 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ *
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see http://www.hln.com/ice or send
+ * correspondence to ice@hln.com.
+ */
+
+package org.cdsframework.ice.service.configurations;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.cdsframework.ice.util.FileUtils;
+import org.cdsframework.ice.util.ICEVersionUtil;
+import org.drools.compiler.kie.builder.impl.InternalKieBuilder;
+import org.drools.compiler.kie.builder.impl.InternalKieModule;
+import org.drools.core.util.Drools;
+import org.drools.modelcompiler.ExecutableModelProject;
+import org.kie.api.KieBase;
+import org.kie.api.KieServices;
+import org.kie.api.builder.KieBuilder;
+import org.kie.api.builder.KieFileSystem;
+import org.kie.api.builder.KieModule;
+import org.kie.api.builder.Message;
+import org.kie.api.builder.ReleaseId;
+import org.kie.api.io.ResourceType;
+import org.kie.internal.builder.IncrementalResults;
+
+
+/**
+ * Builds the KieBase of a knowledge module from its rule files (BPMN, DSL, DRL and DSLR), and caches the compiled rules so that they
+ * need not all be compiled again:
+ * <ul>
+ * <li>on disk, as the compiled KieModule (kjar), keyed by a SHA-256 hash of the name and content of each rule file, the cache format,
+ * the ICE and Drools versions and the build mode. A later startup with the same rules loads the kjar instead of parsing and compiling
+ * the rules; an unreadable kjar is logged and the rules are rebuilt.</li>
+ * <li>in memory, as the KieBuilder of the last (classic) build of each knowledge module, so that a reload in which only DRL and DSLR files
+ * changed recompiles just those files.</li>
+ * </ul>
+ * The rules are compiled the classic way unless the Drools executable model is enabled (and builds). The executable model takes longer
+ * to build but, once cached, loads without any rule parsing; it cannot be rebuilt incrementally, nor can rules loaded from the disk
+ * cache, so a reload then recompiles all the rules.
+ */
+public class CompiledRulesCache {
+
+	private static final int CACHE_FORMAT_VERSION = 1;
+	private static final String KJAR_FILE_SUFFIX = ".kjar";
+	private static final String RELEASE_GROUP_ID = "org.cdsframework.ice.rules";
+	private static final String RELEASE_VERSION = "1.0.0";
+	private static final String RESOURCES_ROOT = "src/main/resources/";
+
+	private static final Logger logger = LogManager.getLogger();
+
+	// The last build of each knowledge module in this JVM, by knowledge module id
+	private static final Map<String, KnowledgeModuleBuild> lastBuilds = new ConcurrentHashMap<>();
+	private static final Map<String, Object> buildLocks = new ConcurrentHashMap<>();
+
+	private final File cacheDirectory;
+	private final boolean executableModel;
+
+
+	/**
+	 * The compiled rules are loaded into the engine as they are (with the executable model, as Java classes), and their file name can be
+	 * computed from the rule files, so the cache directory is created accessible to its owner only, and is not used (the compiled rules
+	 * are then cached in memory only) if it is writable by its group or by others; see FileUtils.createOwnerOnlyDirectory().
+	 * @param pCacheDirectory directory holding the compiled rules; null to cache the compiled rules in memory only
+	 * @param pExecutableModel whether to compile the rules to the Drools executable model
+	 */
+	public CompiledRulesCache(File pCacheDirectory, boolean pExecutableModel) {
+
+		String _METHODNAME = "CompiledRulesCache(): ";
+
+		File lCacheDirectory = pCacheDirectory;
+		if (lCacheDirectory != null) {
+			try {
+				FileUtils.createOwnerOnlyDirectory(lCacheDirectory);
+			}
+			catch (IOException e) {
+				logger.warn(_METHODNAME + "Not caching compiled rules on disk; unusable compiled rules cache directory: " + e.getMessage());
+				lCacheDirectory = null;
+			}
+		}
+		this.cacheDirectory = lCacheDirectory;
+		this.executableModel = pExecutableModel;
+	}
+
+
+	/**
+	 * Return the KieBase of the specified knowledge module, built from (or loaded from the compiled form of) the specified rule files,
+	 * which are added to the knowledge base in iteration order. Throws a RuntimeException listing the build messages if the rules do
+	 * not compile.
+	 */
+	public KieBase loadKieBase(String pKmId, Map<File, ResourceType> pRuleFiles) {
+
+		String _METHODNAME = "loadKieBase(): ";
+
+		if (pKmId == null || pRuleFiles == null || pRuleFiles.isEmpty()) {
+			String lErrStr = "Knowledge module id or rule files not specified";
+			logger.error(_METHODNAME + lErrStr);
+			throw new IllegalArgumentException(lErrStr);
+		}
+
+		Object lBuildLock = buildLocks.computeIfAbsent(pKmId, k -> new Object());
+		synchronized (lBuildLock) {
+			KieServices lKieServices = KieServices.Factory.get();
+			Map<String, RuleFile> lRuleFiles = returnRuleFiles(pRuleFiles);
+			String lRulesHash = computeRulesHash(lRuleFiles);
+
+			// Rules unchanged since the last build in this JVM: the KieBase is immutable, so reuse it
+			KnowledgeModuleBuild lLastBuild = lastBuilds.get(pKmId);
+			if (lLastBuild != null && lLastBuild.rulesHash.equals(lRulesHash)) {
+				logger.info(_METHODNAME + "Rules of " + pKmId + " unchanged since last build; reusing knowledge base");
+				return lLastBuild.kieBase;
+			}
+
+			// Rules compiled by an earlier run
+			File lKjarFile = returnKjarFile(pKmId, lRulesHash);
+			if (lKjarFile != null && lKjarFile.isFile()) {
+				KieBase lKieBase = loadKjar(lKieServices, lKjarFile);
+				if (lKieBase != null) {
+					logger.info(_METHODNAME + "Loaded compiled rules of " + pKmId + " from " + lKjarFile);
+					lastBuilds.put(pKmId, new KnowledgeModuleBuild(lRulesHash, lRuleFiles, null, null, null, null, lKieBase));
+					return lKieBase;
+				}
+			}
+
+			// Rules changed since the last build in this JVM: recompile only the changed files, if possible
+			KnowledgeModuleBuild lBuild = null;
+			if (lLastBuild != null && lLastBuild.kieBuilder != null) {
+				lBuild = buildIncrementally(lKieServices, pKmId, lLastBuild, lRulesHash, lRuleFiles);
+			}
+			if (lBuild == null) {
+				lBuild = buildAll(lKieServices, pKmId, lRulesHash, lRuleFiles);
+			}
+			lastBuilds.put(pKmId, lBuild);
+			storeKjar(pKmId, lKjarFile, lBuild.kieModule);
+			return lBuild.kieBase;
+		}
+	}
+
+
+	private KnowledgeModuleBuild buildAll(KieServices pKieServices, String pKmId, String pRulesHash, Map<String, RuleFile> pRuleFiles) {
+
+		String _METHODNAME = "buildAll(): ";
+
+		ReleaseId lReleaseId = pKieServices.newReleaseId(RELEASE_GROUP_ID, pKmId.replaceAll("[^A-Za-z0-9._-]", "_"), RELEASE_VERSION);
+		long lStart = System.currentTimeMillis();
+		if (this.executableModel) {
+			KieFileSystem lKfs = createKieFileSystem(pKieServices, lReleaseId, pRuleFiles);
+			KieBuilder lKieBuilder = pKieServices.newKieBuilder(lKfs).buildAll(ExecutableModelProject.class);
+			List<Message> lErrors = lKieBuilder.getResults().getMessages(Message.Level.ERROR);
+			if (lErrors.isEmpty()) {
+				logger.info(_METHODNAME + "Compiled rules of " + pKmId + " to the executable model in " + (System.currentTimeMillis() - lStart) + "ms");
+				KieBase lKieBase = pKieServices.newKieContainer(lReleaseId).getKieBase();
+				return new KnowledgeModuleBuild(pRulesHash, pRuleFiles, lReleaseId, null, null, (InternalKieModule) lKieBuilder.getKieModule(), lKieBase);
+			}
+			logger.warn(_METHODNAME + "Unable to compile rules of " + pKmId + " to the executable model; compiling them the classic way: " + lErrors.get(0).getText());
+			lStart = System.currentTimeMillis();
+		}
+
+		KieFileSystem lKfs = createKieFileSystem(pKieServices, lReleaseId, pRuleFiles);
+		KieBuilder lKieBuilder = pKieServices.newKieBuilder(lKfs).buildAll();
+		if (lKieBuilder.getResults().getMessages(Message.Level.ERROR).size() != 0) {
+			String lErrStr = "KieBuilder had errors on build of: " + pKmId + ", as follows:";
+			int i=1;
+			for (Message lMessage : lKieBuilder.getResults().getMessages()) {
+				lErrStr += "\n(" + i++ + "): " + lMessage.getLevel().toString() + " " + lMessage.getText();
+			}
+			throw new RuntimeException(lErrStr);
+		}
+		logger.info(_METHODNAME + "Compiled rules of " + pKmId + " in " + (System.currentTimeMillis() - lStart) + "ms");
+		KieBase lKieBase = pKieServices.newKieContainer(lReleaseId).getKieBase();
+		return new KnowledgeModuleBuild(pRulesHash, pRuleFiles, lReleaseId, lKfs, lKieBuilder, (InternalKieModule) lKieBuilder.getKieModule(), lKieBase);
+	}
+
+
+	/**
+	 * Recompile the DRL and DSLR files that were added, changed or removed since the last build; return null if the rules must be
+	 * compiled in full instead (e.g., the BPMN or DSL changed, or the incremental build failed)
+	 */
+	private KnowledgeModuleBuild buildIncrementally(KieServices pKieServices, String pKmId, KnowledgeModuleBuild pLastBuild, String pRulesHash, Map<String, RuleFile> pRuleFiles) {
+
+		String _METHODNAME = "buildIncrementally(): ";
+
+		List<String> lChangedPaths = new ArrayList<String>();
+		for (RuleFile lRuleFile : pRuleFiles.values()) {
+			RuleFile lLastRuleFile = pLastBuild.ruleFiles.get(lRuleFile.path);
+			if (lLastRuleFile == null || ! lLastRuleFile.hash.equals(lRuleFile.hash)) {
+				lChangedPaths.add(lRuleFile.path);
+			}
+		}
+		for (RuleFile lLastRuleFile : pLastBuild.ruleFiles.values()) {
+			if (pRuleFiles.containsKey(lLastRuleFile.path) == false) {
+				lChangedPaths.add(lLastRuleFile.path);
+			}
+		}
+		for (String lChangedPath : lChangedPaths) {
+			RuleFile lRuleFile = pRuleFiles.containsKey(lChangedPath) ? pRuleFiles.get(lChangedPath) : pLastBuild.ruleFiles.get(lChangedPath);
+			if (lRuleFile.resourceType != ResourceType.DRL && lRuleFile.resourceType != ResourceType.DSLR) {
+				logger.info(_METHODNAME + "Changed " + lRuleFile.resourceType.getName() + " file " + lRuleFile.file + "; recompiling all rules of " + pKmId);
+				return null;
+			}
+		}
+		if (lChangedPaths.isEmpty()) {
+			// Same files in a different order
+			return null;
+		}
+
+		long lStart = System.currentTimeMillis();
+		try {
+			for (String lChangedPath : lChangedPaths) {
+				RuleFile lRuleFile = pRuleFiles.get(lChangedPath);
+				if (lRuleFile != null) {
+					pLastBuild.kieFileSystem.write(lChangedPath, Files.readAllBytes(lRuleFile.file.toPath()));
+				}
+				else {
+					pLastBuild.kieFileSystem.delete(lChangedPath);
+				}
+			}
+			IncrementalResults lResults = ((InternalKieBuilder) pLastBuild.kieBuilder).createFileSet(lChangedPaths.toArray(new String[lChangedPaths.size()])).build();
+			for (Message lMessage : lResults.getAddedMessages()) {
+				if (lMessage.getLevel() == Message.Level.ERROR) {
+					logger.warn(_METHODNAME + "Incremental build of " + pKmId + " failed; recompiling all rules: " + lMessage.getText());
+					return null;
+				}
+			}
+		}
+		catch (Exception e) {
+			logger.warn(_METHODNAME + "Incremental build of " + pKmId + " failed; recompiling all rules: " + e.getMessage());
+			return null;
+		}
+		logger.info(_METHODNAME + "Recompiled " + lChangedPaths.size() + " changed rule file(s) of " + pKmId + " in " + (System.currentTimeMillis() - lStart) + "ms");
+
+		// The incremental build updated the KieModule in place; a new container creates a new KieBase, leaving the last one untouched.
+		// The updated KieModule is not stored: the next startup compiles the rules in full and stores them.
+		KieBase lKieBase = pKieServices.newKieContainer(pLastBuild.releaseId).getKieBase();
+		return new KnowledgeModuleBuild(pRulesHash, pRuleFiles, pLastBuild.releaseId, pLastBuild.kieFileSystem, pLastBuild.kieBuilder, null, lKieBase);
+	}
+
+
+	private static KieFileSystem createKieFileSystem(KieServices pKieServices, ReleaseId pReleaseId, Map<String, RuleFile> pRuleFiles) {
+
+		KieFileSystem lKfs = pKieServices.newKieFileSystem();
+		lKfs.generateAndWritePomXML(pReleaseId);
+		for (RuleFile lRuleFile : pRuleFiles.values()) {
+			lKfs.write(lRuleFile.path, pKieServices.getResources().newFileSystemResource(lRuleFile.file).setResourceType(lRuleFile.resourceType));
+		}
+		return lKfs;
+	}
+
+
+	private static KieBase loadKjar(KieServices pKieServices, File pKjarFile) {
+
+		String _METHODNAME = "loadKjar(): ";
+
+		try {
+			byte[] lKjar = Files.readAllBytes(pKjarFile.toPath());
+			KieModule lKieModule = pKieServices.getRepository().addKieModule(pKieServices.getResources().newByteArrayResource(lKjar));
+			return pKieServices.newKieContainer(lKieModule.getReleaseId()).getKieBase();
+		}
+		catch (Exception e) {
+			logger.warn(_METHODNAME + "Unable to load compiled rules " + pKjarFile + "; rebuilding: " + e.getMessage());
+			return null;
+		}
+	}
+
+
+	/**
+	 * Store the compiled KieModule, replacing any other compiled rules of the knowledge module. Failures are logged and otherwise ignored.
+	 */
+	private void storeKjar(String pKmId, File pKjarFile, InternalKieModule pKieModule) {
+
+		String _METHODNAME = "storeKjar(): ";
+
+		if (pKjarFile == null || pKieModule == null) {
+			return;
+		}
+		File lTempFile = null;
+		try {
+			lTempFile = File.createTempFile(pKjarFile.getName(), ".tmp", this.cacheDirectory);
+			Files.write(lTempFile.toPath(), pKieModule.getBytes());
+			try {
+				Files.move(lTempFile.toPath(), pKjarFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch (AtomicMoveNotSupportedException e) {
+				Files.move(lTempFile.toPath(), pKjarFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			logger.info(_METHODNAME + "Stored compiled rules of " + pKmId + " to " + pKjarFile);
+
+			String lKjarFilePrefix = returnKjarFilePrefix(pKmId);
+			File[] lKjarFiles = this.cacheDirectory.listFiles();
+			for (int i = 0; lKjarFiles != null && i < lKjarFiles.length; i++) {
+				File lKjarFile = lKjarFiles[i];
+				if (lKjarFile.getName().startsWith(lKjarFilePrefix) && lKjarFile.getName().endsWith(KJAR_FILE_SUFFIX) && ! lKjarFile.equals(pKjarFile)) {
+					lKjarFile.delete();
+				}
+			}
+		}
+		catch (Exception e) {
+			logger.warn(_METHODNAME + "Unable to store compiled rules " + pKjarFile + ": " + e.getMessage());
+			if (lTempFile != null) {
+				lTempFile.delete();
+			}
+		}
+	}
+
+
+	private File returnKjarFile(String pKmId, String pRulesHash) {
+
+		if (this.cacheDirectory == null || pRulesHash == null) {
+			return null;
+		}
+		return new File(this.cacheDirectory, returnKjarFilePrefix(pKmId) + pRulesHash + KJAR_FILE_SUFFIX);
+	}
+
+
+	private static String returnKjarFilePrefix(String pKmId) {
+
+		return pKmId.replaceAll("[^A-Za-z0-9._-]", "_") + "-";
+	}
+
+
+	/**
+	 * Return the rule files, with the hash of their content, by their path in the KieFileSystem: their path relative to the deepest
+	 * directory holding all of them (usually the knowledge repository), so that it does not change with the location of the knowledge
+	 * repository. Throws an IllegalArgumentException if two rule files have the same path.
+	 */
+	private static Map<String, RuleFile> returnRuleFiles(Map<File, ResourceType> pRuleFiles) {
+
+		String _METHODNAME = "returnRuleFiles(): ";
+
+		// null if the rule files have no common directory (e.g., are on different drives)
+		Path lRoot = null;
+		boolean lFirst = true;
+		for (File lFile : pRuleFiles.keySet()) {
+			Path lDirectory = lFile.getAbsoluteFile().toPath().normalize().getParent();
+			if (lFirst) {
+				lRoot = lDirectory;
+				lFirst = false;
+			}
+			while (lRoot != null && ! lDirectory.startsWith(lRoot)) {
+				lRoot = lRoot.getParent();
+			}
+		}
+
+		Map<String, RuleFile> lRuleFiles = new LinkedHashMap<String, RuleFile>();
+		for (Map.Entry<File, ResourceType> lEntry : pRuleFiles.entrySet()) {
+			File lFile = lEntry.getKey();
+			Path lAbsolutePath = lFile.getAbsoluteFile().toPath().normalize();
+			StringBuilder lPathBuilder = new StringBuilder(RESOURCES_ROOT);
+			for (Path lName : lRoot == null ? lAbsolutePath : lRoot.relativize(lAbsolutePath)) {
+				if (lPathBuilder.length() > RESOURCES_ROOT.length()) {
+					lPathBuilder.append('/');
+				}
+				lPathBuilder.append(lName.toString().replaceAll("[^A-Za-z0-9._-]", "_"));
+			}
+			String lPath = lPathBuilder.toString();
+			RuleFile lSamePathRuleFile = lRuleFiles.get(lPath);
+			if (lSamePathRuleFile != null) {
+				String lErrStr = "Rule files " + lSamePathRuleFile.file + " and " + lFile + " have the same path " + lPath;
+				logger.error(_METHODNAME + lErrStr);
+				throw new IllegalArgumentException(lErrStr);
+			}
+			try {
+				lRuleFiles.put(lPath, new RuleFile(lPath, lFile, lEntry.getValue(), computeHash(Files.readAllBytes(lFile.toPath()))));
+			}
+			catch (IOException e) {
+				throw new RuntimeException("Unable to read rule file " + lFile, e);
+			}
+		}
+		return Collections.unmodifiableMap(lRuleFiles);
+	}
+
+
+	private String computeRulesHash(Map<String, RuleFile> pRuleFiles) {
+
+		StringBuilder lRules = new StringBuilder();
+		lRules.append(CACHE_FORMAT_VERSION).append('\0').append(ICEVersionUtil.getIceVersion()).append('\0').append(Drools.getFullVersion()).append('\0').append(this.executableModel);
+		for (RuleFile lRuleFile : pRuleFiles.values()) {
+			lRules.append('\0').append(lRuleFile.path).append('\0').append(lRuleFile.resourceType.getName()).append('\0').append(lRuleFile.hash);
+		}
+		return computeHash(lRules.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+
+	private static String computeHash(byte[] pBytes) {
+
+		try {
+			StringBuilder lHash = new StringBuilder(64);
+			for (byte lByte : MessageDigest.getInstance("SHA-256").digest(pBytes)) {
+				lHash.append(String.format("%02x", lByte));
+			}
+			return lHash.toString();
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+
+	private static class RuleFile {
+
+		private final String path;
+		private final File file;
+		private final ResourceType resourceType;
+		private final String hash;
+
+		RuleFile(String pPath, File pFile, ResourceType pResourceType, String pHash) {
+			this.path = pPath;
+			this.file = pFile;
+			this.resourceType = pResourceType;
+			this.hash = pHash;
+		}
+	}
+
+
+	private static class KnowledgeModuleBuild {
+
+		private final String rulesHash;
+		private final Map<String, RuleFile> ruleFiles;
+		private final ReleaseId releaseId;
+		// null unless the rules were compiled the classic way in this JVM, and so can be rebuilt incrementally
+		private final KieFileSystem kieFileSystem;
+		private final KieBuilder kieBuilder;
+		// null unless the rules were compiled in full (nothing to store)
+		private final InternalKieModule kieModule;
+		private final KieBase kieBase;
+
+		KnowledgeModuleBuild(String pRulesHash, Map<String, RuleFile> pRuleFiles, ReleaseId pReleaseId, KieFileSystem pKieFileSystem, KieBuilder pKieBuilder, InternalKieModule pKieModule, KieBase pKieBase) {
+			this.rulesHash = pRulesHash;
+			this.ruleFiles = pRuleFiles;
+			this.releaseId = pReleaseId;
+			this.kieFileSystem = pKieFileSystem;
+			this.kieBuilder = pKieBuilder;
+			this.kieModule = pKieModule;
+			this.kieBase = pKieBase;
+		}
+	}
+
+}
@@ -32,6 +32,7 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -49,22 +50,18 @@ import java.util.concurrent.ConcurrentHashMap;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.cdsframework.ice.service.ICECoreError;
+import org.cdsframework.ice.service.ICELogicHelper;
 import org.cdsframework.ice.service.InconsistentConfigurationException;
 import org.cdsframework.ice.service.Schedule;
+import org.cdsframework.ice.service.UniqueIdStrategy;
 import org.cdsframework.ice.supportingdata.ICEPropertiesDataConfiguration;
 import org.cdsframework.ice.util.FileNameWithExtensionFilterImpl;
 import org.cdsframework.ice.util.ICEVersionUtil;
 import org.cdsframework.ice.util.KnowledgeModuleUtils;
 import org.kie.api.KieBase;
-import org.kie.api.KieServices;
-import org.kie.api.builder.KieBuilder;
-import org.kie.api.builder.KieFileSystem;
-import org.kie.api.builder.Message;
 import org.kie.api.command.Command;
-import org.kie.api.io.Resource;
 import org.kie.api.io.ResourceType;
 import org.kie.api.runtime.ExecutionResults;
-import org.kie.api.runtime.KieContainer;
 import org.kie.api.runtime.StatelessKieSession;
 import org.kie.internal.command.CommandFactory;
 import org.omg.dss.DSSRuntimeExceptionFault;
@@ -77,8 +74,8 @@ import org.omg.dss.UnrecognizedScopedEntityExceptionFault;
 import org.omg.dss.UnsupportedLanguageExceptionFault;
 import org.opencds.common.structures.EvaluationRequestDataItem;
 import org.opencds.common.structures.EvaluationRequestKMItem;
+import org.opencds.config.api.EvaluationContext;
 import org.opencds.config.api.KnowledgeRepository;
-import org.opencds.config.api.model.KMId;
 import org.opencds.config.api.model.KnowledgeModule;
 import org.opencds.config.api.model.PluginId;
 import org.opencds.config.api.model.SupportingData;
@@ -117,6 +114,7 @@ public class ICEDecisionEngineDSS7EvaluationAdapter implements Evaluater {
 	private Boolean outputSupplementalText = null;
 	private List<String> vaccineGroupExclusions = null;
 	private Boolean enableUnsupportedVaccinesGroup = null;
+	private final Map<String, KnowledgeModuleSession> knowledgeModuleSessions = new ConcurrentHashMap<>();
 
 	private static final Logger logger = LogManager.getLogger();
 
@@ -153,39 +151,24 @@ public class ICEDecisionEngineDSS7EvaluationAdapter implements Evaluater {
 
     	String _METHODNAME = "getSupportingData(): ";
 
-        List<SupportingData> supportingDataList = filterByKM(knowledgeModule.getKMId(), knowledgeRepository.getSupportingDataService().getAll());
-        Map<String, org.opencds.plugin.SupportingData> supportingDataListWithoutRawData = new LinkedHashMap<>();
+    	if (! getRawData) {
+    		// Shared, unmodifiable map of the supporting data metadata of the KM, built once by the SupportingDataService
+    		return knowledgeRepository.getSupportingDataService().getPluginSupportingData(knowledgeModule.getKMId());
+    	}
+
+    	if (logger.isDebugEnabled()) {
+    		logger.debug(_METHODNAME + "raw data to be loaded in with supporting data metadata");
+    	}
+        List<SupportingData> supportingDataList = knowledgeRepository.getSupportingDataService().findAvailable(knowledgeModule.getKMId());
+        Map<String, org.opencds.plugin.SupportingData> supportingDataListWithRawData = new LinkedHashMap<>();
         for (SupportingData sd : supportingDataList) {
-            byte[] data = new byte[0];
-            if (getRawData) {
-            	if (logger.isDebugEnabled()) {
-            		logger.debug(_METHODNAME + "raw data to be loaded in with supporting data metadata");
-            	}
-            	data = knowledgeRepository.getSupportingDataPackageService().getPackageBytes(sd);
-            }
-            else {
-
-            }
+            ByteBuffer data = knowledgeRepository.getSupportingDataPackageService().getPackageByteBuffer(sd);
             org.opencds.plugin.SupportingData lSD = org.opencds.plugin.SupportingData.create(sd.getIdentifier(), EntityIdentifierUtil.makeEIString(sd.getKMId()),
                     EntityIdentifierUtil.makeEIString(sd.getLoadedBy()), sd.getPackageId(), sd.getPackageType(), data);
-            supportingDataListWithoutRawData.put(sd.getIdentifier(), lSD);
+            supportingDataListWithRawData.put(sd.getIdentifier(), lSD);
         }
 
-        return supportingDataListWithoutRawData;
-    }
-
-
-    /**
-     * Inclusion filter by SupportingData by KMId, or SDs that have no associated KMId.
-     */
-    private static List<SupportingData> filterByKM(KMId kmId, List<SupportingData> sds) {
-        List<SupportingData> sdList = new ArrayList<>();
-        for (SupportingData sd : sds) {
-            if (sd.getKMId() == null || sd.getKMId().equals(kmId)) {
-                sdList.add(sd);
-            }
-        }
-        return sdList;
+        return supportingDataListWithRawData;
     }
 
 
@@ -210,7 +193,7 @@ public class ICEDecisionEngineDSS7EvaluationAdapter implements Evaluater {
 		}
 
 		String requestedKmId = evaluationRequestKMItem.getRequestedKmId();
-        KnowledgeModule knowledgeModule = knowledgeRepository.getKnowledgeModuleService().find(requestedKmId);
+        KnowledgeModule knowledgeModule = EvaluationContext.findKnowledgeModule(knowledgeRepository, evaluationRequestKMItem);
         Map<String, org.opencds.plugin.SupportingData> supportingData = getSupportingData(knowledgeRepository, knowledgeModule, false);
 
 		EvaluationRequestDataItem evalRequestDataItem = evaluationRequestKMItem.getEvaluationRequestDataItem();
@@ -220,7 +203,6 @@ public class ICEDecisionEngineDSS7EvaluationAdapter implements Evaluater {
 		String clientLanguage = evalRequestDataItem.getClientLanguage();
 		String clientTimeZoneOffset = evalRequestDataItem.getClientTimeZoneOffset();
 		String interactionId = evalRequestDataItem.getInteractionId();
-		String iceVersion = ICEVersionUtil.getIceVersion();
 
 		if (logger.isDebugEnabled()) {
 			logger.debug("II: " + interactionId + " KMId: " + requestedKmId + " (" + knowledgeModule.getKMId() + ")" + ", SSId: " + evalRequestDataItem.getExternalFactModelSSId() +
@@ -339,7 +321,6 @@ public class ICEDecisionEngineDSS7EvaluationAdapter implements Evaluater {
 		cmds.add(CommandFactory.newSetGlobal(EVAL_TIME, evalTime));
 		cmds.add(CommandFactory.newSetGlobal(CLIENT_LANG, clientLanguage));
 		cmds.add(CommandFactory.newSetGlobal(CLIENT_TZ_OFFSET, clientTimeZoneOffset));
-		cmds.add(CommandFactory.newSetGlobal(ICE_VERSION, iceVersion));
 
 		// following global used to store flags for inter-task communication in a JBPM Process
 		cmds.add(CommandFactory.newSetGlobal(ASSERTIONS, assertions));
@@ -368,37 +349,7 @@ public class ICEDecisionEngineDSS7EvaluationAdapter implements Evaluater {
 			logger.error(_METHODNAME + lErrStr);
 			throw new RuntimeException(lErrStr);
 		}
-		cmds.add(CommandFactory.newSetGlobal("schedule", lSchedule));
-
-		if (outputEarliestOverdueDates == null) {
-			String lErrStr = "An error occurred: knowledge module not properly initialized: output earliest/overdue flag not set; this should not happen. Cannot continue";
-			logger.error(_METHODNAME + lErrStr);
-			throw new RuntimeException(lErrStr);
-		}
-		cmds.add(CommandFactory.newSetGlobal("outputEarliestOverdueDates", outputEarliestOverdueDates));
-
-		if (doseOverrideFeatureEnabled == null) {
-			String lErrStr = "An error occurred: knowledge module not properly initialized: dose override flag not set; this should not happen. Cannot continue";
-			logger.error(_METHODNAME + lErrStr);
-			throw new RuntimeException(lErrStr);
-		}
-		cmds.add(CommandFactory.newSetGlobal("doseOverrideFeatureEnabled", doseOverrideFeatureEnabled));
-
-		if (outputSupplementalText == null) {
-			String lErrStr = "An error occurred: knowledge module not properly initialized: dose override flag not set; this should not happen. Cannot continue";
-			logger.error(_METHODNAME + lErrStr);
-			throw new RuntimeException(lErrStr);
-		}
-		cmds.add(CommandFactory.newSetGlobal("outputSupplementalText", outputSupplementalText));
-
-		cmds.add(CommandFactory.newSetGlobal("vaccineGroupExclusions", vaccineGroupExclusions));
-
-		if (enableUnsupportedVaccinesGroup == null) {
-			String lErrStr = "An error occurred: knowledge module not properly initialized: unsupported vaccine group flag not set; this should not happen. Cannot continue";
-			logger.error(_METHODNAME + lErrStr);
-			throw new RuntimeException(lErrStr);
-		}
-		cmds.add(CommandFactory.newSetGlobal("enableUnsupportedVaccinesGroup", enableUnsupportedVaccinesGroup));
+		// schedule, iceVersion and the configuration flags are bound once per knowledge module; see getStatelessKieSession()
 
 		/*
 		 * Add globals provided by plugin; don't allow any global that have the same name as our globals.
@@ -443,15 +394,18 @@ public class ICEDecisionEngineDSS7EvaluationAdapter implements Evaluater {
 		KieBase kieBase = null;
 		ExecutionResults results = null;
 		StatelessKieSession knowledgeSession = null;
+		UniqueIdStrategy lUniqueIdStrategy = ICELogicHelper.getUniqueIdStrategy();
+		lUniqueIdStrategy.beginEvaluation();
 		try {
 			if (logger.isDebugEnabled()) {
 				logger.debug("Borrowing package from pool...");
 			}
 			kieBase = knowledgeRepository.getKnowledgePackageService().borrowKnowledgePackage(knowledgeModule);
+			evaluationRequestKMItem.setKnowledgePackageVersion(knowledgeRepository.getKnowledgePackageService().getPackageVersion(knowledgeModule, kieBase));
 			if (logger.isDebugEnabled()) {
-				logger.debug("Package borrowed.");
+				logger.debug("Package borrowed (version " + evaluationRequestKMItem.getKnowledgePackageVersion() + ").");
 			}
-			knowledgeSession = kieBase.newStatelessKieSession();
+			knowledgeSession = getStatelessKieSession(requestedKmId, kieBase, lSchedule);
 
 			/**
 			// Log events START
@@ -503,6 +457,7 @@ public class ICEDecisionEngineDSS7EvaluationAdapter implements Evaluater {
 			throw new DSSRuntimeExceptionFault(err);
 		}
 		finally {
+			lUniqueIdStrategy.endEvaluation();
 			if (kieBase != null) {
 				if (logger.isDebugEnabled()) {
 					logger.debug("Returning package to pool...");
@@ -587,6 +542,77 @@ public class ICEDecisionEngineDSS7EvaluationAdapter implements Evaluater {
 		return resultFactLists;
 	}
 
+	/**
+	 * Returns the cached StatelessKieSession for the knowledge module, with the globals that do not change between requests (schedule,
+	 * iceVersion and the configuration flags set up by loadKnowledgePackages()) already bound. The session is rebuilt if the KieBase or
+	 * the Schedule for the knowledge module has been replaced. StatelessKieSession.execute() is thread-safe: each execution gets its own
+	 * working memory, and globals set by the per-request commands (or by rules) shadow, but never modify, the shared session globals.
+	 */
+	private StatelessKieSession getStatelessKieSession(String pRequestedKmId, KieBase pKieBase, Schedule pSchedule) {
+
+		KnowledgeModuleSession lCached = this.knowledgeModuleSessions.get(pRequestedKmId);
+		if (lCached != null && lCached.kieBase == pKieBase && lCached.schedule == pSchedule) {
+			return lCached.session;
+		}
+
+		String _METHODNAME = "getStatelessKieSession(): ";
+		if (outputEarliestOverdueDates == null) {
+			String lErrStr = "An error occurred: knowledge module not properly initialized: output earliest/overdue flag not set; this should not happen. Cannot continue";
+			logger.error(_METHODNAME + lErrStr);
+			throw new RuntimeException(lErrStr);
+		}
+		if (doseOverrideFeatureEnabled == null) {
+			String lErrStr = "An error occurred: knowledge module not properly initialized: dose override flag not set; this should not happen. Cannot continue";
+			logger.error(_METHODNAME + lErrStr);
+			throw new RuntimeException(lErrStr);
+		}
+		if (outputSupplementalText == null) {
+			String lErrStr = "An error occurred: knowledge module not properly initialized: dose override flag not set; this should not happen. Cannot continue";
+			logger.error(_METHODNAME + lErrStr);
+			throw new RuntimeException(lErrStr);
+		}
+		if (enableUnsupportedVaccinesGroup == null) {
+			String lErrStr = "An error occurred: knowledge module not properly initialized: unsupported vaccine group flag not set; this should not happen. Cannot continue";
+			logger.error(_METHODNAME + lErrStr);
+			throw new RuntimeException(lErrStr);
+		}
+
+		StatelessKieSession lSession = pKieBase.newStatelessKieSession();
+		lSession.setGlobal(ICE_VERSION, ICEVersionUtil.getIceVersion());
+		lSession.setGlobal("schedule", pSchedule);
+		lSession.setGlobal("outputEarliestOverdueDates", outputEarliestOverdueDates);
+		lSession.setGlobal("doseOverrideFeatureEnabled", doseOverrideFeatureEnabled);
+		lSession.setGlobal("outputSupplementalText", outputSupplementalText);
+		lSession.setGlobal("vaccineGroupExclusions", vaccineGroupExclusions);
+		lSession.setGlobal("enableUnsupportedVaccinesGroup", enableUnsupportedVaccinesGroup);
+
+		this.knowledgeModuleSessions.put(pRequestedKmId, new KnowledgeModuleSession(pKieBase, pSchedule, lSession));
+		if (logger.isInfoEnabled()) {
+			logger.info(_METHODNAME + "Created StatelessKieSession for knowledge module " + pRequestedKmId);
+		}
+		return lSession;
+	}
+
+	private static final class KnowledgeModuleSession {
+		private final KieBase kieBase;
+		private final Schedule schedule;
+		private final StatelessKieSession session;
+
+		private KnowledgeModuleSession(KieBase pKieBase, Schedule pSchedule, StatelessKieSession pSession) {
+			this.kieBase = pKieBase;
+			this.schedule = pSchedule;
+			this.session = pSession;
+		}
+	}
+
+	/**
+	 * A KieBase is immutable once built and thread-safe; a single instance per knowledge module is shared by all evaluations.
+	 */
+	@Override
+	public boolean isKnowledgePackageShareable() {
+		return true;
+	}
+
 	@Override
 	public Collection<KieBase> loadKnowledgePackages(KnowledgePackageService knowledgePackageService, KnowledgeModule knowledgeModule, int count) {
 
@@ -626,6 +652,15 @@ public class ICEDecisionEngineDSS7EvaluationAdapter implements Evaluater {
 		ICEPropertiesDataConfiguration iceconfig = new ICEPropertiesDataConfiguration();
 		Properties lProps = iceconfig.getProperties();
 
+		/////// Identifiers of the objects created during an evaluation; the strategy is replaced only if another kind is configured
+		UniqueIdStrategy lUniqueIdStrategy = ICELogicHelper.createUniqueIdStrategy(iceconfig.getUniqueIdStrategy());
+		if (lUniqueIdStrategy.getClass() != ICELogicHelper.getUniqueIdStrategy().getClass()) {
+			ICELogicHelper.setUniqueIdStrategy(lUniqueIdStrategy);
+			if (logger.isInfoEnabled()) {
+				logger.info(_METHODNAME + "Unique identifiers generated by " + lUniqueIdStrategy.getClass().getName());
+			}
+		}
+
 		/////// Get the ICE knowledge repository directory location
 		String baseConfigurationLocation = lProps.getProperty("ice_knowledge_repository_location");
 		if (baseConfigurationLocation == null) {
@@ -755,7 +790,6 @@ public class ICEDecisionEngineDSS7EvaluationAdapter implements Evaluater {
 		}
 
 		/////// Set up knowledge base
-		KieServices kieServices = KieServices.Factory.get();
 		KieBase kieBase = null;
 		if (loadRulesFromPkgFileBool == true && pkgFile != null && pkgFile.exists()) {
 			logger.info(_METHODNAME + "loading knowledge from pkg file: " + pkgFile.getAbsolutePath());
@@ -792,19 +826,15 @@ public class ICEDecisionEngineDSS7EvaluationAdapter implements Evaluater {
 			}
 
 			logger.info(_METHODNAME + "Loading knowledge base BPMN, DSL, DRL and DSLR rules");
-			KieFileSystem kfs = kieServices.newKieFileSystem();
+			Map<File, ResourceType> lRuleFiles = new LinkedHashMap<File, ResourceType>();
 			// BPMN file
 			if (bpmnFile != null) {
-				Resource bpmnResource = kieServices.getResources().newFileSystemResource(bpmnFile);
-				bpmnResource.setResourceType(ResourceType.BPMN2);
-				kfs.write(bpmnResource);
+				lRuleFiles.put(bpmnFile, ResourceType.BPMN2);
 				logger.info(_METHODNAME + "Loaded BPMN file " + bpmnFile.getPath());
 			}
 			// DSL file
 			if (dslFile != null) {
-				Resource dslResource = kieServices.getResources().newFileSystemResource(dslFile);
-				dslResource.setResourceType(ResourceType.DSL);
-				kfs.write(dslResource);
+				lRuleFiles.put(dslFile, ResourceType.DSL);
 				logger.info(_METHODNAME + "Loaded DSL file " + dslFile.getPath());
 			}
 
@@ -826,9 +856,7 @@ public class ICEDecisionEngineDSS7EvaluationAdapter implements Evaluater {
 			for (File lFileToLoad : lBaseFilesToLoad) {
 				if (lFileToLoad != null) {
 					if (lFileToLoad.getName().endsWith(".drl") || lFileToLoad.getName().endsWith(".DRL")) {
-						Resource lDrlFile = kieServices.getResources().newFileSystemResource(lFileToLoad);
-						lDrlFile.setResourceType(ResourceType.DRL);
-						kfs.write(lDrlFile);
+						lRuleFiles.put(lFileToLoad, ResourceType.DRL);
 						logger.info(_METHODNAME + "Loaded Base DRL file " + lFileToLoad.getPath());
 					}
 				}
@@ -836,9 +864,7 @@ public class ICEDecisionEngineDSS7EvaluationAdapter implements Evaluater {
 			for (File lFileToLoad : lBaseFilesToLoad) {
 				if (lFileToLoad != null) {
 					if (lFileToLoad.getName().endsWith(".dslr") || lFileToLoad.getName().endsWith(".DSLR")) {
-						Resource lDslrFile = kieServices.getResources().newFileSystemResource(lFileToLoad);
-						lDslrFile.setResourceType(ResourceType.DSLR);
-						kfs.write(lDslrFile);
+						lRuleFiles.put(lFileToLoad, ResourceType.DSLR);
 						logger.info(_METHODNAME + "Loaded Base DSLR file " + lFileToLoad.getPath());
 					}
 				}
@@ -850,9 +876,7 @@ public class ICEDecisionEngineDSS7EvaluationAdapter implements Evaluater {
 			for (File lFileToLoad : lFilesToLoad) {
 				if (lFileToLoad != null) {
 					if (lFileToLoad.getName().endsWith(".drl") || lFileToLoad.getName().endsWith(".DRL")) {
-						Resource lDrlFile = kieServices.getResources().newFileSystemResource(lFileToLoad);
-						lDrlFile.setResourceType(ResourceType.DRL);
-						kfs.write(lDrlFile);
+						lRuleFiles.put(lFileToLoad, ResourceType.DRL);
 						logger.info(_METHODNAME + "Loaded DRL file " + lFileToLoad.getPath());
 					}
 				}
@@ -860,27 +884,17 @@ public class ICEDecisionEngineDSS7EvaluationAdapter implements Evaluater {
 			for (File lFileToLoad : lFilesToLoad) {
 				if (lFileToLoad != null) {
 					if (lFileToLoad.getName().endsWith(".dslr") || lFileToLoad.getName().endsWith(".DSLR")) {
-						Resource lDslrFile = kieServices.getResources().newFileSystemResource(lFileToLoad);
-						lDslrFile.setResourceType(ResourceType.DSLR);
-						kfs.write(lDslrFile);
+						lRuleFiles.put(lFileToLoad, ResourceType.DSLR);
 						logger.info(_METHODNAME + "Loaded DSLR file " + lFileToLoad.getPath());
 					}
 				}
 			}
 
 			//////////////////////////////////////////////////////////////////////
-			KieBuilder kieBuilder = kieServices.newKieBuilder(kfs).buildAll();
-			if (kieBuilder.getResults().getMessages(Message.Level.ERROR).size() != 0) {
-				String lErrStr = "KieBuilder had errors on build of: " + lRequestedKmId + ", as follows:";
-				int i=1;
-				for (Message lMessage : kieBuilder.getResults().getMessages()) {
-					lErrStr += "\n(" + i + "): " + lMessage.getLevel().toString() + " " + lMessage.getText();
-				}
-				throw new RuntimeException(lErrStr);
-			}
-			//////////////////////////////////////////////////////////////////////
-			KieContainer kieContainer = kieServices.newKieContainer(kieServices.getRepository().getDefaultReleaseId());
-			kieBase = kieContainer.getKieBase();
+			// Build the knowledge base, or load the rules compiled by an earlier build of the same files
+			File lCompiledRulesCacheDirectory = iceconfig.isCompiledRulesCacheEnabled() ? iceconfig.getCompiledRulesCacheDirectory() : null;
+			CompiledRulesCache lCompiledRulesCache = new CompiledRulesCache(lCompiledRulesCacheDirectory, iceconfig.isCompiledRulesExecutableModelEnabled());
+			kieBase = lCompiledRulesCache.loadKieBase(lRequestedKmId, lRuleFiles);
 		}
 
 		if (loadRulesFromPkgFileBool == false && pkgFile != null && pkgFile.exists() == false) {
@@ -898,9 +912,8 @@ public class ICEDecisionEngineDSS7EvaluationAdapter implements Evaluater {
 			}
 		}
 
-		List<KieBase> knowledgeBases = new ArrayList<KieBase>(count);
-		for (int i = 0; i < count; i++)
-			knowledgeBases.add(kieBase);
+		// The KieBase is shareable (see isKnowledgePackageShareable()); every requested "copy" is the same instance
+		List<KieBase> knowledgeBases = Collections.nCopies(count, kieBase);
 
 		/////// knowledgePackageService.putPackage(knowledgeModule, kieBase);
 
@@ -26,6 +26,7 @@
 
 package org.cdsframework.ice.service.configurations;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -33,6 +34,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.cdsframework.ice.service.InconsistentConfigurationException;
 import org.cdsframework.ice.service.Schedule;
+import org.cdsframework.ice.service.ScheduleSnapshotCache;
 import org.cdsframework.ice.supportingdata.ICEPropertiesDataConfiguration;
 import org.cdsframework.ice.util.KnowledgeModuleUtils;
 import org.opencds.common.exceptions.ImproperUsageException;
@@ -172,13 +174,34 @@ public class ICESupportingDataLoaderPlugin implements PreProcessPlugin {
 		List<String> cdsVersions = new ArrayList<String>();
 		String lRequestedKmIdStr = (pRequestedKMIdStr != null && pRequestedKMIdStr.equals("org.nyc.cir^ICE^1.0.0")) ? "gov.nyc.cir^ICE^1.0.0" : pRequestedKMIdStr;
 		cdsVersions.add(lRequestedKmIdStr);
-		try {
-			s = new Schedule("requestedKmId", lBaseRulesScopingKmId, iceProps.getKnowledgeCommonDirectory(), cdsVersions, iceProps.getKnowledgeModulesDirectory());
+		File lKnowledgeCommonDirectory = iceProps.getKnowledgeCommonDirectory();
+		File lKnowledgeModulesDirectory = iceProps.getKnowledgeModulesDirectory();
+
+		// Use the snapshot of a previous startup if the supporting data has not changed since
+		ScheduleSnapshotCache lSnapshotCache = null;
+		String lSupportingDataHash = null;
+		File lSnapshotDirectory = iceProps.isSupportingDataSnapshotEnabled() ? iceProps.getSupportingDataSnapshotDirectory() : null;
+		if (lSnapshotDirectory != null) {
+			lSnapshotCache = new ScheduleSnapshotCache(lSnapshotDirectory);
+			lSupportingDataHash = lSnapshotCache.computeSupportingDataHash(lBaseRulesScopingKmId, lKnowledgeCommonDirectory, cdsVersions, lKnowledgeModulesDirectory);
+			s = lSnapshotCache.load(pRequestedKMIdStr, lSupportingDataHash);
+			if (s != null) {
+				logger.info(_METHODNAME + "Schedule restored from supporting data snapshot");
+			}
 		}
-		catch (ImproperUsageException | InconsistentConfigurationException ii) {
-			String lErrStr = "Failed to initialize immunization schedule";
-			logger.error(_METHODNAME + lErrStr);
-			throw new RuntimeException(lErrStr);
+
+		if (s == null) {
+			try {
+				s = new Schedule("requestedKmId", lBaseRulesScopingKmId, lKnowledgeCommonDirectory, cdsVersions, lKnowledgeModulesDirectory);
+			}
+			catch (ImproperUsageException | InconsistentConfigurationException ii) {
+				String lErrStr = "Failed to initialize immunization schedule";
+				logger.error(_METHODNAME + lErrStr);
+				throw new RuntimeException(lErrStr);
+			}
+			if (lSnapshotCache != null) {
+				lSnapshotCache.store(pRequestedKMIdStr, lSupportingDataHash, s);
+			}
 		}
 		logger.info("Schedule Initialization complete");
 
@@ -209,5 +209,93 @@ public class ICEPropertiesDataConfiguration {
 		
 		return lKnowledgeModulesDirectory;
 	}
+	
+	
+	/**
+	 * Whether the loaded immunization schedule is saved to, and on later startups restored from, a binary snapshot. Enabled unless
+	 * supporting_data_snapshot_enabled is set to N.
+	 */
+	public boolean isSupportingDataSnapshotEnabled() {
+
+		String lSnapshotEnabled = iceProps.getProperty("supporting_data_snapshot_enabled");
+		return lSnapshotEnabled == null || ! lSnapshotEnabled.trim().equals("N");
+	}
+
+
+	/**
+	 * Directory holding the supporting data snapshots: supporting_data_snapshot_location, or .ice-supporting-data-snapshots in the ICE
+	 * knowledge repository if not specified (null if neither is specified). The snapshots are deserialized into the Schedule used to
+	 * evaluate, so the directory must be writable by the service only; see ScheduleSnapshotCache.
+	 */
+	public File getSupportingDataSnapshotDirectory() {
+
+		String lSnapshotLocation = iceProps.getProperty("supporting_data_snapshot_location");
+		if (lSnapshotLocation == null || lSnapshotLocation.trim().isEmpty()) {
+			return returnKnowledgeRepositorySubDirectory(".ice-supporting-data-snapshots");
+		}
+		return new File(lSnapshotLocation.trim());
+	}
+
+
+	/**
+	 * Whether the compiled rules of each knowledge module are saved to, and on later startups loaded from, a compiled rules cache.
+	 * Enabled unless compiled_rules_cache_enabled is set to N.
+	 */
+	public boolean isCompiledRulesCacheEnabled() {
+
+		String lCacheEnabled = iceProps.getProperty("compiled_rules_cache_enabled");
+		return lCacheEnabled == null || ! lCacheEnabled.trim().equals("N");
+	}
+
+
+	/**
+	 * Directory holding the compiled rules cache: compiled_rules_cache_location, or .ice-compiled-rules in the ICE knowledge repository
+	 * if not specified (null if neither is specified). The compiled rules include Java classes, so the directory must be writable by the
+	 * service only; see CompiledRulesCache.
+	 */
+	public File getCompiledRulesCacheDirectory() {
+
+		String lCacheLocation = iceProps.getProperty("compiled_rules_cache_location");
+		if (lCacheLocation == null || lCacheLocation.trim().isEmpty()) {
+			return returnKnowledgeRepositorySubDirectory(".ice-compiled-rules");
+		}
+		return new File(lCacheLocation.trim());
+	}
+
+
+	/**
+	 * Whether the rules are compiled to the Drools executable model (Java classes) rather than interpreted from the rule sources at
+	 * load time. Disabled unless compiled_rules_executable_model is set to Y: the executable model loads fastest from the compiled
+	 * rules cache, but cannot be rebuilt incrementally, so each reload of a knowledge module recompiles all of its rules.
+	 */
+	public boolean isCompiledRulesExecutableModelEnabled() {
+
+		String lExecutableModel = iceProps.getProperty("compiled_rules_executable_model");
+		return lExecutableModel != null && lExecutableModel.trim().equals("Y");
+	}
+
+
+	/**
+	 * Strategy generating the identifiers of the objects created during an evaluation: unique_id_strategy, one of sequential (the
+	 * default; unique within a response), uuid, or the name of a class implementing UniqueIdStrategy.
+	 */
+	public String getUniqueIdStrategy() {
+
+		String lUniqueIdStrategy = iceProps.getProperty("unique_id_strategy");
+		return lUniqueIdStrategy == null || lUniqueIdStrategy.trim().isEmpty() ? "sequential" : lUniqueIdStrategy.trim();
+	}
+
+
+	/**
+	 * The specified subdirectory of ice_knowledge_repository_location, or null if the knowledge repository location is not specified
+	 */
+	private File returnKnowledgeRepositorySubDirectory(String pSubDirectory) {
+
+		String lKnowledgeRepositoryLocation = iceProps.getProperty("ice_knowledge_repository_location");
+		if (lKnowledgeRepositoryLocation == null || lKnowledgeRepositoryLocation.trim().isEmpty()) {
+			return null;
+		}
+		return new File(lKnowledgeRepositoryLocation.trim(), pSubDirectory);
+	}
 
 }
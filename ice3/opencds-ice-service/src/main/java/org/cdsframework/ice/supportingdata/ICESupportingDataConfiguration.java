@@ -28,10 +28,13 @@ package org.cdsframework.ice.supportingdata;
 
 import java.io.File;
 import java.io.FilenameFilter;
+import java.io.Serializable;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
@@ -65,7 +68,7 @@ import org.opencds.config.api.model.KMId;
 import org.opencds.vmr.v1_0.schema.CD;
 
 
-public class ICESupportingDataConfiguration {
+public class ICESupportingDataConfiguration implements Serializable {
 
 	/**
 	 * e.g.
@@ -89,6 +92,9 @@ public class ICESupportingDataConfiguration {
 	private static String supportingDataSeasonsSubdirectory = "Seasons";
 	private static String supportingDataSeriesSubdirectory = "Series";
 
+	// JAXBContexts are thread-safe and expensive to create; one per supporting data file type
+	private static final ConcurrentMap<String, JAXBContext> jaxbContexts = new ConcurrentHashMap<String, JAXBContext>();
+
 	private static final Logger logger = LogManager.getLogger();
 
 
@@ -135,8 +141,7 @@ public class ICESupportingDataConfiguration {
 			logger.error(_METHODNAME + lErrStr);
 			throw new ImproperUsageException(lErrStr);
 		}
-		File lKnowledgeCommonDirectory = new File(pCommonLogicModuleLocation, KnowledgeModuleUtils.returnPackageNameForKnowledgeModule(lCommonLogicKMId.getScopingEntityId(), lCommonLogicKMId.getBusinessId(), lCommonLogicKMId.getVersion()));
-		File lCommonSupportingDataDirectory = new File(lKnowledgeCommonDirectory, supportingDataDirectory);
+		File lCommonSupportingDataDirectory = returnSupportingDataDirectory(pCommonLogicModuleLocation, lCommonLogicKMId);
 		if (lCommonSupportingDataDirectory.isDirectory() == false) {
 			String lErrStr = "Supporting data directory location \"" + lCommonSupportingDataDirectory + "\" does not exist";
 			logger.error(_METHODNAME + lErrStr);
@@ -162,8 +167,7 @@ public class ICESupportingDataConfiguration {
 				logger.error(_METHODNAME + lErrStr);
 				throw new ImproperUsageException(lErrStr);
 			}
-			File lKnowledgeModuleDirectory = new File(pKnowledgeModuleRepositoryLocation, KnowledgeModuleUtils.returnPackageNameForKnowledgeModule(lKMId.getScopingEntityId(), lKMId.getBusinessId(), lKMId.getVersion()));
-			File lSupportingDataDirectory = new File(lKnowledgeModuleDirectory, supportingDataDirectory);
+			File lSupportingDataDirectory = returnSupportingDataDirectory(pKnowledgeModuleRepositoryLocation, lKMId);
 			if (lSupportingDataDirectory.isDirectory() == false) {
 				String lErrStr = "Supporting data directory location \"" + lSupportingDataDirectory + "\" does not exist";
 				logger.error(_METHODNAME + lErrStr);
@@ -374,6 +378,37 @@ public class ICESupportingDataConfiguration {
 	}
 
 
+	/**
+	 * Return the supporting data directories of the specified common logic module and knowledge modules, in the order in which they are
+	 * loaded, or null if any of the modules is not specified in the proper format. The directories are not checked for existence.
+	 */
+	public static List<File> getSupportingDataDirectoryLocations(String pCommonLogicModule, File pCommonLogicModuleLocation, List<String> pSupportedKnowledgeModules,
+		File pKnowledgeModuleRepositoryLocation) {
+
+		List<File> lSupportingDataDirectories = new ArrayList<File>();
+		KMId lCommonLogicKMId = KnowledgeModuleUtils.returnKMIdRepresentationOfKnowledgeModule(pCommonLogicModule);
+		if (lCommonLogicKMId == null) {
+			return null;
+		}
+		lSupportingDataDirectories.add(returnSupportingDataDirectory(pCommonLogicModuleLocation, lCommonLogicKMId));
+		for (String lCdsVersion : pSupportedKnowledgeModules) {
+			KMId lKMId = KnowledgeModuleUtils.returnKMIdRepresentationOfKnowledgeModule(lCdsVersion);
+			if (lKMId == null) {
+				return null;
+			}
+			lSupportingDataDirectories.add(returnSupportingDataDirectory(pKnowledgeModuleRepositoryLocation, lKMId));
+		}
+		return lSupportingDataDirectories;
+	}
+
+
+	private static File returnSupportingDataDirectory(File pLocation, KMId pKMId) {
+
+		File lKnowledgeModuleDirectory = new File(pLocation, KnowledgeModuleUtils.returnPackageNameForKnowledgeModule(pKMId.getScopingEntityId(), pKMId.getBusinessId(), pKMId.getVersion()));
+		return new File(lKnowledgeModuleDirectory, supportingDataDirectory);
+	}
+
+
 	private boolean allBaseSupportingDataCdsListItemInitialized() {
 
 		// Verify that all DoseStatus enumeration items been provided
@@ -426,6 +461,20 @@ public class ICESupportingDataConfiguration {
 	}
 
 
+	private static JAXBContext returnJAXBContext(String pContextPath) throws JAXBException {
+
+		JAXBContext lJAXBContext = jaxbContexts.get(pContextPath);
+		if (lJAXBContext == null) {
+			lJAXBContext = JAXBContext.newInstance(pContextPath);
+			JAXBContext lExisting = jaxbContexts.putIfAbsent(pContextPath, lJAXBContext);
+			if (lExisting != null) {
+				lJAXBContext = lExisting;
+			}
+		}
+		return lJAXBContext;
+	}
+
+
 	/**
 	 * Initialize supporting data from specified ICE XML data file
 	 * @param pSDSubDirectory Subdirectory where all of the XML files for this supporting data type are held
@@ -475,7 +524,7 @@ public class ICESupportingDataConfiguration {
 				continue;
 			}
 			try {
-				JAXBContext jc = JAXBContext.newInstance(pSupportingDataXMLClass.getPackage().getName());
+				JAXBContext jc = returnJAXBContext(pSupportingDataXMLClass.getPackage().getName());
 				Unmarshaller lUnmarshaller = jc.createUnmarshaller();
 				FilenameFilter lFF = new XMLSupportingDataFilenameFilterImpl();
 				String[] lSDFiles = lSDDirectory.list(lFF);
@@ -26,6 +26,7 @@
 
 package org.cdsframework.ice.supportingdata;
 
+import java.io.Serializable;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -58,7 +59,7 @@ import org.opencds.common.exceptions.ImproperUsageException;
 import org.opencds.vmr.v1_0.internal.datatypes.CD;
 
 
-public class SupportedSeries implements SupportingData {
+public class SupportedSeries implements SupportingData, Serializable {
 
 	private SupportedCdsLists supportedCdsLists;
 	private SupportedVaccineGroups supportedVaccineGroups;						// Supporting vaccine groups from which this series data is built
@@ -167,7 +168,7 @@ public class SupportedSeries implements SupportingData {
 
 		List<SeriesRules> lSRsResult = new ArrayList<SeriesRules>();
 		for (SeriesRules lSR : lSRs) {
-			SeriesRules lSRcopy = (copyOf == true) ? SeriesRules.constructDeepCopyOfSeriesRulesObject(lSR) : lSR;
+			SeriesRules lSRcopy = (copyOf == true) ? SeriesRules.constructCopyOnWriteSeriesRulesObject(lSR) : lSR;
 			lSRsResult.add(lSRcopy);
 		}
 
@@ -176,7 +177,8 @@ public class SupportedSeries implements SupportingData {
 
 
 	/**
-	 * Return a copy of all SeriesRules supported by this installation. If none, an empty list is returned.
+	 * Return a copy of all SeriesRules supported by this installation. If none, an empty list is returned. The copies are copy-on-write: DoseRules
+	 * are shared with the supporting data and must not be modified in place (see SeriesRules.constructCopyOnWriteSeriesRulesObject()).
 	 */
 	public List<SeriesRules> getCopyOfAllSeriesRules() {
 
@@ -201,7 +203,7 @@ public class SupportedSeries implements SupportingData {
 		List<SeriesRules> lSRsCopy = new ArrayList<SeriesRules>();
 		for (List<SeriesRules> lSRs : lCollectionOfSRs) {
 			for (SeriesRules lSR : lSRs) {
-				SeriesRules lSRcopy = (copyOf == true) ? SeriesRules.constructDeepCopyOfSeriesRulesObject(lSR) : lSR;
+				SeriesRules lSRcopy = (copyOf == true) ? SeriesRules.constructCopyOnWriteSeriesRulesObject(lSR) : lSR;
 				lSRsCopy.add(lSRcopy);
 			}
 		}
@@ -26,6 +26,7 @@
  
 package org.cdsframework.ice.supportingdata;
 
+import java.io.Serializable;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -47,7 +48,7 @@ import org.cdsframework.util.support.data.ice.vaccinegroup.IceVaccineGroupSpecif
 import org.opencds.common.exceptions.ImproperUsageException;
 import org.opencds.vmr.v1_0.internal.datatypes.CD;
 
-public class SupportedVaccineGroups implements SupportingData {
+public class SupportedVaccineGroups implements SupportingData, Serializable {
 	
 	private SupportedCdsLists supportedCdsLists;	// Supporting Data CdsLists from which this vaccine group supporting data is built
 	private Map<String, LocallyCodedVaccineGroupItem> cdsListItemNameToVaccineGroupItem;		// LOCAL CODE-RELATED: cdsListCode().cdsListItemKey -> LocallyCodedVaccineGroupItem
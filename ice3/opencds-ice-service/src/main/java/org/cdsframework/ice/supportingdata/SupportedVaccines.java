@@ -26,6 +26,7 @@
 
 package org.cdsframework.ice.supportingdata;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -52,7 +53,7 @@ import org.opencds.common.exceptions.ImproperUsageException;
 import org.opencds.vmr.v1_0.internal.datatypes.CD;
 
 
-public class SupportedVaccines implements SupportingData {
+public class SupportedVaccines implements SupportingData, Serializable {
 
 	// Supporting Data Cds List from which this vaccine supporting data is built
 	private SupportedCdsLists supportedCdsLists;
@@ -1,6 +1,15 @@
 package org.cdsframework.ice.util;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
 
 public final class FileUtils {
 
@@ -42,4 +51,42 @@ public final class FileUtils {
 		return isSupportingDirectoryAndSubDirectoryPresent(pDirectory, null);
 	}
 	
+
+
+	/**
+	 * Creates the directory (and any missing parent directories), if it does not exist, with permissions for its owner only, so that the
+	 * files read from it (e.g., cached compiled rules or supporting data snapshots) can only have been written by the owner. On file
+	 * systems without POSIX permissions (e.g., Windows), the directory is created but its permissions are neither set nor checked.
+	 * @param pDirectory
+	 * @throws IOException if the directory cannot be created, is not a directory, is a symbolic link, or is writable by its group or
+	 * by others
+	 */
+	public static void createOwnerOnlyDirectory(File pDirectory) throws IOException {
+
+		Path lPath = pDirectory.toPath();
+		boolean lPosix = Files.getFileStore(Files.createDirectories(lPath.toAbsolutePath().getParent())).supportsFileAttributeView(PosixFileAttributeView.class);
+		if (Files.exists(lPath, LinkOption.NOFOLLOW_LINKS) == false) {
+			try {
+				if (lPosix) {
+					Files.createDirectory(lPath, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+				}
+				else {
+					Files.createDirectory(lPath);
+				}
+			}
+			catch (FileAlreadyExistsException e) {
+				// Created concurrently; checked below
+			}
+		}
+		if (Files.isSymbolicLink(lPath) || Files.isDirectory(lPath, LinkOption.NOFOLLOW_LINKS) == false) {
+			throw new IOException(pDirectory + " is not a directory");
+		}
+		if (lPosix) {
+			Set<PosixFilePermission> lPermissions = Files.getPosixFilePermissions(lPath, LinkOption.NOFOLLOW_LINKS);
+			if (lPermissions.contains(PosixFilePermission.GROUP_WRITE) || lPermissions.contains(PosixFilePermission.OTHERS_WRITE)) {
+				throw new IOException(pDirectory + " is writable by its group or by others (" + PosixFilePermissions.toString(lPermissions) + ")");
+			}
+		}
+	}
+
 }
@@ -26,25 +26,50 @@
 
 package org.cdsframework.ice.util;
 
+import java.io.Serializable;
 import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
 import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.joda.time.DateTime;
-import org.joda.time.Days;
+import org.joda.time.DateTimeZone;
 import org.joda.time.LocalDate;
-import org.joda.time.Months;
-import org.joda.time.Weeks;
-import org.joda.time.Years;
 import org.opencds.common.exceptions.ImproperUsageException;
 
 
-public class TimePeriod {
+public class TimePeriod implements Serializable {
 	
 	private static final String TimePeriodStringFormat = "([-|+]?[ ]*[0-9]+[Yy])?([ ]*[-|+]?[ ]*[0-9]+[Mm])?([ ]*[-|+]?[ ]*[0-9]+[Ww])?([ ]*[-|+]?[ ]*[0-9]+[Dd])?";
+	private static final Pattern TimePeriodStringPattern = Pattern.compile(TimePeriodStringFormat);
 	private static final Logger logger = LogManager.getLogger();
 
+	private static final long MILLIS_PER_DAY = 86400000L;
+	private static final long MILLIS_PER_WEEK = 7 * MILLIS_PER_DAY;
+	// Epoch days of 1583-01-01 and 9999-12-31. Date arithmetic passing outside of this range is left to Joda, as java.util.Date (which each unit of the TimePeriod 
+	// has historically been converted to and from) uses the Julian calendar before the Gregorian cutover in 1582
+	private static final int MIN_YEAR = 1583;
+	private static final int MAX_YEAR = 9999;
+	private static final long MIN_EPOCH_DAY = -141349L;
+	private static final long MAX_EPOCH_DAY = 2932896L;
+
+	private static final int UNIT_YEARS = 1;
+	private static final int UNIT_MONTHS = 2;
+	private static final int UNIT_WEEKS = 4;
+	private static final int UNIT_DAYS = 8;
+	private static volatile ZoneAgreement zoneAgreement;
+
+	// TimePeriod strings used by the rules (e.g. "18y") are parsed once; the number cached is bounded as the strings may also be supplied at runtime
+	private static final int MAX_CACHED_TIME_PERIODS = 1024;
+	private static final ConcurrentMap<String, TimePeriod> parsedTimePeriods = new ConcurrentHashMap<String, TimePeriod>();
+
 	public enum DurationType {
 		DAYS, MONTHS, WEEKS, YEARS
 	}
@@ -54,6 +79,13 @@ public class TimePeriod {
 	// private boolean isInclusive;
 	private boolean timePeriodSet = false; 
 	private String timePeriodRepresentation;
+	// Units of timePeriodRepresentation, which are applied in this order; set only if timePeriodParsed
+	private int years;
+	private int months;
+	private int weeks;
+	private int days;
+	private int specifiedUnits;
+	private boolean timePeriodParsed;
 	
 	
 	private TimePeriod() {
@@ -102,6 +134,12 @@ public class TimePeriod {
 		lTP.duration = pTP.duration;
 		lTP.timePeriodSet = pTP.timePeriodSet;
 		lTP.timePeriodRepresentation = pTP.timePeriodRepresentation;
+		lTP.years = pTP.years;
+		lTP.months = pTP.months;
+		lTP.weeks = pTP.weeks;
+		lTP.days = pTP.days;
+		lTP.specifiedUnits = pTP.specifiedUnits;
+		lTP.timePeriodParsed = pTP.timePeriodParsed;
 		return lTP;
 	}
 	
@@ -129,7 +167,10 @@ public class TimePeriod {
 		if (pTimePeriodStr == null) {
 			return false;
 		}
-		if (!pTimePeriodStr.matches(TimePeriodStringFormat)) {
+		if (parsedTimePeriods.containsKey(pTimePeriodStr)) {
+			return true;
+		}
+		if (!TimePeriodStringPattern.matcher(pTimePeriodStr).matches()) {
 			return false;
 		}
 		else {
@@ -179,6 +220,85 @@ public class TimePeriod {
 		
 		this.timePeriodRepresentation = pTimePeriodStr;
 		this.timePeriodSet = true;
+		parseTimePeriod();
+	}
+	
+	
+	/**
+	 * Parse the (validated) TimePeriod string into its units the same way as addTimePeriodUnitByUnit() does. If a unit cannot be parsed (e.g. - "|5d", which the 
+	 * format allows), the TimePeriod is left unparsed, and date arithmetic with it goes through addTimePeriodUnitByUnit(), failing there as it always has.
+	 */
+	private void parseTimePeriod() {
+		
+		this.timePeriodParsed = false;
+		int lYears = 0, lMonths = 0, lWeeks = 0, lDays = 0;
+		int lSpecifiedUnits = 0;
+		StringBuilder token = new StringBuilder();
+		for (int i = 0; i < this.timePeriodRepresentation.length(); i++) {
+			char c = this.timePeriodRepresentation.charAt(i);
+			if (c == ' ') {
+				continue;
+			}
+			else if (c == 'y' || c == 'Y' || c == 'm' || c == 'M' || c == 'w' || c == 'W' || c == 'd' || c == 'D') {
+				if (token.length() == 0) {
+					continue;
+				}
+				if (token.charAt(0) == '+') {
+					token.deleteCharAt(0);
+				}
+				int lValue;
+				try {
+					lValue = Integer.parseInt(token.toString());
+				}
+				catch (NumberFormatException e) {
+					return;
+				}
+				char lUnit = Character.toLowerCase(c);
+				if (lUnit == 'y') {
+					lYears = lValue;
+					lSpecifiedUnits |= UNIT_YEARS;
+				}
+				else if (lUnit == 'm') {
+					lMonths = lValue;
+					lSpecifiedUnits |= UNIT_MONTHS;
+				}
+				else if (lUnit == 'w') {
+					lWeeks = lValue;
+					lSpecifiedUnits |= UNIT_WEEKS;
+				}
+				else {
+					lDays = lValue;
+					lSpecifiedUnits |= UNIT_DAYS;
+				}
+				token.setLength(0);
+			}
+			else {
+				token.append(c);
+			}
+		}
+		
+		this.years = lYears;
+		this.months = lMonths;
+		this.weeks = lWeeks;
+		this.days = lDays;
+		this.specifiedUnits = lSpecifiedUnits;
+		this.timePeriodParsed = true;
+	}
+	
+	
+	/**
+	 * Return the parsed TimePeriod for the (validated) TimePeriod string, from the cache if it has been parsed before
+	 */
+	private static TimePeriod returnParsedTimePeriod(String pTimePeriodStr) {
+		
+		TimePeriod lTP = parsedTimePeriods.get(pTimePeriodStr);
+		if (lTP == null) {
+			lTP = new TimePeriod(pTimePeriodStr);
+			if (parsedTimePeriods.size() < MAX_CACHED_TIME_PERIODS) {
+				parsedTimePeriods.putIfAbsent(pTimePeriodStr, lTP);
+			}
+		}
+		return lTP;
 	}
 
 	
@@ -223,48 +343,228 @@ public class TimePeriod {
 		return dateTime.dayOfMonth().getMaximumValue();
 	}
 	
+	/**
+	 * Whole days between the dates, as Joda's Days.daysBetween() for DateTimes in the default time zone
+	 */
 	public static int differenceInDays(Date startDate, Date endDate) {
 
 		if (startDate == null || endDate == null) {
 			return 0;
 		}
-		DateTime dtStart = new DateTime(startDate);
-		DateTime dtEnd = new DateTime(endDate);
-		Days d = Days.daysBetween(dtStart, dtEnd);
-		return d.getDays();	
+		return Math.toIntExact((toLocalMillis(endDate) - toLocalMillis(startDate)) / MILLIS_PER_DAY);
 	}
 	
+	/**
+	 * Whole months between the dates, as Joda's Months.monthsBetween() for DateTimes in the default time zone
+	 */
 	public static int differenceInMonths(Date startDate, Date endDate) {
 
 		if (startDate == null || endDate == null) {
 			return 0;
 		}
-		DateTime dtStart = new DateTime(startDate);
-		DateTime dtEnd = new DateTime(endDate);
-		Months m = Months.monthsBetween(dtStart, dtEnd);
-		return m.getMonths();
+		long lStart = toLocalMillis(startDate);
+		long lEnd = toLocalMillis(endDate);
+		if (lEnd < lStart) {
+			return Math.toIntExact(-monthsBetweenLocalMillis(lEnd, lStart));
+		}
+		return Math.toIntExact(monthsBetweenLocalMillis(lStart, lEnd));
 	}
 
+	/**
+	 * Whole weeks between the dates, as Joda's Weeks.weeksBetween() for DateTimes in the default time zone
+	 */
 	public static int differenceInWeeks(Date startDate, Date endDate) {
 
 		if (startDate == null || endDate == null) {
 			return 0;
 		}
-		DateTime dtStart = new DateTime(startDate);
-		DateTime dtEnd = new DateTime(endDate);
-		Weeks w = Weeks.weeksBetween(dtStart, dtEnd);
-		return w.getWeeks();
+		return Math.toIntExact((toLocalMillis(endDate) - toLocalMillis(startDate)) / MILLIS_PER_WEEK);
 	}
 
+	/**
+	 * Whole years between the dates, as Joda's Years.yearsBetween() for DateTimes in the default time zone
+	 */
 	public static int differenceInYears(Date startDate, Date endDate) {
 
 		if (startDate == null || endDate == null) {
 			return 0;
 		}
-		DateTime dtStart = new DateTime(startDate);
-		DateTime dtEnd = new DateTime(endDate);
-		Years y = Years.yearsBetween(dtStart, dtEnd);
-		return y.getYears();
+		long lStart = toLocalMillis(startDate);
+		long lEnd = toLocalMillis(endDate);
+		if (lEnd < lStart) {
+			return Math.toIntExact(-yearsBetweenLocalMillis(lEnd, lStart));
+		}
+		return Math.toIntExact(yearsBetweenLocalMillis(lStart, lEnd));
+	}
+	
+	/**
+	 * Add this TimePeriod to the specified day, expressed as the number of days since 1970-01-01. This is the same as addTimePeriod(Date, TimePeriod) for a Date on 
+	 * that day, apart from the conversions to and from Date; nothing is allocated.
+	 */
+	public long addToEpochDay(long pEpochDay) {
+		
+		if (this.timePeriodParsed == false) {
+			return toEpochDay(addTimePeriodUnitByUnit(toDate(pEpochDay), this.timePeriodRepresentation));
+		}
+		long lEpochDay = pEpochDay;
+		if (this.years != 0) {
+			lEpochDay = plusMonthsToEpochDay(lEpochDay, 12L * this.years);
+		}
+		if (this.months != 0) {
+			lEpochDay = plusMonthsToEpochDay(lEpochDay, this.months);
+		}
+		return lEpochDay + 7L * this.weeks + this.days;
+	}
+	
+	/**
+	 * Return the day of the Date in the default time zone, expressed as the number of days since 1970-01-01, as Joda's LocalDate does
+	 */
+	public static long toEpochDay(Date pDate) {
+		
+		return Math.floorDiv(toLocalMillis(pDate), MILLIS_PER_DAY);
+	}
+	
+	/**
+	 * Return the start of the specified day (number of days since 1970-01-01) in the default time zone, as Joda's LocalDate.toDate() does
+	 */
+	public static Date toDate(long pEpochDay) {
+		
+		long lYearMonthDay = civilFromEpochDay(pEpochDay);
+		return new LocalDate((int) yearOf(lYearMonthDay), monthOf(lYearMonthDay), dayOf(lYearMonthDay)).toDate();
+	}
+	
+	private static long toLocalMillis(Date pDate) {
+		
+		long lMillis = pDate.getTime();
+		return lMillis + DateTimeZone.getDefault().getOffset(lMillis);
+	}
+	
+	/**
+	 * Add months as LocalDate.plusMonths() does, except that a day of month that does not exist in the resulting month rolls over to the first of the following 
+	 * month, rather than being reduced to the last day of the month (e.g. - 31-Jan plus 1 month is 01-Mar)
+	 */
+	private static long plusMonthsToEpochDay(long pEpochDay, long pMonths) {
+		
+		long lYearMonthDay = civilFromEpochDay(pEpochDay);
+		long lMonths = yearOf(lYearMonthDay) * 12L + monthOf(lYearMonthDay) - 1 + pMonths;
+		long lYear = Math.floorDiv(lMonths, 12L);
+		int lMonth = (int) Math.floorMod(lMonths, 12L) + 1;
+		int lDay = dayOf(lYearMonthDay);
+		int lDaysInMonth = daysInMonth(lYear, lMonth);
+		if (lDay > lDaysInMonth) {
+			return epochDayFromCivil(lYear, lMonth, lDaysInMonth) + 1;
+		}
+		return epochDayFromCivil(lYear, lMonth, lDay);
+	}
+	
+	/**
+	 * Months from pSubtrahend to pMinuend, where pMinuend >= pSubtrahend (both local millis); as Joda's ISO month of year field
+	 */
+	private static long monthsBetweenLocalMillis(long pSubtrahend, long pMinuend) {
+		
+		long lMinuendYMD = civilFromEpochDay(Math.floorDiv(pMinuend, MILLIS_PER_DAY));
+		long lSubtrahendYMD = civilFromEpochDay(Math.floorDiv(pSubtrahend, MILLIS_PER_DAY));
+		long lMinuendYear = yearOf(lMinuendYMD), lSubtrahendYear = yearOf(lSubtrahendYMD);
+		int lMinuendMonth = monthOf(lMinuendYMD), lSubtrahendMonth = monthOf(lSubtrahendYMD);
+		long lDifference = (lMinuendYear - lSubtrahendYear) * 12L + lMinuendMonth - lSubtrahendMonth;
+		
+		// If the minuend is on the last day of its month, a later day of month of the subtrahend counts as that last day
+		long lSubtrahend = pSubtrahend;
+		int lMinuendDay = dayOf(lMinuendYMD), lSubtrahendDay = dayOf(lSubtrahendYMD);
+		if (lMinuendDay == daysInMonth(lMinuendYear, lMinuendMonth) && lSubtrahendDay > lMinuendDay) {
+			lSubtrahend -= (lSubtrahendDay - lMinuendDay) * MILLIS_PER_DAY;
+		}
+		long lMinuendRemainder = pMinuend - epochDayFromCivil(lMinuendYear, lMinuendMonth, 1) * MILLIS_PER_DAY;
+		long lSubtrahendRemainder = lSubtrahend - epochDayFromCivil(lSubtrahendYear, lSubtrahendMonth, 1) * MILLIS_PER_DAY;
+		if (lMinuendRemainder < lSubtrahendRemainder) {
+			lDifference--;
+		}
+		return lDifference;
+	}
+	
+	/**
+	 * Years from pSubtrahend to pMinuend, where pMinuend >= pSubtrahend (both local millis); as Joda's GregorianChronology.getYearDifference()
+	 */
+	private static long yearsBetweenLocalMillis(long pSubtrahend, long pMinuend) {
+		
+		long lMinuendYear = yearOf(civilFromEpochDay(Math.floorDiv(pMinuend, MILLIS_PER_DAY)));
+		long lSubtrahendYear = yearOf(civilFromEpochDay(Math.floorDiv(pSubtrahend, MILLIS_PER_DAY)));
+		long lMinuendRemainder = pMinuend - epochDayFromCivil(lMinuendYear, 1, 1) * MILLIS_PER_DAY;
+		long lSubtrahendRemainder = pSubtrahend - epochDayFromCivil(lSubtrahendYear, 1, 1) * MILLIS_PER_DAY;
+		
+		// Balance leap year differences on the remainders
+		long lFeb29 = (31L + 29 - 1) * MILLIS_PER_DAY;
+		if (lSubtrahendRemainder >= lFeb29) {
+			if (isLeapYear(lSubtrahendYear)) {
+				if (! isLeapYear(lMinuendYear)) {
+					lSubtrahendRemainder -= MILLIS_PER_DAY;
+				}
+			}
+			else if (lMinuendRemainder >= lFeb29 && isLeapYear(lMinuendYear)) {
+				lMinuendRemainder -= MILLIS_PER_DAY;
+			}
+		}
+		long lDifference = lMinuendYear - lSubtrahendYear;
+		if (lMinuendRemainder < lSubtrahendRemainder) {
+			lDifference--;
+		}
+		return lDifference;
+	}
+	
+	private static boolean isLeapYear(long pYear) {
+		
+		return pYear % 4 == 0 && (pYear % 100 != 0 || pYear % 400 == 0);
+	}
+	
+	private static int daysInMonth(long pYear, int pMonth) {
+		
+		if (pMonth == 2) {
+			return isLeapYear(pYear) ? 29 : 28;
+		}
+		return (pMonth == 4 || pMonth == 6 || pMonth == 9 || pMonth == 11) ? 30 : 31;
+	}
+	
+	/**
+	 * Days since 1970-01-01 of the specified (proleptic Gregorian) date
+	 */
+	private static long epochDayFromCivil(long pYear, int pMonth, int pDay) {
+		
+		long lYear = pMonth <= 2 ? pYear - 1 : pYear;
+		long lEra = Math.floorDiv(lYear, 400L);
+		long lYearOfEra = lYear - lEra * 400;
+		long lDayOfYear = (153 * (pMonth > 2 ? pMonth - 3 : pMonth + 9) + 2) / 5 + pDay - 1;
+		long lDayOfEra = lYearOfEra * 365 + lYearOfEra / 4 - lYearOfEra / 100 + lDayOfYear;
+		return lEra * 146097 + lDayOfEra - 719468;
+	}
+	
+	/**
+	 * (Proleptic Gregorian) date of the specified number of days since 1970-01-01, packed as year << 9 | month << 5 | day to avoid allocating; see yearOf(), 
+	 * monthOf() and dayOf()
+	 */
+	private static long civilFromEpochDay(long pEpochDay) {
+		
+		long lDays = pEpochDay + 719468;
+		long lEra = Math.floorDiv(lDays, 146097L);
+		long lDayOfEra = lDays - lEra * 146097;
+		long lYearOfEra = (lDayOfEra - lDayOfEra / 1460 + lDayOfEra / 36524 - lDayOfEra / 146096) / 365;
+		long lDayOfYear = lDayOfEra - (365 * lYearOfEra + lYearOfEra / 4 - lYearOfEra / 100);
+		long lMonthIndex = (5 * lDayOfYear + 2) / 153;
+		long lDay = lDayOfYear - (153 * lMonthIndex + 2) / 5 + 1;
+		long lMonth = lMonthIndex < 10 ? lMonthIndex + 3 : lMonthIndex - 9;
+		long lYear = lYearOfEra + lEra * 400 + (lMonth <= 2 ? 1 : 0);
+		return (lYear << 9) | (lMonth << 5) | lDay;
+	}
+	
+	private static long yearOf(long pYearMonthDay) {
+		return pYearMonthDay >> 9;
+	}
+	
+	private static int monthOf(long pYearMonthDay) {
+		return (int) ((pYearMonthDay >> 5) & 15);
+	}
+	
+	private static int dayOf(long pYearMonthDay) {
+		return (int) (pYearMonthDay & 31);
 	}
 
 	/**
@@ -332,8 +632,151 @@ public class TimePeriod {
 	 */
 	public static Date addTimePeriod(Date startDate, TimePeriod pTP) {
 		
-		return addTimePeriod(startDate, pTP.getTimePeriodStringRepresentation());
+		String _METHODNAME = "addTimePeriod(Date, TimePeriod): ";
+		
+		if (pTP.timePeriodParsed == false) {
+			return addTimePeriod(startDate, pTP.getTimePeriodStringRepresentation());
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug(_METHODNAME + "Start date: " + startDate + "; TimePeriod: " + pTP);
+		}
+		if (startDate == null) {
+			return null;
+		}
+		return addParsedTimePeriod(startDate, pTP);
+	}
+	
+	
+	private static Date addParsedTimePeriod(Date startDate, TimePeriod pTP) {
+		
+		if (pTP.timePeriodParsed == false) {
+			return addTimePeriodUnitByUnit(startDate, pTP.timePeriodRepresentation);
+		}
+		int lUnits = pTP.specifiedUnits;
+		if (lUnits == 0) {
+			return startDate;
+		}
+		
+		// Apply the units in order, as addTimePeriodUnitByUnit() does. That converts the date to a Date (in the JDK default time zone) and back (in the Joda default 
+		// time zone) between units, which is only a no-op where the two time zone databases agree.
+		ZoneAgreement lZoneAgreement = Integer.bitCount(lUnits) > 1 ? returnZoneAgreement() : null;
+		long lEpochDay = toEpochDay(startDate);
+		boolean lExact = isWithinRange(lEpochDay);
+		if ((lUnits & UNIT_YEARS) != 0) {
+			lEpochDay = plusMonthsToEpochDay(lEpochDay, 12L * pTP.years);
+			lUnits &= ~UNIT_YEARS;
+			lExact = lExact && isWithinRange(lEpochDay) && (lUnits == 0 || lZoneAgreement.agreesOn(lEpochDay));
+		}
+		if ((lUnits & UNIT_MONTHS) != 0) {
+			lEpochDay = plusMonthsToEpochDay(lEpochDay, pTP.months);
+			lUnits &= ~UNIT_MONTHS;
+			lExact = lExact && isWithinRange(lEpochDay) && (lUnits == 0 || lZoneAgreement.agreesOn(lEpochDay));
+		}
+		if ((lUnits & UNIT_WEEKS) != 0) {
+			lEpochDay += 7L * pTP.weeks;
+			lUnits &= ~UNIT_WEEKS;
+			lExact = lExact && isWithinRange(lEpochDay) && (lUnits == 0 || lZoneAgreement.agreesOn(lEpochDay));
+		}
+		lEpochDay += pTP.days;
+		if (lExact == false || isWithinRange(lEpochDay) == false) {
+			return addTimePeriodUnitByUnit(startDate, pTP.timePeriodRepresentation);
+		}
+		return toDate(lEpochDay);
+	}
+	
+	
+	private static boolean isWithinRange(long pEpochDay) {
+		
+		return pEpochDay >= MIN_EPOCH_DAY && pEpochDay <= MAX_EPOCH_DAY;
+	}
+	
+	
+	private static ZoneAgreement returnZoneAgreement() {
+		
+		DateTimeZone lJodaZone = DateTimeZone.getDefault();
+		TimeZone lJavaZone = TimeZone.getDefault();
+		ZoneAgreement lZoneAgreement = zoneAgreement;
+		if (lZoneAgreement == null || lZoneAgreement.jodaZone != lJodaZone || ! lZoneAgreement.javaZone.getID().equals(lJavaZone.getID())) {
+			lZoneAgreement = new ZoneAgreement(lJodaZone, lJavaZone);
+			zoneAgreement = lZoneAgreement;
+		}
+		return lZoneAgreement;
+	}
+	
+	
+	/**
+	 * Records, per year, whether the Joda and the JDK time zones agree on the UTC offset throughout the year (they use separately maintained copies of the time zone 
+	 * database, and the JDK does not always have the local mean time of the Joda database).
+	 */
+	private static final class ZoneAgreement {
+		
+		private static final byte UNKNOWN = 0;
+		private static final byte AGREE = 1;
+		private static final byte DISAGREE = 2;
+		
+		private final DateTimeZone jodaZone;
+		private final TimeZone javaZone;
+		private final ZoneRules javaZoneRules;
+		private final byte[] agreementByYear = new byte[MAX_YEAR - MIN_YEAR + 1];
+		
+		private ZoneAgreement(DateTimeZone pJodaZone, TimeZone pJavaZone) {
+			this.jodaZone = pJodaZone;
+			this.javaZone = pJavaZone;
+			this.javaZoneRules = pJavaZone.toZoneId().getRules();
+		}
+		
+		/**
+		 * Whether the start of the specified day converts to a Date and back to the same day
+		 */
+		private boolean agreesOn(long pEpochDay) {
+			
+			// The start of the day in UTC is within a day of the day
+			return agreesIn(yearOf(civilFromEpochDay(pEpochDay - 1))) && agreesIn(yearOf(civilFromEpochDay(pEpochDay + 1)));
+		}
 		
+		private boolean agreesIn(long pYear) {
+			
+			if (pYear < MIN_YEAR || pYear > MAX_YEAR) {
+				return false;
+			}
+			int lIndex = (int) pYear - MIN_YEAR;
+			byte lAgreement = this.agreementByYear[lIndex];
+			if (lAgreement == UNKNOWN) {
+				lAgreement = determineAgreement(pYear) ? AGREE : DISAGREE;
+				this.agreementByYear[lIndex] = lAgreement;
+			}
+			return lAgreement == AGREE;
+		}
+		
+		private boolean determineAgreement(long pYear) {
+			
+			// Offsets only change at transitions; compare them at the start of the year and on both sides of each transition of either zone. A year in which 
+			// the date line moves (a day is skipped or repeated) is treated as not agreeing.
+			long lInstant = epochDayFromCivil(pYear, 1, 1) * MILLIS_PER_DAY;
+			long lEnd = epochDayFromCivil(pYear + 1, 1, 1) * MILLIS_PER_DAY;
+			while (lInstant < lEnd) {
+				if (this.jodaZone.getOffset(lInstant) != this.javaZone.getOffset(lInstant)) {
+					return false;
+				}
+				long lNextTransition = this.jodaZone.nextTransition(lInstant);
+				if (lNextTransition <= lInstant) {
+					lNextTransition = Long.MAX_VALUE;
+				}
+				ZoneOffsetTransition lJavaTransition = this.javaZoneRules.nextTransition(Instant.ofEpochMilli(lInstant));
+				if (lJavaTransition != null) {
+					lNextTransition = Math.min(lNextTransition, lJavaTransition.getInstant().toEpochMilli());
+				}
+				if (lNextTransition >= lEnd) {
+					break;
+				}
+				int lOffsetBefore = this.jodaZone.getOffset(lNextTransition - 1);
+				if (lOffsetBefore != this.javaZone.getOffset(lNextTransition - 1) || Math.abs(this.jodaZone.getOffset(lNextTransition) - lOffsetBefore) >= MILLIS_PER_DAY / 2) {
+					return false;
+				}
+				lInstant = lNextTransition;
+			}
+			return true;
+		}
 	}
 	
 	
@@ -368,6 +811,18 @@ public class TimePeriod {
 			logger.debug("TimePeriod String Supplied: " + pTimePeriodStr);
 		}
 		
+		return addParsedTimePeriod(startDate, returnParsedTimePeriod(pTimePeriodStr));
+	}
+	
+	
+	/**
+	 * Add the (validated) TimePeriod string to the supplied date one unit at a time, with Joda. Used where the TimePeriod could not be parsed or the result 
+	 * is out of the range handled by addToEpochDay().
+	 */
+	private static Date addTimePeriodUnitByUnit(Date startDate, String pTimePeriodStr) {
+		
+		String _METHODNAME = "addTimePeriodUnitByUnit(): ";
+		
 		TimePeriod tp = null;
 		Date interimDate = startDate;
 		StringBuffer token = new StringBuffer();
@@ -503,16 +958,16 @@ public class TimePeriod {
 		}
 		TimePeriod tp = null;
 		if (pDurationType == DurationType.DAYS) {
-			tp = new TimePeriod(differenceInDays(d1, d2) + "d");
+			tp = new TimePeriod(differenceInDays(d1, d2), DurationType.DAYS);
 		}
 		else if (pDurationType == DurationType.WEEKS) {
-			tp = new TimePeriod(differenceInWeeks(d1, d2) + "w");
+			tp = new TimePeriod(differenceInWeeks(d1, d2), DurationType.WEEKS);
 		}
 		else if (pDurationType == DurationType.MONTHS) {
-			tp = new TimePeriod(differenceInMonths(d1, d2) + "m");
+			tp = new TimePeriod(differenceInMonths(d1, d2), DurationType.MONTHS);
 		}
 		else if (pDurationType == DurationType.YEARS) {
-			tp = new TimePeriod(differenceInYears(d1, d2) + "y");
+			tp = new TimePeriod(differenceInYears(d1, d2), DurationType.YEARS);
 		}
 		else {
 			String errStr = _METHODNAME + "Unexpected error: DurationType specified not supported by this method";
@@ -538,7 +993,21 @@ public class TimePeriod {
 			throw new IllegalArgumentException(str);
 		}
 
-		return compareElapsedTimePeriodToDateRange(pD1, pD2, tp.timePeriodRepresentation, absoluteValue);
+		if (tp.timePeriodRepresentation == null || tp.timePeriodRepresentation.length() == 0) {
+			return compareElapsedTimePeriodToDateRange(pD1, pD2, tp.timePeriodRepresentation, absoluteValue);
+		}
+		if (pD1 == null || pD2 == null) {
+			String str = "One or more date parameters is null";
+			logger.error(_METHODNAME + str);
+			throw new IllegalArgumentException(str);
+		}
+		
+		if (absoluteValue == true && pD2.before(pD1)) {
+			return compareDateToDate(addParsedTimePeriod(pD2, tp), pD1);
+		}
+		else {
+			return compareDateToDate(addParsedTimePeriod(pD1, tp), pD2);
+		}
 	}
 
 	
@@ -586,7 +1055,7 @@ public class TimePeriod {
 			logger.debug(_METHODNAME + "Date d1 is " + d1.toString() + "; Date d2 is " + d2.toString());
 		}
 
-		if (!pTimePeriodStr.matches(TimePeriodStringFormat)) {
+		if (isTimePeriodStringInCorrectFormat(pTimePeriodStr) == false) {
 			String str = "TimePeriod string \"" + pTimePeriodStr + "\" does not match correct pattern: e.g. - 1y 10m 12d";
 			logger.error(_METHODNAME + str);
 			throw new IllegalArgumentException(str);
@@ -595,12 +1064,16 @@ public class TimePeriod {
 			logger.debug("TimePeriod String Supplied: " + pTimePeriodStr);
 		}
 		
-		Date interimDate = d1;
-		interimDate = addTimePeriod(d1, pTimePeriodStr);
-		if (interimDate.before(d2)) {
+		return compareDateToDate(addParsedTimePeriod(d1, returnParsedTimePeriod(pTimePeriodStr)), d2);
+	}
+	
+	
+	private static int compareDateToDate(Date pInterimDate, Date pD2) {
+		
+		if (pInterimDate.getTime() < pD2.getTime()) {
 			return 1;
 		}
-		else if (interimDate.after(d2)) {
+		else if (pInterimDate.getTime() > pD2.getTime()) {
 			return -1;
 		}
 		else {
@@ -0,0 +1,376 @@
+/**
+ * Copyright (C) 2023 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ *
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see http://www.hln.com/ice or send
+ * correspondence to ice@hln.com.
+ */
+
+package org.cdsframework.ice.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.cdsframework.cds.CdsConcept;
+import org.junit.Test;
+import org.opencds.vmr.v1_0.internal.SubstanceAdministrationEvent;
+
+/**
+ * Differential test of TargetDoseIndex against the TreeSet ordered by the comparator that TargetSeries used before it, over random dose
+ * histories with several doses on the same day. The previous comparator never returned 0 for two doses administered on the same day,
+ * so TreeSet.lower() treated every other dose of that day as lower, and which one it returned depended on the shape of the tree; the
+ * index instead returns the dose that precedes in ORDER. The test checks that the order of the doses is unchanged, and that this
+ * difference does not change whether obtainDoseRuleOfAdmininsteredShotWithMostRecentDatePriorToTargetDose() identifies a prior dose,
+ * wherever its loop over the previous TreeSet returned (with three or more doses on a day, it could go round them forever).
+ */
+public class TargetDoseIndexTest {
+
+	private static final String DISEASE = "DISEASE_CONCEPT.TEST";
+	private static final long MILLIS_PER_DAY = 86400000L;
+	private static final int HISTORIES = 2000;
+	private static final int CHANGES_PER_HISTORY = 40;
+
+	private final Random random = new Random(20240615L);
+	private final VaccineComponent vaccineComponent;
+	private final Vaccine vaccine;
+	private final TargetSeries targetSeries;
+	private int saeCount;
+
+
+	public TargetDoseIndexTest() {
+
+		vaccineComponent = new VaccineComponent(new CdsConcept("VACCINE_CONCEPT.TEST"), Collections.singletonList(DISEASE));
+		vaccine = new Vaccine(new CdsConcept("VACCINE_CONCEPT.TEST"), Collections.singletonList(vaccineComponent));
+		// The doses of the tests are only ever in the TargetDoseIndex of the tests, not in this series
+		targetSeries = new TargetSeries(new SeriesRules("Test Series", new CdsConcept("VACCINE_GROUP_CONCEPT.TEST")), Collections.singletonList(DISEASE));
+	}
+
+
+	@Test
+	public void orderOfTheDosesMatchesPreviousComparator() {
+
+		for (int h = 0; h < HISTORIES; h++) {
+			TargetDoseIndex lIndex = new TargetDoseIndex();
+			TreeSet<TargetDose> lPrevious = new TreeSet<TargetDose>(new PreviousTargetSeriesComparator());
+			addRandomTargetDoses(lIndex, lPrevious);
+
+			List<TargetDose> lTargetDoses = lIndex.getTargetDoses();
+			assertEquals("doses in order", new ArrayList<TargetDose>(lPrevious), lTargetDoses);
+			for (int i = 0; i < lTargetDoses.size(); i++) {
+				assertEquals("ORDER of a dose with itself", 0, TargetDoseIndex.ORDER.compare(lTargetDoses.get(i), lTargetDoses.get(i)));
+				for (int j = i + 1; j < lTargetDoses.size(); j++) {
+					assertTrue("ORDER of dose " + i + " and dose " + j, TargetDoseIndex.ORDER.compare(lTargetDoses.get(i), lTargetDoses.get(j)) < 0);
+					assertTrue("ORDER of dose " + j + " and dose " + i, TargetDoseIndex.ORDER.compare(lTargetDoses.get(j), lTargetDoses.get(i)) > 0);
+				}
+			}
+		}
+	}
+
+
+	@Test
+	public void lowerMatchesPreviousTreeSetExceptAmongDosesOfTheSameDay() {
+
+		for (int h = 0; h < HISTORIES; h++) {
+			TargetDoseIndex lIndex = new TargetDoseIndex();
+			TreeSet<TargetDose> lPrevious = new TreeSet<TargetDose>(new PreviousTargetSeriesComparator());
+			addRandomTargetDoses(lIndex, lPrevious);
+
+			List<TargetDose> lTargetDoses = lIndex.getTargetDoses();
+			for (int i = 0; i < lTargetDoses.size(); i++) {
+				TargetDose lTD = lTargetDoses.get(i);
+				TargetDose lLower = lIndex.lower(lTD);
+				assertSame("lower() of dose " + i, i == 0 ? null : lTargetDoses.get(i - 1), lLower);
+				TargetDose lPreviousLower = lPrevious.lower(lTD);
+				if (numberOfDosesOnTheDayOf(lTD, lTargetDoses) == 1) {
+					assertSame("lower() of dose " + i + ", the only dose of its day", lPreviousLower, lLower);
+				}
+				else if (lPreviousLower != null) {
+					assertTrue("previous lower() of dose " + i + " not after its day", ! lPreviousLower.getAdministrationDate().after(lTD.getAdministrationDate()));
+				}
+			}
+		}
+	}
+
+
+	@Test
+	public void mostRecentPriorDoseMatchesPreviousTreeSet() {
+
+		for (int h = 0; h < HISTORIES; h++) {
+			TargetDoseIndex lIndex = new TargetDoseIndex();
+			TreeSet<TargetDose> lPrevious = new TreeSet<TargetDose>(new PreviousTargetSeriesComparator());
+			addRandomTargetDoses(lIndex, lPrevious);
+
+			List<TargetDose> lTargetDoses = lIndex.getTargetDoses();
+			for (TargetDose lTD : lTargetDoses) {
+				TargetDose lFirstOfTheDay = null;
+				boolean lEarlierDay = false;
+				for (TargetDose td : lTargetDoses) {
+					if (td.getAdministrationDate().before(lTD.getAdministrationDate())) {
+						lEarlierDay = true;
+					}
+					else if (lFirstOfTheDay == null) {
+						lFirstOfTheDay = td;
+					}
+				}
+
+				// The loop of obtainDoseRuleOfAdmininsteredShotWithMostRecentDatePriorToTargetDose(), whose dose rule is that of the dose
+				// it stops at
+				TargetDose lIdentified = mostRecentPriorDoseWalk(lIndex, lTD);
+				assertSame("dose identified for " + lTD.getUniqueId(), lEarlierDay ? lFirstOfTheDay : null, lIdentified);
+
+				// The same loop over the previous TreeSet, which could go back and forth between doses of the same day without returning
+				Set<TargetDose> lVisited = new HashSet<TargetDose>();
+				TargetDose lTDOfInterest = lTD;
+				boolean priorTargetDoseIdentified = false;
+				boolean lReturned = true;
+				while (lTDOfInterest != null) {
+					if (! lVisited.add(lTDOfInterest)) {
+						lReturned = false;
+						break;
+					}
+					TargetDose lTDPrior = lPrevious.lower(lTDOfInterest);
+					if (lTDPrior == null) {
+						break;
+					}
+					if (lTDPrior.getAdministrationDate().before(lTDOfInterest.getAdministrationDate())) {
+						priorTargetDoseIdentified = true;
+						break;
+					}
+					lTDOfInterest = lTDPrior;
+				}
+				if (! lReturned) {
+					continue;
+				}
+				assertEquals("prior dose identified for " + lTD.getUniqueId(), priorTargetDoseIdentified, lIdentified != null);
+				if (priorTargetDoseIdentified) {
+					assertEquals("day of the dose identified for " + lTD.getUniqueId(), lTD.getAdministrationDate(), lTDOfInterest.getAdministrationDate());
+				}
+			}
+		}
+	}
+
+
+	@Test
+	public void dosesStayInOrderAsTheirAdministrationDatesChange() {
+
+		for (int h = 0; h < HISTORIES; h++) {
+			TargetDoseIndex lIndex = new TargetDoseIndex();
+			addRandomTargetDoses(lIndex, new TreeSet<TargetDose>(new PreviousTargetSeriesComparator()));
+			Date lFirstDay = lIndex.getTargetDoses().isEmpty() ? new Date(0L) : lIndex.getTargetDoses().get(0).getAdministrationDate();
+
+			for (int c = 0; c < CHANGES_PER_HISTORY; c++) {
+				List<TargetDose> lTargetDoses = lIndex.getTargetDoses();
+				int lChange = random.nextInt(8);
+				if (lChange == 0) {
+					TargetDose lTD = newTargetDose(randomDay(lFirstDay));
+					assertTrue("dose added", lIndex.add(lTD));
+					assertTrue("dose added twice", ! lIndex.add(lTD));
+				}
+				else if (lChange == 1 && ! lTargetDoses.isEmpty()) {
+					int lPosition = random.nextInt(lTargetDoses.size());
+					TargetDose lTD = lTargetDoses.get(lPosition);
+					assertEquals("position of the removed dose", lPosition, lIndex.remove(lTD));
+					assertEquals("position of a dose not in the index", -1, lIndex.remove(lTD));
+					assertTrue("removed dose", ! lIndex.contains(lTD));
+				}
+				else if (! lTargetDoses.isEmpty()) {
+					TargetDose lTD = lTargetDoses.get(random.nextInt(lTargetDoses.size()));
+					Date lPreviousAdministrationDate = lTD.getAdministrationDate();
+					lTD.setAdministrationDate(randomDay(lFirstDay));
+					lIndex.administrationDateChanged(lTD, lPreviousAdministrationDate);
+				}
+				assertInOrder(lIndex);
+			}
+		}
+	}
+
+
+	@Test
+	public void dosesNotInTheIndexAreIgnored() {
+
+		TargetDoseIndex lIndex = new TargetDoseIndex();
+		TargetDose lTD = newTargetDose(new Date(0L));
+		TargetDose lOtherTD = newTargetDose(new Date(0L));
+		lIndex.add(lTD);
+
+		assertEquals("indexOf()", -1, lIndex.indexOf(lOtherTD));
+		assertNull("lower()", lIndex.lower(lOtherTD));
+		assertEquals("remove()", -1, lIndex.remove(lOtherTD));
+		lIndex.administrationDateChanged(lOtherTD, new Date(MILLIS_PER_DAY));
+		assertEquals("doses", Collections.singletonList(lTD), lIndex.getTargetDoses());
+		assertSame("last()", lTD, lIndex.last());
+	}
+
+
+	/**
+	 * Adds up to 12 doses over a few days, in random order of administration date, to the index and to the TreeSet of the previous
+	 * implementation
+	 */
+	private void addRandomTargetDoses(TargetDoseIndex pIndex, TreeSet<TargetDose> pPrevious) {
+
+		Date lFirstDay = new Date((random.nextInt(20000) - 5000) * MILLIS_PER_DAY);
+		int lNumberOfDoses = random.nextInt(13);
+		for (int i = 0; i < lNumberOfDoses; i++) {
+			TargetDose lTD = newTargetDose(randomDay(lFirstDay));
+			assertTrue("dose added", pIndex.add(lTD));
+			assertTrue("dose added to the previous TreeSet", pPrevious.add(lTD));
+		}
+	}
+
+
+	private Date randomDay(Date pFirstDay) {
+		return new Date(pFirstDay.getTime() + random.nextInt(4) * MILLIS_PER_DAY);
+	}
+
+
+	private TargetDose newTargetDose(Date pAdministrationDate) {
+
+		SubstanceAdministrationEvent lSAE = new SubstanceAdministrationEvent();
+		lSAE.setId("sae" + (++saeCount));
+		return new TargetDose(vaccine, vaccineComponent, pAdministrationDate, targetSeries, lSAE);
+	}
+
+
+	private static int numberOfDosesOnTheDayOf(TargetDose pTD, List<TargetDose> pTargetDoses) {
+
+		int lNumberOfDoses = 0;
+		for (TargetDose td : pTargetDoses) {
+			if (td.getAdministrationDate().equals(pTD.getAdministrationDate())) {
+				lNumberOfDoses++;
+			}
+		}
+		return lNumberOfDoses;
+	}
+
+
+	/**
+	 * @return the dose at which the loop of obtainDoseRuleOfAdmininsteredShotWithMostRecentDatePriorToTargetDose() stops if it identified
+	 * a dose administered on a prior date, or null if it did not
+	 */
+	private static TargetDose mostRecentPriorDoseWalk(TargetDoseIndex pIndex, TargetDose pTD) {
+
+		TargetDose lTDOfInterest = pTD;
+		while (lTDOfInterest != null) {
+			TargetDose lTDPrior = pIndex.lower(lTDOfInterest);
+			if (lTDPrior == null) {
+				break;
+			}
+			if (lTDPrior.getAdministrationDate().before(lTDOfInterest.getAdministrationDate())) {
+				return lTDOfInterest;
+			}
+			lTDOfInterest = lTDPrior;
+		}
+		return null;
+	}
+
+
+	/**
+	 * Checks that the doses are ordered by administration date, then in the order in which they were added, that a TreeSet of the
+	 * previous comparator into which they are added in that order agrees, and that each dose is found at its position
+	 */
+	private static void assertInOrder(TargetDoseIndex pIndex) {
+
+		List<TargetDose> lTargetDoses = pIndex.getTargetDoses();
+		List<TargetDose> lExpected = new ArrayList<TargetDose>(lTargetDoses);
+		Collections.sort(lExpected, new Comparator<TargetDose>() {
+
+			@Override
+			public int compare(TargetDose a, TargetDose b) {
+				int lComparison = a.getAdministrationDate().compareTo(b.getAdministrationDate());
+				return lComparison != 0 ? lComparison : Long.compare(a.getSequenceNumberInSeries(), b.getSequenceNumberInSeries());
+			}
+		});
+		assertEquals("doses in order", lExpected, lTargetDoses);
+
+		List<TargetDose> lInSequence = new ArrayList<TargetDose>(lTargetDoses);
+		Collections.sort(lInSequence, new Comparator<TargetDose>() {
+
+			@Override
+			public int compare(TargetDose a, TargetDose b) {
+				return Long.compare(a.getSequenceNumberInSeries(), b.getSequenceNumberInSeries());
+			}
+		});
+		TreeSet<TargetDose> lPrevious = new TreeSet<TargetDose>(new PreviousTargetSeriesComparator());
+		lPrevious.addAll(lInSequence);
+		assertEquals("doses in the order of the previous comparator", new ArrayList<TargetDose>(lPrevious), lTargetDoses);
+
+		for (int i = 0; i < lTargetDoses.size(); i++) {
+			assertEquals("indexOf() dose " + i, i, pIndex.indexOf(lTargetDoses.get(i)));
+		}
+		assertSame("last()", lTargetDoses.isEmpty() ? null : lTargetDoses.get(lTargetDoses.size() - 1), pIndex.last());
+	}
+
+
+	/**
+	 * The comparator of the TreeSet of the doses of TargetSeries before TargetDoseIndex
+	 */
+	private static class PreviousTargetSeriesComparator implements Comparator<TargetDose> {
+
+		public int compare(TargetDose a, TargetDose b) {
+
+			if (a == null && b == null) {
+				return 0;
+			}
+			if (a == null && b != null) {
+				return 1;
+			}
+			if (a != null && b == null) {
+				return -1;
+			}
+
+			String uniqueIdA = a.getUniqueId();
+			String uniqueIdB = b.getUniqueId();
+
+			if (uniqueIdA != null && uniqueIdB != null && uniqueIdA.equals(uniqueIdB)) {
+				return 0;
+			}
+			Date aDate = a.getAdministrationDate();
+			Date bDate = b.getAdministrationDate();
+
+			if (aDate == null && bDate == null) {
+				return 0;
+			}
+			if (aDate == null && bDate != null) {
+				return 1;
+			}
+
+			int comparison = aDate.compareTo(bDate);
+			if (comparison == 0) {
+				return 1;
+			} else {
+				return comparison;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,258 @@
+/**
+ * Copyright (C) 2023 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ *
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see http://www.hln.com/ice or send
+ * correspondence to ice@hln.com.
+ */
+
+package org.cdsframework.ice.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.cdsframework.cds.CdsConcept;
+import org.junit.Test;
+import org.opencds.vmr.v1_0.internal.SubstanceAdministrationEvent;
+
+/**
+ * Differential test of the TargetDose lookups of TargetSeries that are served by its TargetDoseIndex, against the linear scans of the
+ * doses of the series that they replaced, over random dose histories (with several doses on the same day) and random changes to the
+ * status, dose number, vaccine component and administration date of the doses, and random removals of doses from the series.
+ */
+public class TargetSeriesTargetDoseLookupTest {
+
+	private static final String DISEASE = "DISEASE_CONCEPT.TEST";
+	private static final long MILLIS_PER_DAY = 86400000L;
+	private static final int HISTORIES = 500;
+	private static final int CHANGES_PER_HISTORY = 60;
+	private static final int MAX_DOSE_NUMBER = 5;
+
+	private final Random random = new Random(20240601L);
+	private final List<VaccineComponent> vaccineComponents = new ArrayList<VaccineComponent>();
+	private final Map<VaccineComponent, Vaccine> vaccines = new HashMap<VaccineComponent, Vaccine>();
+	private int saeCount;
+
+
+	public TargetSeriesTargetDoseLookupTest() {
+
+		for (int i = 0; i < 4; i++) {
+			VaccineComponent lVaccineComponent = new VaccineComponent(new CdsConcept("VACCINE_CONCEPT.TEST" + i), Collections.singletonList(DISEASE));
+			lVaccineComponent.setLiveVirusVaccine(i == 0);
+			vaccineComponents.add(lVaccineComponent);
+			vaccines.put(lVaccineComponent, new Vaccine(new CdsConcept("VACCINE_CONCEPT.TEST" + i), Collections.singletonList(lVaccineComponent)));
+		}
+	}
+
+
+	@Test
+	public void indexedLookupsMatchLinearScans() {
+
+		for (int h = 0; h < HISTORIES; h++) {
+			TargetSeries lTS = new TargetSeries(new SeriesRules("Test Series", new CdsConcept("VACCINE_GROUP_CONCEPT.TEST")), Collections.singletonList(DISEASE));
+			Date lFirstDay = new Date((random.nextInt(20000) - 5000) * MILLIS_PER_DAY);
+			int lNumberOfDoses = random.nextInt(12);
+			for (int i = 0; i < lNumberOfDoses; i++) {
+				addRandomTargetDose(lTS, lFirstDay);
+			}
+			assertLookupsMatchLinearScans(lTS);
+
+			for (int c = 0; c < CHANGES_PER_HISTORY; c++) {
+				List<TargetDose> lTargetDoses = lTS.getTargetDoses();
+				int lChange = random.nextInt(11);
+				if (lChange == 0) {
+					addRandomTargetDose(lTS, lFirstDay);
+				}
+				else if (lChange == 1 && ! lTargetDoses.isEmpty()) {
+					removeAndCheckRenumbering(lTS, lTargetDoses.get(random.nextInt(lTargetDoses.size())));
+				}
+				else if (! lTargetDoses.isEmpty()) {
+					TargetDose lTD = lTargetDoses.get(random.nextInt(lTargetDoses.size()));
+					if (lChange < 6) {
+						lTD.setStatus(DoseStatus.values()[random.nextInt(DoseStatus.values().length)]);
+					}
+					else if (lChange < 9) {
+						lTD.setDoseNumberInSeries(1 + random.nextInt(MAX_DOSE_NUMBER));
+					}
+					else if (lChange == 10) {
+						lTD.setAdministrationDate(new Date(lFirstDay.getTime() + random.nextInt(8) * MILLIS_PER_DAY));
+					}
+					else {
+						lTD.setVaccineComponent(vaccineComponents.get(random.nextInt(vaccineComponents.size())));
+					}
+				}
+				assertLookupsMatchLinearScans(lTS);
+			}
+		}
+	}
+
+
+	@Test
+	public void removingATargetDoseNotInTheSeriesChangesNothing() {
+
+		TargetSeries lTS = new TargetSeries(new SeriesRules("Test Series", new CdsConcept("VACCINE_GROUP_CONCEPT.TEST")), Collections.singletonList(DISEASE));
+		TargetSeries lOtherTS = new TargetSeries(new SeriesRules("Other Series", new CdsConcept("VACCINE_GROUP_CONCEPT.TEST")), Collections.singletonList(DISEASE));
+		Date lFirstDay = new Date(0L);
+		for (int i = 0; i < 5; i++) {
+			addRandomTargetDose(lTS, lFirstDay);
+		}
+		TargetDose lOtherTD = addRandomTargetDose(lOtherTS, lFirstDay);
+
+		List<TargetDose> lBefore = new ArrayList<TargetDose>(lTS.getTargetDoses());
+		Map<TargetDose, int[]> lNumbersBefore = numbersOf(lBefore);
+		lTS.removeTargetDoseFromSeries(lOtherTD);
+		assertEquals(lBefore, lTS.getTargetDoses());
+		assertNumbers(lNumbersBefore, lTS.getTargetDoses());
+		assertLookupsMatchLinearScans(lTS);
+	}
+
+
+	private TargetDose addRandomTargetDose(TargetSeries pTS, Date pFirstDay) {
+
+		VaccineComponent lVaccineComponent = vaccineComponents.get(random.nextInt(vaccineComponents.size()));
+		SubstanceAdministrationEvent lSAE = new SubstanceAdministrationEvent();
+		lSAE.setId("sae" + (++saeCount));
+		Date lAdministrationDate = new Date(pFirstDay.getTime() + random.nextInt(8) * MILLIS_PER_DAY);
+		TargetDose lTD = new TargetDose(vaccines.get(lVaccineComponent), lVaccineComponent, lAdministrationDate, pTS, lSAE);
+		pTS.addTargetDoseToSeries(lTD);
+		return lTD;
+	}
+
+
+	/**
+	 * Removes the dose from the series, and checks that the doses left are numbered as the previous implementation of
+	 * removeTargetDoseFromSeries() numbered them.
+	 */
+	private void removeAndCheckRenumbering(TargetSeries pTS, TargetDose pTD) {
+
+		List<TargetDose> lExpectedTargetDoses = new ArrayList<TargetDose>(pTS.getTargetDoses());
+		Map<TargetDose, int[]> lExpectedNumbers = numbersOf(lExpectedTargetDoses);
+
+		// The previous implementation, over the doses of the series in order (it removed the dose from the TreeSet it was iterating)
+		int i = 1;
+		boolean foundShotToRemove = false;
+		int prevDoseNumber = 1;
+		Iterator<TargetDose> iter = lExpectedTargetDoses.iterator();
+		while (iter.hasNext()) {
+			TargetDose td = iter.next();
+			if (foundShotToRemove == false && td.equals(pTD)) {
+				foundShotToRemove = true;
+				prevDoseNumber = lExpectedNumbers.remove(td)[1];
+				iter.remove();
+			}
+			else if (foundShotToRemove == false) {
+				i++;
+				continue;
+			}
+			else {
+				int nextDoseNumber = lExpectedNumbers.get(td)[1];
+				lExpectedNumbers.put(td, new int[] { i, prevDoseNumber });
+				prevDoseNumber = nextDoseNumber;
+				i++;
+			}
+		}
+
+		pTS.removeTargetDoseFromSeries(pTD);
+		assertEquals("doses left in the series", lExpectedTargetDoses, pTS.getTargetDoses());
+		assertNumbers(lExpectedNumbers, pTS.getTargetDoses());
+	}
+
+
+	private static Map<TargetDose, int[]> numbersOf(List<TargetDose> pTargetDoses) {
+
+		Map<TargetDose, int[]> lNumbers = new HashMap<TargetDose, int[]>();
+		for (TargetDose lTD : pTargetDoses) {
+			lNumbers.put(lTD, new int[] { lTD.getAdministeredShotNumberInSeries(), lTD.getDoseNumberInSeries() });
+		}
+		return lNumbers;
+	}
+
+
+	private static void assertNumbers(Map<TargetDose, int[]> pExpectedNumbers, List<TargetDose> pTargetDoses) {
+
+		for (TargetDose lTD : pTargetDoses) {
+			int[] lExpected = pExpectedNumbers.get(lTD);
+			assertEquals("administered shot number of " + lTD.getUniqueId(), lExpected[0], lTD.getAdministeredShotNumberInSeries());
+			assertEquals("dose number of " + lTD.getUniqueId(), lExpected[1], lTD.getDoseNumberInSeries());
+		}
+	}
+
+
+	/**
+	 * Checks the lookups of the series against the linear scans of the doses of the series of the previous implementation
+	 */
+	private static void assertLookupsMatchLinearScans(TargetSeries pTS) {
+
+		List<TargetDose> lTargetDoses = pTS.getTargetDoses();
+
+		for (int i = 1; i < lTargetDoses.size(); i++) {
+			assertTrue("doses in administration date order", ! lTargetDoses.get(i).getAdministrationDate().before(lTargetDoses.get(i - 1).getAdministrationDate()));
+		}
+
+		// determineNumberOfDosesAdministeredInSeries() counted the doses for which getIsValid() is true; the index counts the doses with
+		// status VALID, which setStatus() keeps equivalent
+		int lNumberOfValidDoses = 0;
+		for (TargetDose td : lTargetDoses) {
+			if (td.getIsValid() == true) {
+				lNumberOfValidDoses++;
+			}
+		}
+		assertEquals("determineNumberOfDosesAdministeredInSeries()", lNumberOfValidDoses, pTS.determineNumberOfDosesAdministeredInSeries());
+
+		// getValidShotByDoseNumber() returned the first VALID dose with the dose number, in the order of the doses of the series
+		for (int lDoseNumber = 0; lDoseNumber <= MAX_DOSE_NUMBER + 1; lDoseNumber++) {
+			TargetDose lExpected = null;
+			for (TargetDose td : lTargetDoses) {
+				if (td.getDoseNumberInSeries() == lDoseNumber && td.getStatus() == DoseStatus.VALID) {
+					lExpected = td;
+					break;
+				}
+			}
+			assertSame("getValidShotByDoseNumber(" + lDoseNumber + ")", lExpected, pTS.getValidShotByDoseNumber(lDoseNumber));
+		}
+
+		// getTargetDoseByAdministeredShotNumber() returned the dose at the (1-based) position in the series
+		for (int lShotNumber = 0; lShotNumber <= lTargetDoses.size() + 1; lShotNumber++) {
+			TargetDose lExpected = lShotNumber >= 1 && lShotNumber <= lTargetDoses.size() ? lTargetDoses.get(lShotNumber - 1) : null;
+			assertSame("getTargetDoseByAdministeredShotNumber(" + lShotNumber + ")", lExpected, pTS.getTargetDoseByAdministeredShotNumber(lShotNumber));
+		}
+
+		boolean lLiveVirusVaccine = false;
+		for (TargetDose d : lTargetDoses) {
+			if (d.getVaccineComponent().isLiveVirusVaccine() == true) {
+				lLiveVirusVaccine = true;
+				break;
+			}
+		}
+		assertEquals("oneOrMoreShotsAdministeredIsALiveVirusVaccine()", lLiveVirusVaccine, pTS.oneOrMoreShotsAdministeredIsALiveVirusVaccine());
+	}
+
+}
@@ -0,0 +1,184 @@
+/**
+ * Copyright (C) 2023 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ *
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see http://www.hln.com/ice or send
+ * correspondence to ice@hln.com.
+ */
+
+package org.cdsframework.ice.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Days;
+import org.joda.time.LocalDate;
+import org.joda.time.Months;
+import org.joda.time.Years;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that the TimePeriod date arithmetic gives exactly the results of the Joda-based implementation it replaced
+ * ({@link JodaReference}), on random samples including dates with a time of day and multi-unit, negative and month-end
+ * TimePeriods, in time zones with and without daylight saving time transitions at midnight.
+ */
+public class TimePeriodJodaEquivalenceTest {
+
+	private static final int SAMPLES_PER_TIME_ZONE = 10000;
+
+	private static final String[] TIME_ZONES = { "UTC", "America/New_York", "America/Sao_Paulo", "Pacific/Apia" };
+
+	private TimeZone defaultJavaZone;
+	private DateTimeZone defaultJodaZone;
+
+	@Before
+	public void saveDefaultTimeZone() {
+
+		defaultJavaZone = TimeZone.getDefault();
+		defaultJodaZone = DateTimeZone.getDefault();
+	}
+
+	@After
+	public void restoreDefaultTimeZone() {
+
+		TimeZone.setDefault(defaultJavaZone);
+		DateTimeZone.setDefault(defaultJodaZone);
+	}
+
+	@Test
+	public void timePeriodArithmeticMatchesJoda() {
+
+		Random lRandom = new Random(20240101L);
+		for (String lTimeZone : TIME_ZONES) {
+			TimeZone.setDefault(TimeZone.getTimeZone(lTimeZone));
+			DateTimeZone.setDefault(DateTimeZone.forID(lTimeZone));
+			for (int i = 0; i < SAMPLES_PER_TIME_ZONE; i++) {
+				Date lDate = lRandom.nextInt(3) == 0 ? new Date(randomDay(lRandom).getTime() + lRandom.nextInt(86400000)) : randomDay(lRandom);
+				Date lOther = new Date(lDate.getTime() + (long) (lRandom.nextGaussian() * 800 * 86400000L));
+				String lTimePeriod = randomTimePeriod(lRandom);
+				String lSample = lTimeZone + ": " + lDate.getTime() + ", " + lOther.getTime() + ", \"" + lTimePeriod + "\"";
+
+				assertEquals("addTimePeriod " + lSample, JodaReference.addTimePeriod(lDate, lTimePeriod), TimePeriod.addTimePeriod(lDate, lTimePeriod));
+				assertEquals("addTimePeriod(TimePeriod) " + lSample, JodaReference.addTimePeriod(lDate, lTimePeriod), TimePeriod.addTimePeriod(lDate, new TimePeriod(lTimePeriod)));
+				assertEquals("compareElapsedTimePeriodToDateRange " + lSample, JodaReference.compareElapsedTimePeriodToDateRange(lDate, lOther, lTimePeriod),
+					TimePeriod.compareElapsedTimePeriodToDateRange(lDate, lOther, lTimePeriod));
+				assertEquals("differenceInDays " + lSample, JodaReference.differenceInDays(lDate, lOther), TimePeriod.differenceInDays(lDate, lOther));
+				assertEquals("differenceInMonths " + lSample, JodaReference.differenceInMonths(lDate, lOther), TimePeriod.differenceInMonths(lDate, lOther));
+				assertEquals("differenceInYears " + lSample, JodaReference.differenceInYears(lDate, lOther), TimePeriod.differenceInYears(lDate, lOther));
+			}
+		}
+	}
+
+	/**
+	 * Midnight UTC of a random day between 1900 and 2090.
+	 */
+	private static Date randomDay(Random pRandom) {
+
+		return new Date((-25567L + pRandom.nextInt(69000)) * 86400000L);
+	}
+
+	private static String randomTimePeriod(Random pRandom) {
+
+		StringBuilder lTimePeriod = new StringBuilder();
+		for (char lUnit : new char[] { 'y', 'm', 'w', 'd' }) {
+			if (pRandom.nextInt(3) > 0) {
+				lTimePeriod.append(pRandom.nextInt(4) == 0 ? "-" : pRandom.nextInt(4) == 0 ? "+" : "");
+				lTimePeriod.append(pRandom.nextInt(4) == 0 ? pRandom.nextInt(400) : pRandom.nextInt(40));
+				lTimePeriod.append(pRandom.nextBoolean() ? lUnit : Character.toUpperCase(lUnit));
+			}
+		}
+		return lTimePeriod.length() > 0 ? lTimePeriod.toString() : randomTimePeriod(pRandom);
+	}
+
+	/**
+	 * The Joda-based TimePeriod arithmetic that TimePeriod used to implement: one unit at a time, through Joda
+	 * LocalDate and java.util.Date.
+	 */
+	static final class JodaReference {
+
+		static Date addTimePeriod(Date pStartDate, String pTimePeriod) {
+
+			Date lInterimDate = pStartDate;
+			StringBuilder lToken = new StringBuilder();
+			for (int i = 0; i < pTimePeriod.length(); i++) {
+				char c = Character.toLowerCase(pTimePeriod.charAt(i));
+				if (c == ' ') {
+					continue;
+				} else if (c == 'y' || c == 'm' || c == 'w' || c == 'd') {
+					if (lToken.charAt(0) == '+') {
+						lToken.deleteCharAt(0);
+					}
+					lInterimDate = addUnit(lInterimDate, Integer.parseInt(lToken.toString()), c);
+					lToken.setLength(0);
+				} else {
+					lToken.append(c);
+				}
+			}
+			return lInterimDate;
+		}
+
+		private static Date addUnit(Date pDate, int pDuration, char pUnit) {
+
+			LocalDate lLocalDate = new LocalDate(pDate);
+			if (pUnit == 'd') {
+				lLocalDate = lLocalDate.plusDays(pDuration);
+			} else if (pUnit == 'w') {
+				lLocalDate = lLocalDate.plusWeeks(pDuration);
+			} else {
+				int lDayOfMonthBeforeCalculation = lLocalDate.getDayOfMonth();
+				lLocalDate = pUnit == 'm' ? lLocalDate.plusMonths(pDuration) : lLocalDate.plusYears(pDuration);
+				if (lLocalDate.getDayOfMonth() < lDayOfMonthBeforeCalculation && lLocalDate.isEqual(lLocalDate.dayOfMonth().withMaximumValue())) {
+					lLocalDate = lLocalDate.plusDays(1);
+				}
+			}
+			return lLocalDate.toDate();
+		}
+
+		static int compareElapsedTimePeriodToDateRange(Date pDate1, Date pDate2, String pTimePeriod) {
+
+			Date lInterimDate = addTimePeriod(pDate1, pTimePeriod);
+			return lInterimDate.before(pDate2) ? 1 : lInterimDate.after(pDate2) ? -1 : 0;
+		}
+
+		static int differenceInDays(Date pStartDate, Date pEndDate) {
+
+			return Days.daysBetween(new DateTime(pStartDate), new DateTime(pEndDate)).getDays();
+		}
+
+		static int differenceInMonths(Date pStartDate, Date pEndDate) {
+
+			return Months.monthsBetween(new DateTime(pStartDate), new DateTime(pEndDate)).getMonths();
+		}
+
+		static int differenceInYears(Date pStartDate, Date pEndDate) {
+
+			return Years.yearsBetween(new DateTime(pStartDate), new DateTime(pEndDate)).getYears();
+		}
+	}
+
+}
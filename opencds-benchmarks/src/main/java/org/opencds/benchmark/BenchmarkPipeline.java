@@ -0,0 +1,169 @@
+package org.opencds.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.cdsframework.ice.util.ICEVersionUtil;
+import org.opencds.common.interfaces.InboundPayloadProcessor;
+import org.opencds.common.interfaces.OutboundPayloadProcessor;
+import org.opencds.config.api.ConfigData;
+import org.opencds.config.api.ConfigurationService;
+import org.opencds.config.api.KnowledgeRepository;
+import org.opencds.config.api.pool.MarshallerFactory;
+import org.opencds.config.api.pool.MarshallerPool;
+import org.opencds.config.api.pool.UnmarshallerFactory;
+import org.opencds.config.api.pool.UnmarshallerPool;
+import org.opencds.config.classpath.ClasspathConfigStrategy;
+import org.opencds.config.file.FileConfigStrategy;
+import org.opencds.config.service.CacheServiceImpl;
+import org.opencds.config.service.JAXBContextServiceImpl;
+import org.opencds.config.strategy.ConfigStrategy;
+import org.opencds.dss.evaluate.BoundedEvaluationExecutor;
+import org.opencds.dss.evaluate.EvaluationFactory;
+import org.opencds.dss.evaluate.EvaluationService;
+import org.opencds.service.evaluate.RequestProcessorService;
+import org.opencds.service.evaluate.VMRInboundPayloadProcessor;
+import org.opencds.service.evaluate.VMROutboundPayloadProcessor;
+
+/**
+ * Programmatic equivalent of the evaluation wiring in the decision support
+ * service's <tt>beans.xml</tt>, so the benchmarks exercise the same objects
+ * the web application does.
+ * <p>
+ * The knowledge repository is located the same way: the
+ * <tt>knowledge-repository.type</tt> and <tt>knowledge-repository.path</tt>
+ * properties are taken from the system properties first and from
+ * <tt>~/.opencds/opencds.properties</tt> otherwise.
+ */
+public class BenchmarkPipeline {
+
+    private static final Logger log = LogManager.getLogger();
+
+    public static final String VMR_SEMANTIC_SIGNIFIER = "org.opencds.vmr^VMR^1.0";
+
+    private static final String OPENCDS_PROPERTIES = ".opencds" + File.separator + "opencds.properties";
+    private static final String ICE_VERSION_PROPERTIES = "org/cdsframework/ice/util/iceversion.properties";
+
+    private final Properties properties;
+    private final ConfigurationService configurationService;
+    private final VMRInboundPayloadProcessor inboundPayloadProcessor;
+    private final VMROutboundPayloadProcessor outboundPayloadProcessor;
+    private final RequestProcessorService requestProcessorService;
+    private final EvaluationFactory evaluationFactory;
+    private final BoundedEvaluationExecutor evaluationExecutor;
+    private final EvaluationService evaluationService;
+
+    public BenchmarkPipeline() {
+        properties = loadProperties();
+        ICEVersionUtil.setVersionData(Collections.singletonMap("iceVersion", properties.getProperty("ice-version", "unknown")));
+
+        ConfigData configData = new ConfigData();
+        configData.setConfigType(require("knowledge-repository.type"));
+        configData.setConfigPath(require("knowledge-repository.path"));
+        configData.setKmThreads(Integer.parseInt(properties.getProperty("km.threads", "1")));
+        configData.setKmBorrowTimeout(Long.parseLong(properties.getProperty("km.borrow.timeout", "60000")));
+
+        JAXBContextServiceImpl jaxbContextService = new JAXBContextServiceImpl();
+        configurationService = new ConfigurationService(
+                new HashSet<ConfigStrategy>(Arrays.asList(new FileConfigStrategy(), new ClasspathConfigStrategy())),
+                new CacheServiceImpl(), configData);
+
+        inboundPayloadProcessor = new VMRInboundPayloadProcessor(
+                new UnmarshallerPool(new UnmarshallerFactory(jaxbContextService)));
+        outboundPayloadProcessor = new VMROutboundPayloadProcessor(
+                new MarshallerPool(new MarshallerFactory(jaxbContextService)));
+
+        requestProcessorService = new RequestProcessorService(inboundPayloadProcessor);
+        Map<String, InboundPayloadProcessor> inboundProcessors = new HashMap<>();
+        inboundProcessors.put(VMR_SEMANTIC_SIGNIFIER, inboundPayloadProcessor);
+        requestProcessorService.setInboundPayloadProcessorsMap(inboundProcessors);
+
+        evaluationFactory = new EvaluationFactory();
+        evaluationExecutor = new BoundedEvaluationExecutor(
+                Integer.parseInt(properties.getProperty("eval.threads", "0")),
+                Integer.parseInt(properties.getProperty("eval.queue.size", String.valueOf(BoundedEvaluationExecutor.DEFAULT_QUEUE_SIZE))),
+                Integer.parseInt(properties.getProperty("eval.km.max.concurrent", "0")),
+                Boolean.parseBoolean(properties.getProperty("eval.virtual.threads", "false")));
+
+        evaluationService = new EvaluationService(configurationService, requestProcessorService, evaluationFactory,
+                outboundPayloadProcessor);
+        evaluationService.setEvaluationExecutor(evaluationExecutor);
+        Map<String, OutboundPayloadProcessor> outboundProcessors = new HashMap<>();
+        outboundProcessors.put(VMR_SEMANTIC_SIGNIFIER, outboundPayloadProcessor);
+        evaluationService.setOutboundPayloadProcessorsMap(outboundProcessors);
+    }
+
+    public KnowledgeRepository getKnowledgeRepository() {
+        return configurationService.getKnowledgeRepository();
+    }
+
+    public VMRInboundPayloadProcessor getInboundPayloadProcessor() {
+        return inboundPayloadProcessor;
+    }
+
+    public VMROutboundPayloadProcessor getOutboundPayloadProcessor() {
+        return outboundPayloadProcessor;
+    }
+
+    public RequestProcessorService getRequestProcessorService() {
+        return requestProcessorService;
+    }
+
+    public EvaluationFactory getEvaluationFactory() {
+        return evaluationFactory;
+    }
+
+    public EvaluationService getEvaluationService() {
+        return evaluationService;
+    }
+
+    public void shutdown() {
+        evaluationExecutor.shutdown();
+    }
+
+    private String require(String key) {
+        String value = properties.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalStateException("Property '" + key + "' must be set as a system property or in ~/"
+                    + OPENCDS_PROPERTIES);
+        }
+        return value.trim();
+    }
+
+    /**
+     * Same precedence as the placeholder configurer in <tt>beans.xml</tt>:
+     * system properties override the user's opencds.properties, which
+     * override the bundled ICE version properties.
+     */
+    private static Properties loadProperties() {
+        Properties props = new Properties();
+        try (InputStream in = BenchmarkPipeline.class.getClassLoader().getResourceAsStream(ICE_VERSION_PROPERTIES)) {
+            if (in != null) {
+                props.load(in);
+            }
+        } catch (IOException e) {
+            log.warn("Unable to read " + ICE_VERSION_PROPERTIES + ": " + e.getMessage());
+        }
+        File file = new File(System.getProperty("user.home"), OPENCDS_PROPERTIES);
+        if (file.isFile()) {
+            try (InputStream in = new FileInputStream(file)) {
+                props.load(in);
+            } catch (IOException e) {
+                log.warn("Unable to read " + file + ": " + e.getMessage());
+            }
+        }
+        props.putAll(System.getProperties());
+        return props;
+    }
+
+}
@@ -0,0 +1,190 @@
+package org.opencds.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.opencds.config.api.dao.ConceptDeterminationMethodDao;
+import org.opencds.config.api.dao.KnowledgeModuleDao;
+import org.opencds.config.api.model.CDMId;
+import org.opencds.config.api.model.Concept;
+import org.opencds.config.api.model.ConceptDeterminationMethod;
+import org.opencds.config.api.model.ConceptMapping;
+import org.opencds.config.api.model.ConceptView;
+import org.opencds.config.api.model.KMId;
+import org.opencds.config.api.model.KnowledgeModule;
+import org.opencds.config.api.model.impl.CDMIdImpl;
+import org.opencds.config.api.model.impl.ConceptDeterminationMethodImpl;
+import org.opencds.config.api.model.impl.ConceptImpl;
+import org.opencds.config.api.model.impl.ConceptMappingImpl;
+import org.opencds.config.service.CacheServiceImpl;
+import org.opencds.config.service.ConceptDeterminationMethodServiceImpl;
+import org.opencds.config.service.ConceptServiceImpl;
+import org.opencds.config.service.KnowledgeModuleServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Concept determination against a large, synthetic CDM set:
+ * <tt>mappedCodes</tt> local codes spread over {@value #CDMS} CDMs, each
+ * mapping {@value #CODES_PER_CONCEPT} local codes to one OpenCDS concept.
+ * <p>
+ * {@link #getConceptViews} performs {@value #LOOKUPS} lookups, half of them
+ * for unmapped codes, with code strings that are not the instances held by
+ * the index (as for codes unmarshalled from a request);
+ * {@link #rebuild} measures the reload triggered by a CDM change. Run with
+ * <tt>-prof gc</tt> to see the allocation rate of the lookups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ConceptServiceBenchmark {
+
+    static final int CDMS = 20;
+    static final int CODES_PER_CONCEPT = 10;
+    static final int LOOKUPS = 1000;
+
+    private static final String CODE_SYSTEM = "2.16.840.1.113883.12.292";
+    private static final String OPENCDS_CODE_SYSTEM = "2.16.840.1.113883.3.795.12.100.1";
+
+    @Param({ "10000", "1000000" })
+    public int mappedCodes;
+
+    ConceptDeterminationMethodServiceImpl cdmService;
+    ConceptServiceImpl conceptService;
+    String[] codeSystems;
+    String[] codes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final List<ConceptDeterminationMethod> cdms = new ArrayList<>();
+        int concepts = mappedCodes / CODES_PER_CONCEPT;
+        int conceptsPerCdm = concepts / CDMS;
+        int code = 0;
+        for (int c = 0; c < CDMS; c++) {
+            List<ConceptMapping> mappings = new ArrayList<>();
+            for (int m = 0; m < conceptsPerCdm; m++) {
+                List<Concept> fromConcepts = new ArrayList<>();
+                for (int f = 0; f < CODES_PER_CONCEPT; f++) {
+                    fromConcepts.add(ConceptImpl.create(String.valueOf(code++), CODE_SYSTEM, null, null));
+                }
+                Concept toConcept = ConceptImpl.create("C" + (c * conceptsPerCdm + m), OPENCDS_CODE_SYSTEM, null,
+                        "concept " + m);
+                mappings.add(ConceptMappingImpl.create(toConcept, fromConcepts));
+            }
+            CDMId cdmId = CDMIdImpl.create(OPENCDS_CODE_SYSTEM, "CDM" + c, "1.0");
+            cdms.add(ConceptDeterminationMethodImpl.create(cdmId, "CDM " + c, null, new Date(), "benchmark", mappings));
+        }
+
+        CacheServiceImpl cacheService = new CacheServiceImpl();
+        cdmService = new ConceptDeterminationMethodServiceImpl(new InMemoryCDMDao(cdms), cacheService);
+        KnowledgeModuleServiceImpl kmService = new KnowledgeModuleServiceImpl(new NoKMDao(), null, null, cacheService);
+        conceptService = new ConceptServiceImpl(cdmService, kmService, cacheService);
+
+        codeSystems = new String[LOOKUPS];
+        codes = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            // every other code is unmapped; new String instances, as unmarshalled
+            int c = i % 2 == 0 ? (int) ((long) i * 7919 % code) : code + i;
+            codeSystems[i] = new String(CODE_SYSTEM);
+            codes[i] = new String(String.valueOf(c));
+        }
+    }
+
+    @Benchmark
+    public int getConceptViews() {
+        int found = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            List<ConceptView> conceptViews = conceptService.getConceptViews(codeSystems[i], codes[i]);
+            found += conceptViews.size();
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void rebuild() {
+        conceptService.update(cdmService, null);
+    }
+
+    private static class InMemoryCDMDao implements ConceptDeterminationMethodDao {
+        private final List<ConceptDeterminationMethod> cdms;
+
+        InMemoryCDMDao(List<ConceptDeterminationMethod> cdms) {
+            this.cdms = cdms;
+        }
+
+        @Override
+        public ConceptDeterminationMethod find(CDMId cdmId) {
+            for (ConceptDeterminationMethod cdm : cdms) {
+                if (cdm.getCDMId().equals(cdmId)) {
+                    return cdm;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public List<ConceptDeterminationMethod> getAll() {
+            return cdms;
+        }
+
+        @Override
+        public void persist(ConceptDeterminationMethod cdm) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void persist(List<ConceptDeterminationMethod> internal) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void delete(ConceptDeterminationMethod cdm) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class NoKMDao implements KnowledgeModuleDao {
+        @Override
+        public KnowledgeModule find(KMId kmId) {
+            return null;
+        }
+
+        @Override
+        public List<KnowledgeModule> getAll() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void persist(KnowledgeModule km) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void persist(List<KnowledgeModule> kms) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void delete(KnowledgeModule km) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+}
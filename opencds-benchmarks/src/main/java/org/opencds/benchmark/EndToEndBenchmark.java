@@ -0,0 +1,79 @@
+package org.opencds.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.cdsframework.rest.opencds.utils.MarshalUtils;
+import org.omg.dss.evaluation.Evaluate;
+import org.omg.dss.evaluation.EvaluateAtSpecifiedTime;
+import org.omg.dss.evaluation.EvaluateAtSpecifiedTimeResponse;
+import org.omg.dss.evaluation.EvaluateResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Complete evaluations through {@link org.opencds.dss.evaluate.EvaluationService},
+ * i.e., what the SOAP endpoint and the REST resource do once the request
+ * body has been parsed (see {@link RestPayloadBenchmark} for the latter).
+ * <p>
+ * Run with <tt>-t</tt> to measure throughput under concurrent load.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.AverageTime, Mode.Throughput })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class EndToEndBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int immunizations;
+
+    @Param({ "false", "true" })
+    public boolean gzip;
+
+    private BenchmarkPipeline pipeline;
+    private Evaluate evaluate;
+    private EvaluateAtSpecifiedTime evaluateAtSpecifiedTime;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        pipeline = new BenchmarkPipeline();
+        evaluate = MarshalUtils.unmarshal(request(SamplePayloads.EVALUATE), Evaluate.class);
+        evaluateAtSpecifiedTime = MarshalUtils.unmarshal(request(SamplePayloads.EVALUATE_AT_SPECIFIED_TIME),
+                EvaluateAtSpecifiedTime.class);
+    }
+
+    private ByteArrayInputStream request(String operation) {
+        return new ByteArrayInputStream(
+                SamplePayloads.request(operation, "xml", immunizations, gzip).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Benchmark
+    public EvaluateResponse evaluate() throws Exception {
+        return pipeline.getEvaluationService().evaluate(evaluate);
+    }
+
+    @Benchmark
+    public EvaluateAtSpecifiedTimeResponse evaluateAtSpecifiedTime() throws Exception {
+        return pipeline.getEvaluationService().evaluateAtSpecifiedTime(evaluateAtSpecifiedTime);
+    }
+
+}
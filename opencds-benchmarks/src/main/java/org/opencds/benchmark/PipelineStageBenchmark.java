@@ -0,0 +1,209 @@
+package org.opencds.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.cdsframework.rest.opencds.utils.MarshalUtils;
+import org.omg.dss.common.EntityIdentifier;
+import org.omg.dss.evaluation.EvaluateAtSpecifiedTime;
+import org.omg.dss.evaluation.requestresponse.DataRequirementItemData;
+import org.opencds.common.structures.EvaluationRequestDataItem;
+import org.opencds.common.structures.EvaluationRequestKMItem;
+import org.opencds.common.structures.Payload;
+import org.opencds.common.utilities.XMLDateUtility;
+import org.opencds.config.api.FactListsBuilder;
+import org.opencds.config.api.KnowledgeRepository;
+import org.opencds.config.api.model.KnowledgeModule;
+import org.opencds.config.api.model.SSId;
+import org.opencds.config.api.model.SemanticSignifier;
+import org.opencds.config.api.model.impl.SSIdImpl;
+import org.opencds.config.api.service.ConceptService;
+import org.opencds.dss.evaluate.KMEvalRequest;
+import org.opencds.dss.util.DssUtil;
+import org.opencds.vmr.v1_0.internal.concepts.VmrOpenCdsConcept;
+import org.opencds.vmr.v1_0.mappings.in.BuildOpenCDSConceptLists;
+import org.opencds.vmr.v1_0.mappings.in.FactLists;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The individual stages of an evaluation, in pipeline order, each measured
+ * on the output of the previous stage:
+ * <ol>
+ * <li>gunzip/base64 payload decoding ({@link DssUtil#gUnzipData})</li>
+ * <li>cdsInput unmarshalling (<tt>VMRInboundPayloadProcessor.buildInput</tt>)</li>
+ * <li>fact list mapping, including concept lists
+ * (<tt>CdsInputFactListsBuilder.buildFactLists</tt>)</li>
+ * <li>concept lists alone
+ * ({@link BuildOpenCDSConceptLists#buildConceptLists})</li>
+ * <li>rule execution, i.e., the engine adapter's
+ * <tt>getOneResponse</tt></li>
+ * <li>cdsOutput marshalling (<tt>VMROutboundPayloadProcessor.buildOutput</tt>)</li>
+ * <li>gzip of the response payload ({@link DssUtil#gZipData})</li>
+ * </ol>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PipelineStageBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int immunizations;
+
+    @Param({ "false", "true" })
+    public boolean gzip;
+
+    BenchmarkPipeline pipeline;
+    KnowledgeRepository knowledgeRepository;
+
+    DataRequirementItemData driData;
+    Date evalTime;
+    SemanticSignifier semanticSignifier;
+    FactListsBuilder factListsBuilder;
+    KnowledgeModule knowledgeModule;
+    ConceptService conceptService;
+
+    byte[] cdsInputPayload;
+    Object cdsInput;
+    EvaluationRequestKMItem kmItem;
+    FactLists mappedFactLists;
+    Map<String, List<?>> results;
+    byte[] output;
+
+    private final BuildOpenCDSConceptLists buildOpenCDSConceptLists = new BuildOpenCDSConceptLists();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        pipeline = new BenchmarkPipeline();
+        knowledgeRepository = pipeline.getKnowledgeRepository();
+
+        String request = SamplePayloads.request(SamplePayloads.EVALUATE_AT_SPECIFIED_TIME, "xml", immunizations, gzip);
+        EvaluateAtSpecifiedTime evaluate = MarshalUtils.unmarshal(
+                new ByteArrayInputStream(request.getBytes(StandardCharsets.UTF_8)), EvaluateAtSpecifiedTime.class);
+        driData = evaluate.getEvaluationRequest().getDataRequirementItemData().get(0);
+        evalTime = XMLDateUtility.xmlGregorian2Date(evaluate.getSpecifiedTime());
+
+        EntityIdentifier ei = driData.getData().getInformationModelSSId();
+        SSId ssId = SSIdImpl.create(ei.getScopingEntityId(), ei.getBusinessId(), ei.getVersion());
+        semanticSignifier = knowledgeRepository.getSemanticSignifierService().find(ssId);
+        factListsBuilder = knowledgeRepository.getSemanticSignifierService().getFactListsBuilder(ssId);
+        knowledgeModule = knowledgeRepository.getKnowledgeModuleService().find(
+                DssUtil.makeEIString(evaluate.getEvaluationRequest().getKmEvaluationRequest().get(0).getKmId()));
+        conceptService = knowledgeRepository.getConceptService().byKM(knowledgeModule);
+
+        cdsInputPayload = SamplePayloads.cdsInput(immunizations);
+        cdsInput = buildInput();
+
+        EvaluationRequestDataItem dataItem = new EvaluationRequestDataItem();
+        dataItem.setInteractionId(evaluate.getInteractionId().getInteractionId());
+        dataItem.setEvalTime(evalTime);
+        kmItem = pipeline.getRequestProcessorService()
+                .decodeInput(knowledgeRepository, new KMEvalRequest(evaluate.getEvaluationRequest(), evalTime), dataItem)
+                .get(0);
+
+        // the mapped (non-concept) facts, i.e., the input of the concept list stage
+        mappedFactLists = new FactLists();
+        for (Entry<Class<?>, List<?>> entry : kmItem.getAllFactLists().entrySet()) {
+            if (!VmrOpenCdsConcept.class.isAssignableFrom(entry.getKey())) {
+                putAll(mappedFactLists, entry.getKey(), entry.getValue());
+            }
+        }
+
+        EvaluationRequestKMItem evaluated = freshKMItem();
+        results = pipeline.getEvaluationFactory().createEvaluater(knowledgeRepository, evaluated)
+                .getOneResponse(knowledgeRepository, evaluated);
+        output = buildOutput();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <F> void putAll(FactLists factLists, Class<F> clazz, List<?> facts) {
+        factLists.put(clazz, (List<F>) facts);
+    }
+
+    /**
+     * Rules may modify the facts they are given, so each evaluation gets fact
+     * lists built from scratch.
+     */
+    EvaluationRequestKMItem freshKMItem() {
+        return new EvaluationRequestKMItem(kmItem.getRequestedKmId(), kmItem.getEvaluationRequestDataItem(), cdsInput,
+                factListsBuilder.buildFactLists(knowledgeRepository, knowledgeModule, cdsInput, evalTime));
+    }
+
+    @Benchmark
+    public List<byte[]> gUnzipData() {
+        return DssUtil.gUnzipData(driData);
+    }
+
+    @Benchmark
+    public Object buildInput() {
+        return pipeline.getInboundPayloadProcessor().buildInput(semanticSignifier, new Payload(cdsInputPayload, evalTime));
+    }
+
+    @Benchmark
+    public Map<Class<?>, List<?>> buildFactLists() {
+        return factListsBuilder.buildFactLists(knowledgeRepository, knowledgeModule, cdsInput, evalTime);
+    }
+
+    @Benchmark
+    public Map<Class<?>, List<?>> buildConceptLists() {
+        Map<Class<?>, List<?>> allFactLists = new ConcurrentHashMap<>();
+        buildOpenCDSConceptLists.buildConceptLists(conceptService, mappedFactLists, allFactLists);
+        return allFactLists;
+    }
+
+    @Benchmark
+    public Map<String, List<?>> evaluate(EvaluationInput input) throws Exception {
+        return pipeline.getEvaluationFactory().createEvaluater(knowledgeRepository, input.kmItem)
+                .getOneResponse(knowledgeRepository, input.kmItem);
+    }
+
+    @Benchmark
+    public byte[] buildOutput() {
+        return pipeline.getOutboundPayloadProcessor().buildOutput(knowledgeRepository, results, kmItem);
+    }
+
+    @Benchmark
+    public byte[] gZipData() {
+        return DssUtil.gZipData(output, kmItem.getEvaluationRequestDataItem());
+    }
+
+    /**
+     * Per-invocation fact lists for {@link PipelineStageBenchmark#evaluate};
+     * building them is excluded from the measurement.
+     */
+    @State(Scope.Thread)
+    public static class EvaluationInput {
+        EvaluationRequestKMItem kmItem;
+
+        @Setup(Level.Invocation)
+        public void setup(PipelineStageBenchmark stages) {
+            kmItem = stages.freshKMItem();
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+package org.opencds.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.transform.TransformerException;
+
+import org.cdsframework.rest.opencds.utils.MarshalUtils;
+import org.omg.dss.evaluation.EvaluateAtSpecifiedTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Request body parsing as done by <tt>EvaluateResource</tt>: JAXB for XML
+ * bodies and Jackson for JSON bodies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RestPayloadBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int immunizations;
+
+    @Param({ "false", "true" })
+    public boolean gzip;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private byte[] xmlRequest;
+    private String jsonRequest;
+
+    @Setup
+    public void setup() {
+        xmlRequest = SamplePayloads.request(SamplePayloads.EVALUATE_AT_SPECIFIED_TIME, "xml", immunizations, gzip)
+                .getBytes(StandardCharsets.UTF_8);
+        jsonRequest = SamplePayloads.request(SamplePayloads.EVALUATE_AT_SPECIFIED_TIME, "json", immunizations, gzip);
+    }
+
+    @Benchmark
+    public EvaluateAtSpecifiedTime unmarshalXml() throws JAXBException, TransformerException {
+        return MarshalUtils.unmarshal(new ByteArrayInputStream(xmlRequest), EvaluateAtSpecifiedTime.class);
+    }
+
+    @Benchmark
+    public EvaluateAtSpecifiedTime readJson() throws IOException {
+        return mapper.readValue(jsonRequest, EvaluateAtSpecifiedTime.class);
+    }
+
+}
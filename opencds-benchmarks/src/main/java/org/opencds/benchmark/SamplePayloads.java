@@ -0,0 +1,187 @@
+package org.opencds.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Request bodies for the benchmarks, derived from the samples used by the
+ * <tt>curl-rest-tests</tt> scripts.
+ * <p>
+ * The sample patient carries 31 immunizations. To measure how the pipeline
+ * scales with the size of the immunization history, the sample's
+ * <tt>substanceAdministrationEvent</tt>s are used as templates for a
+ * synthetic patient with any number of immunizations: each copy gets its own
+ * id and substance id, and the administration dates are spread evenly
+ * between the patient's birth date and the last sample administration date.
+ * <p>
+ * The samples directory is taken from the <tt>benchmark.samples</tt> system
+ * property and defaults to <tt>curl-rest-tests</tt> (or
+ * <tt>../curl-rest-tests</tt>) relative to the working directory.
+ */
+public final class SamplePayloads {
+
+    public static final String SAMPLES_DIR_PROPERTY = "benchmark.samples";
+
+    public static final String EVALUATE = "evalue";
+    public static final String EVALUATE_AT_SPECIFIED_TIME = "evalueatspecifiedtime";
+
+    private static final String PLAIN_CONTAINING_ENTITY = "ICEData";
+    private static final String GZIP_CONTAINING_ENTITY = "GZIPICEData";
+
+    private static final Pattern XML_PAYLOAD = Pattern
+            .compile("(<base64EncodedPayload>)([^<]*)(</base64EncodedPayload>)");
+    private static final Pattern JSON_PAYLOAD = Pattern.compile("(\"base64EncodedPayload\"\\s*:\\s*\\[\\s*\")([^\"]*)(\")");
+    private static final Pattern EVENT = Pattern
+            .compile("<substanceAdministrationEvent>.*?</substanceAdministrationEvent>", Pattern.DOTALL);
+    private static final Pattern EVENT_ID = Pattern
+            .compile("(<id root=\"2\\.16\\.840\\.1\\.113883\\.3\\.795\\.12\\.100\\.10\" extension=\")([^\"]*)(\")");
+    private static final Pattern SUBSTANCE_ID = Pattern.compile("(<substance>\\s*<id root=\")([^\"]*)(\")");
+    private static final Pattern ADMINISTRATION_TIME = Pattern
+            .compile("<administrationTimeInterval high=\"([^\"]*)\" low=\"([^\"]*)\"/>");
+    private static final Pattern BIRTH_TIME = Pattern.compile("<birthTime value=\"([^\"]*)\"/>");
+
+    private SamplePayloads() {
+    }
+
+    /**
+     * @param operation
+     *            {@link #EVALUATE} or {@link #EVALUATE_AT_SPECIFIED_TIME}
+     * @param format
+     *            <tt>xml</tt> or <tt>json</tt>
+     * @return the request body exactly as posted by the curl test
+     */
+    public static String sampleRequest(String operation, String format) {
+        File file = new File(samplesDirectory(), "rest-test-" + format + "-" + operation + ".dat");
+        try {
+            return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read sample request: " + file, e);
+        }
+    }
+
+    /**
+     * @return the (un-encoded) cdsInput of the sample request
+     */
+    public static String sampleCdsInput() {
+        Matcher m = XML_PAYLOAD.matcher(sampleRequest(EVALUATE, "xml"));
+        if (!m.find()) {
+            throw new IllegalStateException("No base64EncodedPayload in sample request");
+        }
+        return new String(Base64.getMimeDecoder().decode(m.group(2)), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param immunizations
+     *            number of immunizations of the synthetic patient
+     * @return the sample cdsInput with its immunization history replaced
+     */
+    public static byte[] cdsInput(int immunizations) {
+        String cdsInput = sampleCdsInput();
+        Matcher events = EVENT.matcher(cdsInput);
+        List<String> templates = new ArrayList<>();
+        int start = -1;
+        int end = -1;
+        while (events.find()) {
+            if (start < 0) {
+                start = events.start();
+            }
+            end = events.end();
+            templates.add(events.group());
+        }
+        if (templates.isEmpty()) {
+            throw new IllegalStateException("No substanceAdministrationEvent in sample cdsInput");
+        }
+
+        Matcher birth = BIRTH_TIME.matcher(cdsInput);
+        LocalDate first = birth.find() ? LocalDate.parse(birth.group(1)).plusDays(1) : LocalDate.of(2000, 1, 1);
+        LocalDate last = first;
+        for (String template : templates) {
+            Matcher time = ADMINISTRATION_TIME.matcher(template);
+            if (time.find()) {
+                LocalDate date = LocalDate.parse(time.group(1));
+                if (date.isAfter(last)) {
+                    last = date;
+                }
+            }
+        }
+        long span = ChronoUnit.DAYS.between(first, last);
+
+        StringBuilder history = new StringBuilder();
+        for (int i = 0; i < immunizations; i++) {
+            String event = templates.get(i % templates.size());
+            event = replaceGroup(EVENT_ID, event, String.valueOf(1000000 + i));
+            event = replaceGroup(SUBSTANCE_ID, event, UUID.nameUUIDFromBytes(("substance-" + i).getBytes()).toString());
+            String date = first.plusDays(immunizations > 1 ? span * i / (immunizations - 1) : 0).toString();
+            event = ADMINISTRATION_TIME.matcher(event).replaceFirst(
+                    "<administrationTimeInterval high=\"" + date + "\" low=\"" + date + "\"/>");
+            if (i > 0) {
+                history.append("\n                    ");
+            }
+            history.append(event);
+        }
+        String scaled = cdsInput.substring(0, start) + history + cdsInput.substring(end);
+        return scaled.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param operation
+     *            {@link #EVALUATE} or {@link #EVALUATE_AT_SPECIFIED_TIME}
+     * @param format
+     *            <tt>xml</tt> or <tt>json</tt>
+     * @param immunizations
+     *            number of immunizations of the synthetic patient
+     * @param gzip
+     *            gzip the payload and designate it as such
+     * @return a request body for the synthetic patient
+     */
+    public static String request(String operation, String format, int immunizations, boolean gzip) {
+        String request = sampleRequest(operation, format);
+        byte[] payload = cdsInput(immunizations);
+        if (gzip) {
+            payload = gzip(payload);
+            request = request.replaceFirst("\"" + PLAIN_CONTAINING_ENTITY + "\"", "\"" + GZIP_CONTAINING_ENTITY + "\"");
+        }
+        Pattern pattern = "json".equals(format) ? JSON_PAYLOAD : XML_PAYLOAD;
+        return replaceGroup(pattern, request, Base64.getEncoder().encodeToString(payload));
+    }
+
+    public static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(data.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(baos)) {
+            out.write(data);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return baos.toByteArray();
+    }
+
+    private static String replaceGroup(Pattern pattern, String input, String replacement) {
+        Matcher m = pattern.matcher(input);
+        if (!m.find()) {
+            throw new IllegalStateException("Pattern not found in sample: " + pattern);
+        }
+        return input.substring(0, m.start(2)) + replacement + input.substring(m.end(2));
+    }
+
+    private static File samplesDirectory() {
+        String dir = System.getProperty(SAMPLES_DIR_PROPERTY);
+        if (dir != null) {
+            return new File(dir);
+        }
+        File local = new File("curl-rest-tests");
+        return local.isDirectory() ? local : new File("../curl-rest-tests");
+    }
+
+}
@@ -0,0 +1,145 @@
+package org.opencds.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.cdsframework.ice.service.Schedule;
+import org.cdsframework.ice.util.ICEVersionUtil;
+import org.cdsframework.rest.opencds.utils.MarshalUtils;
+import org.kie.api.KieBase;
+import org.kie.api.command.Command;
+import org.kie.api.runtime.ExecutionResults;
+import org.kie.api.runtime.StatelessKieSession;
+import org.kie.internal.command.CommandFactory;
+import org.omg.dss.evaluation.EvaluateAtSpecifiedTime;
+import org.opencds.common.utilities.XMLDateUtility;
+import org.opencds.config.api.KnowledgeRepository;
+import org.opencds.config.api.model.KnowledgeModule;
+import org.opencds.config.api.model.PluginId;
+import org.opencds.dss.util.DssUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Session setup of the ICE engine adapter
+ * (<tt>ICEDecisionEngineDSS7EvaluationAdapter.getStatelessKieSession</tt>),
+ * on the KieBase and Schedule of the sample KM, without facts so that only
+ * the setup is measured:
+ * <ul>
+ * <li>{@link #newSessionPerRequest}: a new StatelessKieSession per request,
+ * with iceVersion, schedule and the five configuration flags sent as
+ * SetGlobal commands along with the per-request globals (before the
+ * change)</li>
+ * <li>{@link #cachedSession}: the session of the KM, with those globals
+ * bound once, executing the per-request globals only (after the change)</li>
+ * </ul>
+ * Run with <tt>-t</tt> to measure the shared session under concurrent load,
+ * and with <tt>-prof gc</tt> to see the allocation rate of each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SessionSetupBenchmark {
+
+    private BenchmarkPipeline pipeline;
+    private KieBase kieBase;
+    private Schedule schedule;
+    private Date evalTime;
+    private StatelessKieSession session;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        pipeline = new BenchmarkPipeline();
+        KnowledgeRepository knowledgeRepository = pipeline.getKnowledgeRepository();
+
+        // one evaluation of the sample KM loads its KieBase and its Schedule
+        EvaluateAtSpecifiedTime evaluate = MarshalUtils.unmarshal(
+                new ByteArrayInputStream(SamplePayloads.request(SamplePayloads.EVALUATE_AT_SPECIFIED_TIME, "xml", 10, false)
+                        .getBytes(StandardCharsets.UTF_8)),
+                EvaluateAtSpecifiedTime.class);
+        pipeline.getEvaluationService().evaluateAtSpecifiedTime(evaluate);
+        evalTime = XMLDateUtility.xmlGregorian2Date(evaluate.getSpecifiedTime());
+
+        String kmId = DssUtil.makeEIString(evaluate.getEvaluationRequest().getKmEvaluationRequest().get(0).getKmId());
+        KnowledgeModule knowledgeModule = knowledgeRepository.getKnowledgeModuleService().find(kmId);
+        kieBase = knowledgeRepository.getKnowledgePackageService().getPackage(knowledgeModule);
+        for (PluginId pluginId : knowledgeModule.getPreProcessPluginIds()) {
+            Object cached = knowledgeRepository.getPluginDataCacheService().getPluginDataCache(pluginId).get(kmId);
+            if (cached instanceof Schedule) {
+                schedule = (Schedule) cached;
+            }
+        }
+        if (kieBase == null || schedule == null) {
+            throw new IllegalStateException("KieBase or Schedule not loaded for " + kmId);
+        }
+
+        session = kieBase.newStatelessKieSession();
+        session.setGlobal("iceVersion", ICEVersionUtil.getIceVersion());
+        session.setGlobal("schedule", schedule);
+        session.setGlobal("outputEarliestOverdueDates", Boolean.FALSE);
+        session.setGlobal("doseOverrideFeatureEnabled", Boolean.FALSE);
+        session.setGlobal("outputSupplementalText", Boolean.FALSE);
+        session.setGlobal("vaccineGroupExclusions", Collections.emptyList());
+        session.setGlobal("enableUnsupportedVaccinesGroup", Boolean.FALSE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Benchmark
+    public ExecutionResults newSessionPerRequest() {
+        @SuppressWarnings("rawtypes")
+        List<Command> cmds = perRequestGlobals();
+        cmds.add(CommandFactory.newSetGlobal("iceVersion", ICEVersionUtil.getIceVersion()));
+        cmds.add(CommandFactory.newSetGlobal("schedule", schedule));
+        cmds.add(CommandFactory.newSetGlobal("outputEarliestOverdueDates", Boolean.FALSE));
+        cmds.add(CommandFactory.newSetGlobal("doseOverrideFeatureEnabled", Boolean.FALSE));
+        cmds.add(CommandFactory.newSetGlobal("outputSupplementalText", Boolean.FALSE));
+        cmds.add(CommandFactory.newSetGlobal("vaccineGroupExclusions", Collections.emptyList()));
+        cmds.add(CommandFactory.newSetGlobal("enableUnsupportedVaccinesGroup", Boolean.FALSE));
+        return kieBase.newStatelessKieSession().execute(CommandFactory.newBatchExecution(cmds));
+    }
+
+    @Benchmark
+    public ExecutionResults cachedSession() {
+        return session.execute(CommandFactory.newBatchExecution(perRequestGlobals()));
+    }
+
+    /**
+     * The globals the adapter sets for every request.
+     */
+    @SuppressWarnings("rawtypes")
+    private List<Command> perRequestGlobals() {
+        List<Command> cmds = new ArrayList<>();
+        cmds.add(CommandFactory.newSetGlobal("evalTime", evalTime));
+        cmds.add(CommandFactory.newSetGlobal("clientLanguage", ""));
+        cmds.add(CommandFactory.newSetGlobal("clientTimeZoneOffset", ""));
+        cmds.add(CommandFactory.newSetGlobal("assertions", new HashSet<String>()));
+        cmds.add(CommandFactory.newSetGlobal("namedObjects", new HashMap<String, Object>()));
+        cmds.add(CommandFactory.newSetGlobal("patientAgeTimeOfInterest", null));
+        return cmds;
+    }
+
+}
@@ -0,0 +1,201 @@
+package org.opencds.benchmark;
+
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.cdsframework.ice.util.TimePeriod;
+import org.joda.time.DateTime;
+import org.joda.time.Days;
+import org.joda.time.LocalDate;
+import org.joda.time.Months;
+import org.joda.time.Years;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ICE date arithmetic ({@link TimePeriod}) as used by <tt>TargetSeries</tt>
+ * and the rules: adding TimePeriods to dates, comparing elapsed time to a
+ * TimePeriod and whole-unit differences, over {@value #OPERATIONS} random
+ * dates of birth/administration and TimePeriods. The <tt>joda*</tt>
+ * benchmarks measure the previous, Joda-based implementation
+ * ({@link JodaReference}) on the same input.
+ * <p>
+ * That TimePeriod gives exactly the results of the Joda-based implementation
+ * is checked by <tt>TimePeriodJodaEquivalenceTest</tt> in the ICE service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TimePeriodBenchmark {
+
+    static final int OPERATIONS = 1000;
+
+    private static final String[] RULE_TIME_PERIODS = { "18y", "9y", "4w", "6m", "2m", "1y", "0d", "-4d", "4m-4d", "1y6m", "11y5m4w" };
+
+    Date[] dates;
+    Date[] otherDates;
+    String[] timePeriodStrings;
+    TimePeriod[] timePeriods;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42L);
+        dates = new Date[OPERATIONS];
+        otherDates = new Date[OPERATIONS];
+        timePeriodStrings = new String[OPERATIONS];
+        timePeriods = new TimePeriod[OPERATIONS];
+        for (int i = 0; i < OPERATIONS; i++) {
+            dates[i] = randomDay(random);
+            otherDates[i] = new Date(dates[i].getTime() + (long) random.nextInt(7000) * 86400000L);
+            timePeriodStrings[i] = RULE_TIME_PERIODS[random.nextInt(RULE_TIME_PERIODS.length)];
+            timePeriods[i] = new TimePeriod(timePeriodStrings[i]);
+        }
+    }
+
+    @Benchmark
+    public long addTimePeriod() {
+        long sum = 0;
+        for (int i = 0; i < OPERATIONS; i++) {
+            sum += TimePeriod.addTimePeriod(dates[i], timePeriods[i]).getTime();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long jodaAddTimePeriod() {
+        long sum = 0;
+        for (int i = 0; i < OPERATIONS; i++) {
+            sum += JodaReference.addTimePeriod(dates[i], timePeriodStrings[i]).getTime();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long addToEpochDay() {
+        long sum = 0;
+        for (int i = 0; i < OPERATIONS; i++) {
+            sum += timePeriods[i].addToEpochDay(i * 31L);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int compareElapsedTimePeriodToDateRange() {
+        int sum = 0;
+        for (int i = 0; i < OPERATIONS; i++) {
+            sum += TimePeriod.compareElapsedTimePeriodToDateRange(dates[i], otherDates[i], timePeriodStrings[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int jodaCompareElapsedTimePeriodToDateRange() {
+        int sum = 0;
+        for (int i = 0; i < OPERATIONS; i++) {
+            sum += JodaReference.compareElapsedTimePeriodToDateRange(dates[i], otherDates[i], timePeriodStrings[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int differences() {
+        int sum = 0;
+        for (int i = 0; i < OPERATIONS; i++) {
+            sum += TimePeriod.differenceInDays(dates[i], otherDates[i]) + TimePeriod.differenceInMonths(dates[i], otherDates[i])
+                    + TimePeriod.differenceInYears(dates[i], otherDates[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int jodaDifferences() {
+        int sum = 0;
+        for (int i = 0; i < OPERATIONS; i++) {
+            sum += JodaReference.differenceInDays(dates[i], otherDates[i]) + JodaReference.differenceInMonths(dates[i], otherDates[i])
+                    + JodaReference.differenceInYears(dates[i], otherDates[i]);
+        }
+        return sum;
+    }
+
+    /**
+     * Midnight UTC of a random day between 1900 and 2090.
+     */
+    private static Date randomDay(Random random) {
+        return new Date((-25567L + random.nextInt(69000)) * 86400000L);
+    }
+
+    /**
+     * The Joda-based TimePeriod arithmetic that TimePeriod used to implement:
+     * one unit at a time, through Joda LocalDate and java.util.Date.
+     */
+    static final class JodaReference {
+
+        static Date addTimePeriod(Date startDate, String timePeriod) {
+            Date interimDate = startDate;
+            StringBuilder token = new StringBuilder();
+            for (int i = 0; i < timePeriod.length(); i++) {
+                char c = Character.toLowerCase(timePeriod.charAt(i));
+                if (c == ' ') {
+                    continue;
+                } else if (c == 'y' || c == 'm' || c == 'w' || c == 'd') {
+                    if (token.charAt(0) == '+') {
+                        token.deleteCharAt(0);
+                    }
+                    interimDate = addUnit(interimDate, Integer.parseInt(token.toString()), c);
+                    token.setLength(0);
+                } else {
+                    token.append(c);
+                }
+            }
+            return interimDate;
+        }
+
+        private static Date addUnit(Date date, int duration, char unit) {
+            LocalDate localDate = new LocalDate(date);
+            if (unit == 'd') {
+                localDate = localDate.plusDays(duration);
+            } else if (unit == 'w') {
+                localDate = localDate.plusWeeks(duration);
+            } else {
+                int dayOfMonthBeforeCalculation = localDate.getDayOfMonth();
+                localDate = unit == 'm' ? localDate.plusMonths(duration) : localDate.plusYears(duration);
+                if (localDate.getDayOfMonth() < dayOfMonthBeforeCalculation
+                        && localDate.isEqual(localDate.dayOfMonth().withMaximumValue())) {
+                    localDate = localDate.plusDays(1);
+                }
+            }
+            return localDate.toDate();
+        }
+
+        static int compareElapsedTimePeriodToDateRange(Date d1, Date d2, String timePeriod) {
+            Date interimDate = addTimePeriod(d1, timePeriod);
+            return interimDate.before(d2) ? 1 : interimDate.after(d2) ? -1 : 0;
+        }
+
+        static int differenceInDays(Date startDate, Date endDate) {
+            return Days.daysBetween(new DateTime(startDate), new DateTime(endDate)).getDays();
+        }
+
+        static int differenceInMonths(Date startDate, Date endDate) {
+            return Months.monthsBetween(new DateTime(startDate), new DateTime(endDate)).getMonths();
+        }
+
+        static int differenceInYears(Date startDate, Date endDate) {
+            return Years.yearsBetween(new DateTime(startDate), new DateTime(endDate)).getYears();
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+package org.opencds.benchmark;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.cdsframework.ice.service.SequentialUniqueIdStrategy;
+import org.cdsframework.ice.service.UUIDUniqueIdStrategy;
+import org.cdsframework.ice.service.UniqueIdStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Identifiers of the ICE objects created during an evaluation
+ * ({@link UniqueIdStrategy}): each invocation is one evaluation generating
+ * {@value #IDS_PER_EVALUATION} identifiers, about what a patient with a full
+ * immunization history needs for its TargetSeries, TargetDoses and output
+ * clinical statements, on {@value #THREADS} concurrent threads.
+ * <p>
+ * Before the measurements, {@link #setup} checks that the identifiers of
+ * two evaluations, and of an evaluation and the identifiers generated outside
+ * of any evaluation, are all distinct, and fails the trial if they are not.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(UniqueIdBenchmark.THREADS)
+@Fork(1)
+public class UniqueIdBenchmark {
+
+    static final int THREADS = 64;
+    static final int IDS_PER_EVALUATION = 500;
+
+    UniqueIdStrategy uuid;
+    UniqueIdStrategy sequential;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        uuid = new UUIDUniqueIdStrategy();
+        sequential = new SequentialUniqueIdStrategy();
+
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 2; i++) {
+            sequential.beginEvaluation();
+            try {
+                for (int j = 0; j < IDS_PER_EVALUATION; j++) {
+                    checkDistinct(ids, sequential.generateUniqueId());
+                }
+            } finally {
+                sequential.endEvaluation();
+            }
+            checkDistinct(ids, sequential.generateUniqueId());
+        }
+    }
+
+    private static void checkDistinct(Set<String> ids, String id) {
+        if (!ids.add(id)) {
+            throw new IllegalStateException("Duplicate identifier: " + id);
+        }
+    }
+
+    @Benchmark
+    public void uuid(Blackhole bh) {
+        evaluate(uuid, bh);
+    }
+
+    @Benchmark
+    public void sequential(Blackhole bh) {
+        evaluate(sequential, bh);
+    }
+
+    private static void evaluate(UniqueIdStrategy strategy, Blackhole bh) {
+        strategy.beginEvaluation();
+        try {
+            for (int i = 0; i < IDS_PER_EVALUATION; i++) {
+                bh.consume(strategy.generateUniqueId());
+            }
+        } finally {
+            strategy.endEvaluation();
+        }
+    }
+
+}
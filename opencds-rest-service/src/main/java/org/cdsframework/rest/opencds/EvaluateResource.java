@@ -1,16 +1,19 @@
 package org.cdsframework.rest.opencds;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.SocketTimeoutException;
-import java.text.ParseException;
+import java.util.Date;
 import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 import javax.servlet.ServletContext;
-import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
@@ -21,11 +24,16 @@ import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.Invocation.Builder;
 import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.container.TimeoutHandler;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.xml.bind.JAXBException;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.transform.TransformerException;
 
 import org.apache.commons.lang3.StringUtils;
@@ -42,7 +50,10 @@ import org.cdsframework.rest.opencds.pojos.PreEvaluateHookType;
 import org.cdsframework.rest.opencds.pojos.UpdateCheck;
 import org.cdsframework.rest.opencds.pojos.UpdateResponse;
 import org.cdsframework.rest.opencds.pojos.UpdateResponseResult;
+import org.cdsframework.rest.opencds.utils.BatchRequestReader;
+import org.cdsframework.rest.opencds.utils.BatchResponseWriter;
 import org.cdsframework.rest.opencds.utils.ConfigUtils;
+import org.cdsframework.rest.opencds.utils.CountingInputStream;
 import org.cdsframework.rest.opencds.utils.MarshalUtils;
 import org.glassfish.jersey.client.ClientConfig;
 import org.glassfish.jersey.client.ClientProperties;
@@ -63,6 +74,7 @@ import org.omg.dss.evaluation.EvaluateResponse;
 import org.omg.dss.evaluation.requestresponse.EvaluationRequest;
 import org.omg.dss.evaluation.requestresponse.EvaluationResponse;
 import org.omg.dss.evaluation.requestresponse.KMEvaluationRequest;
+import org.opencds.common.exceptions.EvaluationRejectedException;
 import org.opencds.config.api.ConfigurationService;
 import org.opencds.config.api.model.CDMId;
 import org.opencds.config.api.model.KMId;
@@ -71,7 +83,7 @@ import org.opencds.dss.evaluate.EvaluationService;
 import org.opencds.dss.util.DssUtil;
 import org.springframework.util.StopWatch;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.jaxrs.json.JacksonJsonProvider;
 
@@ -85,6 +97,9 @@ public class EvaluateResource {
 
     private static final Log log = LogFactory.getLog(EvaluateResource.class);
 
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+    public static final MediaType APPLICATION_NDJSON_TYPE = MediaType.valueOf(APPLICATION_NDJSON);
+
     private LazyInitializer<Client> preEvaluateClient = new LazyInitializer<Client>()
     {
         @Override
@@ -105,6 +120,7 @@ public class EvaluateResource {
     private final int preEvalHookConnectTimeout;
     private final int preEvalHookReadTimeout;
     private final boolean preEvalEnabled;
+    private final long evaluateTimeout;
 
     private final ObjectMapper mapper = new ObjectMapper();
 
@@ -132,11 +148,13 @@ public class EvaluateResource {
 
         preEvalHookReadTimeout = Integer.parseInt(System.getProperty("preEvaluateTimeout", "10000"));
         preEvalHookConnectTimeout = Integer.parseInt(System.getProperty("preEvaluateConnectTimeout", "10000"));
+        evaluateTimeout = Long.parseLong(System.getProperty("evaluateTimeout", "60000"));
 
         if (!preEvalEnabled)
             log.warn("preEvaluateHook is disabled");
         log.info(String.format("preEvaluate configuration: enabled=%s; type=%s; uri=%s; instanceId=%s; readTimeout=%d; connectTimeout=%d",
                 preEvalEnabled, preEvaluateHookType, preEvaluateHookUri, instanceId, preEvalHookReadTimeout, preEvalHookConnectTimeout));
+        log.info(String.format("evaluate configuration: timeout=%d", evaluateTimeout));
     }
 
     @GET
@@ -147,88 +165,86 @@ public class EvaluateResource {
     }
 
     /**
-     * Retrieves representation of an instance of
-     * org.cdsframework.rest.opencds.EvaluateResource
+     * Evaluates the request asynchronously: the body is unmarshalled from the
+     * request stream, the payload is decoded and the KMs are evaluated on the
+     * evaluation executor without holding the container thread, and the
+     * response is marshalled straight to the response stream. A request that is
+     * not answered within <tt>evaluateTimeout</tt> milliseconds (60000 by
+     * default; 0 for no timeout) is answered with a 503, as is a request
+     * rejected by a saturated evaluation executor.
      *
-     * @param evaluateString
+     * @param body
      * @param headers
-     * @param res
-     * @return
-     * @throws ParseException
-     * @throws UnsupportedEncodingException
-     * @throws IOException
-     * @throws InvalidDriDataFormatExceptionFault
-     * @throws UnrecognizedLanguageExceptionFault
-     * @throws RequiredDataNotProvidedExceptionFault
-     * @throws UnsupportedLanguageExceptionFault
-     * @throws UnrecognizedScopedEntityExceptionFault
-     * @throws EvaluationExceptionFault
-     * @throws InvalidTimeZoneOffsetExceptionFault
-     * @throws DSSRuntimeExceptionFault
-     * @throws JAXBException
-     * @throws TransformerException
+     * @param asyncResponse
+     * @throws java.io.IOException
+     * @throws org.omg.dss.InvalidDriDataFormatExceptionFault
+     * @throws org.omg.dss.UnrecognizedLanguageExceptionFault
+     * @throws org.omg.dss.RequiredDataNotProvidedExceptionFault
+     * @throws org.omg.dss.UnsupportedLanguageExceptionFault
+     * @throws org.omg.dss.UnrecognizedScopedEntityExceptionFault
+     * @throws org.omg.dss.EvaluationExceptionFault
+     * @throws org.omg.dss.InvalidTimeZoneOffsetExceptionFault
+     * @throws org.omg.dss.DSSRuntimeExceptionFault
+     * @throws javax.xml.bind.JAXBException
+     * @throws javax.xml.transform.TransformerException
      */
     @POST
     @Consumes({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON, MediaType.TEXT_PLAIN})
     @Path("evaluate")
-    public Response evaluate(final String evaluateString, @Context final HttpHeaders headers,
-            @Context final HttpServletResponse res)
-            throws ParseException, UnsupportedEncodingException, IOException, InvalidDriDataFormatExceptionFault,
+    public void evaluate(final InputStream body, @Context final HttpHeaders headers,
+            @Suspended final AsyncResponse asyncResponse)
+            throws IOException, InvalidDriDataFormatExceptionFault,
             UnrecognizedLanguageExceptionFault, RequiredDataNotProvidedExceptionFault,
             UnsupportedLanguageExceptionFault, UnrecognizedScopedEntityExceptionFault, EvaluationExceptionFault,
             InvalidTimeZoneOffsetExceptionFault, DSSRuntimeExceptionFault, JAXBException, TransformerException {
         final String METHODNAME = "evaluate ";
 
-        long unmarshalTime = 0;
-        long preEvalTime = -1;
-        long evalTime = -1;
-        long marshalTime = -1;
-        boolean hasKmUpdates = false;
-        boolean hasCdmUpdates = false;
-        boolean success = false;
-
         StopWatch timer = new StopWatch();
         timer.start("unmarshal");
-        Evaluate evaluate = unmarshal(evaluateString, Evaluate.class, headers);
+        CountingInputStream countingBody = new CountingInputStream(body);
+        Evaluate evaluate = unmarshal(countingBody, Evaluate.class, headers);
         timer.stop();
-        unmarshalTime = timer.getLastTaskTimeMillis();
+        final EvaluationLog evaluationLog = new EvaluationLog(METHODNAME, getEvalInfo(evaluate), countingBody.getCount(),
+                timer.getLastTaskTimeMillis());
 
+        boolean submitted = false;
         try {
             timer.start("preEvaluate");
-            UpdateResponse updateResponse = preEvaluate(evaluate);
-            timer.stop();
-            preEvalTime = timer.getLastTaskTimeMillis();
-            hasKmUpdates = hasKmUpdates(updateResponse);
-            hasCdmUpdates = hasCdmUpdates(updateResponse);
-
-            timer.start("evaluate");
-            final EvaluateResponse evaluateResponse = evaluationService.evaluate(evaluate);
-            timer.stop();
-            evalTime = timer.getLastTaskTimeMillis();
-
-            timer.start("marshal");
-            Response response = createResponse(evaluateResponse.getEvaluationResponse(), headers);
-            timer.stop();
-            marshalTime = timer.getLastTaskTimeMillis();
-            success = true;
-            return response;
+            evaluationLog.preEvaluated(preEvaluate(evaluate), timer);
+
+            final CompletableFuture<EvaluateResponse> evaluateResponse;
+            try {
+                evaluateResponse = evaluationService.evaluateAsync(evaluate);
+            } catch (DSSRuntimeExceptionFault e) {
+                if (isRejected(e)) {
+                    asyncResponse.resume(serviceUnavailable(e.getMessage()));
+                    return;
+                }
+                throw e;
+            }
+            resume(asyncResponse, evaluateResponse, new Function<EvaluateResponse, EvaluationResponse>() {
+                @Override
+                public EvaluationResponse apply(EvaluateResponse response) {
+                    return response.getEvaluationResponse();
+                }
+            }, headers, evaluationLog);
+            submitted = true;
         } finally {
-            log.info(String.format("%s eval=%s; success=%s; instanceId=%s; reqSize=%d; unmarshalTime=%d; kmUpdated=%s; cdmUpdated=%s; preEvalTime=%d; evalTime=%d; marshalTime=%d; totalTime=%d",
-                    METHODNAME, getEvalInfo(evaluate), success, instanceId, evaluateString.length(), unmarshalTime, hasKmUpdates, hasCdmUpdates, preEvalTime, evalTime, marshalTime, timer.getTotalTimeMillis()));
+            if (!submitted) {
+                evaluationLog.log(false);
+            }
         }
     }
 
     /**
-     * Retrieves representation of an instance of
-     * org.cdsframework.rest.opencds.EvaluateResource
+     * Evaluates the request at the specified time asynchronously; see
+     * {@link #evaluate(InputStream, HttpHeaders, AsyncResponse)}.
      *
-     * @param evaluateAtSpecifiedTimeString
+     * @param body
      * @param headers
-     * @param res
-     * @return
-     * @throws java.text.ParseException
-     * @throws java.io.UnsupportedEncodingException
+     * @param asyncResponse
+     * @throws java.io.IOException
      * @throws org.omg.dss.InvalidDriDataFormatExceptionFault
      * @throws org.omg.dss.UnrecognizedLanguageExceptionFault
      * @throws org.omg.dss.RequiredDataNotProvidedExceptionFault
@@ -244,55 +260,131 @@ public class EvaluateResource {
     @Consumes({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON, MediaType.TEXT_PLAIN})
     @Path("evaluateAtSpecifiedTime")
-    public Response evaluateAtSpecifiedTime(final String evaluateAtSpecifiedTimeString,
-            @Context final HttpHeaders headers, @Context final HttpServletResponse res)
-            throws ParseException, UnsupportedEncodingException, IOException, InvalidDriDataFormatExceptionFault,
+    public void evaluateAtSpecifiedTime(final InputStream body, @Context final HttpHeaders headers,
+            @Suspended final AsyncResponse asyncResponse)
+            throws IOException, InvalidDriDataFormatExceptionFault,
             UnrecognizedLanguageExceptionFault, RequiredDataNotProvidedExceptionFault,
             UnsupportedLanguageExceptionFault, UnrecognizedScopedEntityExceptionFault, EvaluationExceptionFault,
             InvalidTimeZoneOffsetExceptionFault, DSSRuntimeExceptionFault, JAXBException, TransformerException {
         final String METHODNAME = "evaluateAtSpecifiedTime ";
 
-        long unmarshalTime = 0;
-        long preEvalTime = -1;
-        long evalTime = -1;
-        long marshalTime = -1;
-        boolean hasKmUpdates = false;
-        boolean hasCdmUpdates = false;
-        boolean success = false;
-
         StopWatch timer = new StopWatch();
         timer.start("unmarshal");
-        EvaluateAtSpecifiedTime evaluateAtSpecifiedTime = unmarshal(evaluateAtSpecifiedTimeString, EvaluateAtSpecifiedTime.class,
-                headers);
+        CountingInputStream countingBody = new CountingInputStream(body);
+        EvaluateAtSpecifiedTime evaluateAtSpecifiedTime = unmarshal(countingBody, EvaluateAtSpecifiedTime.class, headers);
         timer.stop();
-        unmarshalTime = timer.getLastTaskTimeMillis();
+        final EvaluationLog evaluationLog = new EvaluationLog(METHODNAME, getEvalInfo(evaluateAtSpecifiedTime),
+                countingBody.getCount(), timer.getLastTaskTimeMillis());
 
+        boolean submitted = false;
         try {
             timer.start("preEvaluate");
-            UpdateResponse updateResponse = preEvaluate(evaluateAtSpecifiedTime);
-            timer.stop();
-            preEvalTime = timer.getLastTaskTimeMillis();
-            hasKmUpdates = hasKmUpdates(updateResponse);
-            hasCdmUpdates = hasCdmUpdates(updateResponse);
-
-            timer.start("evaluate");
-            final EvaluateAtSpecifiedTimeResponse evaluateAtSpecifiedTimeResponse = evaluationService
-                    .evaluateAtSpecifiedTime(evaluateAtSpecifiedTime);
-            timer.stop();
-            evalTime = timer.getLastTaskTimeMillis();
-
-            timer.start("marshal");
-            Response response = createResponse(evaluateAtSpecifiedTimeResponse.getEvaluationResponse(), headers);
-            timer.stop();
-            marshalTime = timer.getLastTaskTimeMillis();
-            success = true;
-            return response;
+            evaluationLog.preEvaluated(preEvaluate(evaluateAtSpecifiedTime), timer);
+
+            final CompletableFuture<EvaluateAtSpecifiedTimeResponse> evaluateAtSpecifiedTimeResponse;
+            try {
+                evaluateAtSpecifiedTimeResponse = evaluationService.evaluateAtSpecifiedTimeAsync(evaluateAtSpecifiedTime);
+            } catch (DSSRuntimeExceptionFault e) {
+                if (isRejected(e)) {
+                    asyncResponse.resume(serviceUnavailable(e.getMessage()));
+                    return;
+                }
+                throw e;
+            }
+            resume(asyncResponse, evaluateAtSpecifiedTimeResponse,
+                    new Function<EvaluateAtSpecifiedTimeResponse, EvaluationResponse>() {
+                        @Override
+                        public EvaluationResponse apply(EvaluateAtSpecifiedTimeResponse response) {
+                            return response.getEvaluationResponse();
+                        }
+                    }, headers, evaluationLog);
+            submitted = true;
         } finally {
-            log.info(String.format("%s eval=%s; success=%s; instanceId=%s; reqSize=%d; unmarshalTime=%d; kmUpdated=%s; cdmUpdated=%s; preEvalTime=%d; evalTime=%d; marshalTime=%d; totalTime=%d",
-                    METHODNAME, getEvalInfo(evaluateAtSpecifiedTime), success, instanceId, evaluateAtSpecifiedTimeString.length(), unmarshalTime, hasKmUpdates, hasCdmUpdates, preEvalTime, evalTime, marshalTime, timer.getTotalTimeMillis()));
+            if (!submitted) {
+                evaluationLog.log(false);
+            }
         }
     }
 
+    /**
+     * Evaluates a batch of patients against the same KM(s) and evaluation time.
+     *
+     * The request is read incrementally and each patient is evaluated as soon as
+     * it has been read; its result is streamed back as soon as it is available,
+     * so results arrive in completion order and carry the client-assigned item
+     * id. A failing item is reported as an error for that item and does not
+     * affect the others. The preEvaluate hook is called once for the whole
+     * batch. See {@link BatchRequestReader} for the request formats; the
+     * response has the format of the request.
+     *
+     * @param body
+     * @param headers
+     * @return
+     * @throws IOException
+     * @throws XMLStreamException
+     * @throws JAXBException
+     */
+    @POST
+    @Consumes({MediaType.APPLICATION_XML, APPLICATION_NDJSON})
+    @Produces({MediaType.APPLICATION_XML, APPLICATION_NDJSON, MediaType.TEXT_PLAIN})
+    @Path("evaluateBatch")
+    public Response evaluateBatch(final InputStream body, @Context final HttpHeaders headers)
+            throws IOException, XMLStreamException, JAXBException {
+        final String METHODNAME = "evaluateBatch ";
+
+        final boolean ndjson = APPLICATION_NDJSON_TYPE.isCompatible(headers.getMediaType());
+        final BatchRequestReader reader = ndjson ? BatchRequestReader.ndjson(body, mapper) : BatchRequestReader.xml(body);
+        final EvaluateAtSpecifiedTime header = reader.getHeader();
+        final EvaluationRequest evaluationRequest = header.getEvaluationRequest();
+        if (header.getInteractionId() == null || evaluationRequest == null
+                || evaluationRequest.getKmEvaluationRequest().isEmpty()
+                || evaluationRequest.getDataRequirementItemData().isEmpty()) {
+            reader.close();
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("The batch header requires an interactionId, a kmEvaluationRequest and a dataRequirementItemData")
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+
+        StopWatch timer = new StopWatch();
+        timer.start("preEvaluate");
+        UpdateResponse updateResponse = preEvaluate(header);
+        timer.stop();
+        final long preEvalTime = timer.getLastTaskTimeMillis();
+        final boolean hasKmUpdates = hasKmUpdates(updateResponse);
+        final boolean hasCdmUpdates = hasCdmUpdates(updateResponse);
+
+        final Date specifiedTime = header.getSpecifiedTime() == null ? null
+                : header.getSpecifiedTime().toGregorianCalendar().getTime();
+
+        StreamingOutput output = new StreamingOutput() {
+            @Override
+            public void write(OutputStream out) throws IOException {
+                final BatchResponseWriter writer = ndjson ? BatchResponseWriter.ndjson(out, mapper) : BatchResponseWriter.xml(out);
+                final long start = System.nanoTime();
+                int items = 0;
+                try {
+                    items = evaluationService.evaluateBatch(header.getInteractionId().getInteractionId(), evaluationRequest,
+                            specifiedTime, reader.items(), writer);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    writer.onError(null, e);
+                } catch (RuntimeException e) {
+                    // e.g., a malformed item; the items read before it have been evaluated
+                    log.warn(METHODNAME + "batch aborted: " + e.getMessage());
+                    writer.onError(null, e);
+                } finally {
+                    writer.close();
+                    reader.close();
+                    log.info(String.format("%s eval=%s; instanceId=%s; items=%d; results=%d; errors=%d; kmUpdated=%s; cdmUpdated=%s; preEvalTime=%d; evalTime=%d",
+                            METHODNAME, getEvalInfo(header), instanceId, items, writer.getResultCount(), writer.getErrorCount(),
+                            hasKmUpdates, hasCdmUpdates, preEvalTime, (System.nanoTime() - start) / 1000000));
+                }
+            }
+        };
+        return Response.ok(output).type(ndjson ? APPLICATION_NDJSON_TYPE : MediaType.APPLICATION_XML_TYPE).build();
+    }
+
     private static String getEvalInfo(EvaluateAtSpecifiedTime eval)
     {
         return getEvalInfo(eval, eval.getEvaluationRequest());
@@ -328,26 +420,118 @@ public class EvaluateResource {
         return res != null && res.getCdmUpdates() != null && !res.getCdmUpdates().isEmpty();
     }
 
-    private Response createResponse(EvaluationResponse evalResponse, HttpHeaders headers)
-            throws JsonProcessingException, JAXBException
+    /**
+     * Whether the evaluation was rejected by a saturated evaluation executor,
+     * either when it was submitted or (wrapped by the evaluation) when it
+     * completed.
+     */
+    private static boolean isRejected(Throwable t)
+    {
+        return rejection(t) != null;
+    }
+
+    private static Throwable rejection(Throwable t)
+    {
+        int index = ExceptionUtils.indexOfType(t, EvaluationRejectedException.class);
+        return index < 0 ? null : ExceptionUtils.getThrowables(t)[index];
+    }
+
+    /**
+     * The evaluation executor is saturated, or the evaluation timed out; tell
+     * the client (or load balancer) to back off and retry.
+     */
+    private static Response serviceUnavailable(String message)
+    {
+        log.warn("Evaluation unavailable: " + message);
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .entity(message)
+                .type(MediaType.TEXT_PLAIN)
+                .build();
+    }
+
+    /**
+     * Resumes the suspended request once the evaluation completes (on the
+     * evaluation thread that completes it); the response is marshalled when
+     * the container writes it.
+     * <p>
+     * If the evaluation does not complete within the <tt>evaluateTimeout</tt>,
+     * the request is resumed with a 503 and the evaluation is cancelled; an
+     * evaluation that completes later no longer resumes it.
+     */
+    private <T> void resume(final AsyncResponse asyncResponse, final CompletableFuture<T> evaluation,
+            final Function<T, EvaluationResponse> toEvaluationResponse, final HttpHeaders headers,
+            final EvaluationLog evaluationLog)
     {
-        final List<MediaType> acceptableMediaTypes = headers.getAcceptableMediaTypes();
-
-        Response.ResponseBuilder responseBuilder;
-        if (acceptableMediaTypes.contains(MediaType.APPLICATION_JSON_TYPE)) {
-            final String data = mapper.writeValueAsString(evalResponse);
-            responseBuilder = Response.ok(data).type(MediaType.APPLICATION_JSON);
-        } else {
-            final ByteArrayOutputStream stream = new ByteArrayOutputStream();
-            MarshalUtils.marshal(evalResponse, stream);
-            stream.toByteArray();
-            responseBuilder = Response.ok(new String(stream.toByteArray())).type(MediaType.APPLICATION_XML);
+        final boolean json = headers.getAcceptableMediaTypes().contains(MediaType.APPLICATION_JSON_TYPE);
+        final long evalStart = System.nanoTime();
+        if (evaluateTimeout > 0) {
+            asyncResponse.setTimeoutHandler(new TimeoutHandler() {
+                @Override
+                public void handleTimeout(AsyncResponse timedOut) {
+                    if (timedOut.resume(serviceUnavailable("Evaluation timed out after " + evaluateTimeout + "ms"))) {
+                        evaluationLog.evaluated(evalStart);
+                        evaluationLog.log(false);
+                        // cancels the evaluation of the KMs still running or queued
+                        evaluation.cancel(true);
+                    }
+                }
+            });
+            asyncResponse.setTimeout(evaluateTimeout, TimeUnit.MILLISECONDS);
         }
-        return responseBuilder.build();
+        evaluation.thenApply(toEvaluationResponse).whenComplete(new BiConsumer<EvaluationResponse, Throwable>() {
+            @Override
+            public void accept(EvaluationResponse response, Throwable t) {
+                if (asyncResponse.isDone()) {
+                    // timed out; the request was already answered
+                    return;
+                }
+                evaluationLog.evaluated(evalStart);
+                if (t != null) {
+                    evaluationLog.log(false);
+                    Throwable rejection = rejection(t);
+                    if (rejection != null) {
+                        asyncResponse.resume(serviceUnavailable(rejection.getMessage()));
+                    } else {
+                        asyncResponse.resume(t instanceof CompletionException && t.getCause() != null ? t.getCause() : t);
+                    }
+                } else {
+                    asyncResponse.resume(createResponse(response, json, evaluationLog));
+                }
+            }
+        });
     }
 
-    private <T> T unmarshal(String payload, Class<T> type, HttpHeaders headers)
-            throws JsonProcessingException, JAXBException, TransformerException
+    private Response createResponse(final EvaluationResponse evalResponse, final boolean json,
+            final EvaluationLog evaluationLog)
+    {
+        StreamingOutput output = new StreamingOutput() {
+            @Override
+            public void write(OutputStream out) throws IOException {
+                final long start = System.nanoTime();
+                boolean success = false;
+                try {
+                    if (json) {
+                        JsonGenerator generator = mapper.getFactory().createGenerator(out);
+                        mapper.writeValue(generator, evalResponse);
+                        generator.flush();
+                    } else {
+                        MarshalUtils.marshal(evalResponse, out);
+                    }
+                    success = true;
+                } catch (JAXBException e) {
+                    throw new IOException("Unable to marshal the evaluation response", e);
+                } finally {
+                    evaluationLog.marshalled(start);
+                    evaluationLog.log(success);
+                }
+            }
+        };
+        return Response.ok(output).type(json ? MediaType.APPLICATION_JSON_TYPE : MediaType.APPLICATION_XML_TYPE).build();
+    }
+
+    private <T> T unmarshal(InputStream payload, Class<T> type, HttpHeaders headers)
+            throws IOException, JAXBException, TransformerException
     {
         final MediaType mediaType = headers.getMediaType();
 
@@ -356,7 +540,7 @@ public class EvaluateResource {
             case MediaType.APPLICATION_JSON:
                 return mapper.readValue(payload, type);
             case MediaType.APPLICATION_XML:
-                return MarshalUtils.unmarshal(new ByteArrayInputStream(payload.getBytes()), type);
+                return MarshalUtils.unmarshal(payload, type);
             default:
                 throw new IllegalArgumentException("Unsupported media type: " + mediaType);
         }
@@ -610,6 +794,55 @@ public class EvaluateResource {
         }
     }
 
+    /**
+     * Timings of a single (asynchronous) evaluation, logged once it is done.
+     */
+    private final class EvaluationLog
+    {
+        private final String methodName;
+        private final String evalInfo;
+        private final long reqSize;
+        private final long unmarshalTime;
+        private final long start = System.nanoTime();
+        private volatile long preEvalTime = -1;
+        private volatile long evalTime = -1;
+        private volatile long marshalTime = -1;
+        private volatile boolean hasKmUpdates;
+        private volatile boolean hasCdmUpdates;
+
+        EvaluationLog(String methodName, String evalInfo, long reqSize, long unmarshalTime)
+        {
+            this.methodName = methodName;
+            this.evalInfo = evalInfo;
+            this.reqSize = reqSize;
+            this.unmarshalTime = unmarshalTime;
+        }
+
+        void preEvaluated(UpdateResponse updateResponse, StopWatch timer)
+        {
+            timer.stop();
+            preEvalTime = timer.getLastTaskTimeMillis();
+            hasKmUpdates = hasKmUpdates(updateResponse);
+            hasCdmUpdates = hasCdmUpdates(updateResponse);
+        }
+
+        void evaluated(long evalStart)
+        {
+            evalTime = (System.nanoTime() - evalStart) / 1000000;
+        }
+
+        void marshalled(long marshalStart)
+        {
+            marshalTime = (System.nanoTime() - marshalStart) / 1000000;
+        }
+
+        void log(boolean success)
+        {
+            log.info(String.format("%s eval=%s; success=%s; instanceId=%s; reqSize=%d; unmarshalTime=%d; kmUpdated=%s; cdmUpdated=%s; preEvalTime=%d; evalTime=%d; marshalTime=%d; totalTime=%d",
+                    methodName, evalInfo, success, instanceId, reqSize, unmarshalTime, hasKmUpdates, hasCdmUpdates, preEvalTime, evalTime, marshalTime, (System.nanoTime() - start) / 1000000));
+        }
+    }
+
     private static final class PreEvaluateHTTPException extends RuntimeException
     {
         public PreEvaluateHTTPException(String message)
@@ -11,7 +11,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.cdsframework.rest.opencds.pojos.ExecutorStats;
 import org.cdsframework.rest.opencds.pojos.HealthCheck;
+import org.cdsframework.rest.opencds.pojos.Readiness;
+import org.cdsframework.rest.opencds.pojos.ResultCacheStats;
+import org.opencds.dss.evaluate.EvaluationService;
+import org.opencds.dss.evaluate.EvaluationWarmup;
 
 /**
  * Health REST Web Service
@@ -22,11 +27,36 @@ public class HealthResource {
 
     private static final Log log = LogFactory.getLog(HealthResource.class);
 
+    private final EvaluationService evaluationService;
+
+    private final EvaluationWarmup evaluationWarmup;
+
     /**
      * Creates a new instance of HealthResource
      *
      */
     public HealthResource() {
+        this(null);
+    }
+
+    /**
+     * Creates a new instance of HealthResource
+     *
+     * @param evaluationService
+     */
+    public HealthResource(final EvaluationService evaluationService) {
+        this(evaluationService, null);
+    }
+
+    /**
+     * Creates a new instance of HealthResource
+     *
+     * @param evaluationService
+     * @param evaluationWarmup
+     */
+    public HealthResource(final EvaluationService evaluationService, final EvaluationWarmup evaluationWarmup) {
+        this.evaluationService = evaluationService;
+        this.evaluationWarmup = evaluationWarmup;
     }
 
     /**
@@ -46,6 +76,67 @@ public class HealthResource {
         return responseBuilder.build();
     }
 
+    /**
+     * Returns the evaluation executor counters (running, queued, rejected and
+     * completed evaluations).
+     *
+     * @return
+     * @throws JsonProcessingException
+     */
+    @GET
+    @Produces({ MediaType.APPLICATION_JSON })
+    @Path("executorstats")
+    public Response executorStats() throws JsonProcessingException {
+        log.debug("/executorstats called!");
+        if (evaluationService == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        final ObjectMapper mapper = new ObjectMapper();
+        final String response = mapper.writeValueAsString(new ExecutorStats(evaluationService.getEvaluationExecutor()));
+        return Response.ok(response).type(MediaType.APPLICATION_JSON).build();
+    }
+
+    /**
+     * Returns the evaluation result cache counters (size, hits, misses,
+     * evictions and invalidations).
+     *
+     * @return
+     * @throws JsonProcessingException
+     */
+    @GET
+    @Produces({ MediaType.APPLICATION_JSON })
+    @Path("resultcachestats")
+    public Response resultCacheStats() throws JsonProcessingException {
+        log.debug("/resultcachestats called!");
+        if (evaluationService == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        final ObjectMapper mapper = new ObjectMapper();
+        final String response = mapper.writeValueAsString(new ResultCacheStats(evaluationService.getEvaluationResultCache()));
+        return Response.ok(response).type(MediaType.APPLICATION_JSON).build();
+    }
+
+    /**
+     * Returns the startup warm-up status: 200 once the node is warm, 503
+     * until then (or for good if the warm-up failed and
+     * <tt>warmup.failures.unready</tt> is on), for load balancer readiness
+     * checks.
+     *
+     * @return
+     * @throws JsonProcessingException
+     */
+    @GET
+    @Produces({ MediaType.APPLICATION_JSON })
+    @Path("readiness")
+    public Response readiness() throws JsonProcessingException {
+        log.debug("/readiness called!");
+        final Readiness readiness = new Readiness(evaluationWarmup);
+        final ObjectMapper mapper = new ObjectMapper();
+        final String response = mapper.writeValueAsString(readiness);
+        return Response.status(readiness.isReady() ? Response.Status.OK : Response.Status.SERVICE_UNAVAILABLE)
+                .entity(response).type(MediaType.APPLICATION_JSON).build();
+    }
+
     /**
      * Returns quick up status.
      */
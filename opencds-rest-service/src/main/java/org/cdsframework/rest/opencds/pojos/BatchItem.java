@@ -0,0 +1,55 @@
+package org.cdsframework.rest.opencds.pojos;
+
+/**
+ * One patient of an NDJSON batch evaluation request.
+ */
+public class BatchItem {
+
+    private String id;
+    private byte[] base64EncodedPayload;
+
+    public BatchItem() {
+    }
+
+    public BatchItem(final String id, final byte[] base64EncodedPayload) {
+        this.id = id;
+        this.base64EncodedPayload = base64EncodedPayload;
+    }
+
+    /**
+     * Get the client-assigned id, echoed back with the result
+     *
+     * @return the value of id
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Set the value of id
+     *
+     * @param id new value of id
+     */
+    public void setId(final String id) {
+        this.id = id;
+    }
+
+    /**
+     * Get the (base64 decoded) semantic payload
+     *
+     * @return the value of base64EncodedPayload
+     */
+    public byte[] getBase64EncodedPayload() {
+        return base64EncodedPayload;
+    }
+
+    /**
+     * Set the value of base64EncodedPayload
+     *
+     * @param base64EncodedPayload new value of base64EncodedPayload
+     */
+    public void setBase64EncodedPayload(final byte[] base64EncodedPayload) {
+        this.base64EncodedPayload = base64EncodedPayload;
+    }
+
+}
@@ -0,0 +1,81 @@
+package org.cdsframework.rest.opencds.pojos;
+
+import org.omg.dss.evaluation.requestresponse.EvaluationResponse;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One line of an NDJSON batch evaluation response: either the evaluation
+ * response or the error of one item.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchResult {
+
+    private String id;
+    private EvaluationResponse evaluationResponse;
+    private String error;
+
+    public BatchResult() {
+    }
+
+    public BatchResult(final String id, final EvaluationResponse evaluationResponse, final String error) {
+        this.id = id;
+        this.evaluationResponse = evaluationResponse;
+        this.error = error;
+    }
+
+    /**
+     * Get the id of the item; null for an error not related to an item
+     *
+     * @return the value of id
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Set the value of id
+     *
+     * @param id new value of id
+     */
+    public void setId(final String id) {
+        this.id = id;
+    }
+
+    /**
+     * Get the evaluation response; null if the item failed
+     *
+     * @return the value of evaluationResponse
+     */
+    public EvaluationResponse getEvaluationResponse() {
+        return evaluationResponse;
+    }
+
+    /**
+     * Set the value of evaluationResponse
+     *
+     * @param evaluationResponse new value of evaluationResponse
+     */
+    public void setEvaluationResponse(final EvaluationResponse evaluationResponse) {
+        this.evaluationResponse = evaluationResponse;
+    }
+
+    /**
+     * Get the error message; null if the item succeeded
+     *
+     * @return the value of error
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Set the value of error
+     *
+     * @param error new value of error
+     */
+    public void setError(final String error) {
+        this.error = error;
+    }
+
+}
@@ -0,0 +1,58 @@
+package org.cdsframework.rest.opencds.pojos;
+
+import org.opencds.dss.evaluate.EvaluationExecutor;
+
+/**
+ * Snapshot of the evaluation executor counters.
+ */
+public class ExecutorStats {
+
+    private int active;
+    private int queued;
+    private long rejected;
+    private long completed;
+
+    public ExecutorStats(final EvaluationExecutor executor) {
+        this.active = executor.getActiveCount();
+        this.queued = executor.getQueuedCount();
+        this.rejected = executor.getRejectedCount();
+        this.completed = executor.getCompletedCount();
+    }
+
+    /**
+     * Get the number of running evaluations
+     *
+     * @return the value of active
+     */
+    public int getActive() {
+        return active;
+    }
+
+    /**
+     * Get the number of evaluations waiting for a thread
+     *
+     * @return the value of queued
+     */
+    public int getQueued() {
+        return queued;
+    }
+
+    /**
+     * Get the number of evaluations rejected since startup
+     *
+     * @return the value of rejected
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Get the number of evaluations completed since startup
+     *
+     * @return the value of completed
+     */
+    public long getCompleted() {
+        return completed;
+    }
+
+}
@@ -0,0 +1,79 @@
+package org.cdsframework.rest.opencds.pojos;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.opencds.dss.evaluate.EvaluationWarmup;
+
+/**
+ * Snapshot of the startup warm-up status.
+ */
+public class Readiness {
+
+    private boolean ready;
+    private String state;
+    private long durationMillis = -1;
+    private int warmedUpKMs;
+    private List<String> failures = Collections.emptyList();
+
+    public Readiness(final EvaluationWarmup warmup) {
+        if (warmup == null) {
+            // no warm-up configured
+            this.ready = true;
+            this.state = EvaluationWarmup.State.READY.name();
+        } else {
+            this.ready = warmup.isReady();
+            this.state = warmup.getState().name();
+            this.durationMillis = warmup.getDurationMillis();
+            this.warmedUpKMs = warmup.getWarmedUpKMCount();
+            this.failures = warmup.getFailures();
+        }
+    }
+
+    /**
+     * Get whether the warm-up has finished (and has not failed, unless its
+     * failures are tolerated)
+     *
+     * @return the value of ready
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Get the warm-up state (PENDING, WARMING, READY or FAILED)
+     *
+     * @return the value of state
+     */
+    public String getState() {
+        return state;
+    }
+
+    /**
+     * Get the duration of the warm-up, or -1 if not finished
+     *
+     * @return the value of durationMillis
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * Get the number of KMs evaluated successfully by the warm-up
+     *
+     * @return the value of warmedUpKMs
+     */
+    public int getWarmedUpKMs() {
+        return warmedUpKMs;
+    }
+
+    /**
+     * Get the warm-up steps that failed
+     *
+     * @return the value of failures
+     */
+    public List<String> getFailures() {
+        return failures;
+    }
+
+}
@@ -0,0 +1,93 @@
+package org.cdsframework.rest.opencds.pojos;
+
+import org.opencds.dss.evaluate.EvaluationResultCache;
+
+/**
+ * Snapshot of the evaluation result cache counters.
+ */
+public class ResultCacheStats {
+
+    private boolean enabled;
+    private int size;
+    private int maxEntries;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public ResultCacheStats(final EvaluationResultCache cache) {
+        if (cache != null) {
+            this.enabled = cache.isEnabled();
+            this.size = cache.getSize();
+            this.maxEntries = cache.getMaxEntries();
+            this.hits = cache.getHitCount();
+            this.misses = cache.getMissCount();
+            this.evictions = cache.getEvictionCount();
+            this.invalidations = cache.getInvalidationCount();
+        }
+    }
+
+    /**
+     * Get whether evaluation results are cached
+     *
+     * @return the value of enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get the number of cached evaluations
+     *
+     * @return the value of size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Get the maximum number of cached evaluations
+     *
+     * @return the value of maxEntries
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Get the number of evaluations answered from the cache since startup
+     *
+     * @return the value of hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Get the number of evaluations not found in the cache since startup
+     *
+     * @return the value of misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Get the number of evaluations evicted for size or age since startup
+     *
+     * @return the value of evictions
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Get the number of times the cache was emptied by a configuration change
+     *
+     * @return the value of invalidations
+     */
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+}
@@ -0,0 +1,191 @@
+package org.cdsframework.rest.opencds.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.cdsframework.rest.opencds.pojos.BatchItem;
+import org.omg.dss.evaluation.EvaluateAtSpecifiedTime;
+import org.opencds.dss.evaluate.BatchEvaluationItem;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads a batch evaluation request incrementally: first the header, then the
+ * items one at a time, so that the items never have to be held in memory
+ * all at once.
+ * <p>
+ * The header is an <tt>evaluateAtSpecifiedTime</tt> (or <tt>evaluate</tt>)
+ * request whose payload, if any, is ignored; it carries the KM(s), the
+ * evaluation time (absent for the current time), client language and time
+ * zone offset and the data requirement item shared by all items.
+ * <p>
+ * NDJSON (<tt>application/x-ndjson</tt>): the header object on the first
+ * line, followed by one item per line:
+ *
+ * <pre>
+ * {"interactionId": {...}, "specifiedTime": 1579330800000, "evaluationRequest": {...}}
+ * {"id": "patient-1", "base64EncodedPayload": "PD94bWwg..."}
+ * {"id": "patient-2", "base64EncodedPayload": "PD94bWwg..."}
+ * </pre>
+ *
+ * XML (<tt>application/xml</tt>): an <tt>evaluateBatch</tt> envelope with the
+ * header element followed by repeated <tt>item</tt> elements:
+ *
+ * <pre>
+ * &lt;evaluateBatch&gt;
+ *     &lt;ns2:evaluateAtSpecifiedTime xmlns:ns2="http://www.omg.org/spec/CDSS/201105/dss"&gt;...&lt;/ns2:evaluateAtSpecifiedTime&gt;
+ *     &lt;item id="patient-1"&gt;PD94bWwg...&lt;/item&gt;
+ *     &lt;item id="patient-2"&gt;PD94bWwg...&lt;/item&gt;
+ * &lt;/evaluateBatch&gt;
+ * </pre>
+ */
+public abstract class BatchRequestReader implements Closeable {
+
+    public static final String ITEM_ELEMENT = "item";
+    public static final String ID_ATTRIBUTE = "id";
+
+    private static final XMLInputFactory xmlInputFactory = createXmlInputFactory();
+
+    protected EvaluateAtSpecifiedTime header;
+
+    /**
+     * @return the header of the batch
+     */
+    public EvaluateAtSpecifiedTime getHeader() {
+        return header;
+    }
+
+    /**
+     * @return the items of the batch, read from the underlying stream on
+     *         demand; may only be iterated once
+     */
+    public abstract Iterator<BatchEvaluationItem> items();
+
+    public static BatchRequestReader ndjson(final InputStream in, final ObjectMapper mapper) throws IOException {
+        return new NdjsonReader(in, mapper);
+    }
+
+    public static BatchRequestReader xml(final InputStream in) throws XMLStreamException, JAXBException {
+        return new XmlReader(in);
+    }
+
+    private static XMLInputFactory createXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    private static final class NdjsonReader extends BatchRequestReader {
+        private final JsonParser parser;
+        private final MappingIterator<BatchItem> iterator;
+
+        NdjsonReader(final InputStream in, final ObjectMapper mapper) throws IOException {
+            parser = mapper.getFactory().createParser(in);
+            header = mapper.readValue(parser, EvaluateAtSpecifiedTime.class);
+            // the items follow the header object
+            parser.clearCurrentToken();
+            iterator = mapper.readerFor(BatchItem.class).readValues(parser);
+        }
+
+        @Override
+        public Iterator<BatchEvaluationItem> items() {
+            return new Iterator<BatchEvaluationItem>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public BatchEvaluationItem next() {
+                    BatchItem item = iterator.next();
+                    return new BatchEvaluationItem(item.getId(), item.getBase64EncodedPayload());
+                }
+            };
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+
+    private static final class XmlReader extends BatchRequestReader {
+        private final XMLStreamReader reader;
+
+        XmlReader(final InputStream in) throws XMLStreamException, JAXBException {
+            reader = xmlInputFactory.createXMLStreamReader(in);
+            reader.nextTag(); // evaluateBatch
+            reader.nextTag(); // the header
+            header = MarshalUtils.unmarshal(reader, EvaluateAtSpecifiedTime.class);
+        }
+
+        @Override
+        public Iterator<BatchEvaluationItem> items() {
+            return new Iterator<BatchEvaluationItem>() {
+                private boolean atItem;
+                private boolean done;
+
+                @Override
+                public boolean hasNext() {
+                    if (atItem) {
+                        return true;
+                    }
+                    if (done) {
+                        return false;
+                    }
+                    try {
+                        while (reader.hasNext()) {
+                            int event = reader.next();
+                            if (event == XMLStreamConstants.START_ELEMENT && ITEM_ELEMENT.equals(reader.getLocalName())) {
+                                atItem = true;
+                                return true;
+                            }
+                        }
+                    } catch (XMLStreamException e) {
+                        throw new IllegalStateException("Error reading batch item: " + e.getMessage(), e);
+                    }
+                    done = true;
+                    return false;
+                }
+
+                @Override
+                public BatchEvaluationItem next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    atItem = false;
+                    try {
+                        String id = reader.getAttributeValue(null, ID_ATTRIBUTE);
+                        byte[] payload = Base64.getMimeDecoder().decode(reader.getElementText().trim());
+                        return new BatchEvaluationItem(id, payload);
+                    } catch (XMLStreamException e) {
+                        throw new IllegalStateException("Error reading batch item: " + e.getMessage(), e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,181 @@
+package org.cdsframework.rest.opencds.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.cdsframework.rest.opencds.pojos.BatchResult;
+import org.omg.dss.evaluation.requestresponse.EvaluationResponse;
+import org.opencds.dss.evaluate.BatchEvaluationListener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Streams the results of a batch evaluation to the client as the items
+ * complete. Each result is written and flushed as a whole, so results
+ * reported concurrently never interleave.
+ * <p>
+ * NDJSON: one {@link BatchResult} per line. XML: an
+ * <tt>evaluateBatchResponse</tt> envelope with a <tt>result</tt> element
+ * (holding the <tt>evaluationResponse</tt>) or an <tt>error</tt> element per
+ * item. Errors not related to an item (e.g., a malformed item) are reported
+ * without an id.
+ * <p>
+ * Once the client has gone away (or the response is closed), further results
+ * are dropped; only the results written are counted.
+ */
+public abstract class BatchResponseWriter implements BatchEvaluationListener {
+
+    private static final Log log = LogFactory.getLog(BatchResponseWriter.class);
+
+    public static final String RESPONSE_ELEMENT = "evaluateBatchResponse";
+    public static final String RESULT_ELEMENT = "result";
+    public static final String ERROR_ELEMENT = "error";
+    public static final String ID_ATTRIBUTE = "id";
+
+    private static final XMLOutputFactory xmlOutputFactory = XMLOutputFactory.newInstance();
+
+    protected final OutputStream out;
+    private final AtomicInteger results = new AtomicInteger();
+    private final AtomicInteger errors = new AtomicInteger();
+    private volatile boolean broken;
+
+    protected BatchResponseWriter(final OutputStream out) {
+        this.out = out;
+    }
+
+    public static BatchResponseWriter ndjson(final OutputStream out, final ObjectMapper mapper) {
+        return new NdjsonWriter(out, mapper);
+    }
+
+    public static BatchResponseWriter xml(final OutputStream out) throws IOException {
+        return new XmlWriter(out);
+    }
+
+    @Override
+    public void onResult(final String itemId, final EvaluationResponse response) {
+        if (write(itemId, response, null)) {
+            results.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void onError(final String itemId, final Throwable error) {
+        String message = error.getMessage() != null ? error.getMessage() : error.getClass().getName();
+        if (write(itemId, null, message)) {
+            errors.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return whether the result was written (and so counted)
+     */
+    private synchronized boolean write(final String itemId, final EvaluationResponse response, final String error) {
+        if (broken) {
+            return false;
+        }
+        try {
+            writeResult(itemId, response, error);
+            out.flush();
+            return true;
+        } catch (Exception e) {
+            broken = true;
+            log.warn("Unable to write batch result for item " + itemId + "; dropping the remaining results: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Completes the response; no further results are written.
+     */
+    public synchronized void close() {
+        if (!broken) {
+            try {
+                writeEnd();
+                out.flush();
+            } catch (Exception e) {
+                log.warn("Unable to complete batch response: " + e.getMessage());
+            }
+        }
+        broken = true;
+    }
+
+    public int getResultCount() {
+        return results.get();
+    }
+
+    public int getErrorCount() {
+        return errors.get();
+    }
+
+    protected abstract void writeResult(String itemId, EvaluationResponse response, String error) throws Exception;
+
+    protected abstract void writeEnd() throws Exception;
+
+    private static final class NdjsonWriter extends BatchResponseWriter {
+        private final ObjectMapper mapper;
+
+        NdjsonWriter(final OutputStream out, final ObjectMapper mapper) {
+            super(out);
+            this.mapper = mapper;
+        }
+
+        @Override
+        protected void writeResult(final String itemId, final EvaluationResponse response, final String error)
+                throws IOException {
+            out.write(mapper.writeValueAsBytes(new BatchResult(itemId, response, error)));
+            out.write('\n');
+        }
+
+        @Override
+        protected void writeEnd() {
+        }
+    }
+
+    private static final class XmlWriter extends BatchResponseWriter {
+        private final XMLStreamWriter writer;
+
+        XmlWriter(final OutputStream out) throws IOException {
+            super(out);
+            try {
+                writer = xmlOutputFactory.createXMLStreamWriter(out, "UTF-8");
+                writer.writeStartDocument("UTF-8", "1.0");
+                writer.writeStartElement(RESPONSE_ELEMENT);
+                writer.flush();
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        protected void writeResult(final String itemId, final EvaluationResponse response, final String error)
+                throws XMLStreamException, JAXBException {
+            writer.writeStartElement(response != null ? RESULT_ELEMENT : ERROR_ELEMENT);
+            if (itemId != null) {
+                writer.writeAttribute(ID_ATTRIBUTE, itemId);
+            }
+            if (response != null) {
+                MarshalUtils.marshal(response, writer, null);
+            } else {
+                writer.writeCharacters(error);
+            }
+            writer.writeEndElement();
+            writer.flush();
+        }
+
+        @Override
+        protected void writeEnd() throws XMLStreamException {
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.flush();
+        }
+    }
+
+}
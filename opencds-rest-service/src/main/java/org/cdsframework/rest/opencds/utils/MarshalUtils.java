@@ -23,14 +23,14 @@ package org.cdsframework.rest.opencds.utils;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.HashMap;
-import java.util.Map;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.util.JAXBResult;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
@@ -41,6 +41,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.omg.dss.evaluation.requestresponse.EvaluationResponse;
 import org.omg.dss.evaluation.requestresponse.ObjectFactory;
+import org.opencds.common.xml.JAXBContextRegistry;
 import org.xml.sax.ContentHandler;
 
 /**
@@ -54,27 +55,19 @@ public class MarshalUtils {
      * static logger
      */
     private static final Log log = LogFactory.getLog(MarshalUtils.class);
-    private static final Map<String, JAXBContext> jaxbContextMap = new HashMap<String, JAXBContext>();
 
     /**
-     * Get the jaxb context for the package name.
+     * Get the (shared) jaxb context for the package name.
      *
      * @param classPackageName
      * @return
      * @throws CdsException
      */
     private static JAXBContext getJAXBContext(final String classPackageName) throws JAXBException {
-        JAXBContext jaxbContext;
         if (classPackageName == null) {
             throw new IllegalArgumentException("classPackageName cannot be null.");
         }
-        if (!jaxbContextMap.containsKey(classPackageName)) {
-            jaxbContext = JAXBContext.newInstance(classPackageName);
-            jaxbContextMap.put(classPackageName, jaxbContext);
-        } else {
-            jaxbContext = jaxbContextMap.get(classPackageName);
-        }
-        return jaxbContext;
+        return JAXBContextRegistry.getContext(classPackageName);
     }
 
     private static Marshaller getMarshaller(final Object jaxbElement) throws JAXBException {
@@ -122,6 +115,9 @@ public class MarshalUtils {
         }
         if (dst instanceof ContentHandler) {
             marshaller.marshal(jaxbElement, (ContentHandler) dst);
+        } else if (dst instanceof XMLStreamWriter) {
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+            marshaller.marshal(jaxbElement, (XMLStreamWriter) dst);
         } else if (dst instanceof OutputStream) {
             marshaller.marshal(jaxbElement, (OutputStream) dst);
         } else {
@@ -155,6 +151,21 @@ public class MarshalUtils {
         return unmarshal(inputStream, true, returnType);
     }
 
+    /**
+     * Un-marshal an object from the element the reader is positioned at. The
+     * reader is left positioned after the element, so that a large document
+     * can be un-marshaled one element at a time.
+     *
+     * @param <S>
+     * @param reader
+     * @param returnType
+     * @return
+     * @throws javax.xml.bind.JAXBException
+     */
+    public static <S> S unmarshal(final XMLStreamReader reader, final Class<S> returnType) throws JAXBException {
+        return getUnmarshaller(returnType).unmarshal(reader, returnType).getValue();
+    }
+
     /**
      * Un-marshal an object from an InputStream after transforming the XML with the
      * supplied XSLT.
@@ -223,7 +234,7 @@ public class MarshalUtils {
             final StreamSource xslStreamSource = new StreamSource(localTransform);
             final Transformer transformer = transformerFactory.newTransformer(xslStreamSource);
             final StreamSource xmlStreamSource = new StreamSource(inputStream);
-            final JAXBContext jc = JAXBContext.newInstance(returnType);
+            final JAXBContext jc = JAXBContextRegistry.getContext(returnType);
             final JAXBResult jaxbResult = new JAXBResult(jc);
             transformer.transform(xmlStreamSource, jaxbResult);
             result = (S) jaxbResult.getResult();
@@ -0,0 +1,120 @@
+package org.cdsframework.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+
+import org.cdsframework.rest.opencds.pojos.BatchResult;
+import org.cdsframework.rest.opencds.utils.BatchRequestReader;
+import org.cdsframework.rest.opencds.utils.BatchResponseWriter;
+import org.junit.Test;
+import org.omg.dss.evaluation.requestresponse.EvaluationResponse;
+import org.opencds.dss.evaluate.BatchEvaluationItem;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class BatchUnitTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static final byte[] PAYLOAD_1 = "<cdsInput>1</cdsInput>".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PAYLOAD_2 = "<cdsInput>2</cdsInput>".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void readNdjson() throws Exception {
+        String header = mapper.readTree(new File("src/test/resources/sampleEvaluateAtSpecifiedTime.json")).toString();
+        String body = header + "\n"
+                + "{\"id\": \"p1\", \"base64EncodedPayload\": \"" + Base64.getEncoder().encodeToString(PAYLOAD_1) + "\"}\n"
+                + "\n"
+                + "{\"id\": \"p2\", \"base64EncodedPayload\": \"" + Base64.getEncoder().encodeToString(PAYLOAD_2) + "\"}\n";
+
+        BatchRequestReader reader = BatchRequestReader.ndjson(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), mapper);
+        assertHeader(reader);
+        assertItems(reader.items());
+        reader.close();
+    }
+
+    @Test
+    public void readXml() throws Exception {
+        String header = new String(Files.readAllBytes(new File("src/test/resources/sampleEvaluateAtSpecifiedTime.xml").toPath()),
+                StandardCharsets.UTF_8);
+        header = header.substring(header.indexOf("?>") + 2);
+        String body = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<evaluateBatch>" + header
+                + "<item id=\"p1\">" + Base64.getMimeEncoder().encodeToString(PAYLOAD_1) + "</item>\n"
+                + "<item id=\"p2\">\n" + Base64.getMimeEncoder().encodeToString(PAYLOAD_2) + "\n</item>\n"
+                + "</evaluateBatch>";
+
+        BatchRequestReader reader = BatchRequestReader.xml(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        assertHeader(reader);
+        assertItems(reader.items());
+        reader.close();
+    }
+
+    @Test
+    public void writeNdjson() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BatchResponseWriter writer = BatchResponseWriter.ndjson(out, mapper);
+        writer.onResult("p1", new EvaluationResponse());
+        writer.onError("p2", new IllegalStateException("boom"));
+        writer.close();
+        writer.onResult("p3", new EvaluationResponse());
+
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        BatchResult result = mapper.readValue(lines[0], BatchResult.class);
+        assertEquals("p1", result.getId());
+        assertNotNull(result.getEvaluationResponse());
+        BatchResult error = mapper.readValue(lines[1], BatchResult.class);
+        assertEquals("p2", error.getId());
+        assertEquals("boom", error.getError());
+        assertEquals(1, writer.getResultCount());
+        assertEquals(1, writer.getErrorCount());
+    }
+
+    @Test
+    public void writeXml() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BatchResponseWriter writer = BatchResponseWriter.xml(out);
+        writer.onResult("p1", new EvaluationResponse());
+        writer.onError("p2", new IllegalStateException("boom"));
+        writer.close();
+
+        String xml = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(xml.contains("<evaluateBatchResponse><result id=\"p1\">"));
+        assertTrue(xml.contains("evaluationResponse"));
+        assertTrue(xml.contains("<error id=\"p2\">boom</error></evaluateBatchResponse>"));
+        assertEquals(1, xml.split("<\\?xml").length - 1);
+    }
+
+    private static void assertHeader(BatchRequestReader reader) {
+        assertEquals("123456", reader.getHeader().getInteractionId().getInteractionId());
+        assertNotNull(reader.getHeader().getSpecifiedTime());
+        assertEquals("ICE", reader.getHeader().getEvaluationRequest().getKmEvaluationRequest().get(0).getKmId().getBusinessId());
+    }
+
+    private static void assertItems(Iterator<BatchEvaluationItem> items) {
+        List<BatchEvaluationItem> read = new ArrayList<>();
+        while (items.hasNext()) {
+            read.add(items.next());
+        }
+        assertFalse(items.hasNext());
+        assertEquals(2, read.size());
+        assertEquals("p1", read.get(0).getId());
+        assertArrayEquals(PAYLOAD_1, read.get(0).getPayload());
+        assertEquals("p2", read.get(1).getId());
+        assertArrayEquals(PAYLOAD_2, read.get(1).getPayload());
+    }
+}
@@ -0,0 +1,20 @@
+package org.opencds.common.exceptions;
+
+/**
+ * Thrown when an evaluation cannot be admitted because the evaluation executor
+ * (or the concurrency cap of the requested knowledge module) is saturated. The
+ * request was not started and may be retried.
+ */
+public class EvaluationRejectedException extends OpenCDSRuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public EvaluationRejectedException(String message) {
+        super(message);
+    }
+
+    public EvaluationRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
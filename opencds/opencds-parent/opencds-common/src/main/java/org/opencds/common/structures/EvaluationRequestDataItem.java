@@ -3,7 +3,6 @@
  */
 package org.opencds.common.structures;
 
-import java.io.UnsupportedEncodingException;
 import java.util.Date;
 
 /**
@@ -19,8 +18,6 @@ public class EvaluationRequestDataItem {
 	protected String 	externalFactModelSSId;
 	protected String	inputItemName;
 	protected String	inputContainingEntityId;
-	protected byte[]  inputPayload;
-	private String 	inputPayloadString;
 	protected String	interactionId;
 	protected Object	cdsInput; 	//must be cast to a JAXB object when used...
 
@@ -109,37 +106,6 @@ public class EvaluationRequestDataItem {
 		this.inputContainingEntityId = inputContainingEntityId;
 	}
 
-	/**
-	 * Calling this method should be discouraged as it is expensive to convert a large byte[] to a String
-	 * @return the inputPayloadString
-	 */
-	public String getInputPayloadString() {
-		if (inputPayload != null && inputPayloadString == null)
-		{
-			try
-			{
-				inputPayloadString = new String(inputPayload, "UTF-8");
-			}
-			catch (UnsupportedEncodingException e)
-			{
-				throw new RuntimeException(e);
-			}
-		}
-		return inputPayloadString;
-	}
-
-	/**
-	 * @param inputPayload the inputPayload to set
-	 */
-	public void setInputPayload(byte[] inputPayload) {
-		this.inputPayload = inputPayload;
-	}
-
-	public byte[] getInputPayload()
-	{
-		return inputPayload;
-	}
-
 	/**
 	 * @return the interactionId
 	 */
@@ -179,7 +145,6 @@ public class EvaluationRequestDataItem {
 				+ ", externalFactModelSSId=" + externalFactModelSSId
 				+ ", inputItemName=" + inputItemName
 				+ ", inputContainingEntityId=" + inputContainingEntityId
-				+ ", inputPayloadString=" + inputPayloadString
 				+ ", interactionId=" + interactionId 
 				+ ", cdsInput=" + cdsInput
 				+ "]";
@@ -18,12 +18,19 @@ public class EvaluationRequestKMItem {
 	private final EvaluationRequestDataItem	evaluationRequestDataItem;
 	private final Object			 	cdsInput;
     private final Map<Class<?>, List<?>> allFactLists;
+    private final Object				evaluationContext;
+    private volatile long				knowledgePackageVersion = -1;
 
 	public EvaluationRequestKMItem(String requestedKmId, EvaluationRequestDataItem evaluationRequestDataItem, Object cdsInput, Map<Class<?>, List<?>> allFactLists) {
+        this(requestedKmId, evaluationRequestDataItem, cdsInput, allFactLists, null);
+    }
+
+	public EvaluationRequestKMItem(String requestedKmId, EvaluationRequestDataItem evaluationRequestDataItem, Object cdsInput, Map<Class<?>, List<?>> allFactLists, Object evaluationContext) {
         this.requestedKmId = requestedKmId;
         this.evaluationRequestDataItem = evaluationRequestDataItem;
         this.cdsInput = cdsInput;
         this.allFactLists = allFactLists;
+        this.evaluationContext = evaluationContext;
     }
 
     /**
@@ -52,5 +59,27 @@ public class EvaluationRequestKMItem {
         return allFactLists;
     }
 
+	/**
+	 * @return the configuration resolved for this item when the request was decoded, or null
+	 * NOTE: the object returned is an org.opencds.config.api.EvaluationContext (see EvaluationContext.of)
+	 */
+	public Object getEvaluationContext() {
+		return evaluationContext;
+	}
+
+	/**
+	 * @return the version of the knowledge package that evaluated this item, or -1 if unknown
+	 */
+	public long getKnowledgePackageVersion() {
+		return knowledgePackageVersion;
+	}
+
+	/**
+	 * @param knowledgePackageVersion the version of the knowledge package borrowed to evaluate this item
+	 */
+	public void setKnowledgePackageVersion(long knowledgePackageVersion) {
+		this.knowledgePackageVersion = knowledgePackageVersion;
+	}
+
 
 }
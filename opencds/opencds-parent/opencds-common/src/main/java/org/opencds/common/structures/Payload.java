@@ -1,20 +1,77 @@
 package org.opencds.common.structures;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Date;
 
+/**
+ * Inbound payload handed to an {@link org.opencds.common.interfaces.InboundPayloadProcessor}.
+ * <p>
+ * A payload is backed either by a fully materialized <tt>byte[]</tt> or by an
+ * {@link InputStream} (e.g., the concatenated, gunzipped chunks of the DSS
+ * request). Processors should prefer {@link #getPayloadStream()}, which never
+ * copies the payload; {@link #getPayload()} on a streaming payload drains the
+ * stream into memory and should be avoided on the hot path.
+ */
 public class Payload {
-    private final byte[] payload;
+    private byte[] payload;
+    private final InputStream payloadStream;
     private final Date evalTime;
-    
+
     public Payload(byte[] payload, Date evalTime) {
         this.payload = payload;
+        this.payloadStream = null;
+        this.evalTime = evalTime;
+    }
+
+    public Payload(InputStream payloadStream, Date evalTime) {
+        this.payload = null;
+        this.payloadStream = payloadStream;
         this.evalTime = evalTime;
     }
 
+    /**
+     * Calling this method on a streaming payload should be discouraged as it
+     * reads the entire stream into memory. Once called, the stream is consumed.
+     *
+     * @return the payload bytes
+     */
     public byte[] getPayload() {
+        if (payload == null && payloadStream != null) {
+            try (InputStream in = payloadStream) {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int len;
+                while ((len = in.read(buffer)) != -1) {
+                    baos.write(buffer, 0, len);
+                }
+                payload = baos.toByteArray();
+            } catch (IOException e) {
+                throw new IllegalStateException("Error reading payload stream: " + e.getMessage(), e);
+            }
+        }
         return payload;
     }
 
+    /**
+     * Returns the payload as a stream without copying it. A streaming payload
+     * may only be consumed once.
+     *
+     * @return the payload stream
+     */
+    public InputStream getPayloadStream() {
+        if (payloadStream != null) {
+            return payloadStream;
+        }
+        return payload == null ? null : new ByteArrayInputStream(payload);
+    }
+
+    public boolean isStreaming() {
+        return payloadStream != null && payload == null;
+    }
+
     public Date getEvalTime() {
         return evalTime;
     }
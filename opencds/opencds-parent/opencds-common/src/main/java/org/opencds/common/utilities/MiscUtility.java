@@ -16,11 +16,6 @@
 
 package org.opencds.common.utilities;
 
-import java.util.UUID;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 
 
@@ -29,71 +24,31 @@ import java.util.concurrent.atomic.AtomicInteger;
  * 
  * The original intent was to return a UUID, but the performance is suboptimal due to synchronicity of the generator.
  * 
- * We use an AtomicInteger to guarantee uniqueness.
+ * We use an AtomicInteger to guarantee uniqueness; the ids used to be handed out through a queue filled by background
+ * threads, which made every caller contend on the queue for what is a single atomic increment.
  *
  * @author David Shields
  * @author Phillip Warner
  */
 public class MiscUtility {
-    private static final BlockingQueue<String> queue = new LinkedBlockingQueue<>(1000000);
-    private static final ExecutorService es = Executors.newFixedThreadPool(10);
     private static final AtomicInteger key = new AtomicInteger(0);
     
-    static {
-        for (int i = 0; i < 50; i++) {
-            es.submit(new QueueFiller(queue));
-        }
-    }
-    
 	/**
-	 * Generate a UUID using default Java UUID generator.  
-	 * 
-	 * Will consider generating UUID using Johann Burkard's algorithm http://johannburkard.de/software/uuid/
-	 * in the future as this algorithm is an order of magnitude faster than java.util.UUID.
-	 * 
-	 * However, this is not done now due to some Maven/POM issues with using Burkard's algorithm.
+	 * Generate a unique (within this JVM) id.
 	 * 
 	 * It is converted to String to be useable in our standard String ID classes
 	 * 
 	 * @return
 	 */
 	public static String getIDAsString() {
-		//return new com.eaio.uuid.UUID().toString(); // using default Java UUID generator for now
-		// TODO: consider switching to above UUID generator for performance
-//		return (java.util.UUID.randomUUID()).toString();
-	    try {
-            return queue.take();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
-	    return UUID.randomUUID().toString();
+	    return Integer.toString(key.getAndIncrement());
 	}
 	
+	/**
+	 * @deprecated there are no longer any threads to shut down
+	 */
+	@Deprecated
 	public void shutdown() {
-	    es.shutdownNow();
-	}
-	
-	private static class QueueFiller implements Runnable {
-
-	    private final BlockingQueue<String> queue;
-
-        public QueueFiller(BlockingQueue<String> queue) {
-	        this.queue = queue;
-	    }
-	    
-        @Override
-        public void run() {
-            try {
-                while (true) {
-//                    queue.put(UUID.randomUUID().toString());
-                    int val = key.getAndIncrement();
-                    queue.put(Integer.toString(val));
-                }
-            } catch (InterruptedException e) {
-                //
-            }
-        }
-	    
 	}
 
 }
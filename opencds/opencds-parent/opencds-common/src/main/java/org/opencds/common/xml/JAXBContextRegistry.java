@@ -0,0 +1,64 @@
+package org.opencds.common.xml;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+
+/**
+ * Process-wide registry of JAXBContexts by context path (or root class).
+ * <p>
+ * Creating a JAXBContext is expensive, whereas a JAXBContext is thread-safe;
+ * each context is created on first request and shared from then on. Two
+ * threads asking for the same new context at the same time may both create
+ * it, but only one instance is kept and returned to either.
+ */
+public final class JAXBContextRegistry {
+
+    private static final ConcurrentMap<String, JAXBContext> contextsByPath = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Class<?>, JAXBContext> contextsByClass = new ConcurrentHashMap<>();
+
+    private JAXBContextRegistry() {
+    }
+
+    /**
+     * @param contextPath
+     *            colon-separated list of package names, as for
+     *            {@link JAXBContext#newInstance(String)}
+     */
+    public static JAXBContext getContext(String contextPath) throws JAXBException {
+        if (contextPath == null) {
+            throw new IllegalArgumentException("contextPath cannot be null.");
+        }
+        JAXBContext jaxbContext = contextsByPath.get(contextPath);
+        if (jaxbContext == null) {
+            jaxbContext = JAXBContext.newInstance(contextPath);
+            JAXBContext existing = contextsByPath.putIfAbsent(contextPath, jaxbContext);
+            if (existing != null) {
+                jaxbContext = existing;
+            }
+        }
+        return jaxbContext;
+    }
+
+    /**
+     * @param type
+     *            the root class, as for {@link JAXBContext#newInstance(Class...)}
+     */
+    public static JAXBContext getContext(Class<?> type) throws JAXBException {
+        if (type == null) {
+            throw new IllegalArgumentException("type cannot be null.");
+        }
+        JAXBContext jaxbContext = contextsByClass.get(type);
+        if (jaxbContext == null) {
+            jaxbContext = JAXBContext.newInstance(type);
+            JAXBContext existing = contextsByClass.putIfAbsent(type, jaxbContext);
+            if (existing != null) {
+                jaxbContext = existing;
+            }
+        }
+        return jaxbContext;
+    }
+
+}
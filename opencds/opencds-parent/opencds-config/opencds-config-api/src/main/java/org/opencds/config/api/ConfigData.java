@@ -10,6 +10,11 @@ public class ConfigData {
      * Default value is 1.
      */
     private int kmThreads = 1;
+    /**
+     * Maximum time (in milliseconds) to wait for a knowledge package to become
+     * available. Default value is 60000.
+     */
+    private long kmBorrowTimeout = 60000L;
 
     public String getConfigType() {
         return configType;
@@ -34,4 +39,12 @@ public class ConfigData {
     public void setKmThreads(int kmThreads) {
         this.kmThreads = kmThreads;
     }
+
+    public long getKmBorrowTimeout() {
+        return kmBorrowTimeout;
+    }
+
+    public void setKmBorrowTimeout(long kmBorrowTimeout) {
+        this.kmBorrowTimeout = kmBorrowTimeout;
+    }
 }
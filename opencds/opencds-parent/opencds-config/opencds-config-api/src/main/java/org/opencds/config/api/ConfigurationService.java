@@ -1,11 +1,14 @@
 package org.opencds.config.api;
 
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.opencds.common.exceptions.OpenCDSRuntimeException;
 import org.opencds.config.api.cache.CacheService;
+import org.opencds.config.api.model.KMId;
 import org.opencds.config.strategy.ConfigStrategy;
 
 /**
@@ -30,10 +33,22 @@ public class ConfigurationService {
     private final ConfigData configData;
 
     private KnowledgeRepository knowledgeRepository;
+    private final CompletableFuture<List<KMId>> preload;
 
     public KnowledgeRepository getKnowledgeRepository() {
         return knowledgeRepository;
     }
+
+    /**
+     * The knowledge packages are preloaded in the background; see
+     * {@link org.opencds.config.api.service.KnowledgePackageService#preloadKnowledgePackages(java.util.List)}.
+     * 
+     * @return a future that completes once the preload has finished, with the
+     *         KMs whose preload failed
+     */
+    public CompletableFuture<List<KMId>> getPreload() {
+        return preload;
+    }
     
     /**
      * The {@link Set} of {@link ConfigStrategy} instances specify the possible
@@ -64,7 +79,7 @@ public class ConfigurationService {
         }
         configStrategy = strategy;
         loadConfiguration();
-        knowledgeRepository.getKnowledgePackageService().preloadKnowledgePackages(knowledgeRepository.getKnowledgeModuleService().getAll());
+        preload = knowledgeRepository.getKnowledgePackageService().preloadKnowledgePackages(knowledgeRepository.getKnowledgeModuleService().getAll());
     }
     
 //    private void initPluginSandbox() {
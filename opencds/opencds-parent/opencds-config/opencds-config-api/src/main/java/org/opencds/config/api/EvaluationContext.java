@@ -0,0 +1,91 @@
+package org.opencds.config.api;
+
+import org.opencds.common.structures.EvaluationRequestKMItem;
+import org.opencds.config.api.model.ExecutionEngine;
+import org.opencds.config.api.model.KnowledgeModule;
+import org.opencds.config.api.model.SSId;
+import org.opencds.config.api.model.SemanticSignifier;
+
+/**
+ * The configuration resolved once, when a request is decoded, for the
+ * evaluation of one requested KM: the KnowledgeModule, the semantic signifier
+ * of the payload with its FactListsBuilder, and the execution engine with its
+ * (adapter) instance.
+ * <p>
+ * It is carried by the {@link EvaluationRequestKMItem}, so that the
+ * evaluation, the adapter and the outbound processing do not look any of it
+ * up again. A component handed an item without a context (e.g., built by a
+ * caller other than the request processor) resolves what it needs as before.
+ */
+public class EvaluationContext {
+
+    private final KnowledgeModule knowledgeModule;
+    private final SSId ssId;
+    private final SemanticSignifier semanticSignifier;
+    private final FactListsBuilder factListsBuilder;
+    private final ExecutionEngine executionEngine;
+    private final Object executionEngineInstance;
+
+    /**
+     * @param executionEngine
+     *            may be <tt>null</tt> if the KM has no (valid) engine
+     * @param executionEngineInstance
+     *            may be <tt>null</tt> if the KM has no (valid) engine
+     */
+    public EvaluationContext(KnowledgeModule knowledgeModule, SSId ssId, SemanticSignifier semanticSignifier,
+            FactListsBuilder factListsBuilder, ExecutionEngine executionEngine, Object executionEngineInstance) {
+        this.knowledgeModule = knowledgeModule;
+        this.ssId = ssId;
+        this.semanticSignifier = semanticSignifier;
+        this.factListsBuilder = factListsBuilder;
+        this.executionEngine = executionEngine;
+        this.executionEngineInstance = executionEngineInstance;
+    }
+
+    /**
+     * @return the context of the item, or <tt>null</tt> if it has none
+     */
+    public static EvaluationContext of(EvaluationRequestKMItem evaluationRequestKMItem) {
+        Object context = evaluationRequestKMItem == null ? null : evaluationRequestKMItem.getEvaluationContext();
+        return context instanceof EvaluationContext ? (EvaluationContext) context : null;
+    }
+
+    /**
+     * @return the KnowledgeModule of the item, from its context or else looked
+     *         up by the requested KMId
+     */
+    public static KnowledgeModule findKnowledgeModule(KnowledgeRepository knowledgeRepository,
+            EvaluationRequestKMItem evaluationRequestKMItem) {
+        EvaluationContext context = of(evaluationRequestKMItem);
+        if (context != null) {
+            return context.getKnowledgeModule();
+        }
+        return knowledgeRepository.getKnowledgeModuleService().find(evaluationRequestKMItem.getRequestedKmId());
+    }
+
+    public KnowledgeModule getKnowledgeModule() {
+        return knowledgeModule;
+    }
+
+    public SSId getSSId() {
+        return ssId;
+    }
+
+    public SemanticSignifier getSemanticSignifier() {
+        return semanticSignifier;
+    }
+
+    public FactListsBuilder getFactListsBuilder() {
+        return factListsBuilder;
+    }
+
+    public ExecutionEngine getExecutionEngine() {
+        return executionEngine;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getExecutionEngineInstance() {
+        return (T) executionEngineInstance;
+    }
+
+}
@@ -7,4 +7,14 @@ import org.opencds.config.api.service.KnowledgePackageService;
 
 public interface KnowledgeLoader<T> {
     Collection<T> loadKnowledgePackages(KnowledgePackageService knowledgePackageService, KnowledgeModule knowledgeModule, int count);
+
+    /**
+     * Capability flag: returns <code>true</code> if a single loaded knowledge
+     * package is immutable and thread-safe, and can therefore be handed out to
+     * any number of concurrent evaluations. For such engines only one package
+     * is loaded per KM and no per-request copy is borrowed from a queue.
+     */
+    default boolean isKnowledgePackageShareable() {
+        return false;
+    }
 }
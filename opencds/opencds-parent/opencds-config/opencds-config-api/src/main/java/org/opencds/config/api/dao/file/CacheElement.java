@@ -2,6 +2,7 @@ package org.opencds.config.api.dao.file;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 
 public interface CacheElement {
 
@@ -11,6 +12,18 @@ public interface CacheElement {
     
     long length();
     
+    /**
+     * @return the last modification time of the element, in milliseconds since
+     *         the epoch, or -1 if it is not known
+     */
+    long lastModified();
+
+    /**
+     * @return the file holding the element, or <tt>null</tt> if the element is
+     *         not (or not yet) backed by a file
+     */
+    Path getPath();
+
     InputStream getInputStream() throws IOException;
 
 }
@@ -2,8 +2,10 @@ package org.opencds.config.api.dao.file;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
@@ -40,6 +42,18 @@ public class FileCacheElement implements CacheElement {
         return file.length();
     }
 
+    @Override
+    public long lastModified() {
+        File file = getFile();
+        return file == null ? -1 : file.lastModified();
+    }
+
+    @Override
+    public Path getPath() {
+        File file = getFile();
+        return file == null ? null : file.toPath();
+    }
+
     private File getFile() {
         if (location == null) {
             return null;
@@ -54,6 +68,9 @@ public class FileCacheElement implements CacheElement {
     @Override
     public InputStream getInputStream() throws IOException {
         File file = getFile();
+        if (file == null) {
+            throw new FileNotFoundException(toString());
+        }
         return new FileInputStream(file);
     }
 
@@ -4,8 +4,11 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 
 import org.opencds.config.api.dao.FileDao;
 import org.opencds.config.api.dao.util.ResourceUtil;
@@ -26,17 +29,32 @@ public class FileDaoImpl implements FileDao {
     @Override
     public void persist(CacheElement e) {
         Path targetLocation = Paths.get(cacheFileLocation.toString(), e.getId());
-        try (
-                FileOutputStream fos = new FileOutputStream(targetLocation.toFile());
-                InputStream in = e.getInputStream()) {
-            byte[] b = new byte[BUF];
-            int offset = 0;
-            int bytesRead = 0;
-            while ((bytesRead = in.read(b, offset, BUF)) != -1) {
-                fos.write(b, offset, bytesRead);
+        // write a new file and move it into place, rather than overwriting the
+        // existing file, which may be memory-mapped by a reader (except on
+        // Windows, where a mapped file cannot be replaced, so it is not mapped)
+        Path tempLocation = null;
+        try {
+            tempLocation = Files.createTempFile(targetLocation.getParent(), e.getId(), ".tmp");
+            try (
+                    FileOutputStream fos = new FileOutputStream(tempLocation.toFile());
+                    InputStream in = e.getInputStream()) {
+                byte[] b = new byte[BUF];
+                int offset = 0;
+                int bytesRead = 0;
+                while ((bytesRead = in.read(b, offset, BUF)) != -1) {
+                    fos.write(b, offset, bytesRead);
+                }
+            }
+            try {
+                Files.move(tempLocation, targetLocation, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException amnse) {
+                Files.move(tempLocation, targetLocation, StandardCopyOption.REPLACE_EXISTING);
             }
         } catch (IOException e1) {
             e1.printStackTrace();
+            if (tempLocation != null) {
+                tempLocation.toFile().delete();
+            }
         }
     }
 
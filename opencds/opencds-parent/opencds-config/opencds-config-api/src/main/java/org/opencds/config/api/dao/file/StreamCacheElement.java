@@ -2,6 +2,7 @@ package org.opencds.config.api.dao.file;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 
 public class StreamCacheElement implements CacheElement {
 
@@ -22,6 +23,16 @@ public class StreamCacheElement implements CacheElement {
         return -1;
     }
     
+    @Override
+    public long lastModified() {
+        return -1;
+    }
+
+    @Override
+    public Path getPath() {
+        return null;
+    }
+
     @Override
     public boolean exists() {
         return inputStream != null;
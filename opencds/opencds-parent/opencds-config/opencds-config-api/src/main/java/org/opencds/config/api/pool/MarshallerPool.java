@@ -3,13 +3,17 @@ package org.opencds.config.api.pool;
 import javax.xml.bind.Marshaller;
 
 import org.apache.commons.pool2.KeyedPooledObjectFactory;
-import org.apache.commons.pool2.impl.GenericKeyedObjectPool;
 import org.opencds.config.api.model.SemanticSignifier;
 
-public class MarshallerPool extends GenericKeyedObjectPool<SemanticSignifier, Marshaller> {
+public class MarshallerPool extends SemanticSignifierPool<Marshaller> {
 
     public MarshallerPool(KeyedPooledObjectFactory<SemanticSignifier, Marshaller> marshallerFactory) {
         super(marshallerFactory);
     }
 
+    public MarshallerPool(KeyedPooledObjectFactory<SemanticSignifier, Marshaller> marshallerFactory, int maxTotalPerKey,
+            int maxIdlePerKey) {
+        super(marshallerFactory, maxTotalPerKey, maxIdlePerKey);
+    }
+
 }
@@ -0,0 +1,65 @@
+package org.opencds.config.api.pool;
+
+import java.util.Collection;
+
+import org.apache.commons.pool2.KeyedPooledObjectFactory;
+import org.apache.commons.pool2.impl.GenericKeyedObjectPool;
+import org.apache.commons.pool2.impl.GenericKeyedObjectPoolConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.opencds.config.api.model.SemanticSignifier;
+
+/**
+ * Keyed pool of (un)marshallers by SemanticSignifier, with configurable
+ * sizing per SemanticSignifier and pre-warming of the pool at startup.
+ */
+public abstract class SemanticSignifierPool<T> extends GenericKeyedObjectPool<SemanticSignifier, T> {
+    private static final Logger log = LogManager.getLogger();
+
+    protected SemanticSignifierPool(KeyedPooledObjectFactory<SemanticSignifier, T> factory) {
+        super(factory);
+    }
+
+    /**
+     * @param maxTotalPerKey
+     *            maximum number of instances per SemanticSignifier (borrowers
+     *            wait once reached); a negative value means no limit
+     * @param maxIdlePerKey
+     *            maximum number of idle instances kept per SemanticSignifier;
+     *            a negative value means no limit
+     */
+    protected SemanticSignifierPool(KeyedPooledObjectFactory<SemanticSignifier, T> factory, int maxTotalPerKey,
+            int maxIdlePerKey) {
+        super(factory, config(maxTotalPerKey, maxIdlePerKey));
+    }
+
+    /**
+     * Adds idle instances for each of the SemanticSignifiers, up to the given
+     * number (and the maximum per SemanticSignifier), so that the first
+     * requests do not pay for their creation. A SemanticSignifier whose
+     * instances cannot be created is logged and skipped.
+     */
+    public void prewarm(Collection<SemanticSignifier> semanticSignifiers, int instancesPerKey) {
+        int instances = getMaxTotalPerKey() < 0 ? instancesPerKey : Math.min(instancesPerKey, getMaxTotalPerKey());
+        for (SemanticSignifier semanticSignifier : semanticSignifiers) {
+            try {
+                for (int i = getNumIdle(semanticSignifier); i < instances; i++) {
+                    addObject(semanticSignifier);
+                }
+                log.debug("Pre-warmed " + getClass().getSimpleName() + " for SSID: " + semanticSignifier.getSSId()
+                        + " (" + getNumIdle(semanticSignifier) + " idle)");
+            } catch (Exception e) {
+                log.warn("Unable to pre-warm " + getClass().getSimpleName() + " for SSID: "
+                        + semanticSignifier.getSSId() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static <T> GenericKeyedObjectPoolConfig<T> config(int maxTotalPerKey, int maxIdlePerKey) {
+        GenericKeyedObjectPoolConfig<T> config = new GenericKeyedObjectPoolConfig<>();
+        config.setMaxTotalPerKey(maxTotalPerKey);
+        config.setMaxIdlePerKey(maxIdlePerKey);
+        return config;
+    }
+
+}
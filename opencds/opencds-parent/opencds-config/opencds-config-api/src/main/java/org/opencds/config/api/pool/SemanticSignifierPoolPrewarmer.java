@@ -0,0 +1,48 @@
+package org.opencds.config.api.pool;
+
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.opencds.config.api.ConfigurationService;
+import org.opencds.config.api.model.SemanticSignifier;
+
+/**
+ * Pre-warms the (un)marshaller pools for every SemanticSignifier of the
+ * knowledge repository, so that the JAXBContexts and the first pooled
+ * instances are created at startup rather than by the first requests.
+ */
+public class SemanticSignifierPoolPrewarmer {
+    private static final Logger log = LogManager.getLogger();
+
+    private final ConfigurationService configurationService;
+    private final List<SemanticSignifierPool<?>> pools;
+    private final int instancesPerKey;
+
+    /**
+     * @param instancesPerKey
+     *            idle instances to create per SemanticSignifier and pool; 0
+     *            disables pre-warming
+     */
+    public SemanticSignifierPoolPrewarmer(ConfigurationService configurationService, List<SemanticSignifierPool<?>> pools,
+            int instancesPerKey) {
+        this.configurationService = configurationService;
+        this.pools = pools;
+        this.instancesPerKey = instancesPerKey;
+    }
+
+    public void prewarm() {
+        if (instancesPerKey <= 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<SemanticSignifier> semanticSignifiers = configurationService.getKnowledgeRepository()
+                .getSemanticSignifierService().getAll();
+        for (SemanticSignifierPool<?> pool : pools) {
+            pool.prewarm(semanticSignifiers, instancesPerKey);
+        }
+        log.info("Pre-warmed " + pools.size() + " (un)marshaller pool(s) for " + semanticSignifiers.size()
+                + " SemanticSignifier(s) in " + (System.nanoTime() - start) / 1000000 + " ms");
+    }
+
+}
@@ -7,6 +7,10 @@ import org.opencds.config.api.model.KnowledgeModule;
 
 public interface ConceptService {
 
+    /**
+     * @return the concept views for the code; the list is shared and
+     *         unmodifiable
+     */
     List<ConceptView> getConceptViews(String codeSystem, String code);
 
     ConceptService byKM(KnowledgeModule knowledgeModule);
@@ -3,7 +3,9 @@ package org.opencds.config.api.service;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import org.opencds.config.api.model.KMId;
 import org.opencds.config.api.model.KnowledgeModule;
 
 public interface KnowledgePackageService {
@@ -34,12 +36,27 @@ public interface KnowledgePackageService {
     <T> void putPackage(KnowledgeModule knowledgeModule, T knowledgePackage);
 
     /**
-     * This method is used to load all knowledge packages (where preload == true) into the cache.
+     * This method is used to load all knowledge packages (where preload == true) into the cache, in the background.
+     * A package borrowed while it is being preloaded is handed out once the preload completes.
+     * 
+     * @return a future that completes once every preload has finished, with the KMs whose preload failed (failures
+     *         are logged)
      */
-    void preloadKnowledgePackages(List<KnowledgeModule> knowledgeModules);
+    CompletableFuture<List<KMId>> preloadKnowledgePackages(List<KnowledgeModule> knowledgeModules);
 
     <KP> KP borrowKnowledgePackage(KnowledgeModule knowledgeModule);
 
+    /**
+     * Returns a package borrowed by {@link #borrowKnowledgePackage(KnowledgeModule)}, on the thread that borrowed it.
+     */
     <KP> void returnKnowledgePackage(KnowledgeModule knowledgeModule, KP knowledgePackage);
 
+    /**
+     * Knowledge packages are versioned: a new package of a KM is loaded in the background and swapped in, while
+     * the packages of the previous version that are still borrowed are drained.
+     * 
+     * @return the version of the package (borrowed for the KM), or -1 if unknown
+     */
+    <KP> long getPackageVersion(KnowledgeModule knowledgeModule, KP knowledgePackage);
+
 }
@@ -2,6 +2,7 @@ package org.opencds.config.api.service;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 import org.opencds.config.api.model.SupportingData;
 
@@ -20,7 +21,20 @@ public interface SupportingDataPackageService {
      */
     InputStream getPackageInputStream(SupportingData supportingData);
     
+    /**
+     * @return a copy of the package contents, or <tt>null</tt> if the package
+     *         cannot be resolved
+     */
     byte[] getPackageBytes(SupportingData supportingData);
+
+    /**
+     * Returns the package contents without copying them; the contents of
+     * file-based packages are memory-mapped and cached until the file changes.
+     * 
+     * @return a read-only view of the package contents, or <tt>null</tt> if
+     *         the package cannot be resolved
+     */
+    ByteBuffer getPackageByteBuffer(SupportingData supportingData);
     
     void persistPackageInputStream(SupportingData sd, InputStream supportingDataPackage);
 
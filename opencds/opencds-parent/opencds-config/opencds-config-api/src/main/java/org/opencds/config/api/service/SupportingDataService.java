@@ -2,6 +2,7 @@ package org.opencds.config.api.service;
 
 import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 
 import org.opencds.config.api.model.KMId;
 import org.opencds.config.api.model.KnowledgeModule;
@@ -10,6 +11,9 @@ import org.opencds.config.api.model.SupportingData;
 public interface SupportingDataService {
     SupportingData find(KMId kmId, String identifier);
     
+    /**
+     * @return all SupportingData; the list is shared and unmodifiable
+     */
     List<SupportingData> getAll();
     
     void persist(SupportingData sd);
@@ -18,8 +22,25 @@ public interface SupportingDataService {
     
     void deleteAll(KMId kmId);
     
+    /**
+     * @return the SupportingData of the KM; the list is shared and
+     *         unmodifiable
+     */
     List<SupportingData> find(KMId kmid);
     
+    /**
+     * @return the SupportingData not associated with any KM, followed by the
+     *         SupportingData of the KM; the list is shared and unmodifiable
+     */
+    List<SupportingData> findAvailable(KMId kmId);
+
+    /**
+     * @return the SupportingData of {@link #findAvailable(KMId)} as plugin
+     *         SupportingData without package data, by identifier (that of the
+     *         KM taking precedence); the map is shared and unmodifiable
+     */
+    Map<String, org.opencds.plugin.SupportingData> getPluginSupportingData(KMId kmId);
+
     InputStream getSupportingDataPackage(KMId kmId, String supportingDataId);
 
     boolean packageExists(KMId kmId, String supportingDataId);
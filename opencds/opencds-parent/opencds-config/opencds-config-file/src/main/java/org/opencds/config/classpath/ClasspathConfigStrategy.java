@@ -61,7 +61,7 @@ public class ClasspathConfigStrategy extends AbstractConfigStrategy {
         
 		FileDao sdFileDao = new ClasspathResourceDaoImpl(classpathUtil,
 				path.toString() + CLASSPATH_SEPARATOR + SUPPORTING_DATA_DIR + CLASSPATH_SEPARATOR + PACKAGES);
-        SupportingDataPackageServiceImpl sdpService = new SupportingDataPackageServiceImpl(sdFileDao, cacheService);
+        SupportingDataPackageServiceImpl sdpService = new SupportingDataPackageServiceImpl(sdFileDao);
         SupportingDataServiceImpl sdService = new SupportingDataServiceImpl(new SupportingDataFileDao(classpathUtil,
                 path.toString() + CLASSPATH_SEPARATOR + SUPPORTING_DATA_DIR), sdpService, ppService, cacheService);
         
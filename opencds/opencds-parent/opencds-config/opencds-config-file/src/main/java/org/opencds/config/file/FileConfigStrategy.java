@@ -72,7 +72,7 @@ public class FileConfigStrategy extends AbstractConfigStrategy {
                 .get(path.toString(), PLUGIN_DIR).toAbsolutePath().toString()), ppFileDao, cacheService);
         PluginDataCacheServiceImpl pdcService = new PluginDataCacheServiceImpl(cacheService, ppService.getAllPluginIds());
         
-        SupportingDataPackageServiceImpl sdpService = new SupportingDataPackageServiceImpl(sdFileDao, cacheService);
+        SupportingDataPackageServiceImpl sdpService = new SupportingDataPackageServiceImpl(sdFileDao);
         SupportingDataServiceImpl sdService = new SupportingDataServiceImpl(new SupportingDataFileDao(fileUtil, Paths
                 .get(path.toString(), SUPPORTING_DATA_DIR).toAbsolutePath().toString()), sdpService, ppService,
                 cacheService);
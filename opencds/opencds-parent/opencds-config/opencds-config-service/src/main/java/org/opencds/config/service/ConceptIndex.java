@@ -0,0 +1,98 @@
+package org.opencds.config.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.opencds.config.api.model.Concept;
+import org.opencds.config.api.model.ConceptView;
+
+/**
+ * Immutable lookup table from a (codeSystem, code) pair to the concept views
+ * the pair maps to, compiled once from the concept maps of a KM (or of all
+ * CDMs).
+ * <p>
+ * The table uses open addressing with linear probing over parallel arrays.
+ * A lookup compares the (cached) String hash codes and the strings
+ * themselves, and returns a list that was allocated when the index was
+ * built and is shared by all callers; concept determination therefore
+ * allocates nothing per lookup.
+ */
+final class ConceptIndex {
+
+    private final String[] codeSystems;
+    private final String[] codes;
+    private final List<ConceptView>[] conceptViews;
+    private final int mask;
+    private final int size;
+
+    @SuppressWarnings("unchecked")
+    ConceptIndex(Map<Concept, List<ConceptView>> conceptViewsByConcept) {
+        int capacity = Integer.highestOneBit(Math.max(conceptViewsByConcept.size(), 1) * 2) * 2;
+        codeSystems = new String[capacity];
+        codes = new String[capacity];
+        conceptViews = new List[capacity];
+        mask = capacity - 1;
+        int count = 0;
+        for (Entry<Concept, List<ConceptView>> entry : conceptViewsByConcept.entrySet()) {
+            List<ConceptView> views = entry.getValue();
+            if (views == null || views.isEmpty()) {
+                continue;
+            }
+            String codeSystem = entry.getKey().getCodeSystem();
+            String code = entry.getKey().getCode();
+            int i = slot(codeSystem, code);
+            codeSystems[i] = codeSystem;
+            codes[i] = code;
+            conceptViews[i] = Collections.unmodifiableList(Arrays.asList(views.toArray(new ConceptView[views.size()])));
+            count++;
+        }
+        size = count;
+    }
+
+    /**
+     * @return the (shared, unmodifiable) concept views for the given code, or
+     *         an empty list if there are none
+     */
+    List<ConceptView> get(String codeSystem, String code) {
+        int i = hash(codeSystem, code) & mask;
+        List<ConceptView> views;
+        while ((views = conceptViews[i]) != null) {
+            if (equal(code, codes[i]) && equal(codeSystem, codeSystems[i])) {
+                return views;
+            }
+            i = (i + 1) & mask;
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * @return the number of distinct codes in the index
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * The slot holding the given code, or the free slot it belongs in.
+     */
+    private int slot(String codeSystem, String code) {
+        int i = hash(codeSystem, code) & mask;
+        while (conceptViews[i] != null && !(equal(code, codes[i]) && equal(codeSystem, codeSystems[i]))) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private static int hash(String codeSystem, String code) {
+        int h = 31 * (codeSystem == null ? 0 : codeSystem.hashCode()) + (code == null ? 0 : code.hashCode());
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == b || (a != null && a.equals(b));
+    }
+
+}
@@ -1,10 +1,10 @@
 package org.opencds.config.service;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Observable;
 import java.util.Observer;
 
@@ -21,7 +21,6 @@ import org.opencds.config.api.model.ConceptView;
 import org.opencds.config.api.model.KnowledgeModule;
 import org.opencds.config.api.model.SecondaryCDM;
 import org.opencds.config.api.model.SupportMethod;
-import org.opencds.config.api.model.impl.ConceptImpl;
 import org.opencds.config.api.model.impl.ConceptViewImpl;
 import org.opencds.config.api.service.ConceptDeterminationMethodService;
 import org.opencds.config.api.service.ConceptService;
@@ -34,8 +33,8 @@ public class ConceptServiceImpl implements ConceptService, Observer {
     private ConceptDeterminationMethodService conceptDeterminationMethodService;
     private KnowledgeModuleService knowledgeModuleService;
     private CacheService cacheService;
-    // cachable
-    private Map<Concept, List<ConceptMap>> conceptMaps;
+    // cachable; replaced as a whole when the CDMs change
+    private volatile ConceptIndex conceptIndex;
 
     public ConceptServiceImpl(ConceptDeterminationMethodService conceptDeterminationMethodService,
             KnowledgeModuleService knowledgeModuleService, CacheService cacheService) {
@@ -47,12 +46,12 @@ public class ConceptServiceImpl implements ConceptService, Observer {
         log.debug("Added this as observer to service: " + knowledgeModuleService);
         this.cacheService = cacheService;
         // initially load all of them.
-        loadAllConceptServices(knowledgeModuleService.getAll(), false);
+        loadAllConceptServices(knowledgeModuleService.getAll());
     }
 
-    private ConceptServiceImpl(ConceptServiceImpl conceptService, Map<Concept, List<ConceptMap>> conceptMaps) {
+    private ConceptServiceImpl(ConceptServiceImpl conceptService, ConceptIndex conceptIndex) {
         this.cacheService = conceptService.cacheService;
-        this.conceptMaps = conceptMaps;
+        this.conceptIndex = conceptIndex;
     }
 
     private void deleteConceptService(KnowledgeModule knowledgeModule) {
@@ -63,34 +62,28 @@ public class ConceptServiceImpl implements ConceptService, Observer {
     }
 
     private void reloadAllConceptServices(List<KnowledgeModule> knowledgeModules) {
-        loadAllConceptServices(knowledgeModules, true);
+        loadAllConceptServices(knowledgeModules);
     }
 
     private void reloadConceptServiceForKM(KnowledgeModule knowledgeModule) {
-        deleteConceptService(knowledgeModule);
+        // replaces the cached instance; evaluations holding the previous one
+        // finish with it
         cacheConceptServiceByKM(knowledgeModule);
         log.debug("Reloaded concept service cache for KM: " + knowledgeModule.getKMId());
     }
 
     @Override
     public List<ConceptView> getConceptViews(String codeSystem, String code) {
-        List<ConceptView> conceptViews = new ArrayList<>();
-        if (conceptMaps == null) {
+        ConceptIndex index = conceptIndex;
+        if (index == null) {
             throw new OpenCDSRuntimeException("Unsupported ... <what?>");
         }
 
         if (log.isDebugEnabled())
-            log.debug("Finding concept in conceptMaps: codeSystem= " + codeSystem + ", code= " + code);
-        List<ConceptMap> concepts = conceptMaps.get(ConceptImpl.create(code, codeSystem, null, null));
+            log.debug("Finding concept in conceptIndex: codeSystem= " + codeSystem + ", code= " + code);
+        List<ConceptView> conceptViews = index.get(codeSystem, code);
         if (log.isDebugEnabled())
-            log.debug("Concepts found in conceptMaps: " + concepts);
-        if (concepts != null) {
-            for (ConceptMap cm : concepts) {
-                conceptViews.add(new ConceptViewImpl(cm.getToConcept(), cm.getCdmCode()));
-                if (log.isDebugEnabled())
-                    log.debug("Adding conceptView: to= " + cm.getToConcept() + ", cdm= " + cm.getCdmCode());
-            }
-        }
+            log.debug("Concepts found in conceptIndex: " + conceptViews);
 
         return conceptViews;
     }
@@ -125,58 +118,56 @@ public class ConceptServiceImpl implements ConceptService, Observer {
 
     // privates
 
-    private void loadAllConceptServices(List<KnowledgeModule> knowledgeModules, boolean purge) {
+    /**
+     * (Re)builds the index of all concepts first, since the KMs without a
+     * primary CDM share it, and then the index of each KM. Each index is
+     * built completely before it replaces the previous one.
+     */
+    private void loadAllConceptServices(List<KnowledgeModule> knowledgeModules) {
+        // in case this instance is used directly, set the default conceptIndex.
+        Map<Concept, List<ConceptMap>> cms = new HashMap<>();
+        resolveAllConcepts(cms);
+        ConceptIndex index = compile(cms);
+        cacheService.put(ConceptServiceCacheRegion.CONCEPTS, ALL_CONCEPTS, index);
+        conceptIndex = index;
+        log.debug("All concepts: " + index.size());
+
         // load ConceptServices for each KMs
         for (KnowledgeModule km : knowledgeModules) {
-            loadConceptService(km, purge);
-        }
-
-        // in case this instance is used directly, set the default conceptMaps.
-        Map<Concept, List<ConceptMap>> cms = cacheService.get(ConceptServiceCacheRegion.CONCEPTS, ALL_CONCEPTS);
-        if (cms == null || cms.isEmpty()) {
-            cms = new HashMap<>();
-            resolveAllConcepts(cms);
-            log.debug("All concepts? " + cms.size());
-            cacheService.put(ConceptServiceCacheRegion.CONCEPTS, ALL_CONCEPTS, cms);
+            loadConceptService(km);
         }
-        log.debug("Concepts cached? " + cms.size());
-        conceptMaps = cms;
-        log.debug("All concepts: " + conceptMaps.size());
     }
 
-    private void loadConceptService(KnowledgeModule knowledgeModule, boolean purge) {
+    private void loadConceptService(KnowledgeModule knowledgeModule) {
         log.debug("Caching concepts for KM: " + knowledgeModule.getKMId());
         cacheConceptServiceByKM(knowledgeModule);
     }
 
     private ConceptService cacheConceptServiceByKM(KnowledgeModule knowledgeModule) {
-        Map<Concept, List<ConceptMap>> conceptMaps = buildConceptMaps(knowledgeModule);
-        log.debug("KM " + knowledgeModule.getKMId() + " gets conceptMap: " + conceptMaps.hashCode());
-        ConceptService cs = new ConceptServiceImpl(this, conceptMaps);
+        ConceptIndex index = buildConceptIndex(knowledgeModule);
+        log.debug("KM " + knowledgeModule.getKMId() + " gets conceptIndex: " + index.hashCode());
+        ConceptService cs = new ConceptServiceImpl(this, index);
         cacheService.put(ConceptServiceCacheRegion.CS_BY_KM, knowledgeModule.getKMId(), cs);
         return cs;
     }
 
     /**
-     * Build the concept maps.
+     * Build the concept index.
      * <p>
      * If the KM doesn't have an associated Primary CDM:
      * <ul>
-     * <li>the cache is checked for the ALL_CONCEPTS conceptMaps</li>
+     * <li>the cache is checked for the ALL_CONCEPTS conceptIndex</li>
      * <ul>
-     * <li>if this exists, then the ALL_CONCEPTS conceptMaps are returned.</li>
+     * <li>if this exists, then the ALL_CONCEPTS conceptIndex is returned.</li>
      * <li>if not, then the ALL_CONCEPTS is created and cached, and then
      * returned.</li>
      * </ul>
      * <li>any secondary CDMs are ignored in this case</li> </ul>
      * <p>
-     * If the KM has an associated Primary CDM, a new conceptMaps is built and
+     * If the KM has an associated Primary CDM, a new conceptIndex is built and
      * returned.
-     * <p>
-     * The returned value is an unmodifiable map (from Collections).
      */
-    private Map<Concept, List<ConceptMap>> buildConceptMaps(KnowledgeModule km) {
-        Map<Concept, List<ConceptMap>> cms = new HashMap<>();
+    private ConceptIndex buildConceptIndex(KnowledgeModule km) {
         CDMId primaryCDMId = km.getPrimaryCDM();
         log.debug("has primary CDMId? : " + primaryCDMId);
         /*
@@ -185,14 +176,16 @@ public class ConceptServiceImpl implements ConceptService, Observer {
          * default is for the KM to see all of the concepts.
          */
         if (primaryCDMId == null) {
-            Map<Concept, List<ConceptMap>> cached = cacheService.get(ConceptServiceCacheRegion.CONCEPTS, ALL_CONCEPTS);
+            ConceptIndex cached = cacheService.get(ConceptServiceCacheRegion.CONCEPTS, ALL_CONCEPTS);
             if (cached == null) {
-                cached = new HashMap<>();
-                resolveAllConcepts(cached);
+                Map<Concept, List<ConceptMap>> cms = new HashMap<>();
+                resolveAllConcepts(cms);
+                cached = compile(cms);
                 cacheService.put(ConceptServiceCacheRegion.CONCEPTS, ALL_CONCEPTS, cached);
             }
-            cms = cached;
+            return cached;
         } else {
+            Map<Concept, List<ConceptMap>> cms = new HashMap<>();
             ConceptDeterminationMethod primaryCDM = conceptDeterminationMethodService.find(primaryCDMId);
             log.debug("Found primaryCDM: " + primaryCDM);
             if (primaryCDM == null) {
@@ -221,8 +214,24 @@ public class ConceptServiceImpl implements ConceptService, Observer {
                     }
                 }
             }
+            return compile(cms);
+        }
+    }
+
+    /**
+     * Compiles the concept maps into an index; the concept views are created
+     * here, once, and shared by all lookups.
+     */
+    private ConceptIndex compile(Map<Concept, List<ConceptMap>> cms) {
+        Map<Concept, List<ConceptView>> conceptViews = new HashMap<>();
+        for (Entry<Concept, List<ConceptMap>> entry : cms.entrySet()) {
+            List<ConceptView> views = new ArrayList<>(entry.getValue().size());
+            for (ConceptMap cm : entry.getValue()) {
+                views.add(new ConceptViewImpl(cm.getToConcept(), cm.getCdmCode()));
+            }
+            conceptViews.put(entry.getKey(), views);
         }
-        return Collections.unmodifiableMap(cms);
+        return new ConceptIndex(conceptViews);
     }
 
     private void resolveAllConcepts(Map<Concept, List<ConceptMap>> cms) {
@@ -313,7 +322,7 @@ public class ConceptServiceImpl implements ConceptService, Observer {
 
     private static enum ConceptServiceCacheRegion implements CacheRegion {
         CS_BY_KM(ConceptService.class),
-        CONCEPTS(Map.class);
+        CONCEPTS(ConceptIndex.class);
 
         private Class<?> type;
 
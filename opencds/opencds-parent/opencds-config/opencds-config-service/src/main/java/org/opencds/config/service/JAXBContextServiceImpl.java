@@ -8,6 +8,7 @@ import javax.xml.bind.JAXBException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.opencds.common.exceptions.OpenCDSRuntimeException;
+import org.opencds.common.xml.JAXBContextRegistry;
 import org.opencds.config.api.model.SemanticSignifier;
 import org.opencds.config.api.model.XSDComputableDefinition;
 import org.opencds.config.api.service.JAXBContextService;
@@ -37,12 +38,16 @@ public class JAXBContextServiceImpl implements JAXBContextService {
         return jaxbContext;
     }
 
+    /**
+     * Returns the shared JAXBContext for the context path; the context is
+     * created once (see {@link JAXBContextRegistry}), not on every call.
+     */
     @Override
     public JAXBContext getJAXBContext(String schemaUrl) {
         JAXBContext jaxbContext = null;
         try {
-            jaxbContext = JAXBContext.newInstance(schemaUrl);
-            log.debug("JAXBContext created: " + jaxbContext);
+            jaxbContext = JAXBContextRegistry.getContext(schemaUrl);
+            log.debug("JAXBContext: " + jaxbContext);
         } catch (JAXBException e) {
             e.printStackTrace();
         }
@@ -1,11 +1,14 @@
 package org.opencds.config.service;
 
 import java.io.InputStream;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Observable;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.opencds.common.cache.OpencdsCache.CacheRegion;
 import org.opencds.config.api.cache.CacheService;
@@ -26,6 +29,8 @@ public class KnowledgeModuleServiceImpl extends Observable implements KnowledgeM
     private final KnowledgePackageService knowledgePackageService;
     private final SupportingDataService supportingDataService;
     private CacheService cacheService;
+    // parsed KMIds of known KMs, by their string form
+    private final ConcurrentMap<String, KMId> kmIds = new ConcurrentHashMap<>();
 
     public KnowledgeModuleServiceImpl(KnowledgeModuleDao dao, KnowledgePackageService knowledgePackageService,
             SupportingDataService supportingDataService, CacheService cacheService) {
@@ -42,10 +47,23 @@ public class KnowledgeModuleServiceImpl extends Observable implements KnowledgeM
         return cacheService.get(KMCacheRegion.KNOWLEDGE_MODULE, kmId);
     }
 
+    /**
+     * The KMId parsed from the string is kept (if it identifies a KM), so that
+     * the same string is not parsed again on every lookup.
+     */
     @Override
     public KnowledgeModule find(String stringKmId) {
-        EntityIdentifier ei = EntityIdentifierUtil.makeEI(stringKmId);
-        return find(KMIdImpl.create(ei.getScopingEntityId(), ei.getBusinessId(), ei.getVersion()));
+        KMId kmId = kmIds.get(stringKmId);
+        if (kmId == null) {
+            EntityIdentifier ei = EntityIdentifierUtil.makeEI(stringKmId);
+            kmId = KMIdImpl.create(ei.getScopingEntityId(), ei.getBusinessId(), ei.getVersion());
+            KnowledgeModule km = find(kmId);
+            if (km != null) {
+                kmIds.putIfAbsent(stringKmId, kmId);
+            }
+            return km;
+        }
+        return find(kmId);
     }
 
     @Override
@@ -75,6 +93,7 @@ public class KnowledgeModuleServiceImpl extends Observable implements KnowledgeM
         if (km != null) {
             dao.delete(km);
             cacheService.evict(KMCacheRegion.KNOWLEDGE_MODULE, km.getKMId());
+            kmIds.values().removeAll(Collections.singleton(km.getKMId()));
             knowledgePackageService.deletePackage(km);
             supportingDataService.deleteAll(km.getKMId());
             // will delete the cached ConceptService associated with this KM
@@ -96,6 +115,7 @@ public class KnowledgeModuleServiceImpl extends Observable implements KnowledgeM
         KnowledgeModule km = find(kmId);
         if (km != null) {
             knowledgePackageService.deletePackage(km);
+            tellObservers(km.getKMId());
         }
     }
 
@@ -104,6 +124,7 @@ public class KnowledgeModuleServiceImpl extends Observable implements KnowledgeM
         KnowledgeModule km = find(kmId);
         if (km != null) {
             knowledgePackageService.persistPackageInputStream(km, knowledgePackage);
+            tellObservers(km.getKMId());
         }
     }
     
@@ -112,6 +133,15 @@ public class KnowledgeModuleServiceImpl extends Observable implements KnowledgeM
         notifyObservers(km);
     }
 
+    /**
+     * Only the package of the KM changed; observers of the KM itself (e.g.,
+     * the ConceptService) need not react.
+     */
+    private void tellObservers(KMId kmId) {
+        setChanged();
+        notifyObservers(kmId);
+    }
+
     private Map<KMId, KnowledgeModule> buildPairs(List<KnowledgeModule> all) {
         Map<KMId, KnowledgeModule> cachables = new HashMap<>();
         for (KnowledgeModule km : all) {
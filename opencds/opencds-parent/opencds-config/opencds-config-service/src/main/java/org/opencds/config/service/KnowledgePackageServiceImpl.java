@@ -3,15 +3,23 @@ package org.opencds.config.service;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Queue;
+import java.util.Map;
+import java.util.Observable;
 import java.util.UUID;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.ForkJoinTask;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -30,10 +38,25 @@ import org.opencds.config.api.service.ExecutionEngineService;
 import org.opencds.config.api.service.KnowledgePackageService;
 import org.opencds.config.util.EntityIdentifierUtil;
 
-public class KnowledgePackageServiceImpl implements KnowledgePackageService {
+public class KnowledgePackageServiceImpl extends Observable implements KnowledgePackageService {
 	private static final Logger log = LogManager.getLogger();
     private static final int KP_LOAD_SCALE_FACTOR = 8; // magic number
     private ForkJoinPool pool;
+    // loads in progress (preloads included), so that a borrower waits for them rather than loading the KM again
+    private final ConcurrentMap<KMId, CompletableFuture<Void>> loaders = new ConcurrentHashMap<>();
+    // the current (serving) version of the packages of each KM
+    private final ConcurrentMap<KMId, KnowledgePackageSlot> slots = new ConcurrentHashMap<>();
+    // the version taken when the packages of a KM were deleted; a load started before then does not install
+    private final ConcurrentMap<KMId, Long> deletions = new ConcurrentHashMap<>();
+    // the version of each package of a serving or draining version, by package identity; the same package may be
+    // installed again by a later version (e.g., a loader that reuses a KieBase whose rules are unchanged), so a
+    // borrowed package is given back to the version recorded for the borrow, falling back to this map only if it
+    // is returned on another thread
+    private final Map<Object, KnowledgePackageSlot> slotsByPackage = Collections.synchronizedMap(new IdentityHashMap<Object, KnowledgePackageSlot>());
+    // the packages borrowed (and not yet returned) by the current thread, with the version each was borrowed from
+    private final ThreadLocal<List<Borrow>> borrows = ThreadLocal.withInitial(ArrayList::new);
+    private final AtomicLong versions = new AtomicLong();
+    private static final long POOL_RECHECK_MS = 100;
 
     private final ConfigData configData;
 
@@ -80,7 +103,11 @@ public class KnowledgePackageServiceImpl implements KnowledgePackageService {
     }
 
     /**
-     * Evicts any cached package after the persist succeeds.
+     * If the KM is preloaded, or its packages are in use or being loaded, the
+     * new package is compiled in the background; the current version keeps
+     * serving until the new one is swapped in. A load in progress may have read
+     * the previous package, but it started earlier, so it cannot replace the
+     * new version.
      */
     @Override
     public void persistPackageInputStream(KnowledgeModule knowledgeModule, InputStream packageInputStream) {
@@ -91,20 +118,19 @@ public class KnowledgePackageServiceImpl implements KnowledgePackageService {
         }
         CacheElement cacheElement = StreamCacheElement.create(packageId, packageInputStream);
         fileDao.persist(cacheElement);
-        evictPackagesFromQueue(knowledgeModule);
-        if (knowledgeModule.isPreload()) {
+        KMId kmId = knowledgeModule.getKMId();
+        // a load installs its packages before it is removed from the loaders, so checking the loaders first
+        // cannot miss a load that completes in between
+        if (knowledgeModule.isPreload() || loaders.containsKey(kmId) || slots.containsKey(kmId)) {
+            log.info("Loading new KnowledgePackage version in the background for KM: " + kmId);
             loadKnowledgePackage(knowledgeModule);
         }
     }
 
-    private void evictPackagesFromQueue(KnowledgeModule knowledgeModule) {
-        BlockingQueue<KnowledgeModule> q = getKnowledgePackages(knowledgeModule);
-        if (q != null) {
-            q.clear();
-            log.debug("Cleared KP Queue for KM: " + knowledgeModule.getKMId());
-        }
-    }
-
+    /**
+     * A load of the KM in progress still completes (for any borrower waiting
+     * for it) but does not install its packages.
+     */
     @Override
     public void deletePackage(KnowledgeModule knowledgeModule) {
         String packageId = knowledgeModule.getPackageId();
@@ -112,131 +138,343 @@ public class KnowledgePackageServiceImpl implements KnowledgePackageService {
         if (packageId != null) {
             CacheElement cacheElement = fileDao.find(packageId);
             fileDao.delete(cacheElement);
-            evictPackagesFromQueue(knowledgeModule);
+            deletions.put(knowledgeModule.getKMId(), versions.incrementAndGet());
+            KnowledgePackageSlot slot = slots.remove(knowledgeModule.getKMId());
+            if (slot != null) {
+                retire(knowledgeModule, slot);
+            }
         }
     }
 
     @Override
     public <T> T getPackage(KnowledgeModule knowledgeModule) {
-        BlockingQueue<T> q = getKnowledgePackages(knowledgeModule);
-        if (q != null) {
-            return q.peek();
-        }
-        return null;
+        KnowledgePackageSlot slot = slots.get(knowledgeModule.getKMId());
+        return slot == null ? null : cast(slot.peek());
     }
 
+    /**
+     * Adds the package to the pool of the current version of the KM (a new
+     * version if the KM has none, or has a shareable package).
+     */
     public <T> void putPackage(KnowledgeModule knowledgeModule, T knowledgePackage) {
-        BlockingQueue<T> q = getKnowledgePackages(knowledgeModule);
-        if (q == null) {
-            // Standard double-checked locking idiom to make sure we only initialize this BlockingQueue once.
-            // Synchronizing on the KMId string in order to reduce the scope of this synchronization to this specific KM
-            String kmId = EntityIdentifierUtil.makeEIString(knowledgeModule.getKMId());
-            synchronized(kmId.intern()) {
-                q = getKnowledgePackages(knowledgeModule);
-                if (q == null)
-                {
-                	if (log.isDebugEnabled()) {
-                		log.debug("First package added for " + kmId + ", initializing cache entry.");
-                	}
-                    q = new LinkedBlockingQueue<T>();
-                    cacheService.put(KPCacheRegion.KNOWLEDGE_PACKAGE, knowledgeModule.getKMId(), q);
+        KnowledgePackageSlot slot = slots.get(knowledgeModule.getKMId());
+        if (slot == null || slot.isShared()) {
+            install(knowledgeModule, KnowledgePackageSlot.pooled(versions.incrementAndGet(),
+                    Collections.singletonList(knowledgePackage)));
+            return;
+        }
+        slotsByPackage.put(knowledgePackage, slot);
+        slot.add(knowledgePackage);
+    }
+
+    @Override
+    public <KP> long getPackageVersion(KnowledgeModule knowledgeModule, KP knowledgePackage) {
+        KnowledgePackageSlot slot = findBorrow(knowledgePackage, false);
+        if (slot == null && knowledgePackage != null) {
+            slot = slotsByPackage.get(knowledgePackage);
+        }
+        return slot == null ? -1 : slot.getVersion();
+    }
+
+    private <KP> KP borrowed(KnowledgePackageSlot slot, Object knowledgePackage) {
+        borrows.get().add(new Borrow(knowledgePackage, slot));
+        return cast(knowledgePackage);
+    }
+
+    /**
+     * @return the version the package was last borrowed from by the current
+     *         thread, or <tt>null</tt> if it has not borrowed it
+     */
+    private KnowledgePackageSlot findBorrow(Object knowledgePackage, boolean remove) {
+        if (knowledgePackage == null) {
+            return null;
+        }
+        List<Borrow> threadBorrows = borrows.get();
+        for (int i = threadBorrows.size() - 1; i >= 0; i--) {
+            Borrow borrow = threadBorrows.get(i);
+            if (borrow.knowledgePackage == knowledgePackage) {
+                if (remove) {
+                    threadBorrows.remove(i);
+                    if (threadBorrows.isEmpty()) {
+                        borrows.remove();
+                    }
                 }
+                return borrow.slot;
             }
         }
-        q.add(knowledgePackage);
+        return null;
+    }
+
+    /**
+     * Makes the slot the current version of the KM's packages, unless a newer
+     * version was installed in the meantime or the packages of the KM were
+     * deleted after its load started, and retires the version it
+     * replaces. Observers are told (with the {@link KMId}) once the new version
+     * is serving, so that results computed on the previous version can be
+     * dropped.
+     */
+    private void install(KnowledgeModule knowledgeModule, final KnowledgePackageSlot slot) {
+        for (Object knowledgePackage : slot.getPackages()) {
+            slotsByPackage.put(knowledgePackage, slot);
+        }
+        final KnowledgePackageSlot[] replaced = new KnowledgePackageSlot[1];
+        KnowledgePackageSlot current = slots.compute(knowledgeModule.getKMId(), (kmId, existing) -> {
+            if (existing != null && existing.getVersion() > slot.getVersion()) {
+                return existing;
+            }
+            Long deleted = deletions.get(kmId);
+            if (deleted != null && deleted > slot.getVersion()) {
+                return existing;
+            }
+            replaced[0] = existing;
+            return slot;
+        });
+        if (current != slot) {
+            log.info("Discarding KnowledgePackage version " + slot.getVersion() + " for KM: "
+                    + knowledgeModule.getKMId() + (current == null ? "; its packages were deleted"
+                            : "; version " + current.getVersion() + " is newer"));
+            slot.retire();
+            forget(slot);
+            return;
+        }
+        log.info("KnowledgePackage version " + slot.getVersion() + " now serving KM: " + knowledgeModule.getKMId());
+        if (replaced[0] != null) {
+            retire(knowledgeModule, replaced[0]);
+        }
+        setChanged();
+        notifyObservers(knowledgeModule.getKMId());
+    }
+
+    private void retire(KnowledgeModule knowledgeModule, KnowledgePackageSlot slot) {
+        if (slot.retire()) {
+            drained(knowledgeModule, slot);
+        } else {
+            log.debug("Draining KnowledgePackage version " + slot.getVersion() + " for KM: "
+                    + knowledgeModule.getKMId() + " (" + slot.getBorrowedCount() + " borrowed)");
+        }
     }
 
-    private <T> BlockingQueue<T> getKnowledgePackages(KnowledgeModule km)
-    {
-        return getKnowledgePackages(km.getKMId());
+    private void drained(KnowledgeModule knowledgeModule, KnowledgePackageSlot slot) {
+        forget(slot);
+        log.info("Drained KnowledgePackage version " + slot.getVersion() + " for KM: " + knowledgeModule.getKMId());
     }
 
-    private <T> BlockingQueue<T> getKnowledgePackages(KMId kmId)
-    {
-        return cacheService.get(KPCacheRegion.KNOWLEDGE_PACKAGE, kmId);
+    private void forget(KnowledgePackageSlot slot) {
+        for (Object knowledgePackage : slot.getPackages()) {
+            slotsByPackage.remove(knowledgePackage, slot);
+        }
     }
 
-    public <T> T takePackage(KnowledgeModule knowledgeModule) {
-        BlockingQueue<T> q = getKnowledgePackages(knowledgeModule);
-        if (q != null) {
-            try {
-                return q.take();
-            } catch (InterruptedException e) {
-                log.error("InterruptedException when taking a KnowledgePackage...", e);
+    private Semaphore getPermits(KnowledgeModule knowledgeModule) {
+        Semaphore permits = cacheService.get(KPCacheRegion.KNOWLEDGE_PACKAGE_PERMITS, knowledgeModule.getKMId());
+        if (permits == null) {
+            String kmId = EntityIdentifierUtil.makeEIString(knowledgeModule.getKMId());
+            synchronized (kmId.intern()) {
+                permits = cacheService.get(KPCacheRegion.KNOWLEDGE_PACKAGE_PERMITS, knowledgeModule.getKMId());
+                if (permits == null) {
+                    permits = new Semaphore(configData.getKmThreads(), true);
+                    cacheService.put(KPCacheRegion.KNOWLEDGE_PACKAGE_PERMITS, knowledgeModule.getKMId(), permits);
+                }
             }
         }
-        return null;
+        return permits;
     }
 
-    @Override
-    public <KP> KP borrowKnowledgePackage(KnowledgeModule knowledgeModule) {
-        log.debug("Taking package from queue...");
-        KP kp = takePackage(knowledgeModule);
-        if (kp == null) {
-            // Standard double-checked locking idiom to make sure we only load the KM once.
+    /**
+     * @return the current version of the KM's packages, loading the KM (or
+     *         waiting for its load in progress) only if it has none yet
+     */
+    private KnowledgePackageSlot getSlot(KnowledgeModule knowledgeModule) {
+        KnowledgePackageSlot slot = slots.get(knowledgeModule.getKMId());
+        if (slot == null) {
             // Synchronizing on the KMId string in order to reduce the scope of this synchronization to this specific KM
             String kmId = EntityIdentifierUtil.makeEIString(knowledgeModule.getKMId());
-            synchronized(kmId.intern())
-            {
-                kp = takePackage(knowledgeModule);
-                if (kp == null)
-                {
-                    ForkJoinTask<?> task = loadKnowledgePackage(knowledgeModule);
-                    log.debug("Waiting for a KM Package to be loaded...");
-                    task.quietlyJoin();
-                    if (task.getException() != null)
-                    {
-                        log.error("Failed to borrow KM " + knowledgeModule.getPackageId(), task.getException());
-                        throw new OpenCDSRuntimeException(task.getException().getCause());
-                    }
-                    log.debug("Loaded...  Taking package");
-                    kp = takePackage(knowledgeModule);
+            synchronized (kmId.intern()) {
+                slot = slots.get(knowledgeModule.getKMId());
+                if (slot == null) {
+                    joinLoader(knowledgeModule, getOrStartLoader(knowledgeModule));
+                    slot = slots.get(knowledgeModule.getKMId());
                 }
             }
+            if (slot == null) {
+                throw new OpenCDSRuntimeException("No KnowledgePackage loaded for KM: " + knowledgeModule.getKMId());
+            }
         }
-        return kp;
+        return slot;
     }
 
+    /**
+     * For shareable packages, the single (immutable) package is handed out
+     * directly; the number of concurrent borrowers per KM is limited to
+     * <tt>kmThreads</tt>, waiting at most <tt>kmBorrowTimeout</tt> ms for a
+     * permit.
+     */
+    private <KP> KP borrowSharedKnowledgePackage(KnowledgeModule knowledgeModule) {
+        KnowledgePackageSlot slot = getSlot(knowledgeModule);
+        Semaphore permits = getPermits(knowledgeModule);
+        try {
+            if (!permits.tryAcquire(configData.getKmBorrowTimeout(), TimeUnit.MILLISECONDS)) {
+                throw new OpenCDSRuntimeException("Timed out after " + configData.getKmBorrowTimeout()
+                        + "ms waiting for a KnowledgePackage for KM: " + knowledgeModule.getKMId());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OpenCDSRuntimeException("Interrupted while waiting for a KnowledgePackage for KM: "
+                    + knowledgeModule.getKMId(), e);
+        }
+        // the version may have been swapped while waiting for the permit
+        KnowledgePackageSlot current = slots.get(knowledgeModule.getKMId());
+        if (current != null && current.isShared()) {
+            slot = current;
+        }
+        return borrowed(slot, slot.borrowShared());
+    }
+
+    /**
+     * Takes an idle package from the pool of the current version, waiting at
+     * most <tt>kmBorrowTimeout</tt> ms; a borrower waiting when a new version
+     * is swapped in moves on to the new version's pool.
+     */
+    private <KP> KP borrowPooledKnowledgePackage(KnowledgeModule knowledgeModule) {
+        KnowledgePackageSlot slot = getSlot(knowledgeModule);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(configData.getKmBorrowTimeout());
+        try {
+            while (true) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new OpenCDSRuntimeException("Timed out after " + configData.getKmBorrowTimeout()
+                            + "ms waiting for a KnowledgePackage for KM: " + knowledgeModule.getKMId());
+                }
+                Object kp = slot.poll(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(POOL_RECHECK_MS)),
+                        TimeUnit.NANOSECONDS);
+                if (kp != null) {
+                    return borrowed(slot, kp);
+                }
+                KnowledgePackageSlot current = slots.get(knowledgeModule.getKMId());
+                if (current != null) {
+                    slot = current;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("InterruptedException when taking a KnowledgePackage...", e);
+            return null;
+        }
+    }
+
+    private void joinLoader(KnowledgeModule knowledgeModule, CompletableFuture<Void> loader) {
+        log.debug("Waiting for a KM Package to be loaded...");
+        try {
+            loader.join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.error("Failed to borrow KM " + knowledgeModule.getPackageId(), cause);
+            throw new OpenCDSRuntimeException(cause);
+        }
+    }
+
+    /**
+     * @return the load of the KM in progress (e.g., its preload), or a new one
+     */
+    private CompletableFuture<Void> getOrStartLoader(KnowledgeModule knowledgeModule) {
+        CompletableFuture<Void> loader = loaders.get(knowledgeModule.getKMId());
+        return loader != null ? loader : loadKnowledgePackage(knowledgeModule);
+    }
+
+    private boolean isShareable(KnowledgeModule knowledgeModule) {
+        return getKnowledgeLoader(knowledgeModule).isKnowledgePackageShareable();
+    }
+
+    /**
+     * Only the first borrow of a KM that has not been (pre)loaded waits for it
+     * to be compiled; later versions are compiled in the background while the
+     * current version serves.
+     */
+    @Override
+    public <KP> KP borrowKnowledgePackage(KnowledgeModule knowledgeModule) {
+        if (isShareable(knowledgeModule)) {
+            return borrowSharedKnowledgePackage(knowledgeModule);
+        }
+        log.debug("Taking package from pool...");
+        return borrowPooledKnowledgePackage(knowledgeModule);
+    }
+
+    /**
+     * A package of a retired version is not pooled again; the retired version
+     * is drained once its last borrowed package is returned. The package is
+     * given back to the version it was borrowed from, provided that it is
+     * returned on the thread that borrowed it.
+     */
     @Override
     public <KP> void returnKnowledgePackage(KnowledgeModule knowledgeModule, KP knowledgePackage) {
-        putPackage(knowledgeModule, knowledgePackage);
+        if (isShareable(knowledgeModule)) {
+            getPermits(knowledgeModule).release();
+        }
+        KnowledgePackageSlot slot = findBorrow(knowledgePackage, true);
+        if (slot == null && knowledgePackage != null) {
+            slot = slotsByPackage.get(knowledgePackage);
+        }
+        if (slot == null) {
+            log.debug("Discarding returned KnowledgePackage of a drained version for KM: " + knowledgeModule.getKMId());
+            return;
+        }
+        if (slot.giveBack(knowledgePackage)) {
+            drained(knowledgeModule, slot);
+        }
     }
 
-    private ForkJoinTask<?> loadKnowledgePackage(KnowledgeModule knowledgeModule) {
-        ForkJoinTask<?> task = pool.submit(new KPLoader(
-            getKnowledgeLoader(knowledgeModule),
+    private CompletableFuture<Void> loadKnowledgePackage(KnowledgeModule knowledgeModule) {
+        KnowledgeLoader<?> loader = getKnowledgeLoader(knowledgeModule);
+        final KMId kmId = knowledgeModule.getKMId();
+        final CompletableFuture<Void> task = CompletableFuture.runAsync(new KPLoader(
+            loader,
             this,
             knowledgeModule,
-            configData.getKmThreads()));
+            loader.isKnowledgePackageShareable() ? 1 : configData.getKmThreads(),
+            versions.incrementAndGet()), pool);
+        loaders.put(kmId, task);
+        task.whenComplete((v, t) -> loaders.remove(kmId, task));
         return task;
     }
 
     @Override
-    public void preloadKnowledgePackages(List<KnowledgeModule> knowledgeModules) {
-        List<ForkJoinTask<?>> taskList = new LinkedList<>();
-        for (KnowledgeModule km : knowledgeModules) {
+    public CompletableFuture<List<KMId>> preloadKnowledgePackages(List<KnowledgeModule> knowledgeModules) {
+        List<CompletableFuture<KMId>> taskList = new ArrayList<>();
+        List<KMId> failed = new ArrayList<>();
+        for (final KnowledgeModule km : knowledgeModules) {
             if (km.isPreload()) {
                 try {
                     log.info("Preloading KnowledgePackage: " + km.getKMId());
-                    taskList.add(loadKnowledgePackage(km));
+                    taskList.add(loadKnowledgePackage(km).handle((v, t) -> {
+                        if (t != null) {
+                            Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+                            log.error("Unable to preload KnowledgePackage: " + km.getKMId(), cause);
+                            return km.getKMId();
+                        } else {
+                            log.debug("Preloaded KnowledgePackage: " + km.getKMId());
+                            return null;
+                        }
+                    }));
                 } catch (Exception e) {
                     log.error("Unable to load KnowledgePackage: " + km.getKMId(), e);
+                    failed.add(km.getKMId());
                 }
             }
         }
-        log.debug("Joining (" + taskList.size() + ") KnowledgePackage preloader tasks...");
-        int counter = 0;
-        for (ForkJoinTask<?> task : taskList) {
-            task.quietlyJoin();
-            Throwable t = task.getException();
-            if (t == null) {
-                counter++;
-                log.debug("Task : " + counter);
-            } else {
-                log.error("Task encountered exception: " + t.getMessage(), t);
+        final int count = taskList.size();
+        log.debug("Preloading (" + count + ") KnowledgePackages in the background...");
+        final long start = System.nanoTime();
+        return CompletableFuture.allOf(taskList.toArray(new CompletableFuture<?>[count])).thenApply(v -> {
+            log.info("Preloading of (" + count + ") KnowledgePackages finished in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+            for (CompletableFuture<KMId> task : taskList) {
+                KMId kmId = task.join();
+                if (kmId != null) {
+                    failed.add(kmId);
+                }
             }
-        }
-        log.debug("Tasks finished.");
+            return Collections.unmodifiableList(failed);
+        });
     }
 
     private KnowledgeLoader<?> getKnowledgeLoader(KnowledgeModule km) {
@@ -248,27 +486,51 @@ public class KnowledgePackageServiceImpl implements KnowledgePackageService {
 
         private final KnowledgeLoader<?> loader;
         private final KnowledgeModule knowledgeModule;
-        private final KnowledgePackageService knowledgePackageService;
+        private final KnowledgePackageServiceImpl knowledgePackageService;
         private final int count;
+        // taken when the load starts, so that a load started later wins a race to install
+        private final long version;
 
-        public KPLoader(KnowledgeLoader<?> loader, KnowledgePackageService knowledgePackageService, KnowledgeModule knowledgeModule, int count) {
+        public KPLoader(KnowledgeLoader<?> loader, KnowledgePackageServiceImpl knowledgePackageService, KnowledgeModule knowledgeModule, int count, long version) {
             this.loader = loader;
             this.knowledgePackageService = knowledgePackageService;
             this.knowledgeModule = knowledgeModule;
             this.count = count;
+            this.version = version;
         }
 
         @Override
         public void run() {
             Collection<?> packages = loader.loadKnowledgePackages(knowledgePackageService, knowledgeModule, count);
-            for (Object pkg: packages)
-                knowledgePackageService.putPackage(knowledgeModule, pkg);
+            if (packages.isEmpty()) {
+                return;
+            }
+            if (loader.isKnowledgePackageShareable()) {
+                knowledgePackageService.install(knowledgeModule, KnowledgePackageSlot.shared(version, packages.iterator().next()));
+            } else {
+                knowledgePackageService.install(knowledgeModule, KnowledgePackageSlot.pooled(version, packages));
+            }
         }
 
     }
 
+    private static final class Borrow {
+        private final Object knowledgePackage;
+        private final KnowledgePackageSlot slot;
+
+        private Borrow(Object knowledgePackage, KnowledgePackageSlot slot) {
+            this.knowledgePackage = knowledgePackage;
+            this.slot = slot;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object knowledgePackage) {
+        return (T) knowledgePackage;
+    }
+
     private enum KPCacheRegion implements CacheRegion {
-        KNOWLEDGE_PACKAGE(Queue.class);
+        KNOWLEDGE_PACKAGE_PERMITS(Semaphore.class);
 
         private Class<?> type;
 
@@ -0,0 +1,139 @@
+package org.opencds.config.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One version of the knowledge packages of a KM: either a single shareable
+ * package, handed to every borrower, or a pool of packages, each lent to one
+ * borrower at a time.
+ * <p>
+ * A slot serves borrowers until a newer version retires it. A retired slot
+ * takes no packages back into its pool, and is drained (its packages are
+ * forgotten) once the last package borrowed from it has been returned.
+ */
+final class KnowledgePackageSlot {
+
+    private final long version;
+    private final Object sharedPackage;
+    private final BlockingQueue<Object> pool;
+    private final List<Object> packages;
+
+    private final AtomicInteger borrowed = new AtomicInteger();
+    private final AtomicBoolean drained = new AtomicBoolean();
+    private volatile boolean retired;
+
+    private KnowledgePackageSlot(long version, Object sharedPackage, Collection<?> pooledPackages) {
+        this.version = version;
+        this.sharedPackage = sharedPackage;
+        if (sharedPackage != null) {
+            this.pool = null;
+            this.packages = Collections.singletonList(sharedPackage);
+        } else {
+            this.pool = new LinkedBlockingQueue<Object>(pooledPackages);
+            this.packages = Collections.synchronizedList(new ArrayList<Object>(pooledPackages));
+        }
+    }
+
+    static KnowledgePackageSlot shared(long version, Object knowledgePackage) {
+        if (knowledgePackage == null) {
+            throw new IllegalArgumentException("knowledgePackage cannot be null.");
+        }
+        return new KnowledgePackageSlot(version, knowledgePackage, null);
+    }
+
+    static KnowledgePackageSlot pooled(long version, Collection<?> knowledgePackages) {
+        return new KnowledgePackageSlot(version, null, knowledgePackages);
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    boolean isShared() {
+        return sharedPackage != null;
+    }
+
+    /**
+     * @return a snapshot of all the packages of this version, lent or not
+     */
+    List<Object> getPackages() {
+        synchronized (packages) {
+            return new ArrayList<>(packages);
+        }
+    }
+
+    /**
+     * @return the shared package, or an idle pooled package (not lent), or
+     *         <tt>null</tt>
+     */
+    Object peek() {
+        return isShared() ? sharedPackage : pool.peek();
+    }
+
+    /**
+     * Adds a package to the pool of this version.
+     */
+    void add(Object knowledgePackage) {
+        packages.add(knowledgePackage);
+        pool.add(knowledgePackage);
+    }
+
+    Object borrowShared() {
+        borrowed.incrementAndGet();
+        return sharedPackage;
+    }
+
+    /**
+     * @return an idle pooled package, waiting at most the given time, or
+     *         <tt>null</tt>
+     */
+    Object poll(long timeout, TimeUnit unit) throws InterruptedException {
+        Object knowledgePackage = pool.poll(timeout, unit);
+        if (knowledgePackage != null) {
+            borrowed.incrementAndGet();
+        }
+        return knowledgePackage;
+    }
+
+    /**
+     * Takes back a package borrowed from this version.
+     *
+     * @return <tt>true</tt> if this return drained the (retired) slot
+     */
+    boolean giveBack(Object knowledgePackage) {
+        if (!isShared() && !retired) {
+            pool.add(knowledgePackage);
+        }
+        return borrowed.decrementAndGet() <= 0 && retired && drained.compareAndSet(false, true);
+    }
+
+    /**
+     * Stops this version from serving new borrowers.
+     *
+     * @return <tt>true</tt> if the slot was drained (nothing was borrowed)
+     */
+    boolean retire() {
+        retired = true;
+        if (pool != null) {
+            pool.clear();
+        }
+        return borrowed.get() <= 0 && drained.compareAndSet(false, true);
+    }
+
+    boolean isRetired() {
+        return retired;
+    }
+
+    int getBorrowedCount() {
+        return borrowed.get();
+    }
+
+}
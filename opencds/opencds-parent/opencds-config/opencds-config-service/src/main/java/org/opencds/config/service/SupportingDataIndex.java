@@ -0,0 +1,164 @@
+package org.opencds.config.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.opencds.config.api.model.KMId;
+import org.opencds.config.api.model.SupportingData;
+import org.opencds.config.util.EntityIdentifierUtil;
+
+/**
+ * Immutable index of the SupportingData by KM (SupportingData not associated
+ * with a KM is held under a <tt>null</tt> KMId). Changes produce a new index,
+ * so that readers always see a consistent snapshot without locking.
+ * <p>
+ * The plugin SupportingData maps handed to the plugins of an evaluation are
+ * built on first use per KM and shared by all later evaluations for the life
+ * of the index.
+ */
+final class SupportingDataIndex {
+
+    private final Map<KMId, Map<String, SupportingData>> supportingDataByKM;
+    private final Map<KMId, List<SupportingData>> listsByKM = new HashMap<>();
+    private final List<SupportingData> all;
+    private final ConcurrentMap<KMId, List<SupportingData>> availableByKM = new ConcurrentHashMap<>();
+    private final ConcurrentMap<KMId, Map<String, org.opencds.plugin.SupportingData>> pluginSupportingDataByKM = new ConcurrentHashMap<>();
+
+    SupportingDataIndex(Collection<SupportingData> sds) {
+        this(index(sds));
+    }
+
+    private SupportingDataIndex(Map<KMId, Map<String, SupportingData>> supportingDataByKM) {
+        this.supportingDataByKM = supportingDataByKM;
+        List<SupportingData> all = new ArrayList<>();
+        for (Entry<KMId, Map<String, SupportingData>> entry : supportingDataByKM.entrySet()) {
+            listsByKM.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue().values())));
+            all.addAll(entry.getValue().values());
+        }
+        this.all = Collections.unmodifiableList(all);
+    }
+
+    /**
+     * @return a new index with the SupportingData added, replacing the
+     *         SupportingData with the same KMId and identifier, if any
+     */
+    SupportingDataIndex with(SupportingData sd) {
+        Map<KMId, Map<String, SupportingData>> copy = copy();
+        Map<String, SupportingData> sds = copy.get(sd.getKMId());
+        if (sds == null) {
+            sds = new LinkedHashMap<>();
+            copy.put(sd.getKMId(), sds);
+        }
+        sds.put(sd.getIdentifier(), sd);
+        return new SupportingDataIndex(copy);
+    }
+
+    /**
+     * @return a new index without the SupportingData with the KMId and
+     *         identifier of the given SupportingData
+     */
+    SupportingDataIndex without(SupportingData sd) {
+        Map<KMId, Map<String, SupportingData>> copy = copy();
+        Map<String, SupportingData> sds = copy.get(sd.getKMId());
+        if (sds != null) {
+            sds.remove(sd.getIdentifier());
+            if (sds.isEmpty()) {
+                copy.remove(sd.getKMId());
+            }
+        }
+        return new SupportingDataIndex(copy);
+    }
+
+    SupportingData find(KMId kmId, String identifier) {
+        Map<String, SupportingData> sds = supportingDataByKM.get(kmId);
+        return sds == null ? null : sds.get(identifier);
+    }
+
+    /**
+     * @return the (shared, unmodifiable) SupportingData of the KM
+     */
+    List<SupportingData> find(KMId kmId) {
+        List<SupportingData> sds = listsByKM.get(kmId);
+        return sds == null ? Collections.<SupportingData> emptyList() : sds;
+    }
+
+    /**
+     * @param kmId
+     *            not <tt>null</tt>
+     * @return the (shared, unmodifiable) SupportingData not associated with
+     *         any KM, followed by the SupportingData of the KM
+     */
+    List<SupportingData> findAvailable(KMId kmId) {
+        List<SupportingData> available = availableByKM.get(kmId);
+        if (available == null) {
+            List<SupportingData> sds = new ArrayList<>(find(null));
+            sds.addAll(find(kmId));
+            available = Collections.unmodifiableList(sds);
+            List<SupportingData> existing = availableByKM.putIfAbsent(kmId, available);
+            if (existing != null) {
+                available = existing;
+            }
+        }
+        return available;
+    }
+
+    /**
+     * @return the (shared, unmodifiable) plugin SupportingData, without
+     *         package data, of {@link #findAvailable(KMId)} by identifier
+     */
+    Map<String, org.opencds.plugin.SupportingData> getPluginSupportingData(KMId kmId) {
+        Map<String, org.opencds.plugin.SupportingData> pluginSupportingData = pluginSupportingDataByKM.get(kmId);
+        if (pluginSupportingData == null) {
+            Map<String, org.opencds.plugin.SupportingData> sds = new LinkedHashMap<>();
+            for (SupportingData sd : findAvailable(kmId)) {
+                sds.put(sd.getIdentifier(), org.opencds.plugin.SupportingData.create(sd.getIdentifier(),
+                        EntityIdentifierUtil.makeEIString(sd.getKMId()), EntityIdentifierUtil.makeEIString(sd.getLoadedBy()),
+                        sd.getPackageId(), sd.getPackageType(), new byte[0]));
+            }
+            pluginSupportingData = Collections.unmodifiableMap(sds);
+            Map<String, org.opencds.plugin.SupportingData> existing = pluginSupportingDataByKM.putIfAbsent(kmId,
+                    pluginSupportingData);
+            if (existing != null) {
+                pluginSupportingData = existing;
+            }
+        }
+        return pluginSupportingData;
+    }
+
+    /**
+     * @return the (shared, unmodifiable) SupportingData of all KMs
+     */
+    List<SupportingData> getAll() {
+        return all;
+    }
+
+    private Map<KMId, Map<String, SupportingData>> copy() {
+        Map<KMId, Map<String, SupportingData>> copy = new HashMap<>();
+        for (Entry<KMId, Map<String, SupportingData>> entry : supportingDataByKM.entrySet()) {
+            copy.put(entry.getKey(), new LinkedHashMap<>(entry.getValue()));
+        }
+        return copy;
+    }
+
+    private static Map<KMId, Map<String, SupportingData>> index(Collection<SupportingData> sds) {
+        Map<KMId, Map<String, SupportingData>> index = new HashMap<>();
+        for (SupportingData sd : sds) {
+            Map<String, SupportingData> kmSds = index.get(sd.getKMId());
+            if (kmSds == null) {
+                kmSds = new LinkedHashMap<>();
+                index.put(sd.getKMId(), kmSds);
+            }
+            kmSds.put(sd.getIdentifier(), sd);
+        }
+        return index;
+    }
+
+}
@@ -0,0 +1,155 @@
+package org.opencds.config.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.opencds.config.api.dao.file.CacheElement;
+
+/**
+ * Least-recently-used cache of supporting data package contents by package
+ * ID, bounded by the total size of the cached packages.
+ * <p>
+ * Packages backed by a file are memory-mapped (read-only), so that a cached
+ * package costs address space and page cache rather than heap; an entry is
+ * reloaded when the length or modification time of the file changes.
+ * Packages that are only available as a stream (e.g., from the classpath) are
+ * read once into a heap buffer. Callers get a read-only view of the cached
+ * buffer with its own position and limit.
+ * <p>
+ * A mapping is released only when its buffer is garbage collected; it is not
+ * unmapped when the entry is evicted or invalidated, since callers may still
+ * hold a view of it (and reading an unmapped buffer crashes the JVM). On
+ * Windows a mapped file cannot be deleted or replaced, which the
+ * <tt>FileDao</tt> does when a package is updated or removed, so there
+ * packages are read into heap buffers instead of being mapped.
+ */
+final class SupportingDataPackageCache {
+    private static final Logger log = LogManager.getLogger();
+    private static final boolean MAP_FILES = !System.getProperty("os.name", "").startsWith("Windows");
+
+    private final long maxBytes;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+
+    SupportingDataPackageCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return a read-only view of the package contents, or <tt>null</tt> if
+     *         the element does not exist
+     */
+    ByteBuffer get(CacheElement cacheElement) throws IOException {
+        if (cacheElement == null || !cacheElement.exists()) {
+            return null;
+        }
+        String packageId = cacheElement.getId();
+        Path path = cacheElement.getPath();
+        long length = path == null ? -1 : cacheElement.length();
+        long lastModified = path == null ? -1 : cacheElement.lastModified();
+
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(packageId);
+        }
+        if (entry != null && entry.length == length && entry.lastModified == lastModified) {
+            if (path == null) {
+                // the element opened a stream we do not need
+                close(cacheElement);
+            }
+            return entry.view();
+        }
+
+        ByteBuffer buffer = path == null || !MAP_FILES ? read(cacheElement) : map(path);
+        Entry loaded = new Entry(buffer, length, lastModified);
+        if (buffer.capacity() <= maxBytes) {
+            put(packageId, loaded);
+        } else {
+            log.debug("Not caching package " + packageId + " of " + buffer.capacity() + " bytes (cache limit: "
+                    + maxBytes + " bytes)");
+        }
+        return loaded.view();
+    }
+
+    synchronized void invalidate(String packageId) {
+        Entry entry = entries.remove(packageId);
+        if (entry != null) {
+            cachedBytes -= entry.buffer.capacity();
+        }
+    }
+
+    private synchronized void put(String packageId, Entry entry) {
+        Entry previous = entries.put(packageId, entry);
+        if (previous != null) {
+            cachedBytes -= previous.buffer.capacity();
+        }
+        cachedBytes += entry.buffer.capacity();
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (cachedBytes > maxBytes && eldest.hasNext()) {
+            Entry evicted = eldest.next();
+            if (evicted != entry) {
+                eldest.remove();
+                cachedBytes -= evicted.buffer.capacity();
+            }
+        }
+    }
+
+    private static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Package too large to map (" + size + " bytes): " + path);
+            }
+            // the mapping remains valid after the channel is closed
+            return channel.map(MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    private static ByteBuffer read(CacheElement cacheElement) throws IOException {
+        try (InputStream is = cacheElement.getInputStream()) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            byte[] input = new byte[64 * 1024];
+            int read;
+            while ((read = is.read(input)) != -1) {
+                baos.write(input, 0, read);
+            }
+            return ByteBuffer.wrap(baos.toByteArray());
+        }
+    }
+
+    private static void close(CacheElement cacheElement) {
+        try (InputStream is = cacheElement.getInputStream()) {
+            // nothing to read
+        } catch (IOException e) {
+            log.debug("Error closing CacheElement: " + cacheElement, e);
+        }
+    }
+
+    private static final class Entry {
+        private final ByteBuffer buffer;
+        private final long length;
+        private final long lastModified;
+
+        Entry(ByteBuffer buffer, long length, long lastModified) {
+            this.buffer = buffer;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        ByteBuffer view() {
+            return buffer.asReadOnlyBuffer();
+        }
+    }
+
+}
@@ -1,14 +1,12 @@
 package org.opencds.config.service;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.UUID;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.opencds.common.cache.OpencdsCache.CacheRegion;
-import org.opencds.config.api.cache.CacheService;
 import org.opencds.config.api.dao.FileDao;
 import org.opencds.config.api.dao.file.CacheElement;
 import org.opencds.config.api.dao.file.StreamCacheElement;
@@ -18,13 +16,22 @@ import org.opencds.config.api.service.SupportingDataPackageService;
 public class SupportingDataPackageServiceImpl implements SupportingDataPackageService {
 	private static final Logger log = LogManager.getLogger();
 
+    /**
+     * Default upper bound of the total size of the cached packages.
+     */
+    public static final long DEFAULT_MAX_CACHED_BYTES = 256L * 1024 * 1024;
+
     private final FileDao fileDao;
 
-    private CacheService cacheService;
+    private final SupportingDataPackageCache packageCache;
+
+    public SupportingDataPackageServiceImpl(FileDao fileDao) {
+        this(fileDao, DEFAULT_MAX_CACHED_BYTES);
+    }
 
-    public SupportingDataPackageServiceImpl(FileDao fileDao, CacheService cacheService) {
+    public SupportingDataPackageServiceImpl(FileDao fileDao, long maxCachedBytes) {
         this.fileDao = fileDao;
-        this.cacheService = cacheService;
+        this.packageCache = new SupportingDataPackageCache(maxCachedBytes);
     }
 
     @Override
@@ -53,23 +60,26 @@ public class SupportingDataPackageServiceImpl implements SupportingDataPackageSe
 
     @Override
     public byte[] getPackageBytes(SupportingData supportingData) {
-        CacheElement cacheElement = fileDao.find(supportingData.getPackageId());
-        byte[] bytes = cacheService.get(SDPackageCacheRegion.SD_PACKAGE_BYTES, cacheElement);
-        if (bytes == null || bytes.length == 0) {
-            try (InputStream is = cacheElement.getInputStream()) {
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                byte[] input = new byte[1024];
-                while (is.read(input) != -1) {
-                    baos.write(input);
-                }
-                bytes = baos.toByteArray();
-            } catch (IOException e) {
-                log.error("Error reading CacheElement: " + cacheElement, e);
-            }
+        ByteBuffer buffer = getPackageByteBuffer(supportingData);
+        if (buffer == null) {
+            return null;
         }
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
         return bytes;
     }
 
+    @Override
+    public ByteBuffer getPackageByteBuffer(SupportingData supportingData) {
+        CacheElement cacheElement = fileDao.find(supportingData.getPackageId());
+        try {
+            return packageCache.get(cacheElement);
+        } catch (IOException e) {
+            log.error("Error reading CacheElement: " + cacheElement, e);
+            return null;
+        }
+    }
+
     @Override
     public void persistPackageInputStream(SupportingData sd, InputStream supportingDataPackage) {
         String packageId = sd.getPackageId();
@@ -79,6 +89,7 @@ public class SupportingDataPackageServiceImpl implements SupportingDataPackageSe
         }
         CacheElement cacheElement = StreamCacheElement.create(packageId, supportingDataPackage);
         fileDao.persist(cacheElement);
+        packageCache.invalidate(packageId);
     }
 
     // TODO: Error handling/reporting?
@@ -89,25 +100,9 @@ public class SupportingDataPackageServiceImpl implements SupportingDataPackageSe
             CacheElement cacheElement = fileDao.find(packageId);
             if (cacheElement != null) {
                 fileDao.delete(cacheElement);
-                cacheService.evict(SDPackageCacheRegion.SD_PACKAGE_BYTES, cacheElement);
+                packageCache.invalidate(packageId);
             }
         }
     }
 
-    private static enum SDPackageCacheRegion implements CacheRegion {
-        SD_PACKAGE_BYTES(byte[].class);
-
-        private Class<?> type;
-
-        SDPackageCacheRegion(Class<?> type) {
-            this.type = type;
-        }
-
-        @Override
-        public boolean supports(Class<?> type) {
-            return this.type.isAssignableFrom(type);
-        }
-
-    }
-
 }
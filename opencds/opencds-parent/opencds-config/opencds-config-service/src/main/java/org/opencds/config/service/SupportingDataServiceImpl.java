@@ -1,11 +1,10 @@
 package org.opencds.config.service;
 
 import java.io.InputStream;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.Observable;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -17,13 +16,15 @@ import org.opencds.config.api.model.SupportingData;
 import org.opencds.config.api.service.SupportingDataPackageService;
 import org.opencds.config.api.service.SupportingDataService;
 
-public class SupportingDataServiceImpl implements SupportingDataService {
+public class SupportingDataServiceImpl extends Observable implements SupportingDataService {
 	private static final Logger log = LogManager.getLogger();
 
     private final SupportingDataDao dao;
     private final SupportingDataPackageService supportingDataPackageService;
     private final PluginPackageServiceImpl pluginPackageService;
     private final CacheService cacheService;
+    // replaced as a whole on persist and delete
+    private volatile SupportingDataIndex index;
     
     /******
      * Need to support this like all the others---build a cache of the metadata...
@@ -37,48 +38,48 @@ public class SupportingDataServiceImpl implements SupportingDataService {
         this.supportingDataPackageService = supportingDataPackageService;
         this.pluginPackageService = pluginPackageService;
         this.cacheService = cacheService;
-        Map<String, SupportingData> sds = buildPairs(this.dao.getAll());
+        List<SupportingData> all = this.dao.getAll();
+        Map<String, SupportingData> sds = buildPairs(all);
         cacheService.putAll(SDCacheRegion.SUPPORTING_DATA, sds);
+        index = new SupportingDataIndex(all);
     }
 
     @Override
     public SupportingData find(KMId kmId, String supportingDataId) {
-        Set<SupportingData> sds = cacheService.getAll(SDCacheRegion.SUPPORTING_DATA);
-        for (SupportingData sd : sds) {
-            if (sd.getIdentifier().equals(supportingDataId) && kmId.equals(sd.getKMId())) {
-                return sd;
-            }
+        if (kmId == null) {
+            return null;
         }
-        return null;
+        return index.find(kmId, supportingDataId);
     }
     
     @Override
     public List<SupportingData> find(KMId kmid) {
-        List<SupportingData> sdList = new ArrayList<>();
-        Set<SupportingData> sds = cacheService.getAll(SDCacheRegion.SUPPORTING_DATA);
-        for (SupportingData sd : sds) {
-            if (kmid.equals(sd.getKMId())) {
-                sdList.add(sd);
-            }
-        }
-        return sdList;
+        return index.find(kmid);
+    }
+
+    @Override
+    public List<SupportingData> findAvailable(KMId kmId) {
+        return index.findAvailable(kmId);
+    }
+
+    @Override
+    public Map<String, org.opencds.plugin.SupportingData> getPluginSupportingData(KMId kmId) {
+        return index.getPluginSupportingData(kmId);
     }
 
     @Override
     public List<SupportingData> getAll() {
-        List<SupportingData> sdList = new ArrayList<>();
-        Set<SupportingData> sds = cacheService.getAll(SDCacheRegion.SUPPORTING_DATA);
+        List<SupportingData> sds = index.getAll();
         log.debug("SDS: " + sds);
-        for (SupportingData sd : sds) {
-            sdList.add(sd);
-        }
-        return sdList;
+        return sds;
     }
 
     @Override
-    public void persist(SupportingData sd) {
+    public synchronized void persist(SupportingData sd) {
         dao.persist(sd);
         cacheService.put(SDCacheRegion.SUPPORTING_DATA, sd.getIdentifier(), sd);
+        index = index.with(sd);
+        tellObservers(sd);
     }
 
     @Override
@@ -97,11 +98,13 @@ public class SupportingDataServiceImpl implements SupportingDataService {
         }
     }
     
-    private void deleteInternal(KMId kmId, SupportingData sd) {
+    private synchronized void deleteInternal(KMId kmId, SupportingData sd) {
         if (sd != null) {
             dao.delete(sd);
             deleteSupportingDataPackageInternal(sd);
-            cacheService.evict(SDCacheRegion.SUPPORTING_DATA, sd);
+            cacheService.evict(SDCacheRegion.SUPPORTING_DATA, sd.getIdentifier());
+            index = index.without(sd);
+            tellObservers(sd);
         }
     }
     
@@ -128,6 +131,7 @@ public class SupportingDataServiceImpl implements SupportingDataService {
         SupportingData sd = find(kmId, identifier);
         if (sd != null) {
             supportingDataPackageService.persistPackageInputStream(sd, supportingDataPackage);
+            tellObservers(sd);
             // TODO: Anything else?  Error conditions?
         }
     }
@@ -137,6 +141,7 @@ public class SupportingDataServiceImpl implements SupportingDataService {
         SupportingData sd = find(kmId, identifier);
         if (sd != null) {
             deleteSupportingDataPackageInternal(sd);
+            tellObservers(sd);
         }
     }
 
@@ -146,6 +151,11 @@ public class SupportingDataServiceImpl implements SupportingDataService {
         }
     }
     
+    private void tellObservers(SupportingData sd) {
+        setChanged();
+        notifyObservers(sd);
+    }
+
     private Map<String, SupportingData> buildPairs(List<SupportingData> sds) {
         Map<String, SupportingData> cachables = new HashMap<>();
         for (SupportingData sd : sds) {
@@ -0,0 +1,302 @@
+package org.opencds.config.service
+
+import org.opencds.config.api.dao.ConceptDeterminationMethodDao
+import org.opencds.config.api.dao.KnowledgeModuleDao
+import org.opencds.config.api.model.CDMId
+import org.opencds.config.api.model.Concept
+import org.opencds.config.api.model.ConceptDeterminationMethod
+import org.opencds.config.api.model.ConceptView
+import org.opencds.config.api.model.KMStatus
+import org.opencds.config.api.model.KnowledgeModule
+import org.opencds.config.api.model.SupportMethod
+import org.opencds.config.api.model.impl.CDMIdImpl
+import org.opencds.config.api.model.impl.ConceptDeterminationMethodImpl
+import org.opencds.config.api.model.impl.ConceptImpl
+import org.opencds.config.api.model.impl.ConceptMappingImpl
+import org.opencds.config.api.model.impl.ConceptViewImpl
+import org.opencds.config.api.model.impl.KMIdImpl
+import org.opencds.config.api.model.impl.KnowledgeModuleImpl
+import org.opencds.config.api.model.impl.SecondaryCDMImpl
+import org.opencds.config.api.service.KnowledgePackageService
+import org.opencds.config.api.service.SupportingDataService
+
+import spock.lang.Specification
+
+class ConceptIndexSpec extends Specification {
+
+    static final String LOCAL = '1.2.3.local'
+
+    KnowledgePackageService knowledgePackageService = Mock()
+    SupportingDataService supportingDataService = Mock()
+
+    CDMId primaryId = CDMIdImpl.create('2.16.840.1.113883.3.795.5.4.12.5.1', 'C1', '1.0')
+    CDMId additiveId = CDMIdImpl.create('2.16.840.1.113883.3.795.5.4.12.5.1', 'C2', '1.0')
+    CDMId replacementId = CDMIdImpl.create('2.16.840.1.113883.3.795.5.4.12.5.1', 'C3', '1.0')
+
+    def "index lookups"() {
+        given:
+        def a = concept(LOCAL, 'a')
+        def b = concept(LOCAL, 'b')
+        def views = [view('C100', 'C1'), view('C101', 'C1')]
+        def index = new ConceptIndex([(a): views, (b): [view('C200', 'C1')], (concept(LOCAL, 'empty')): [],
+            (concept(LOCAL, 'null')): null])
+
+        expect:
+        index.size() == 2
+        codes(index.get(LOCAL, 'a')) == ['C100', 'C101']
+        codes(index.get(LOCAL, 'b')) == ['C200']
+
+        and: "codes that are not in the index, or only map to no views, give an empty list"
+        index.get(LOCAL, 'c') == []
+        index.get('other', 'a') == []
+        index.get(null, 'a') == []
+        index.get(LOCAL, null) == []
+        index.get(LOCAL, 'empty') == []
+        index.get(LOCAL, 'null') == []
+
+        and: "the list is built once and shared by all lookups"
+        index.get(LOCAL, 'a').is(index.get(LOCAL, 'a'))
+    }
+
+    def "the views of an index are copied and unmodifiable"() {
+        given:
+        def views = [view('C100', 'C1')]
+        def index = new ConceptIndex([(concept(LOCAL, 'a')): views])
+
+        when:
+        views << view('C101', 'C1')
+
+        then:
+        codes(index.get(LOCAL, 'a')) == ['C100']
+
+        when:
+        index.get(LOCAL, 'a') << view('C102', 'C1')
+
+        then:
+        thrown(UnsupportedOperationException)
+    }
+
+    def "codes that collide in the table are all found"() {
+        given: "more codes than slots of a small table, including equal hash codes ('Aa' and 'BB')"
+        def map = [:]
+        (0..<100).each { map[concept(LOCAL, "code$it")] = [view("C$it", 'C1')] }
+        map[concept(LOCAL, 'Aa')] = [view('Aa', 'C1')]
+        map[concept(LOCAL, 'BB')] = [view('BB', 'C1')]
+        map[concept(null, 'nullCodeSystem')] = [view('N', 'C1')]
+        def index = new ConceptIndex(map)
+
+        expect:
+        index.size() == 103
+        (0..<100).every { codes(index.get(LOCAL, "code$it")) == ["C$it"] }
+        codes(index.get(LOCAL, 'Aa')) == ['Aa']
+        codes(index.get(LOCAL, 'BB')) == ['BB']
+        codes(index.get(null, 'nullCodeSystem')) == ['N']
+        index.get(LOCAL, 'code100') == []
+    }
+
+    def "an empty index"() {
+        given:
+        def index = new ConceptIndex([:])
+
+        expect:
+        index.size() == 0
+        index.get(LOCAL, 'a') == []
+    }
+
+    def "a KM without a primary CDM sees all concepts"() {
+        given:
+        def knowledgeModule = km('noPrimary', null, null)
+        def service = conceptService([primaryCdm(), additiveCdm()], [knowledgeModule])
+
+        when:
+        def cs = service.byKM(knowledgeModule)
+
+        then:
+        codes(cs.getConceptViews(LOCAL, 'a')).sort() == ['C100', 'C150']
+        codes(cs.getConceptViews(LOCAL, 'b')) == ['C101']
+        codes(cs.getConceptViews(LOCAL, 'c')) == ['C102']
+        cs.getConceptViews(LOCAL, 'a')*.cdmCode.sort() == ['C1', 'C2']
+
+        and: "the service itself uses the same index"
+        service.getConceptViews(LOCAL, 'a').is(cs.getConceptViews(LOCAL, 'a'))
+    }
+
+    def "a KM with a primary CDM sees its concepts only"() {
+        given:
+        def knowledgeModule = km('primary', primaryId, null)
+        def service = conceptService([primaryCdm(), additiveCdm()], [knowledgeModule])
+
+        when:
+        def cs = service.byKM(knowledgeModule)
+
+        then:
+        codes(cs.getConceptViews(LOCAL, 'a')) == ['C100']
+        codes(cs.getConceptViews(LOCAL, 'b')) == ['C101']
+        cs.getConceptViews(LOCAL, 'c') == []
+
+        and: "the KM service is cached"
+        service.byKM(knowledgeModule).is(cs)
+    }
+
+    def "secondary CDMs add to or replace the concepts of the primary CDM"() {
+        given:
+        def knowledgeModule = km('secondary', primaryId, [SecondaryCDMImpl.create(secondaryId, supportMethod)])
+        def service = conceptService([primaryCdm(), additiveCdm(), replacementCdm()], [knowledgeModule])
+
+        when:
+        def cs = service.byKM(knowledgeModule)
+
+        then:
+        codes(cs.getConceptViews(LOCAL, 'a')) == a
+        codes(cs.getConceptViews(LOCAL, 'b')) == b
+        codes(cs.getConceptViews(LOCAL, 'c')) == c
+
+        where:
+        secondaryId   | supportMethod             || a                | b        | c
+        additiveId    | SupportMethod.ADDITIVE    || ['C100', 'C150'] | ['C101'] | ['C102']
+        replacementId | SupportMethod.REPLACEMENT || ['C300']         | ['C101'] | []
+    }
+
+    def "persisting or deleting a CDM reloads all indexes"() {
+        given:
+        def primaryKm = km('primary', primaryId, null)
+        def allKm = km('noPrimary', null, null)
+        def cdmService = new ConceptDeterminationMethodServiceImpl(Stub(ConceptDeterminationMethodDao) {
+            getAll() >> [primaryCdm()]
+        }, new CacheServiceImpl())
+        def service = conceptService(cdmService, [primaryKm, allKm])
+
+        expect:
+        codes(service.byKM(allKm).getConceptViews(LOCAL, 'c')) == []
+
+        when:
+        cdmService.persist(additiveCdm())
+
+        then:
+        codes(service.byKM(allKm).getConceptViews(LOCAL, 'c')) == ['C102']
+        codes(service.getConceptViews(LOCAL, 'c')) == ['C102']
+
+        when: "the primary CDM of a KM changes"
+        cdmService.persist(cdm(primaryId, [mapping('C400', [concept(LOCAL, 'a')])]))
+
+        then:
+        codes(service.byKM(primaryKm).getConceptViews(LOCAL, 'a')) == ['C400']
+        service.byKM(primaryKm).getConceptViews(LOCAL, 'b') == []
+
+        when:
+        cdmService.delete(additiveId)
+
+        then:
+        service.byKM(allKm).getConceptViews(LOCAL, 'c') == []
+        service.getConceptViews(LOCAL, 'c') == []
+    }
+
+    def "persisting a KM rebuilds its index, deleting it evicts its index"() {
+        given:
+        def knowledgeModule = km('km', primaryId, null)
+        def cdmService = new ConceptDeterminationMethodServiceImpl(Stub(ConceptDeterminationMethodDao) {
+            getAll() >> [primaryCdm(), additiveCdm()]
+        }, new CacheServiceImpl())
+        def cacheService = new CacheServiceImpl()
+        def kmService = new KnowledgeModuleServiceImpl(Stub(KnowledgeModuleDao) {
+            getAll() >> [knowledgeModule]
+        }, knowledgePackageService, supportingDataService, cacheService)
+        def service = new ConceptServiceImpl(cdmService, kmService, cacheService)
+        def before = service.byKM(knowledgeModule)
+
+        expect:
+        before.getConceptViews(LOCAL, 'c') == []
+
+        when: "the KM now has a secondary CDM"
+        def updated = km('km', primaryId, [SecondaryCDMImpl.create(additiveId, SupportMethod.ADDITIVE)])
+        kmService.persist(updated)
+        def after = service.byKM(updated)
+
+        then:
+        !after.is(before)
+        codes(after.getConceptViews(LOCAL, 'c')) == ['C102']
+
+        and: "the previous service is left as it was for the evaluations holding it"
+        before.getConceptViews(LOCAL, 'c') == []
+
+        when:
+        kmService.delete(updated.KMId)
+        def rebuilt = service.byKM(updated)
+
+        then: "the cached service is gone; a new one is built on demand"
+        !rebuilt.is(after)
+        codes(rebuilt.getConceptViews(LOCAL, 'c')) == ['C102']
+    }
+
+    private ConceptServiceImpl conceptService(List<ConceptDeterminationMethod> cdms, List<KnowledgeModule> kms) {
+        def cdmService = new ConceptDeterminationMethodServiceImpl(Stub(ConceptDeterminationMethodDao) {
+            getAll() >> cdms
+        }, new CacheServiceImpl())
+        return conceptService(cdmService, kms)
+    }
+
+    private ConceptServiceImpl conceptService(ConceptDeterminationMethodServiceImpl cdmService, List<KnowledgeModule> kms) {
+        def cacheService = new CacheServiceImpl()
+        def kmService = new KnowledgeModuleServiceImpl(Stub(KnowledgeModuleDao) {
+            getAll() >> kms
+        }, knowledgePackageService, supportingDataService, cacheService)
+        return new ConceptServiceImpl(cdmService, kmService, cacheService)
+    }
+
+    private ConceptDeterminationMethod primaryCdm() {
+        return cdm(primaryId, [
+            mapping('C100', [concept(LOCAL, 'a')]),
+            mapping('C101', [concept(LOCAL, 'b')])
+        ])
+    }
+
+    private ConceptDeterminationMethod additiveCdm() {
+        return cdm(additiveId, [
+            mapping('C150', [concept(LOCAL, 'a')]),
+            mapping('C102', [concept(LOCAL, 'c')])
+        ])
+    }
+
+    private ConceptDeterminationMethod replacementCdm() {
+        return cdm(replacementId, [mapping('C300', [concept(LOCAL, 'a')])])
+    }
+
+    private static ConceptDeterminationMethod cdm(CDMId cdmId, List mappings) {
+        return ConceptDeterminationMethodImpl.create(cdmId, cdmId.code, cdmId.code, new Date(), 'user', mappings)
+    }
+
+    private static def mapping(String toCode, List<Concept> fromConcepts) {
+        return ConceptMappingImpl.create(concept('2.16.840.1.113883.3.795.12.1.1', toCode), fromConcepts)
+    }
+
+    private static KnowledgeModule km(String businessId, CDMId primaryCDM, List secondaryCDMs) {
+        return KnowledgeModuleImpl.create(
+        KMIdImpl.create('org.opencds', businessId, '1.0.0'),
+        KMStatus.APPROVED,
+        'executionEngine',
+        null,
+        primaryCDM,
+        secondaryCDMs,
+        'PKG',
+        'package',
+        false,
+        'primaryProcess',
+        null,
+        null,
+        null,
+        new Date(),
+        'user')
+    }
+
+    private static Concept concept(String codeSystem, String code) {
+        return ConceptImpl.create(code, codeSystem, null, null)
+    }
+
+    private static ConceptView view(String toCode, String cdmCode) {
+        return new ConceptViewImpl(concept('2.16.840.1.113883.3.795.12.1.1', toCode), cdmCode)
+    }
+
+    private static List<String> codes(List<ConceptView> views) {
+        return views*.toConcept*.code
+    }
+}
@@ -81,7 +81,7 @@ public class BDBConfigStrategy extends AbstractConfigStrategy {
         PluginDataCacheServiceImpl pdcService = new PluginDataCacheServiceImpl(cacheService, ppService.getAllPluginIds());
         
         FileDao sdFileDao = new FileDaoImpl(fileUtil, sdDir);
-        SupportingDataPackageServiceImpl sdpService = new SupportingDataPackageServiceImpl(sdFileDao, cacheService);
+        SupportingDataPackageServiceImpl sdpService = new SupportingDataPackageServiceImpl(sdFileDao);
         SupportingDataServiceImpl sdService = new SupportingDataServiceImpl(new SupportingDataJeDao(configStore),
                 sdpService, ppService, cacheService);
         
@@ -0,0 +1,33 @@
+package org.opencds.dss.evaluate;
+
+/**
+ * One patient of a batch evaluation: a client-assigned id, echoed back with
+ * the result, and the semantic payload (as it would appear, base64-decoded,
+ * in the <tt>base64EncodedPayload</tt> of a single evaluation request).
+ *
+ * @see EvaluationService#evaluateBatch
+ */
+public class BatchEvaluationItem {
+
+    private final String id;
+    private final byte[] payload;
+
+    public BatchEvaluationItem(String id, byte[] payload) {
+        this.id = id;
+        this.payload = payload;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchEvaluationItem [id=" + id + ", payload=" + (payload == null ? 0 : payload.length) + " bytes]";
+    }
+
+}
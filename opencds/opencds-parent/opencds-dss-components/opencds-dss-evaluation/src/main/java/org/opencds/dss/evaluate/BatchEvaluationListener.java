@@ -0,0 +1,37 @@
+package org.opencds.dss.evaluate;
+
+import org.omg.dss.evaluation.requestresponse.EvaluationResponse;
+
+/**
+ * Receives the results of a batch evaluation as the items complete, in
+ * completion order rather than submission order.
+ * <p>
+ * Callbacks are made from the evaluation threads, concurrently; exactly one
+ * callback is made per item.
+ *
+ * @see EvaluationService#evaluateBatch
+ */
+public interface BatchEvaluationListener {
+
+    /**
+     * @param itemId
+     *            the id of the evaluated {@link BatchEvaluationItem}
+     * @param response
+     *            the response, as it would have been returned for a single
+     *            evaluation of the item
+     */
+    void onResult(String itemId, EvaluationResponse response);
+
+    /**
+     * @param itemId
+     *            the id of the failed {@link BatchEvaluationItem}
+     * @param error
+     *            the cause of the failure; an
+     *            {@link org.opencds.common.exceptions.EvaluationRejectedException}
+     *            if the item could not be submitted, or the
+     *            {@link InterruptedException} or runtime exception that
+     *            stopped the batch while the item was being submitted
+     */
+    void onError(String itemId, Throwable error);
+
+}
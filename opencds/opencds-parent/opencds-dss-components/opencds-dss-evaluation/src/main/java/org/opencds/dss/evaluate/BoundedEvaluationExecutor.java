@@ -0,0 +1,260 @@
+package org.opencds.dss.evaluate;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.opencds.common.exceptions.EvaluationRejectedException;
+
+/**
+ * Default {@link EvaluationExecutor}.
+ * <p>
+ * At most <tt>threads</tt> evaluations run at once and at most
+ * <tt>queueSize</tt> more wait for a thread; anything beyond that is rejected
+ * immediately. Optionally, each KM may be capped to <tt>kmMaxConcurrent</tt>
+ * admitted (running or waiting) evaluations.
+ * <p>
+ * In virtual thread mode (requires a JVM with virtual thread support; falls
+ * back to platform threads otherwise) every task gets its own virtual thread,
+ * so the blocking parts of an evaluation park cheaply, while the number of
+ * evaluations actually running is still capped at <tt>threads</tt>.
+ */
+public class BoundedEvaluationExecutor implements EvaluationExecutor {
+
+    private static final Logger log = LogManager.getLogger();
+
+    public static final int DEFAULT_QUEUE_SIZE = 1024;
+
+    private final int threads;
+    private final int queueSize;
+    private final int kmMaxConcurrent;
+    private final boolean virtualThreads;
+
+    private final ExecutorService executor;
+    private final Semaphore admission;
+    private final Semaphore running;
+    private final ConcurrentMap<String, Semaphore> kmPermits = new ConcurrentHashMap<>();
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+
+    public BoundedEvaluationExecutor() {
+        this(0, DEFAULT_QUEUE_SIZE, 0, false);
+    }
+
+    /**
+     * @param threads
+     *            number of concurrently running evaluations; 0 or less uses the
+     *            number of available processors
+     * @param queueSize
+     *            number of admitted evaluations that may wait for a thread
+     * @param kmMaxConcurrent
+     *            maximum admitted evaluations per KM; 0 or less for no cap
+     * @param virtualThreads
+     *            run each evaluation on its own virtual thread
+     */
+    public BoundedEvaluationExecutor(int threads, int queueSize, int kmMaxConcurrent, boolean virtualThreads) {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.queueSize = Math.max(0, queueSize);
+        this.kmMaxConcurrent = Math.max(0, kmMaxConcurrent);
+        this.admission = new Semaphore(this.threads + this.queueSize);
+
+        ExecutorService virtualExecutor = virtualThreads ? newVirtualThreadExecutor() : null;
+        if (virtualExecutor != null) {
+            this.executor = virtualExecutor;
+            this.running = new Semaphore(this.threads, true);
+            this.virtualThreads = true;
+        } else {
+            // the queue is unbounded here; admission is bounded by the semaphore above
+            this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new EvaluationThreadFactory());
+            this.running = null;
+            this.virtualThreads = false;
+        }
+        log.info("Evaluation executor: threads=" + this.threads + "; queueSize=" + this.queueSize + "; kmMaxConcurrent="
+                + this.kmMaxConcurrent + "; virtualThreads=" + this.virtualThreads);
+    }
+
+    @Override
+    public <T> Future<T> submit(String kmId, Callable<T> task) throws EvaluationRejectedException {
+        if (!admission.tryAcquire()) {
+            throw reject("Evaluation executor is saturated (" + getActiveCount() + " running, " + getQueuedCount()
+                    + " queued); rejecting evaluation of KM: " + kmId);
+        }
+        Semaphore kmPermit = null;
+        if (kmMaxConcurrent > 0 && kmId != null) {
+            kmPermit = kmPermits.computeIfAbsent(kmId, k -> new Semaphore(kmMaxConcurrent));
+            if (!kmPermit.tryAcquire()) {
+                admission.release();
+                throw reject("Concurrency cap of " + kmMaxConcurrent + " reached for KM: " + kmId);
+            }
+        }
+        EvaluationTask<T> evaluationTask = new EvaluationTask<>(task, kmPermit);
+        try {
+            executor.execute(evaluationTask);
+        } catch (RejectedExecutionException e) {
+            evaluationTask.release();
+            rejected.incrementAndGet();
+            throw new EvaluationRejectedException("Evaluation executor is shut down", e);
+        }
+        return evaluationTask;
+    }
+
+    private EvaluationRejectedException reject(String message) {
+        rejected.incrementAndGet();
+        log.warn(message);
+        return new EvaluationRejectedException(message);
+    }
+
+    @Override
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    @Override
+    public int getQueuedCount() {
+        int admitted = threads + queueSize - admission.availablePermits();
+        return Math.max(0, admitted - active.get());
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    @Override
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public int getKmMaxConcurrent() {
+        return kmMaxConcurrent;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "BoundedEvaluationExecutor [threads=" + threads + ", queueSize=" + queueSize + ", kmMaxConcurrent="
+                + kmMaxConcurrent + ", virtualThreads=" + virtualThreads + ", active=" + getActiveCount() + ", queued="
+                + getQueuedCount() + ", rejected=" + getRejectedCount() + ", completed=" + getCompletedCount() + "]";
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("Virtual threads are not supported by this JVM (" + System.getProperty("java.version")
+                    + "); using platform threads");
+            return null;
+        }
+    }
+
+    /**
+     * Holds the admission (and KM) permits from submission until the task has
+     * finished, or until it is cancelled before it started.
+     */
+    private class EvaluationTask<T> extends FutureTask<T> {
+        private final Semaphore kmPermit;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile boolean started;
+
+        EvaluationTask(Callable<T> callable, Semaphore kmPermit) {
+            super(callable);
+            this.kmPermit = kmPermit;
+        }
+
+        @Override
+        public void run() {
+            started = true;
+            try {
+                if (running != null) {
+                    running.acquireUninterruptibly();
+                }
+                active.incrementAndGet();
+                try {
+                    super.run();
+                } finally {
+                    active.decrementAndGet();
+                    completed.incrementAndGet();
+                    if (running != null) {
+                        running.release();
+                    }
+                }
+            } finally {
+                release();
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (!started) {
+                release();
+            }
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                if (kmPermit != null) {
+                    kmPermit.release();
+                }
+                admission.release();
+            }
+        }
+    }
+
+    private static class EvaluationThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+        private final UncaughtExceptionHandler handler = new EvaluationExceptionHandler();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "opencds-eval-" + threadNumber.getAndIncrement());
+            t.setDaemon(true);
+            t.setUncaughtExceptionHandler(handler);
+            return t;
+        }
+    }
+
+    private static class EvaluationExceptionHandler implements UncaughtExceptionHandler {
+        @Override
+        public void uncaughtException(Thread t, Throwable e) {
+            log.error("UncaughtException in thread '" + t.getName() + "' message: " + e.getMessage(), e);
+        }
+    }
+
+}
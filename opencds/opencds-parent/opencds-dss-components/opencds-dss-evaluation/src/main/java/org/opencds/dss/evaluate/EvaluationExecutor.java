@@ -0,0 +1,53 @@
+package org.opencds.dss.evaluate;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import org.opencds.common.exceptions.EvaluationRejectedException;
+
+/**
+ * Runs the per-KM evaluation tasks of {@link EvaluationService}.
+ * <p>
+ * Implementations are expected to bound the work they admit and to fail fast
+ * with an {@link EvaluationRejectedException} rather than queueing without
+ * limit.
+ *
+ * @see BoundedEvaluationExecutor
+ */
+public interface EvaluationExecutor {
+
+    /**
+     * Submits an evaluation task for the given KM.
+     *
+     * @param kmId
+     *            the requested KM, used for per-KM concurrency caps
+     * @param task
+     * @return the pending result
+     * @throws EvaluationRejectedException
+     *             if the task cannot be admitted
+     */
+    <T> Future<T> submit(String kmId, Callable<T> task) throws EvaluationRejectedException;
+
+    /**
+     * @return number of tasks currently running
+     */
+    int getActiveCount();
+
+    /**
+     * @return number of tasks admitted but not yet running
+     */
+    int getQueuedCount();
+
+    /**
+     * @return number of tasks rejected since startup
+     */
+    long getRejectedCount();
+
+    /**
+     * @return number of tasks completed (successfully or not) since startup
+     */
+    long getCompletedCount();
+
+    void shutdown();
+
+}
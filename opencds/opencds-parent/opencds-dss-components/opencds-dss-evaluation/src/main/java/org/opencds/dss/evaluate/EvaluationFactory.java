@@ -25,6 +25,7 @@ import org.omg.dss.evaluation.requestresponse.IterativeEvaluationRequest;
 import org.opencds.common.exceptions.RequiredDataNotProvidedException;
 import org.opencds.common.exceptions.UnrecognizedScopedEntityException;
 import org.opencds.common.structures.EvaluationRequestKMItem;
+import org.opencds.config.api.EvaluationContext;
 import org.opencds.config.api.KnowledgeRepository;
 import org.opencds.config.api.model.ExecutionEngine;
 import org.opencds.config.api.model.KnowledgeModule;
@@ -52,6 +53,11 @@ public class EvaluationFactory {
             RequiredDataNotProvidedExceptionFault,
             UnrecognizedScopedEntityExceptionFault {
         String engineIdentifier = "";
+        EvaluationContext context = EvaluationContext.of(dssRequestKMItem);
+        if (context != null && context.getExecutionEngineInstance() != null) {
+            // resolved when the request was decoded
+            return context.getExecutionEngineInstance();
+        }
         try {
             log.debug("starting EvaluationFactory");
             ExecutionEngine engine = getExecutionEngine(knowledgeRepository, dssRequestKMItem.getRequestedKmId());
@@ -0,0 +1,324 @@
+package org.opencds.dss.evaluate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.omg.dss.common.EntityIdentifier;
+import org.omg.dss.evaluation.requestresponse.DataRequirementItemData;
+import org.omg.dss.evaluation.requestresponse.EvaluationRequest;
+import org.omg.dss.evaluation.requestresponse.FinalKMEvaluationResponse;
+import org.omg.dss.evaluation.requestresponse.KMEvaluationRequest;
+import org.omg.dss.evaluation.requestresponse.Warning;
+import org.opencds.common.exceptions.OpenCDSRuntimeException;
+import org.opencds.config.api.ConfigurationService;
+import org.opencds.config.api.KnowledgeRepository;
+import org.opencds.config.api.model.KnowledgeModule;
+import org.opencds.config.api.model.SecondaryCDM;
+import org.opencds.dss.util.DssUtil;
+
+/**
+ * Opt-in cache of the responses of {@link EvaluationService} evaluations, for
+ * clients that re-evaluate the same patient history many times a day.
+ * <p>
+ * An evaluation is keyed by a SHA-256 hash of the requested KMs (with the
+ * timestamp and CDMs of each KM), the evaluation date (truncated to the day,
+ * in the default time zone), the client language and time zone offset, and
+ * the item id, information model and decoded (gunzipped) payload of each data
+ * requirement item. A KM whose result depends on the time of day must
+ * therefore not be evaluated with this cache enabled.
+ * <p>
+ * The cache holds at most <tt>maxEntries</tt> evaluations, least recently
+ * used first out, each for at most <tt>ttlSeconds</tt>. It is emptied
+ * whenever the KMs, the CDMs or the supporting data change, and again when a
+ * new version of the packages of a KM starts serving (which, for a package
+ * loaded in the background, is some time after the package was stored), as
+ * reported by the (observable) configuration services; a result computed
+ * while the configuration changed is not cached.
+ * <p>
+ * Cached responses are shared by all the evaluations that hit them and must
+ * not be modified. They do not carry the knowledge package version warning
+ * of the evaluation that computed them, since a hit is not served by any
+ * package.
+ */
+public class EvaluationResultCache implements Observer {
+
+    private static final Logger log = LogManager.getLogger();
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<ByteBuffer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // incremented (under the lock) on every invalidation
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * @param configurationService
+     * @param maxEntries
+     *            maximum number of cached evaluations; 0 or less disables the
+     *            cache
+     * @param ttlSeconds
+     *            time to live of a cached evaluation; 0 or less for no limit
+     */
+    public EvaluationResultCache(ConfigurationService configurationService, int maxEntries, long ttlSeconds) {
+        this.maxEntries = Math.max(0, maxEntries);
+        this.ttlNanos = ttlSeconds > 0 ? TimeUnit.SECONDS.toNanos(ttlSeconds) : 0;
+        if (isEnabled()) {
+            KnowledgeRepository kr = configurationService.getKnowledgeRepository();
+            observe(kr.getKnowledgeModuleService());
+            observe(kr.getKnowledgePackageService());
+            observe(kr.getConceptDeterminationMethodService());
+            observe(kr.getSupportingDataService());
+        }
+        log.info("Evaluation result cache: maxEntries=" + this.maxEntries + "; ttlSeconds=" + Math.max(0, ttlSeconds));
+    }
+
+    public boolean isEnabled() {
+        return maxEntries > 0;
+    }
+
+    /**
+     * @return the key of the evaluation of the request at the given time, or
+     *         <tt>null</tt> if the cache is disabled or the evaluation cannot
+     *         be cached (e.g., an unknown KM or a malformed payload, which the
+     *         evaluation itself will report)
+     */
+    Key key(KnowledgeRepository kr, EvaluationRequest evaluationRequest, Date evalTime) {
+        if (!isEnabled() || evaluationRequest == null || evalTime == null) {
+            return null;
+        }
+        long keyGeneration;
+        synchronized (this) {
+            keyGeneration = generation;
+        }
+        MessageDigest digest = newDigest();
+        for (KMEvaluationRequest kmRequest : evaluationRequest.getKmEvaluationRequest()) {
+            KnowledgeModule km = kr.getKnowledgeModuleService().find(DssUtil.makeEIString(kmRequest.getKmId()));
+            if (km == null) {
+                return null;
+            }
+            update(digest, km.getKMId());
+            update(digest, km.getTimestamp() == null ? null : km.getTimestamp().getTime());
+            update(digest, km.getPrimaryCDM());
+            if (km.getSecondaryCDMs() != null) {
+                for (SecondaryCDM secondaryCDM : km.getSecondaryCDMs()) {
+                    update(digest, secondaryCDM.getCDMId());
+                    update(digest, secondaryCDM.getSupportMethod());
+                }
+            }
+        }
+        long time = evalTime.getTime();
+        update(digest, Math.floorDiv(time + TimeZone.getDefault().getOffset(time), TimeUnit.DAYS.toMillis(1)));
+        update(digest, evaluationRequest.getClientLanguage());
+        update(digest, evaluationRequest.getClientTimeZoneOffset());
+        for (DataRequirementItemData driData : evaluationRequest.getDataRequirementItemData()) {
+            if (driData.getDriId() != null) {
+                update(digest, driData.getDriId().getItemId());
+                update(digest, makeEIString(driData.getDriId().getContainingEntityId()));
+            }
+            if (driData.getData() == null) {
+                return null;
+            }
+            update(digest, makeEIString(driData.getData().getInformationModelSSId()));
+            try (InputStream payload = DssUtil.gUnzipStream(driData)) {
+                byte[] buffer = new byte[8192];
+                int read;
+                long length = 0;
+                while ((read = payload.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                    length += read;
+                }
+                update(digest, length);
+            } catch (IOException | RuntimeException e) {
+                log.debug("Not caching evaluation with unreadable payload: " + e.getMessage());
+                return null;
+            }
+        }
+        return new Key(ByteBuffer.wrap(digest.digest()), keyGeneration);
+    }
+
+    /**
+     * @return the cached responses (shared, unmodifiable), or <tt>null</tt>
+     */
+    List<FinalKMEvaluationResponse> get(Key key) {
+        if (key == null) {
+            return null;
+        }
+        synchronized (this) {
+            Entry entry = entries.get(key.hash);
+            if (entry != null && isExpired(entry, System.nanoTime())) {
+                entries.remove(key.hash);
+                evictions.incrementAndGet();
+                entry = null;
+            }
+            if (entry != null) {
+                hits.incrementAndGet();
+                return entry.responses;
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    void put(Key key, List<FinalKMEvaluationResponse> responses) {
+        if (key == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        synchronized (this) {
+            if (key.generation != generation) {
+                // the configuration changed while evaluating
+                return;
+            }
+            entries.put(key.hash, new Entry(Collections.unmodifiableList(withoutPackageVersion(responses)), now));
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (eldest.hasNext()) {
+                Entry entry = eldest.next();
+                if (entries.size() > maxEntries || isExpired(entry, now)) {
+                    eldest.remove();
+                    evictions.incrementAndGet();
+                } else {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Empties the cache.
+     */
+    public void invalidateAll() {
+        synchronized (this) {
+            generation++;
+            entries.clear();
+        }
+        invalidations.incrementAndGet();
+    }
+
+    /**
+     * Called by the configuration services on any change.
+     */
+    @Override
+    public void update(Observable o, Object arg) {
+        log.debug("Configuration changed (" + o + "); invalidating evaluation result cache");
+        invalidateAll();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return number of evaluations evicted for size or age since startup
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.get();
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return ttlNanos > 0 && now - entry.cachedAt >= ttlNanos;
+    }
+
+    private void observe(Object service) {
+        if (service instanceof Observable) {
+            ((Observable) service).addObserver(this);
+        } else {
+            log.warn("Cannot observe " + service + "; cached evaluations are only dropped by age and size");
+        }
+    }
+
+    private static List<FinalKMEvaluationResponse> withoutPackageVersion(List<FinalKMEvaluationResponse> responses) {
+        String packageVersionSSId = DssUtil.makeEIString(EvaluationService.KNOWLEDGE_PACKAGE_VERSION_SSID);
+        List<FinalKMEvaluationResponse> copies = new ArrayList<>(responses.size());
+        for (FinalKMEvaluationResponse response : responses) {
+            FinalKMEvaluationResponse copy = new FinalKMEvaluationResponse();
+            copy.setKmId(response.getKmId());
+            copy.getKmEvaluationResultData().addAll(response.getKmEvaluationResultData());
+            for (Warning warning : response.getWarning()) {
+                if (warning.getValue() == null
+                        || !packageVersionSSId.equals(makeEIString(warning.getValue().getInformationModelSSId()))) {
+                    copy.getWarning().add(warning);
+                }
+            }
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new OpenCDSRuntimeException(e);
+        }
+    }
+
+    private static String makeEIString(EntityIdentifier ei) {
+        return ei == null ? null : DssUtil.makeEIString(ei);
+    }
+
+    private static void update(MessageDigest digest, Object value) {
+        // length-prefixed, so that adjacent values cannot run into each other
+        byte[] bytes = String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(4).putInt(value == null ? -1 : bytes.length).array());
+        digest.update(bytes);
+    }
+
+    static final class Key {
+        private final ByteBuffer hash;
+        private final long generation;
+
+        private Key(ByteBuffer hash, long generation) {
+            this.hash = hash;
+            this.generation = generation;
+        }
+    }
+
+    private static final class Entry {
+        private final List<FinalKMEvaluationResponse> responses;
+        private final long cachedAt;
+
+        Entry(List<FinalKMEvaluationResponse> responses, long cachedAt) {
+            this.responses = responses;
+            this.cachedAt = cachedAt;
+        }
+    }
+
+}
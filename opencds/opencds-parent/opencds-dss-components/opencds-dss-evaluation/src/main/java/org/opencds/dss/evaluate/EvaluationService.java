@@ -1,14 +1,23 @@
 package org.opencds.dss.evaluate;
 
-import java.lang.Thread.UncaughtExceptionHandler;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import javax.xml.datatype.DatatypeConfigurationException;
 import javax.xml.datatype.DatatypeFactory;
@@ -35,16 +44,21 @@ import org.omg.dss.evaluation.EvaluateIterativelyAtSpecifiedTime;
 import org.omg.dss.evaluation.EvaluateIterativelyAtSpecifiedTimeResponse;
 import org.omg.dss.evaluation.EvaluateIterativelyResponse;
 import org.omg.dss.evaluation.EvaluateResponse;
+import org.omg.dss.evaluation.requestresponse.DataRequirementItemData;
 import org.omg.dss.evaluation.requestresponse.EvaluationRequest;
 import org.omg.dss.evaluation.requestresponse.EvaluationResponse;
 import org.omg.dss.evaluation.requestresponse.FinalKMEvaluationResponse;
+import org.omg.dss.evaluation.requestresponse.KMEvaluationRequest;
 import org.omg.dss.evaluation.requestresponse.KMEvaluationResultData;
+import org.omg.dss.evaluation.requestresponse.Warning;
+import org.opencds.common.exceptions.EvaluationRejectedException;
 import org.opencds.common.exceptions.OpenCDSRuntimeException;
 import org.opencds.common.interfaces.OutboundPayloadProcessor;
 import org.opencds.common.structures.EvaluationRequestDataItem;
 import org.opencds.common.structures.EvaluationRequestKMItem;
 import org.opencds.common.utilities.XMLDateUtility;
 import org.opencds.config.api.ConfigurationService;
+import org.opencds.config.api.EvaluationContext;
 import org.opencds.config.api.KnowledgeRepository;
 import org.opencds.config.api.model.KnowledgeModule;
 import org.opencds.config.api.model.SSId;
@@ -78,9 +92,12 @@ public class EvaluationService implements Evaluation {
     private final OutboundPayloadProcessor outboundPayloadProcessor;
     private Map<String, OutboundPayloadProcessor> outboundPayloadProcessorsMap;
 
-    // TODO: Make this configurable
-    private final ForkJoinPool evalPool = new ForkJoinPool(128, ForkJoinPool.defaultForkJoinWorkerThreadFactory, new EvaluationExceptionHandler(),
-            true);
+    private volatile EvaluationExecutor evaluationExecutor;
+    private volatile int batchMaxInFlight;
+    private volatile EvaluationResultCache evaluationResultCache;
+
+    /** Back-off before resubmitting a batch item the (shared) executor rejected. */
+    private static final long BATCH_RESUBMIT_DELAY_MS = 50;
 
     public EvaluationService(ConfigurationService configurationService, RequestProcessor requestProcessor,
             EvaluationFactory evaluationFactory, OutboundPayloadProcessor outboundPayloadProcessor) {
@@ -90,14 +107,6 @@ public class EvaluationService implements Evaluation {
         this.outboundPayloadProcessor = outboundPayloadProcessor;
     }
     
-    private static class EvaluationExceptionHandler implements UncaughtExceptionHandler {
-        @Override
-        public void uncaughtException(Thread t, Throwable e) {
-            log.error("UncaughtException in thread '" + t.getName() + "' message: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-
     /**
      * 
      * @param date as long
@@ -226,35 +235,50 @@ public class EvaluationService implements Evaluation {
         KnowledgeRepository kr = configurationService.getKnowledgeRepository();
         KnowledgeModuleService knowledgeModuleService = kr.getKnowledgeModuleService();
         
+        EvaluationResultCache resultCache = evaluationResultCache;
+        EvaluationResultCache.Key cacheKey = null;
+        if (resultCache != null) {
+            cacheKey = resultCache.key(kr, evaluationRequest, specifiedTime);
+            List<FinalKMEvaluationResponse> cached = resultCache.get(cacheKey);
+            if (cached != null) {
+                log.debug("II: " + interactionId + " evaluation result found in cache");
+                return new ArrayList<>(cached);
+            }
+        }
+
         List<EvaluationRequestKMItem> kmEvaluationRequestList = requestProcessor.decodeInput(kr, request,
                 evalRequestDataItem);
         
-        List<ForkJoinTask<FinalKMEvaluationResponse>> tasks = new ArrayList<>();
+        EvaluationExecutor executor = getEvaluationExecutor();
+        List<Future<FinalKMEvaluationResponse>> tasks = new ArrayList<>();
         for (EvaluationRequestKMItem oneKMEvaluationRequest : kmEvaluationRequestList) {
             log.debug("Starting evaluation of KM");
-           // EvalTask task = new EvalTask(oneKMEvaluationRequest, kr, knowledgeModuleService, evaluationFactory,
-           //         outboundPayloadProcessor); // This is when it was just VMR model
-           //Switch the outboundProcessor based on the model from the semantic signifier mapping
-            EntityIdentifier ei =  evaluationRequest.getDataRequirementItemData().get(0).getData().getInformationModelSSId();
-            SSId ssId = SSIdImpl.create(ei.getScopingEntityId(),ei.getBusinessId(), ei.getVersion());
-            SemanticSignifier ss = kr.getSemanticSignifierService().find(ssId);
-            EvalTask task = new EvalTask(oneKMEvaluationRequest, kr, knowledgeModuleService, evaluationFactory,
-                    outboundPayloadProcessorsMap.get(ss.getName()));
-            tasks.add(evalPool.submit(task));
+            EvalTask task = createEvalTask(kr, knowledgeModuleService, evaluationRequest, oneKMEvaluationRequest);
+            try {
+                tasks.add(executor.submit(oneKMEvaluationRequest.getRequestedKmId(), task));
+            } catch (EvaluationRejectedException e) {
+                for (Future<FinalKMEvaluationResponse> submitted : tasks) {
+                    submitted.cancel(true);
+                }
+                throw new DSSRuntimeExceptionFault(e.getMessage(), e);
+            }
         }
 
         List<FinalKMEvaluationResponse> responses = new ArrayList<>();
 
         boolean failing = false;
         Throwable t = null;
-        for (ForkJoinTask<FinalKMEvaluationResponse> task : tasks) {
+        for (Future<FinalKMEvaluationResponse> task : tasks) {
             if (!failing) {
                 log.debug("Joining on task : " + task.toString());
-                task.quietlyJoin();
-                t = task.getException();
-                if (t == null) {
-                    responses.add(task.getRawResult());
-                } else {
+                try {
+                    responses.add(task.get());
+                } catch (ExecutionException e) {
+                    t = e.getCause();
+                    failing = true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    t = e;
                     failing = true;
                 }
             } else {
@@ -262,11 +286,479 @@ public class EvaluationService implements Evaluation {
             }
         }
         if (t != null) {
-            throw new EvaluationExceptionFault(t.getCause().getMessage(), t.getCause());
+            throw new EvaluationExceptionFault(t.getMessage(), t);
+        }
+        if (cacheKey != null) {
+            resultCache.put(cacheKey, new ArrayList<>(responses));
         }
         return responses;
     }
 
+    private EvalTask createEvalTask(KnowledgeRepository kr, KnowledgeModuleService knowledgeModuleService,
+            EvaluationRequest evaluationRequest, EvaluationRequestKMItem oneKMEvaluationRequest) {
+       // EvalTask task = new EvalTask(oneKMEvaluationRequest, kr, knowledgeModuleService, evaluationFactory,
+       //         outboundPayloadProcessor); // This is when it was just VMR model
+       //Switch the outboundProcessor based on the model from the semantic signifier mapping
+        return new EvalTask(oneKMEvaluationRequest, kr, knowledgeModuleService, evaluationFactory,
+                outboundPayloadProcessorsMap.get(getSemanticSignifier(kr, evaluationRequest, oneKMEvaluationRequest).getName()));
+    }
+
+    /**
+     * @return the semantic signifier of the payload, as resolved when the
+     *         request was decoded
+     */
+    private static SemanticSignifier getSemanticSignifier(KnowledgeRepository kr, EvaluationRequest evaluationRequest,
+            EvaluationRequestKMItem kmItem) {
+        EvaluationContext context = EvaluationContext.of(kmItem);
+        if (context != null && context.getSemanticSignifier() != null) {
+            return context.getSemanticSignifier();
+        }
+        EntityIdentifier ei =  evaluationRequest.getDataRequirementItemData().get(0).getData().getInformationModelSSId();
+        SSId ssId = SSIdImpl.create(ei.getScopingEntityId(),ei.getBusinessId(), ei.getVersion());
+        return kr.getSemanticSignifierService().find(ssId);
+    }
+
+    /**
+     * Non-blocking variant of {@link #evaluate(Evaluate)}.
+     * 
+     * @see #evaluateInternalAsync(String, EvaluationRequest, Date)
+     */
+    public CompletableFuture<EvaluateResponse> evaluateAsync(Evaluate parameters)
+            throws InvalidDriDataFormatExceptionFault,
+            UnrecognizedLanguageExceptionFault,
+            RequiredDataNotProvidedExceptionFault,
+            UnsupportedLanguageExceptionFault,
+            UnrecognizedScopedEntityExceptionFault,
+            EvaluationExceptionFault,
+            InvalidTimeZoneOffsetExceptionFault,
+            DSSRuntimeExceptionFault {
+        final String interactionId = parameters.getInteractionId().getInteractionId();
+        log.debug("II: " + interactionId + " EvaluationService.evaluateAsync started");
+        CompletableFuture<List<FinalKMEvaluationResponse>> evaluation = evaluateInternalAsync(interactionId,
+                parameters.getEvaluationRequest(), XMLDateUtility.xmlGregorian2Date(rightNow()));
+        return cancelling(evaluation, evaluation.thenApply(responses -> {
+                    EvaluateResponse evaluateResponse = createEvaluateResponse();
+                    evaluateResponse.getEvaluationResponse().getFinalKMEvaluationResponse().addAll(responses);
+                    log.info("II: " + interactionId + " EvaluationService.evaluateAsync completed");
+                    return evaluateResponse;
+                }));
+    }
+
+    /**
+     * Non-blocking variant of {@link #evaluateAtSpecifiedTime(EvaluateAtSpecifiedTime)}.
+     * 
+     * @see #evaluateInternalAsync(String, EvaluationRequest, Date)
+     */
+    public CompletableFuture<EvaluateAtSpecifiedTimeResponse> evaluateAtSpecifiedTimeAsync(EvaluateAtSpecifiedTime parameters)
+            throws InvalidDriDataFormatExceptionFault,
+            UnrecognizedLanguageExceptionFault,
+            RequiredDataNotProvidedExceptionFault,
+            UnsupportedLanguageExceptionFault,
+            UnrecognizedScopedEntityExceptionFault,
+            EvaluationExceptionFault,
+            InvalidTimeZoneOffsetExceptionFault,
+            DSSRuntimeExceptionFault {
+        final String interactionId = parameters.getInteractionId().getInteractionId();
+        log.debug("II: " + interactionId + " EvaluationService.evaluateAtSpecifiedTimeAsync started");
+        CompletableFuture<List<FinalKMEvaluationResponse>> evaluation = evaluateInternalAsync(interactionId,
+                parameters.getEvaluationRequest(), XMLDateUtility.xmlGregorian2Date(parameters.getSpecifiedTime()));
+        return cancelling(evaluation, evaluation.thenApply(responses -> {
+                    EvaluateAtSpecifiedTimeResponse evalAtSpecTimeResponse = createEvaluateAtSpecifiedTimeResponse();
+                    evalAtSpecTimeResponse.getEvaluationResponse().getFinalKMEvaluationResponse().addAll(responses);
+                    log.info("II: " + interactionId + " EvaluationService.evaluateAtSpecifiedTimeAsync completed");
+                    return evalAtSpecTimeResponse;
+                }));
+    }
+
+    /**
+     * Cancelling the response (e.g. when the request timed out) cancels the
+     * evaluation it is derived from, and so the KMs still queued or running.
+     */
+    private static <T> CompletableFuture<T> cancelling(final CompletableFuture<?> evaluation,
+            final CompletableFuture<T> response) {
+        response.whenComplete((r, t) -> {
+            if (response.isCancelled()) {
+                evaluation.cancel(true);
+            }
+        });
+        return response;
+    }
+
+    /**
+     * Submits the evaluation of the request to the evaluation executor without
+     * waiting for it. The request is looked up in the result cache and decoded
+     * by a task admitted for the first requested KM, which then submits the
+     * evaluation of the other KMs and evaluates the first KM itself; the
+     * calling thread does no more than submit that task.
+     * <p>
+     * The returned future completes, on the evaluation thread that finishes
+     * last, with the responses in the order of the requested KMs. It completes
+     * exceptionally with the fault the blocking variants throw if the request
+     * cannot be decoded, with an {@link EvaluationExceptionFault} if a KM
+     * fails, and with a {@link DSSRuntimeExceptionFault} caused by an
+     * {@link EvaluationRejectedException} if a saturated executor rejects the
+     * evaluation of one of the other KMs; the evaluation of the other KMs is
+     * then cancelled, as it is when the future is cancelled. Rejection of the
+     * request itself by a saturated executor is thrown by this method, as by
+     * the blocking variants.
+     */
+    private CompletableFuture<List<FinalKMEvaluationResponse>> evaluateInternalAsync(final String interactionId,
+            final EvaluationRequest evaluationRequest, final Date specifiedTime) throws DSSRuntimeExceptionFault {
+        final AsyncEvaluation evaluation = new AsyncEvaluation();
+        List<KMEvaluationRequest> kmRequests = evaluationRequest.getKmEvaluationRequest();
+        String kmId = kmRequests.isEmpty() ? null : DssUtil.makeEIString(kmRequests.get(0).getKmId());
+        Callable<Void> decodingTask = new Callable<Void>() {
+            @Override
+            public Void call() {
+                try {
+                    decodeAndEvaluate(interactionId, evaluationRequest, specifiedTime, evaluation);
+                } catch (Throwable t) {
+                    evaluation.result.completeExceptionally(t);
+                }
+                return null;
+            }
+        };
+        try {
+            evaluation.submitted(getEvaluationExecutor().submit(kmId, decodingTask));
+        } catch (EvaluationRejectedException e) {
+            throw new DSSRuntimeExceptionFault(e.getMessage(), e);
+        }
+        return evaluation.result;
+    }
+
+    /**
+     * The task of {@link #evaluateInternalAsync(String, EvaluationRequest, Date)}
+     * that runs on the evaluation executor.
+     */
+    private void decodeAndEvaluate(String interactionId, EvaluationRequest evaluationRequest, Date specifiedTime,
+            final AsyncEvaluation evaluation) throws Exception {
+        KnowledgeRepository kr = configurationService.getKnowledgeRepository();
+        KnowledgeModuleService knowledgeModuleService = kr.getKnowledgeModuleService();
+
+        final EvaluationResultCache resultCache = evaluationResultCache;
+        final EvaluationResultCache.Key cacheKey = resultCache == null ? null
+                : resultCache.key(kr, evaluationRequest, specifiedTime);
+        if (cacheKey != null) {
+            List<FinalKMEvaluationResponse> cached = resultCache.get(cacheKey);
+            if (cached != null) {
+                log.debug("II: " + interactionId + " evaluation result found in cache");
+                evaluation.result.complete(new ArrayList<>(cached));
+                return;
+            }
+        }
+
+        List<EvaluationRequestKMItem> kmEvaluationRequestList = requestProcessor.decodeInput(kr,
+                new KMEvalRequest(evaluationRequest, specifiedTime),
+                createEvaluationRequestDataItem(interactionId, specifiedTime));
+
+        final FinalKMEvaluationResponse[] responses = new FinalKMEvaluationResponse[kmEvaluationRequestList.size()];
+        final AtomicInteger remaining = new AtomicInteger(responses.length);
+        if (responses.length == 0) {
+            evaluation.result.complete(new ArrayList<FinalKMEvaluationResponse>());
+            return;
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < responses.length; i++) {
+            final EvalTask task = createEvalTask(kr, knowledgeModuleService, evaluationRequest,
+                    kmEvaluationRequestList.get(i));
+            final int index = i;
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    try {
+                        responses[index] = task.call();
+                        if (remaining.decrementAndGet() == 0) {
+                            if (cacheKey != null) {
+                                resultCache.put(cacheKey, new ArrayList<>(Arrays.asList(responses)));
+                            }
+                            evaluation.result.complete(new ArrayList<>(Arrays.asList(responses)));
+                        }
+                    } catch (Throwable t) {
+                        evaluation.result.completeExceptionally(new EvaluationExceptionFault(t.getMessage(), t));
+                    }
+                    return null;
+                }
+            });
+        }
+        EvaluationExecutor executor = getEvaluationExecutor();
+        for (int i = 1; i < responses.length; i++) {
+            log.debug("Starting evaluation of KM");
+            try {
+                evaluation.submitted(executor.submit(kmEvaluationRequestList.get(i).getRequestedKmId(), tasks.get(i)));
+            } catch (EvaluationRejectedException e) {
+                evaluation.result.completeExceptionally(new DSSRuntimeExceptionFault(e.getMessage(), e));
+                return;
+            }
+        }
+        // the first KM is evaluated by this task, which was admitted for it
+        log.debug("Starting evaluation of KM");
+        tasks.get(0).call();
+    }
+
+    /**
+     * The result of an asynchronous evaluation, and the tasks submitted for
+     * it, which are cancelled once it fails or is cancelled.
+     */
+    private static final class AsyncEvaluation {
+        private final CompletableFuture<List<FinalKMEvaluationResponse>> result = new CompletableFuture<>();
+        private final List<Future<Void>> tasks = new ArrayList<>();
+
+        AsyncEvaluation() {
+            result.whenComplete((responseList, t) -> {
+                if (t != null) {
+                    cancelTasks();
+                }
+            });
+        }
+
+        synchronized void submitted(Future<Void> task) {
+            tasks.add(task);
+            if (result.isCompletedExceptionally()) {
+                task.cancel(true);
+            }
+        }
+
+        private synchronized void cancelTasks() {
+            for (Future<Void> task : tasks) {
+                task.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Evaluates many patients against the same KM(s) and evaluation time.
+     * <p>
+     * The <tt>template</tt> carries everything the items have in common: the
+     * requested KM(s), client language and time zone offset and the data
+     * requirement item (id and information model); its payload, if any, is
+     * ignored. Each item is decoded, evaluated and encoded on the evaluation
+     * executor, exactly as a single evaluation of the template with the
+     * item's payload would be, and its response is handed to the listener as
+     * soon as it is available. Each requested KM of an item is evaluated by a
+     * task of its own, so that the per-KM concurrency cap of the executor
+     * applies to every KM of the template; the responses of the KMs of an item
+     * are reported together, in the order of the template.
+     * <p>
+     * Items are read from the iterator as capacity becomes available (at most
+     * {@link #getBatchMaxInFlight()} are in flight at a time), so the caller
+     * may stream them from the request. A batch item rejected by a saturated
+     * executor is resubmitted rather than failed. This method returns once
+     * every item read has been reported to the listener, including when it
+     * fails (or is interrupted) while submitting an item.
+     * 
+     * @param interactionId
+     * @param template
+     * @param specifiedTime
+     *            evaluation time; <tt>null</tt> for the current time
+     * @param items
+     * @param listener
+     * @return number of items evaluated
+     * @throws InterruptedException
+     */
+    public int evaluateBatch(final String interactionId, final EvaluationRequest template, Date specifiedTime,
+            Iterator<BatchEvaluationItem> items, final BatchEvaluationListener listener) throws InterruptedException {
+        if (template == null || template.getKmEvaluationRequest().isEmpty()
+                || template.getDataRequirementItemData().isEmpty()) {
+            throw new IllegalArgumentException(
+                    "A batch evaluation requires at least one kmEvaluationRequest and one dataRequirementItemData");
+        }
+        final Date evalTime = specifiedTime != null ? specifiedTime : new Date();
+        final List<KMEvaluationRequest> kmRequests = new ArrayList<>(template.getKmEvaluationRequest());
+        final List<String> kmIds = new ArrayList<>();
+        for (KMEvaluationRequest kmRequest : kmRequests) {
+            kmIds.add(DssUtil.makeEIString(kmRequest.getKmId()));
+        }
+        final int maxInFlight = getBatchMaxInFlight();
+        final Semaphore inFlight = new Semaphore(maxInFlight);
+        EvaluationExecutor executor = getEvaluationExecutor();
+
+        log.info("II: " + interactionId + " batch evaluation of KM(s) " + kmIds + " started; maxInFlight=" + maxInFlight);
+        long start = System.nanoTime();
+        int count = 0;
+        try {
+            while (items.hasNext()) {
+                // the permit is taken before the item is read, so that an item read is always reported
+                inFlight.acquire();
+                final BatchEvaluationItem item;
+                try {
+                    item = items.next();
+                } catch (RuntimeException e) {
+                    inFlight.release();
+                    throw e;
+                }
+                count++;
+                final BatchItemEvaluation evaluation = new BatchItemEvaluation(interactionId, item, kmRequests.size(),
+                        listener, inFlight);
+                for (int i = 0; i < kmRequests.size(); i++) {
+                    final int index = i;
+                    final KMEvaluationRequest kmRequest = kmRequests.get(i);
+                    Callable<Void> task = new Callable<Void>() {
+                        @Override
+                        public Void call() {
+                            try {
+                                evaluation.completed(index, evaluateBatchItem(interactionId + "/" + item.getId(),
+                                        template, kmRequest, evalTime, item.getPayload()));
+                            } catch (Throwable t) {
+                                evaluation.failed(t, 1);
+                            }
+                            return null;
+                        }
+                    };
+                    try {
+                        submitBatchItem(executor, kmIds.get(i), task);
+                    } catch (EvaluationRejectedException e) {
+                        evaluation.failed(e, 1);
+                    } catch (InterruptedException | RuntimeException e) {
+                        // this and the remaining KMs of the item will never run
+                        evaluation.failed(e, kmRequests.size() - i);
+                        throw e;
+                    }
+                }
+            }
+        } finally {
+            // wait for the items already submitted, even if reading or submitting the items failed
+            inFlight.acquireUninterruptibly(maxInFlight);
+            inFlight.release(maxInFlight);
+            log.info("II: " + interactionId + " batch evaluation of " + count + " items completed in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+        }
+        return count;
+    }
+
+    /**
+     * Submits the task, resubmitting it for as long as a saturated executor
+     * rejects it.
+     * 
+     * @throws EvaluationRejectedException
+     *             if the executor has been shut down
+     */
+    private static void submitBatchItem(EvaluationExecutor executor, String kmId, Callable<Void> task)
+            throws EvaluationRejectedException, InterruptedException {
+        while (true) {
+            try {
+                executor.submit(kmId, task);
+                return;
+            } catch (EvaluationRejectedException e) {
+                if (e.getCause() instanceof RejectedExecutionException) {
+                    // the executor has been shut down; retrying is pointless
+                    throw e;
+                }
+                Thread.sleep(BATCH_RESUBMIT_DELAY_MS);
+            }
+        }
+    }
+
+    /**
+     * Collects the responses of the KMs of one batch item, and reports the
+     * item to the listener (and gives back its in-flight permit) once every
+     * KM has completed, failed or been given up.
+     */
+    private static final class BatchItemEvaluation {
+        private final String interactionId;
+        private final BatchEvaluationItem item;
+        private final BatchEvaluationListener listener;
+        private final Semaphore inFlight;
+        private final AtomicReferenceArray<List<FinalKMEvaluationResponse>> responses;
+        private final AtomicInteger remaining;
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        BatchItemEvaluation(String interactionId, BatchEvaluationItem item, int kms, BatchEvaluationListener listener,
+                Semaphore inFlight) {
+            this.interactionId = interactionId;
+            this.item = item;
+            this.listener = listener;
+            this.inFlight = inFlight;
+            this.responses = new AtomicReferenceArray<>(kms);
+            this.remaining = new AtomicInteger(kms);
+        }
+
+        void completed(int index, List<FinalKMEvaluationResponse> kmResponses) {
+            responses.set(index, kmResponses);
+            countDown(1);
+        }
+
+        /**
+         * @param tasks
+         *            number of KM tasks of the item that end with this failure
+         */
+        void failed(Throwable t, int tasks) {
+            failure.compareAndSet(null, t);
+            countDown(tasks);
+        }
+
+        private void countDown(int tasks) {
+            if (remaining.addAndGet(-tasks) != 0) {
+                return;
+            }
+            try {
+                Throwable t = failure.get();
+                if (t == null) {
+                    EvaluationResponse response = new EvaluationResponse();
+                    for (int i = 0; i < responses.length(); i++) {
+                        response.getFinalKMEvaluationResponse().addAll(responses.get(i));
+                    }
+                    try {
+                        listener.onResult(item.getId(), response);
+                        return;
+                    } catch (Throwable e) {
+                        t = e;
+                    }
+                }
+                log.warn("II: " + interactionId + " batch item " + item.getId() + " failed: " + t.getMessage());
+                listener.onError(item.getId(), t);
+            } finally {
+                inFlight.release();
+            }
+        }
+    }
+
+    /**
+     * Runs the whole pipeline for one KM of a batch item on the calling
+     * (evaluation) thread.
+     */
+    private List<FinalKMEvaluationResponse> evaluateBatchItem(String interactionId, EvaluationRequest template,
+            KMEvaluationRequest kmRequest, Date evalTime, byte[] payload) throws Exception {
+        EvaluationRequest evaluationRequest = createBatchItemRequest(template, kmRequest, payload);
+        EvaluationRequestDataItem evalRequestDataItem = createEvaluationRequestDataItem(interactionId, evalTime);
+        KnowledgeRepository kr = configurationService.getKnowledgeRepository();
+
+        List<EvaluationRequestKMItem> kmItems = requestProcessor.decodeInput(kr,
+                new KMEvalRequest(evaluationRequest, evalTime), evalRequestDataItem);
+
+        List<FinalKMEvaluationResponse> responses = new ArrayList<>();
+        if (kmItems.isEmpty()) {
+            return responses;
+        }
+        OutboundPayloadProcessor outbound = outboundPayloadProcessorsMap
+                .get(getSemanticSignifier(kr, evaluationRequest, kmItems.get(0)).getName());
+        for (EvaluationRequestKMItem kmItem : kmItems) {
+            responses.add(new EvalTask(kmItem, kr, kr.getKnowledgeModuleService(), evaluationFactory, outbound).call());
+        }
+        return responses;
+    }
+
+    private static EvaluationRequest createBatchItemRequest(EvaluationRequest template, KMEvaluationRequest kmRequest,
+            byte[] payload) {
+        DataRequirementItemData templateData = template.getDataRequirementItemData().get(0);
+        SemanticPayload semanticPayload = new SemanticPayload();
+        semanticPayload.setInformationModelSSId(templateData.getData().getInformationModelSSId());
+        semanticPayload.getBase64EncodedPayload().add(payload);
+        DataRequirementItemData data = new DataRequirementItemData();
+        data.setDriId(templateData.getDriId());
+        data.setData(semanticPayload);
+
+        EvaluationRequest evaluationRequest = new EvaluationRequest();
+        evaluationRequest.setClientLanguage(template.getClientLanguage());
+        evaluationRequest.setClientTimeZoneOffset(template.getClientTimeZoneOffset());
+        evaluationRequest.getKmEvaluationRequest().add(kmRequest);
+        evaluationRequest.getDataRequirementItemData().add(data);
+        return evaluationRequest;
+    }
+
+    static final EntityIdentifier KNOWLEDGE_PACKAGE_VERSION_SSID = DssUtil.makeEI("org.opencds",
+            "KnowledgePackageVersion", "1.0");
+
     private static class EvalTask implements Callable<FinalKMEvaluationResponse> {
         private final EvaluationRequestKMItem oneRequest;
 
@@ -303,7 +795,9 @@ public class EvaluationService implements Evaluation {
 
             ItemIdentifier itemId = createItemIdentifier(oneRequest.getEvaluationRequestDataItem());
 
-            KnowledgeModule km = knowledgeModuleService.find(oneRequest.getRequestedKmId());
+            EvaluationContext context = EvaluationContext.of(oneRequest);
+            KnowledgeModule km = context != null ? context.getKnowledgeModule()
+                    : knowledgeModuleService.find(oneRequest.getRequestedKmId());
 
             SemanticPayload semanticPayload = createSemanticPayload(DssUtil.gZipData(result, oneRequest.getEvaluationRequestDataItem()), km.getSSId());
 
@@ -311,6 +805,11 @@ public class EvaluationService implements Evaluation {
 
             response.setKmId(DssUtil.makeEI(oneRequest.getRequestedKmId()));
             response.getKmEvaluationResultData().add(kmerData);
+            if (oneRequest.getKnowledgePackageVersion() >= 0) {
+                log.debug("KMId: " + oneRequest.getRequestedKmId() + " evaluated with knowledge package version "
+                        + oneRequest.getKnowledgePackageVersion());
+                response.getWarning().add(createKnowledgePackageVersionWarning(oneRequest.getKnowledgePackageVersion()));
+            }
 
             log.debug("KMId: " + oneRequest.getRequestedKmId()
                     + " EvaluationService.evaluateAtSpecifiedTime completed one KM");
@@ -327,6 +826,20 @@ public class EvaluationService implements Evaluation {
             return itemIdentifier;
         }
 
+        /**
+         * Reports the version of the knowledge package that served the KM, so
+         * that a response can be traced to the package (e.g., across a hot
+         * swap of the package).
+         */
+        private Warning createKnowledgePackageVersionWarning(long version) {
+            SemanticPayload semanticPayload = new SemanticPayload();
+            semanticPayload.setInformationModelSSId(KNOWLEDGE_PACKAGE_VERSION_SSID);
+            semanticPayload.getBase64EncodedPayload().add(Long.toString(version).getBytes(StandardCharsets.UTF_8));
+            Warning warning = new Warning();
+            warning.setValue(semanticPayload);
+            return warning;
+        }
+
         private KMEvaluationResultData createKMEvaluationResultData(SemanticPayload payload, ItemIdentifier itemId) {
             KMEvaluationResultData kmerData = new KMEvaluationResultData();
             kmerData.setData(payload);
@@ -386,6 +899,52 @@ public class EvaluationService implements Evaluation {
         return er;
     }
 
+	/**
+	 * Returns the configured evaluation executor, creating a default
+	 * {@link BoundedEvaluationExecutor} if none has been set.
+	 */
+	public EvaluationExecutor getEvaluationExecutor() {
+		EvaluationExecutor executor = evaluationExecutor;
+		if (executor == null) {
+			synchronized (this) {
+				if (evaluationExecutor == null) {
+					evaluationExecutor = new BoundedEvaluationExecutor();
+				}
+				executor = evaluationExecutor;
+			}
+		}
+		return executor;
+	}
+
+	public void setEvaluationExecutor(EvaluationExecutor evaluationExecutor) {
+		this.evaluationExecutor = evaluationExecutor;
+	}
+
+	/**
+	 * Returns the evaluation result cache, or <tt>null</tt> if evaluation
+	 * results are not cached.
+	 */
+	public EvaluationResultCache getEvaluationResultCache() {
+		return evaluationResultCache;
+	}
+
+	public void setEvaluationResultCache(EvaluationResultCache evaluationResultCache) {
+		this.evaluationResultCache = evaluationResultCache;
+	}
+
+	/**
+	 * Returns the maximum number of items of one batch evaluation in flight at
+	 * a time; defaults to twice the number of available processors.
+	 */
+	public int getBatchMaxInFlight() {
+		int max = batchMaxInFlight;
+		return max > 0 ? max : 2 * Runtime.getRuntime().availableProcessors();
+	}
+
+	public void setBatchMaxInFlight(int batchMaxInFlight) {
+		this.batchMaxInFlight = batchMaxInFlight;
+	}
+
 	public Map<String, OutboundPayloadProcessor> getOutboundPayloadProcessorsMap() {
 		return outboundPayloadProcessorsMap;
 	}
@@ -0,0 +1,335 @@
+package org.opencds.dss.evaluate;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.omg.dss.common.EntityIdentifier;
+import org.omg.dss.common.InteractionIdentifier;
+import org.omg.dss.common.ItemIdentifier;
+import org.omg.dss.common.SemanticPayload;
+import org.omg.dss.evaluation.Evaluate;
+import org.omg.dss.evaluation.requestresponse.DataRequirementItemData;
+import org.omg.dss.evaluation.requestresponse.EvaluationRequest;
+import org.omg.dss.evaluation.requestresponse.KMEvaluationRequest;
+import org.opencds.config.api.ConfigurationService;
+import org.opencds.config.api.model.KMId;
+import org.opencds.config.api.model.KnowledgeModule;
+import org.opencds.config.api.model.SSId;
+import org.opencds.config.api.model.impl.SSIdImpl;
+import org.opencds.config.api.pool.SemanticSignifierPoolPrewarmer;
+import org.opencds.config.util.EntityIdentifierUtil;
+
+/**
+ * Startup warm-up pipeline, run in the background so that it does not hold
+ * up the deployment:
+ * <ol>
+ * <li>the (background) preload of the knowledge packages and the pre-warming
+ * of the (un)marshaller pools, side by side;</li>
+ * <li>then one synthetic evaluation of each preloaded KM, all at once, so that
+ * the plugins build their supporting data (e.g., the ICE Schedule) before the
+ * first real request.</li>
+ * </ol>
+ * The payload of the synthetic evaluation of a KM is read from
+ * <tt>&lt;payloadLocation&gt;/&lt;KMId&gt;.xml</tt> (e.g.,
+ * <tt>org.nyc.cir^ICE^1.0.0.xml</tt>) if present; otherwise, a KM whose
+ * primary semantic signifier is the vMR is evaluated with a built-in vMR of a
+ * patient without history, and any other KM is not evaluated.
+ * <p>
+ * Failed steps are logged and reported in {@link #getFailures()}. The node is
+ * {@link #isReady() ready} once the pipeline has finished, unless it
+ * {@link State#FAILED failed}: the preload of a preloaded KM failed, none of
+ * the synthetic evaluations succeeded, or the pipeline itself failed. With
+ * <tt>failuresUnready</tt> off, a failed warm-up is reported but the node is
+ * ready anyway, and a request for a KM that failed to warm up fails as it
+ * would have without the warm-up. With it on, the node stays unready until it
+ * is restarted, even if the failed KMs are fixed (e.g., their packages are
+ * uploaded) in the meantime.
+ */
+public class EvaluationWarmup {
+    private static final Logger log = LogManager.getLogger();
+
+    public enum State {
+        PENDING, WARMING, READY, FAILED
+    }
+
+    private static final SSIdImpl VMR_SSID = SSIdImpl.create("org.opencds.vmr", "VMR", "1.0");
+
+    private static final String VMR_PAYLOAD = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+            + "<ns3:cdsInput xmlns:ns3=\"org.opencds.vmr.v1_0.schema.cdsinput\">"
+            + "<templateId root=\"2.16.840.1.113883.3.795.11.1.1\"/>"
+            + "<cdsContext><cdsSystemUserPreferredLanguage code=\"en\" codeSystem=\"2.16.840.1.113883.6.99\" displayName=\"English\"/></cdsContext>"
+            + "<vmrInput><templateId root=\"2.16.840.1.113883.3.795.11.1.1\"/>"
+            + "<patient><templateId root=\"2.16.840.1.113883.3.795.11.2.1.1\"/>"
+            + "<id root=\"2.16.840.1.113883.3.795.12.100.11\" extension=\"warmup\"/>"
+            + "<demographics><birthTime value=\"1990-01-01\"/><gender code=\"F\" codeSystem=\"2.16.840.1.113883.5.1\"/></demographics>"
+            + "<clinicalStatements/></patient></vmrInput></ns3:cdsInput>";
+
+    private final ConfigurationService configurationService;
+    private final EvaluationService evaluationService;
+    private final SemanticSignifierPoolPrewarmer poolPrewarmer;
+    private final boolean evaluationsEnabled;
+    private final String payloadLocation;
+    private final boolean failuresUnready;
+
+    private volatile State state = State.PENDING;
+    private volatile long durationMillis = -1;
+    private final AtomicInteger attemptedKMs = new AtomicInteger();
+    private final AtomicInteger warmedUpKMs = new AtomicInteger();
+    private final List<String> failures = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param configurationService
+     * @param evaluationService
+     * @param poolPrewarmer
+     *            may be <tt>null</tt>
+     * @param evaluationsEnabled
+     *            whether to run the synthetic evaluations
+     * @param payloadLocation
+     *            directory of the synthetic evaluation payloads; may be
+     *            <tt>null</tt> or empty
+     * @param failuresUnready
+     *            whether a {@link State#FAILED failed} warm-up keeps the node
+     *            from becoming ready
+     */
+    public EvaluationWarmup(ConfigurationService configurationService, EvaluationService evaluationService,
+            SemanticSignifierPoolPrewarmer poolPrewarmer, boolean evaluationsEnabled, String payloadLocation,
+            boolean failuresUnready) {
+        this.configurationService = configurationService;
+        this.evaluationService = evaluationService;
+        this.poolPrewarmer = poolPrewarmer;
+        this.evaluationsEnabled = evaluationsEnabled;
+        this.payloadLocation = payloadLocation == null || payloadLocation.trim().isEmpty() ? null : payloadLocation.trim();
+        this.failuresUnready = failuresUnready;
+    }
+
+    /**
+     * Starts the warm-up in the background.
+     */
+    public void start() {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                warmUp();
+            }
+        }, "opencds-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void warmUp() {
+        state = State.WARMING;
+        long start = System.nanoTime();
+        boolean failed = false;
+        try {
+            CompletableFuture<Void> pools = poolPrewarmer == null ? CompletableFuture.<Void> completedFuture(null)
+                    : CompletableFuture.runAsync(new Runnable() {
+                        @Override
+                        public void run() {
+                            poolPrewarmer.prewarm();
+                        }
+                    });
+            await("(un)marshaller pool pre-warming", pools);
+            List<KMId> failedPreloads = await("knowledge package preload", configurationService.getPreload());
+            if (failedPreloads == null) {
+                failed = true;
+            } else if (!failedPreloads.isEmpty()) {
+                for (KMId kmId : failedPreloads) {
+                    failures.add(EntityIdentifierUtil.makeEIString(kmId) + ": preload failed");
+                }
+                failed = true;
+            }
+
+            if (evaluationsEnabled) {
+                List<CompletableFuture<Void>> evaluations = new ArrayList<>();
+                for (KnowledgeModule km : configurationService.getKnowledgeRepository().getKnowledgeModuleService().getAll()) {
+                    if (km.isPreload()) {
+                        evaluations.add(warmUp(km));
+                    }
+                }
+                CompletableFuture.allOf(evaluations.toArray(new CompletableFuture<?>[evaluations.size()])).join();
+                if (attemptedKMs.get() > 0 && warmedUpKMs.get() == 0) {
+                    failed = true;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Warm-up failed", e);
+            failures.add("warm-up: " + e.getMessage());
+            failed = true;
+        } finally {
+            durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            state = failed ? State.FAILED : State.READY;
+            log.info("Warm-up finished in " + durationMillis + "ms; " + warmedUpKMs.get() + " of " + attemptedKMs.get()
+                    + " KM(s) evaluated; " + failures.size() + " failure(s)");
+            if (failed) {
+                log.error("Warm-up failed; the node is " + (failuresUnready ? "not ready" : "ready nonetheless")
+                        + ": " + failures);
+            }
+        }
+    }
+
+    /**
+     * @return the result of the step, or <tt>null</tt> if there is no such
+     *         step or it failed
+     */
+    private <T> T await(String step, CompletableFuture<T> future) {
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.join();
+        } catch (RuntimeException e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            log.warn("Warm-up step failed: " + step, cause);
+            failures.add(step + ": " + cause.getMessage());
+            return null;
+        }
+    }
+
+    private CompletableFuture<Void> warmUp(KnowledgeModule km) {
+        final String kmId = EntityIdentifierUtil.makeEIString(km.getKMId());
+        byte[] payload;
+        try {
+            payload = getPayload(km, kmId);
+        } catch (IOException e) {
+            attemptedKMs.incrementAndGet();
+            evaluationFailed(kmId, e);
+            return CompletableFuture.completedFuture(null);
+        }
+        if (payload == null) {
+            log.debug("No warm-up payload for KM " + kmId + "; not evaluated");
+            return CompletableFuture.completedFuture(null);
+        }
+        attemptedKMs.incrementAndGet();
+        try {
+            return evaluationService.evaluateAsync(createEvaluate(km.getKMId(), ssId(km), payload)).handle((response, t) -> {
+                if (t != null) {
+                    evaluationFailed(kmId, t instanceof CompletionException && t.getCause() != null ? t.getCause() : t);
+                } else {
+                    log.debug("Warm-up evaluation of KM " + kmId + " completed");
+                    warmedUpKMs.incrementAndGet();
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            evaluationFailed(kmId, e);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private void evaluationFailed(String kmId, Throwable cause) {
+        log.warn("Warm-up evaluation of KM " + kmId + " failed: " + cause.getMessage());
+        failures.add(kmId + ": " + cause.getMessage());
+    }
+
+    private byte[] getPayload(KnowledgeModule km, String kmId) throws IOException {
+        if (payloadLocation != null) {
+            File payload = new File(payloadLocation, kmId + ".xml");
+            if (payload.isFile()) {
+                return Files.readAllBytes(payload.toPath());
+            }
+        }
+        if (VMR_SSID.equals(ssId(km))) {
+            return VMR_PAYLOAD.getBytes(StandardCharsets.UTF_8);
+        }
+        return null;
+    }
+
+    /**
+     * @return the primary semantic signifier of the KM, defaulting to the vMR
+     */
+    private static SSIdImpl ssId(KnowledgeModule km) {
+        return km.getSSId() == null ? VMR_SSID : SSIdImpl.create(km.getSSId());
+    }
+
+    private static Evaluate createEvaluate(KMId kmId, SSId ssId, byte[] payload) {
+        InteractionIdentifier interactionId = new InteractionIdentifier();
+        interactionId.setScopingEntityId("org.opencds");
+        interactionId.setInteractionId("warmup-" + EntityIdentifierUtil.makeEIString(kmId));
+        try {
+            interactionId.setSubmissionTime(DatatypeFactory.newInstance().newXMLGregorianCalendar(new GregorianCalendar()));
+        } catch (DatatypeConfigurationException e) {
+            throw new IllegalStateException(e);
+        }
+
+        KMEvaluationRequest kmEvaluationRequest = new KMEvaluationRequest();
+        kmEvaluationRequest.setKmId(entityIdentifier(kmId.getScopingEntityId(), kmId.getBusinessId(), kmId.getVersion()));
+
+        SemanticPayload semanticPayload = new SemanticPayload();
+        semanticPayload.setInformationModelSSId(
+                entityIdentifier(ssId.getScopingEntityId(), ssId.getBusinessId(), ssId.getVersion()));
+        semanticPayload.getBase64EncodedPayload().add(payload);
+        ItemIdentifier driId = new ItemIdentifier();
+        driId.setItemId("cdsPayload");
+        driId.setContainingEntityId(entityIdentifier(kmId.getScopingEntityId(), "WarmupData", kmId.getVersion()));
+        DataRequirementItemData data = new DataRequirementItemData();
+        data.setDriId(driId);
+        data.setData(semanticPayload);
+
+        EvaluationRequest evaluationRequest = new EvaluationRequest();
+        evaluationRequest.setClientLanguage("en");
+        evaluationRequest.setClientTimeZoneOffset("+0000");
+        evaluationRequest.getKmEvaluationRequest().add(kmEvaluationRequest);
+        evaluationRequest.getDataRequirementItemData().add(data);
+
+        Evaluate evaluate = new Evaluate();
+        evaluate.setInteractionId(interactionId);
+        evaluate.setEvaluationRequest(evaluationRequest);
+        return evaluate;
+    }
+
+    private static EntityIdentifier entityIdentifier(String scopingEntityId, String businessId, String version) {
+        EntityIdentifier ei = new EntityIdentifier();
+        ei.setScopingEntityId(scopingEntityId);
+        ei.setBusinessId(businessId);
+        ei.setVersion(version);
+        return ei;
+    }
+
+    /**
+     * @return whether the warm-up has finished, and has not failed (or its
+     *         failure does not keep the node from becoming ready)
+     */
+    public boolean isReady() {
+        State current = state;
+        return current == State.READY || current == State.FAILED && !failuresUnready;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return duration of the warm-up, or -1 if not finished
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * @return number of KMs evaluated successfully by the warm-up
+     */
+    public int getWarmedUpKMCount() {
+        return warmedUpKMs.get();
+    }
+
+    public List<String> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+}
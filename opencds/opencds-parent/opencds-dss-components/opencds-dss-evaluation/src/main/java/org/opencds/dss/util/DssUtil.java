@@ -5,7 +5,10 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.Iterator;
 import java.util.List;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
@@ -149,6 +152,58 @@ public class DssUtil {
         return result;
     }
 
+    /**
+     * Streaming counterpart of {@link #gUnzipData(DataRequirementItemData)}.
+     * Returns a single stream over all payload chunks, in order, gunzipping
+     * each chunk on the fly if the containing entity id has the gzip
+     * designation. No chunk is copied and no intermediate concatenated
+     * <tt>byte[]</tt> is built.
+     *
+     * @param driData
+     * @return
+     */
+    public static InputStream gUnzipStream(DataRequirementItemData driData) {
+        final boolean gzipDesignated = isGzipDesignated(driData);
+        final List<byte[]> base64EncodedPayload = driData.getData().getBase64EncodedPayload();
+        for (byte[] chunk : base64EncodedPayload) {
+            boolean gzipped = isGzipped(chunk);
+            if (gzipDesignated && !gzipped) {
+                throw new IllegalArgumentException("Containing entity ID designated a gzipped payload but the load wasn't gzipped.");
+            } else if (!gzipDesignated && gzipped) {
+                throw new IllegalArgumentException("Containing entity ID not designating a gzipped payload but the load was gzipped.");
+            }
+        }
+        final Iterator<byte[]> chunks = base64EncodedPayload.iterator();
+        // chunk streams are opened lazily, as the SequenceInputStream advances
+        return new SequenceInputStream(new Enumeration<InputStream>() {
+            @Override
+            public boolean hasMoreElements() {
+                return chunks.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                InputStream inputStream = new ByteArrayInputStream(chunks.next());
+                if (!gzipDesignated) {
+                    return inputStream;
+                }
+                try {
+                    return new GZIPInputStream(inputStream);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Error processing a designated gzipped payload: " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    private static boolean isGzipped(byte[] chunk) {
+        if (chunk == null || chunk.length < 2) {
+            return false;
+        }
+        int magic = chunk[0] & 0xff | ((chunk[1] << 8) & 0xff00);
+        return magic == GZIPInputStream.GZIP_MAGIC;
+    }
+
     /**
      * Checks if an containing entity is designated as gzipped.
      *
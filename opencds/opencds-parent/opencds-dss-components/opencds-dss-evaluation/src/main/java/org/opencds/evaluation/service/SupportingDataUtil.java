@@ -1,5 +1,6 @@
 package org.opencds.evaluation.service;
 
+import java.nio.ByteBuffer;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -17,7 +18,7 @@ public class SupportingDataUtil {
                 knowledgeModule.getKMId());
         Map<String, org.opencds.plugin.SupportingData> supportingData = new LinkedHashMap<>();
         for (SupportingData sd : supportingDataList) {
-            byte[] data = knowledgeRepository.getSupportingDataPackageService().getPackageBytes(sd);
+            ByteBuffer data = knowledgeRepository.getSupportingDataPackageService().getPackageByteBuffer(sd);
             supportingData.put(sd.getIdentifier(), org.opencds.plugin.SupportingData.create(sd.getIdentifier(),
                     EntityIdentifierUtil.makeEIString(sd.getKMId()), EntityIdentifierUtil.makeEIString(sd.getLoadedBy()), sd.getPackageId(), sd.getPackageType(), data));
         }
@@ -16,13 +16,13 @@
 
 package org.opencds.service.evaluate;
 
-import java.io.UnsupportedEncodingException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 
-import org.apache.commons.lang3.ArrayUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.omg.dss.DSSRuntimeExceptionFault;
@@ -44,11 +44,14 @@ import org.opencds.common.interfaces.InboundPayloadProcessor;
 import org.opencds.common.structures.EvaluationRequestDataItem;
 import org.opencds.common.structures.EvaluationRequestKMItem;
 import org.opencds.common.structures.Payload;
+import org.opencds.config.api.EvaluationContext;
 import org.opencds.config.api.FactListsBuilder;
 import org.opencds.config.api.KnowledgeRepository;
+import org.opencds.config.api.model.ExecutionEngine;
 import org.opencds.config.api.model.KnowledgeModule;
 import org.opencds.config.api.model.SSId;
 import org.opencds.config.api.model.SemanticSignifier;
+import org.opencds.config.api.model.impl.KMIdImpl;
 import org.opencds.config.api.model.impl.SSIdImpl;
 import org.opencds.dss.evaluate.KMEvalRequest;
 import org.opencds.dss.util.DssUtil;
@@ -209,9 +212,9 @@ public class RequestProcessorService implements RequestProcessor
                     + " payloads, and only the first one can be used.");
         }
 
-        byte[] inputPayload = decodeInputPayload(listDRIData.get(0));
+        Payload inputPayload = decodeInputPayload(listDRIData.get(0), request.getEvalTime());
 
-        updateDSSRequestDataItem(evaluationRequestDataItem, request.getEvaluationRequest(), listDRIData, inputPayload);
+        updateDSSRequestDataItem(evaluationRequestDataItem, request.getEvaluationRequest(), listDRIData);
         
         // get SemanticSignifier
         EntityIdentifier ei = request.getEvaluationRequest().getDataRequirementItemData().get(0).getData()
@@ -224,8 +227,8 @@ public class RequestProcessorService implements RequestProcessor
 
         Object cdsInput = getCdsInput(ss, request, evaluationRequestDataItem, inputPayload);
         evaluationRequestDataItem.setCdsInput(cdsInput);
-        // Building the fact list below is relatively expensive so aggressively setting the potentially large payload
-        // to null here so it's eligible for GC sooner.
+        // The payload was streamed into the JAXB tree; nothing else holds on to it, so it is eligible for GC
+        // before the (relatively expensive) fact lists are built below.
         inputPayload = null;
 
         log.debug("II: " + evaluationRequestDataItem.getInteractionId() + " unmarshalling completed");
@@ -241,20 +244,43 @@ public class RequestProcessorService implements RequestProcessor
         FactListsBuilder flb = knowledgeRepository.getSemanticSignifierService().getFactListsBuilder(ssId);
         
         for (KMEvaluationRequest kmeRequest : request.getEvaluationRequest().getKmEvaluationRequest()) {
-            String kmidString = DssUtil.makeEIString(kmeRequest.getKmId());
-            KnowledgeModule km = knowledgeRepository.getKnowledgeModuleService().find(kmidString);
+            EntityIdentifier kmEI = kmeRequest.getKmId();
+            String kmidString = DssUtil.makeEIString(kmEI);
+            KnowledgeModule km = knowledgeRepository.getKnowledgeModuleService().find(
+                    KMIdImpl.create(kmEI.getScopingEntityId(), kmEI.getBusinessId(), kmEI.getVersion()));
             if (km == null) {
                 throw new OpenCDSRuntimeException("Unknown KMId : " + kmidString);
             }
             Map<Class<?>, List<?>> allFactLists = flb.buildFactLists(knowledgeRepository, km, cdsInput, request.getEvalTime());
-            kmItems.add(new EvaluationRequestKMItem(kmidString, evaluationRequestDataItem, cdsInput, allFactLists));
+            kmItems.add(new EvaluationRequestKMItem(kmidString, evaluationRequestDataItem, cdsInput, allFactLists,
+                    createEvaluationContext(knowledgeRepository, km, ssId, ss, flb)));
         }
         
         return kmItems;
     }
 
+    /**
+     * Resolves, once per request, what the evaluation of the KM needs. An
+     * invalid (or unloadable) execution engine is left unresolved, for the
+     * EvaluationFactory to report.
+     */
+    private EvaluationContext createEvaluationContext(KnowledgeRepository knowledgeRepository, KnowledgeModule km,
+            SSId ssId, SemanticSignifier ss, FactListsBuilder flb) {
+        ExecutionEngine engine = km.getExecutionEngine() == null ? null
+                : knowledgeRepository.getExecutionEngineService().find(km.getExecutionEngine());
+        Object engineInstance = null;
+        if (engine != null && engine.getIdentifier() != null && !engine.getIdentifier().isEmpty()) {
+            try {
+                engineInstance = knowledgeRepository.getExecutionEngineService().getExecutionEngineInstance(engine);
+            } catch (RuntimeException e) {
+                log.debug("Cannot resolve execution engine " + engine.getIdentifier() + " for KM " + km.getKMId());
+            }
+        }
+        return new EvaluationContext(km, ssId, ss, flb, engine, engineInstance);
+    }
+
     private void updateDSSRequestDataItem(EvaluationRequestDataItem evaluationRequestDataItem, EvaluationRequest evaluationRequest,
-            List<DataRequirementItemData> listDRIData, byte[] inputPayload) {
+            List<DataRequirementItemData> listDRIData) {
         // dssRequestDataItem.setInteractionId(ii.getInteractionId());
         evaluationRequestDataItem.setClientLanguage(evaluationRequest.getClientLanguage());
         evaluationRequestDataItem.setClientTimeZoneOffset(evaluationRequest.getClientTimeZoneOffset());
@@ -263,39 +289,36 @@ public class RequestProcessorService implements RequestProcessor
                 .getContainingEntityId()));
         evaluationRequestDataItem.setExternalFactModelSSId(DssUtil.makeEIString(listDRIData.get(0).getData()
                 .getInformationModelSSId()));
-        evaluationRequestDataItem.setInputPayload(inputPayload);
     }
 
     /**
+     * Builds a streaming payload over the (possibly gzipped) chunks of the
+     * request; the chunks are never concatenated into a single array.
+     * 
      * @param driData
+     * @param evalTime
      * @return
-     * @throws DSSRuntimeExceptionFault
-     * @throws UnsupportedEncodingException
      */
-    private byte[] decodeInputPayload(DataRequirementItemData driData) throws DSSRuntimeExceptionFault {
-
-        // gunzip the data if it has been compressed
-        List<byte[]> decodedPayloadChunks = DssUtil.gUnzipData(driData);
-        byte[] payload = null;
-        for (int i = 0; i < decodedPayloadChunks.size(); i++)
-        {
-            if (i == 0)
-                payload = decodedPayloadChunks.get(0);
-            else
-                payload = ArrayUtils.addAll(payload, decodedPayloadChunks.get(i));
+    private Payload decodeInputPayload(DataRequirementItemData driData, Date evalTime) {
+
+        // gunzip the data on the fly if it has been compressed
+        InputStream payloadStream = DssUtil.gUnzipStream(driData);
+        if (log.isTraceEnabled()) {
+            Payload payload = new Payload(payloadStream, evalTime);
+            byte[] bytes = payload.getPayload();
+            log.trace(new String(bytes));
+            return new Payload(bytes, evalTime);
         }
-        if (log.isTraceEnabled())
-            log.trace(new String(payload));
-        return payload;
+        return new Payload(payloadStream, evalTime);
     }
 
-    private Object getCdsInput(SemanticSignifier ss, KMEvalRequest request, EvaluationRequestDataItem evaluationRequestDataItem, byte[] inputPayload)
+    private Object getCdsInput(SemanticSignifier ss, KMEvalRequest request, EvaluationRequestDataItem evaluationRequestDataItem, Payload inputPayload)
             throws DSSRuntimeExceptionFault,
             InvalidDriDataFormatExceptionFault,
             RequiredDataNotProvidedExceptionFault {
         try {
         	String modelProcessor = ss.getName();
-        	return inboundPayloadProcessorsMap.get( modelProcessor).buildInput(ss, new Payload(inputPayload, request.getEvalTime()));
+        	return inboundPayloadProcessorsMap.get( modelProcessor).buildInput(ss, inputPayload);
             // return inboundPayloadProcessor.buildInput(ss, new Payload(inputPayloadString, request.getEvalTime()));
         } catch (InvalidDriDataFormatException e) {
             throw new InvalidDriDataFormatExceptionFault(e.getMessage(), e);
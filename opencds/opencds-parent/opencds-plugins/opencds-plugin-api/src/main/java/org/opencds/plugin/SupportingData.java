@@ -1,5 +1,6 @@
 package org.opencds.plugin;
 
+import java.nio.ByteBuffer;
 
 public final class SupportingData {
     private final String identifier;
@@ -7,19 +8,33 @@ public final class SupportingData {
     private final String loadedByPluginId;
     private final String packageId;
     private final String packageType;
-    private final byte[] data;
+    private final ByteBuffer dataBuffer;
+    private volatile byte[] data;
 
-    private SupportingData(String identifier, String kmId, String loadedByPluginId, String packageId, String packageType, byte[] data) {
+    private SupportingData(String identifier, String kmId, String loadedByPluginId, String packageId, String packageType, byte[] data,
+            ByteBuffer dataBuffer) {
         this.identifier = identifier;
         this.kmId = kmId;
         this.loadedByPluginId = loadedByPluginId;
         this.packageId = packageId;
         this.packageType = packageType;
         this.data = data;
+        this.dataBuffer = dataBuffer;
     }
 
     public static SupportingData create(String identifier, String kmId, String loadedByPluginId, String packageId, String packageType, byte[] data) {
-        return new SupportingData(identifier, kmId, loadedByPluginId, packageId, packageType, data);
+        return new SupportingData(identifier, kmId, loadedByPluginId, packageId, packageType, data, null);
+    }
+
+    /**
+     * Creates SupportingData over the (possibly memory-mapped) package contents
+     * in the remaining bytes of the buffer; the contents are only copied to a
+     * byte array if {@link #getData()} is called.
+     */
+    public static SupportingData create(String identifier, String kmId, String loadedByPluginId, String packageId, String packageType,
+            ByteBuffer dataBuffer) {
+        return new SupportingData(identifier, kmId, loadedByPluginId, packageId, packageType, null,
+                dataBuffer == null ? null : dataBuffer.asReadOnlyBuffer());
     }
 
     public String getIdentifier() {
@@ -42,8 +57,30 @@ public final class SupportingData {
         return packageType;
     }
 
+    /**
+     * @return the package contents; for SupportingData created over a buffer,
+     *         a copy made on first call
+     */
     public byte[] getData() {
-        return data;
+        byte[] bytes = data;
+        if (bytes == null && dataBuffer != null) {
+            ByteBuffer view = dataBuffer.duplicate();
+            bytes = new byte[view.remaining()];
+            view.get(bytes);
+            data = bytes;
+        }
+        return bytes;
+    }
+
+    /**
+     * @return a read-only view of the package contents, with its own position
+     *         and limit, without copying them; <tt>null</tt> if there are none
+     */
+    public ByteBuffer getDataBuffer() {
+        if (dataBuffer != null) {
+            return dataBuffer.duplicate();
+        }
+        return data == null ? null : ByteBuffer.wrap(data).asReadOnlyBuffer();
     }
 
 }
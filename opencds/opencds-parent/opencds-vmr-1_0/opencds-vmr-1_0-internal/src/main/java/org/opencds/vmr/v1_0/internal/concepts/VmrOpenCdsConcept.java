@@ -16,6 +16,8 @@
 
 package org.opencds.vmr.v1_0.internal.concepts;
 
+import java.io.Serializable;
+
 
 
 /**
@@ -32,7 +34,7 @@ package org.opencds.vmr.v1_0.internal.concepts;
  * @author kawam001
  *
  */
-public abstract class VmrOpenCdsConcept {
+public abstract class VmrOpenCdsConcept implements Serializable {
 	protected String Id;				//Note this is a unique internal Id, generated from a UUID
 	protected String conceptTargetId; // id of the concept target (e.g., ClinicalStatement, Entity)
 	protected String openCdsConceptCode; 
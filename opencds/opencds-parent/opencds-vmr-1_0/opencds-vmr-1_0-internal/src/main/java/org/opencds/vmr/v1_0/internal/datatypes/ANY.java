@@ -16,12 +16,14 @@
 
 package org.opencds.vmr.v1_0.internal.datatypes;
 
+import java.io.Serializable;
+
 
 /**
  * <p>Java class for ANY complex type.
  * 
  */
-public class ANY {
+public class ANY implements Serializable {
 
 //	org.opencds.vmr.v1_0.schema.ANY anyObjectAsIs;
 	
@@ -19,12 +19,11 @@ package org.opencds.vmr.v1_0.mappings.in;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.function.Supplier;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.opencds.common.exceptions.OpenCDSRuntimeException;
 import org.opencds.common.terminology.CodeSystems;
-import org.opencds.common.utilities.MiscUtility;
 import org.opencds.config.api.model.Concept;
 import org.opencds.config.api.model.ConceptView;
 import org.opencds.config.api.service.ConceptService;
@@ -1147,17 +1146,12 @@ public class BuildOpenCDSConceptLists implements Cloneable {
      */
     private <C extends VmrOpenCdsConcept> void populateVmrOpenCdsConcept(String conceptTargetId, Class<C> conceptClass,
             ConceptLists conceptLists, List<ConceptView> conceptViews) {
-        if (conceptViews != null) {
+        if (conceptViews != null && !conceptViews.isEmpty()) {
+            Supplier<C> factory = ConceptFactories.get(conceptClass);
             for (ConceptView conceptView : conceptViews) {
-                C vocc = null;
-                try {
-                    vocc = conceptClass.newInstance();
-                } catch (InstantiationException | IllegalAccessException e) {
-                    e.printStackTrace();
-                    throw new OpenCDSRuntimeException(e.getMessage(), e);
-                }
+                C vocc = factory.get();
                 Concept toConcept = conceptView.getToConcept();
-                vocc.setId(MiscUtility.getIDAsString());
+                vocc.setId(conceptLists.nextId());
                 vocc.setConceptTargetId(conceptTargetId);
                 vocc.setOpenCdsConceptCode(toConcept.getCode());
                 vocc.setDeterminationMethodCode(conceptView.getCdmCode());
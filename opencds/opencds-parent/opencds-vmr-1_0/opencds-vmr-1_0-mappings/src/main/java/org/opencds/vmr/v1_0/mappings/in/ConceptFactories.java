@@ -0,0 +1,234 @@
+/**
+ * Copyright 2011, 2012 OpenCDS.org
+ *	Licensed under the Apache License, Version 2.0 (the "License");
+ *	you may not use this file except in compliance with the License.
+ *	You may obtain a copy of the License at
+ *
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *	Unless required by applicable law or agreed to in writing, software
+ *	distributed under the License is distributed on an "AS IS" BASIS,
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *	See the License for the specific language governing permissions and
+ *	limitations under the License.
+ *	
+ */
+
+package org.opencds.vmr.v1_0.mappings.in;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.opencds.common.exceptions.OpenCDSRuntimeException;
+import org.opencds.vmr.v1_0.internal.concepts.AdverseEventAffectedBodySiteConcept;
+import org.opencds.vmr.v1_0.internal.concepts.AdverseEventAffectedBodySiteLateralityConcept;
+import org.opencds.vmr.v1_0.internal.concepts.AdverseEventAgentConcept;
+import org.opencds.vmr.v1_0.internal.concepts.AdverseEventConcept;
+import org.opencds.vmr.v1_0.internal.concepts.AdverseEventCriticalityConcept;
+import org.opencds.vmr.v1_0.internal.concepts.AdverseEventSeverityConcept;
+import org.opencds.vmr.v1_0.internal.concepts.AdverseEventStatusConcept;
+import org.opencds.vmr.v1_0.internal.concepts.BrandedMedicationConcept;
+import org.opencds.vmr.v1_0.internal.concepts.CDSInputTemplateConcept;
+import org.opencds.vmr.v1_0.internal.concepts.CDSOutputTemplateConcept;
+import org.opencds.vmr.v1_0.internal.concepts.ClinicalStatementRelationshipConcept;
+import org.opencds.vmr.v1_0.internal.concepts.ClinicalStatementTemplateConcept;
+import org.opencds.vmr.v1_0.internal.concepts.DataSourceTypeConcept;
+import org.opencds.vmr.v1_0.internal.concepts.DoseTypeConcept;
+import org.opencds.vmr.v1_0.internal.concepts.DosingSigConcept;
+import org.opencds.vmr.v1_0.internal.concepts.EncounterCriticalityConcept;
+import org.opencds.vmr.v1_0.internal.concepts.EncounterTypeConcept;
+import org.opencds.vmr.v1_0.internal.concepts.EntityRelationshipConcept;
+import org.opencds.vmr.v1_0.internal.concepts.EntityTemplateConcept;
+import org.opencds.vmr.v1_0.internal.concepts.EntityTypeConcept;
+import org.opencds.vmr.v1_0.internal.concepts.EthnicityConcept;
+import org.opencds.vmr.v1_0.internal.concepts.EvaluatedPersonRelationshipConcept;
+import org.opencds.vmr.v1_0.internal.concepts.GenderConcept;
+import org.opencds.vmr.v1_0.internal.concepts.GenericMedicationConcept;
+import org.opencds.vmr.v1_0.internal.concepts.GoalCodedValueConcept;
+import org.opencds.vmr.v1_0.internal.concepts.GoalCriticalityConcept;
+import org.opencds.vmr.v1_0.internal.concepts.GoalFocusConcept;
+import org.opencds.vmr.v1_0.internal.concepts.GoalStatusConcept;
+import org.opencds.vmr.v1_0.internal.concepts.GoalTargetBodySiteConcept;
+import org.opencds.vmr.v1_0.internal.concepts.GoalTargetBodySiteLateralityConcept;
+import org.opencds.vmr.v1_0.internal.concepts.ImmunizationConcept;
+import org.opencds.vmr.v1_0.internal.concepts.InformationAttestationTypeConcept;
+import org.opencds.vmr.v1_0.internal.concepts.InformationRecipientPreferredLanguageConcept;
+import org.opencds.vmr.v1_0.internal.concepts.InformationRecipientTypeConcept;
+import org.opencds.vmr.v1_0.internal.concepts.ManufacturerConcept;
+import org.opencds.vmr.v1_0.internal.concepts.MedicationClassConcept;
+import org.opencds.vmr.v1_0.internal.concepts.MedicationConcept;
+import org.opencds.vmr.v1_0.internal.concepts.ObservationCodedValueConcept;
+import org.opencds.vmr.v1_0.internal.concepts.ObservationCriticalityConcept;
+import org.opencds.vmr.v1_0.internal.concepts.ObservationFocusConcept;
+import org.opencds.vmr.v1_0.internal.concepts.ObservationInterpretationConcept;
+import org.opencds.vmr.v1_0.internal.concepts.ObservationMethodConcept;
+import org.opencds.vmr.v1_0.internal.concepts.ObservationTargetBodySiteConcept;
+import org.opencds.vmr.v1_0.internal.concepts.ObservationTargetBodySiteLateralityConcept;
+import org.opencds.vmr.v1_0.internal.concepts.ObservationUnconductedReasonConcept;
+import org.opencds.vmr.v1_0.internal.concepts.PreferredLanguageConcept;
+import org.opencds.vmr.v1_0.internal.concepts.ProblemAffectedBodySiteConcept;
+import org.opencds.vmr.v1_0.internal.concepts.ProblemAffectedBodySiteLateralityConcept;
+import org.opencds.vmr.v1_0.internal.concepts.ProblemConcept;
+import org.opencds.vmr.v1_0.internal.concepts.ProblemImportanceConcept;
+import org.opencds.vmr.v1_0.internal.concepts.ProblemSeverityConcept;
+import org.opencds.vmr.v1_0.internal.concepts.ProblemStatusConcept;
+import org.opencds.vmr.v1_0.internal.concepts.ProcedureApproachBodySiteConcept;
+import org.opencds.vmr.v1_0.internal.concepts.ProcedureApproachBodySiteLateralityConcept;
+import org.opencds.vmr.v1_0.internal.concepts.ProcedureConcept;
+import org.opencds.vmr.v1_0.internal.concepts.ProcedureCriticalityConcept;
+import org.opencds.vmr.v1_0.internal.concepts.ProcedureMethodConcept;
+import org.opencds.vmr.v1_0.internal.concepts.ProcedureTargetBodySiteConcept;
+import org.opencds.vmr.v1_0.internal.concepts.ProcedureTargetBodySiteLateralityConcept;
+import org.opencds.vmr.v1_0.internal.concepts.RaceConcept;
+import org.opencds.vmr.v1_0.internal.concepts.ResourceTypeConcept;
+import org.opencds.vmr.v1_0.internal.concepts.SubstanceAdministrationApproachBodySiteConcept;
+import org.opencds.vmr.v1_0.internal.concepts.SubstanceAdministrationApproachBodySiteLateralityConcept;
+import org.opencds.vmr.v1_0.internal.concepts.SubstanceAdministrationCriticalityConcept;
+import org.opencds.vmr.v1_0.internal.concepts.SubstanceAdministrationGeneralPurposeConcept;
+import org.opencds.vmr.v1_0.internal.concepts.SubstanceAdministrationTargetBodySiteConcept;
+import org.opencds.vmr.v1_0.internal.concepts.SubstanceAdministrationTargetBodySiteLateralityConcept;
+import org.opencds.vmr.v1_0.internal.concepts.SubstanceDeliveryMethodConcept;
+import org.opencds.vmr.v1_0.internal.concepts.SubstanceDeliveryRouteConcept;
+import org.opencds.vmr.v1_0.internal.concepts.SubstanceFormConcept;
+import org.opencds.vmr.v1_0.internal.concepts.SupplyConcept;
+import org.opencds.vmr.v1_0.internal.concepts.SupplyCriticalityConcept;
+import org.opencds.vmr.v1_0.internal.concepts.SupplyTargetBodySiteConcept;
+import org.opencds.vmr.v1_0.internal.concepts.SupplyTargetBodySiteLateralityConcept;
+import org.opencds.vmr.v1_0.internal.concepts.SupplyUndeliveredReasonConcept;
+import org.opencds.vmr.v1_0.internal.concepts.SystemUserPreferredLanguageConcept;
+import org.opencds.vmr.v1_0.internal.concepts.SystemUserTaskContextConcept;
+import org.opencds.vmr.v1_0.internal.concepts.SystemUserTypeConcept;
+import org.opencds.vmr.v1_0.internal.concepts.UndeliveredProcedureReasonConcept;
+import org.opencds.vmr.v1_0.internal.concepts.UndeliveredSubstanceAdministrationReasonConcept;
+import org.opencds.vmr.v1_0.internal.concepts.VMRTemplateConcept;
+import org.opencds.vmr.v1_0.internal.concepts.VmrOpenCdsConcept;
+
+/**
+ * Factories for the {@link VmrOpenCdsConcept} classes, so that concept lists
+ * are built with plain constructor calls instead of reflection.
+ * <p>
+ * Concept classes not registered here get a factory using their public no-arg
+ * constructor, looked up once.
+ */
+final class ConceptFactories {
+    private static final ConcurrentMap<Class<?>, Supplier<?>> factories = new ConcurrentHashMap<>();
+
+    static {
+        register(AdverseEventAffectedBodySiteConcept.class, AdverseEventAffectedBodySiteConcept::new);
+        register(AdverseEventAffectedBodySiteLateralityConcept.class, AdverseEventAffectedBodySiteLateralityConcept::new);
+        register(AdverseEventAgentConcept.class, AdverseEventAgentConcept::new);
+        register(AdverseEventConcept.class, AdverseEventConcept::new);
+        register(AdverseEventCriticalityConcept.class, AdverseEventCriticalityConcept::new);
+        register(AdverseEventSeverityConcept.class, AdverseEventSeverityConcept::new);
+        register(AdverseEventStatusConcept.class, AdverseEventStatusConcept::new);
+        register(BrandedMedicationConcept.class, BrandedMedicationConcept::new);
+        register(CDSInputTemplateConcept.class, CDSInputTemplateConcept::new);
+        register(CDSOutputTemplateConcept.class, CDSOutputTemplateConcept::new);
+        register(ClinicalStatementRelationshipConcept.class, ClinicalStatementRelationshipConcept::new);
+        register(ClinicalStatementTemplateConcept.class, ClinicalStatementTemplateConcept::new);
+        register(DataSourceTypeConcept.class, DataSourceTypeConcept::new);
+        register(DoseTypeConcept.class, DoseTypeConcept::new);
+        register(DosingSigConcept.class, DosingSigConcept::new);
+        register(EncounterCriticalityConcept.class, EncounterCriticalityConcept::new);
+        register(EncounterTypeConcept.class, EncounterTypeConcept::new);
+        register(EntityRelationshipConcept.class, EntityRelationshipConcept::new);
+        register(EntityTemplateConcept.class, EntityTemplateConcept::new);
+        register(EntityTypeConcept.class, EntityTypeConcept::new);
+        register(EthnicityConcept.class, EthnicityConcept::new);
+        register(EvaluatedPersonRelationshipConcept.class, EvaluatedPersonRelationshipConcept::new);
+        register(GenderConcept.class, GenderConcept::new);
+        register(GenericMedicationConcept.class, GenericMedicationConcept::new);
+        register(GoalCodedValueConcept.class, GoalCodedValueConcept::new);
+        register(GoalCriticalityConcept.class, GoalCriticalityConcept::new);
+        register(GoalFocusConcept.class, GoalFocusConcept::new);
+        register(GoalStatusConcept.class, GoalStatusConcept::new);
+        register(GoalTargetBodySiteConcept.class, GoalTargetBodySiteConcept::new);
+        register(GoalTargetBodySiteLateralityConcept.class, GoalTargetBodySiteLateralityConcept::new);
+        register(ImmunizationConcept.class, ImmunizationConcept::new);
+        register(InformationAttestationTypeConcept.class, InformationAttestationTypeConcept::new);
+        register(InformationRecipientPreferredLanguageConcept.class, InformationRecipientPreferredLanguageConcept::new);
+        register(InformationRecipientTypeConcept.class, InformationRecipientTypeConcept::new);
+        register(ManufacturerConcept.class, ManufacturerConcept::new);
+        register(MedicationClassConcept.class, MedicationClassConcept::new);
+        register(MedicationConcept.class, MedicationConcept::new);
+        register(ObservationCodedValueConcept.class, ObservationCodedValueConcept::new);
+        register(ObservationCriticalityConcept.class, ObservationCriticalityConcept::new);
+        register(ObservationFocusConcept.class, ObservationFocusConcept::new);
+        register(ObservationInterpretationConcept.class, ObservationInterpretationConcept::new);
+        register(ObservationMethodConcept.class, ObservationMethodConcept::new);
+        register(ObservationTargetBodySiteConcept.class, ObservationTargetBodySiteConcept::new);
+        register(ObservationTargetBodySiteLateralityConcept.class, ObservationTargetBodySiteLateralityConcept::new);
+        register(ObservationUnconductedReasonConcept.class, ObservationUnconductedReasonConcept::new);
+        register(PreferredLanguageConcept.class, PreferredLanguageConcept::new);
+        register(ProblemAffectedBodySiteConcept.class, ProblemAffectedBodySiteConcept::new);
+        register(ProblemAffectedBodySiteLateralityConcept.class, ProblemAffectedBodySiteLateralityConcept::new);
+        register(ProblemConcept.class, ProblemConcept::new);
+        register(ProblemImportanceConcept.class, ProblemImportanceConcept::new);
+        register(ProblemSeverityConcept.class, ProblemSeverityConcept::new);
+        register(ProblemStatusConcept.class, ProblemStatusConcept::new);
+        register(ProcedureApproachBodySiteConcept.class, ProcedureApproachBodySiteConcept::new);
+        register(ProcedureApproachBodySiteLateralityConcept.class, ProcedureApproachBodySiteLateralityConcept::new);
+        register(ProcedureConcept.class, ProcedureConcept::new);
+        register(ProcedureCriticalityConcept.class, ProcedureCriticalityConcept::new);
+        register(ProcedureMethodConcept.class, ProcedureMethodConcept::new);
+        register(ProcedureTargetBodySiteConcept.class, ProcedureTargetBodySiteConcept::new);
+        register(ProcedureTargetBodySiteLateralityConcept.class, ProcedureTargetBodySiteLateralityConcept::new);
+        register(RaceConcept.class, RaceConcept::new);
+        register(ResourceTypeConcept.class, ResourceTypeConcept::new);
+        register(SubstanceAdministrationApproachBodySiteConcept.class, SubstanceAdministrationApproachBodySiteConcept::new);
+        register(SubstanceAdministrationApproachBodySiteLateralityConcept.class, SubstanceAdministrationApproachBodySiteLateralityConcept::new);
+        register(SubstanceAdministrationCriticalityConcept.class, SubstanceAdministrationCriticalityConcept::new);
+        register(SubstanceAdministrationGeneralPurposeConcept.class, SubstanceAdministrationGeneralPurposeConcept::new);
+        register(SubstanceAdministrationTargetBodySiteConcept.class, SubstanceAdministrationTargetBodySiteConcept::new);
+        register(SubstanceAdministrationTargetBodySiteLateralityConcept.class, SubstanceAdministrationTargetBodySiteLateralityConcept::new);
+        register(SubstanceDeliveryMethodConcept.class, SubstanceDeliveryMethodConcept::new);
+        register(SubstanceDeliveryRouteConcept.class, SubstanceDeliveryRouteConcept::new);
+        register(SubstanceFormConcept.class, SubstanceFormConcept::new);
+        register(SupplyConcept.class, SupplyConcept::new);
+        register(SupplyCriticalityConcept.class, SupplyCriticalityConcept::new);
+        register(SupplyTargetBodySiteConcept.class, SupplyTargetBodySiteConcept::new);
+        register(SupplyTargetBodySiteLateralityConcept.class, SupplyTargetBodySiteLateralityConcept::new);
+        register(SupplyUndeliveredReasonConcept.class, SupplyUndeliveredReasonConcept::new);
+        register(SystemUserPreferredLanguageConcept.class, SystemUserPreferredLanguageConcept::new);
+        register(SystemUserTaskContextConcept.class, SystemUserTaskContextConcept::new);
+        register(SystemUserTypeConcept.class, SystemUserTypeConcept::new);
+        register(UndeliveredProcedureReasonConcept.class, UndeliveredProcedureReasonConcept::new);
+        register(UndeliveredSubstanceAdministrationReasonConcept.class, UndeliveredSubstanceAdministrationReasonConcept::new);
+        register(VMRTemplateConcept.class, VMRTemplateConcept::new);
+    }
+
+    private ConceptFactories() {
+    }
+
+    private static <C extends VmrOpenCdsConcept> void register(Class<C> conceptClass, Supplier<C> factory) {
+        factories.put(conceptClass, factory);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <C extends VmrOpenCdsConcept> Supplier<C> get(Class<C> conceptClass) {
+        Supplier<?> factory = factories.get(conceptClass);
+        if (factory == null) {
+            factory = factories.computeIfAbsent(conceptClass, ConceptFactories::byConstructor);
+        }
+        return (Supplier<C>) factory;
+    }
+
+    private static Supplier<?> byConstructor(Class<?> conceptClass) {
+        final Constructor<?> constructor;
+        try {
+            constructor = conceptClass.getConstructor();
+        } catch (NoSuchMethodException e) {
+            throw new OpenCDSRuntimeException(e.getMessage(), e);
+        }
+        return () -> {
+            try {
+                return constructor.newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new OpenCDSRuntimeException(e.getMessage(), e);
+            }
+        };
+    }
+
+}
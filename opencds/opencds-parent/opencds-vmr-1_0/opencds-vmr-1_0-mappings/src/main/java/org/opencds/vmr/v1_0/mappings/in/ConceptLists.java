@@ -32,7 +32,19 @@ import java.util.concurrent.ConcurrentMap;
  *
  */
 public class ConceptLists {
+    private static final String ID_PREFIX = "c";
+
     private final ConcurrentMap<Class<?>, List<?>> conceptListMap = new ConcurrentHashMap<>();
+    private int lastId;
+    
+    /**
+     * Sequential ids for the concepts of one request; these only need to be
+     * unique within the request's facts, and the prefix keeps them apart from
+     * the ids of the mapped (non-concept) facts.
+     */
+    public String nextId() {
+        return ID_PREFIX + ++lastId;
+    }
     
     public <C> List<C> get(Class<C> clazz) {
         return (List<C>) conceptListMap.get(clazz);
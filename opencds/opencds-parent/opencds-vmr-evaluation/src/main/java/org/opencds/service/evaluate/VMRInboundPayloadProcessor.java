@@ -16,8 +16,8 @@
 
 package org.opencds.service.evaluate;
 
-import java.io.ByteArrayInputStream;
-import java.io.StringReader;
+import java.io.IOException;
+import java.io.InputStream;
 
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
@@ -59,18 +59,24 @@ public class VMRInboundPayloadProcessor implements InboundPayloadProcessor, Clon
 		log.debug("starting VMRInboundPayloadProcessor");
         JAXBElement<?> cdsInput = null;
 
-		try {
+		// the payload is unmarshalled straight from the (possibly gunzipping) request stream; no intermediate byte[] copy
+		try (InputStream in = payload.getPayloadStream()) {
 		    log.debug("Get unmarshaller for semanticSignifier: " + semanticSignifier);
 				Class<?> entryPoint = Class.forName(semanticSignifier.getEntryPoint());
-				StreamSource payloadStream = new StreamSource(new ByteArrayInputStream(payload.getPayload()));
+				StreamSource payloadStream = new StreamSource(in);
 
 				Unmarshaller unmarshaller = unmarshallerPool.borrowObject(semanticSignifier);
-				cdsInput = unmarshaller.unmarshal( payloadStream, entryPoint);
-				unmarshallerPool.returnObject(semanticSignifier, unmarshaller);
+				try {
+				    cdsInput = unmarshaller.unmarshal( payloadStream, entryPoint);
+				} finally {
+				    unmarshallerPool.returnObject(semanticSignifier, unmarshaller);
+				}
 		} catch (JAXBException e) {
 //			String jaxBError = e.getLinkedException().fillInStackTrace().getMessage();
 			e.printStackTrace();
-			throw new InvalidDriDataFormatException(e.getMessage() + ", therefore unable to unmarshal input Semantic Payload xml string: " + payload.getPayload(), e);
+			throw new InvalidDriDataFormatException(e.getMessage() + ", therefore unable to unmarshal input Semantic Payload xml", e);
+		} catch (IOException e) {
+		    throw new InvalidDriDataFormatException("Unable to read input Semantic Payload: " + e.getMessage(), e);
 		} catch (ClassNotFoundException e) {
 		    throw new OpenCDSRuntimeException("Unable to find entry point class (as configured): " + semanticSignifier.getEntryPoint(), e);
 		} catch (Exception e) {
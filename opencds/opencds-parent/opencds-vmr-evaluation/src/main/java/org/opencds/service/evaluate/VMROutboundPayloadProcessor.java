@@ -33,6 +33,7 @@ import org.opencds.common.exceptions.OpenCDSRuntimeException;
 import org.opencds.common.interfaces.ModelExitPoint;
 import org.opencds.common.interfaces.OutboundPayloadProcessor;
 import org.opencds.common.structures.EvaluationRequestKMItem;
+import org.opencds.config.api.EvaluationContext;
 import org.opencds.config.api.KnowledgeRepository;
 import org.opencds.config.api.model.EntityIdentifier;
 import org.opencds.config.api.model.SSId;
@@ -64,10 +65,18 @@ public class VMROutboundPayloadProcessor implements OutboundPayloadProcessor {
 	@Override
     public byte[] buildOutput(KnowledgeRepository knowledgeRepository, Map<String, List<?>> results, EvaluationRequestKMItem dssRequestKMItem) {
         ByteArrayOutputStream output = new ByteArrayOutputStream();
-        EntityIdentifier ei = EntityIdentifierUtil.makeEI(dssRequestKMItem.getEvaluationRequestDataItem().getExternalFactModelSSId());
-        SSId ssId = SSIdImpl.create(ei.getScopingEntityId(), ei.getBusinessId(), ei.getVersion());
-        SemanticSignifier semanticSignifier = knowledgeRepository.getSemanticSignifierService().find(ssId);
-        log.debug("building output for data model: " + ei.toString());
+        EvaluationContext context = EvaluationContext.of(dssRequestKMItem);
+        SSId ssId;
+        SemanticSignifier semanticSignifier;
+        if (context != null && context.getSemanticSignifier() != null) {
+            ssId = context.getSSId();
+            semanticSignifier = context.getSemanticSignifier();
+        } else {
+            EntityIdentifier ei = EntityIdentifierUtil.makeEI(dssRequestKMItem.getEvaluationRequestDataItem().getExternalFactModelSSId());
+            ssId = SSIdImpl.create(ei.getScopingEntityId(), ei.getBusinessId(), ei.getVersion());
+            semanticSignifier = knowledgeRepository.getSemanticSignifierService().find(ssId);
+        }
+        log.debug("building output for data model: " + ssId);
         try {
             Class<ModelExitPoint<?>> exitPoint = (Class<ModelExitPoint<?>>) Class.forName(semanticSignifier
                     .getExitPoint());